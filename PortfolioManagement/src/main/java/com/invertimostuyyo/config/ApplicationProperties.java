@@ -10,7 +10,31 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Batch batch = new Batch();
+
     // jhipster-needle-application-properties-property
+
+    public Batch getBatch() {
+        return batch;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Batch {
+
+        /**
+         * Number of rows written per multi-row statement by the batch endpoints: it bounds the memory used by a batch, whatever its size.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -0,0 +1,108 @@
+package com.invertimostuyyo.repository;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Describes how the entities of a type are written by a {@link BatchWriter}: the table, its columns other than the id, and the
+ * values of these columns for an entity - a many-to-one relationship is written as the id of the related entity.
+ * <p>
+ * The batch statements are plain JDBC: Hibernate does not batch the inserts of entities with {@code IDENTITY} ids.
+ * @param <T> the type of the entities.
+ */
+public class BatchTable<T> {
+
+    public static final String ID_COLUMN = "id";
+
+    private final Class<T> entityType;
+    private final String name;
+    private final List<String> columns;
+    private final Function<T, Long> idGetter;
+    private final Function<T, Object[]> valuesGetter;
+    private final List<String> collectionRoles;
+    private final String insertSql;
+    private final String insertWithIdSql;
+    private final String updateSql;
+
+    /**
+     * @param entityType the type of the entities.
+     * @param name the name of the table.
+     * @param columns the columns other than the id.
+     * @param idGetter the function which reads the id of an entity.
+     * @param valuesGetter the function which reads the values of the columns of an entity, in the order of the columns.
+     * @param collectionRoles the roles of the cached collections which hold the entities, evicted once the entities are written.
+     */
+    public BatchTable(
+        Class<T> entityType,
+        String name,
+        List<String> columns,
+        Function<T, Long> idGetter,
+        Function<T, Object[]> valuesGetter,
+        List<String> collectionRoles
+    ) {
+        this.entityType = entityType;
+        this.name = name;
+        this.columns = List.copyOf(columns);
+        this.idGetter = idGetter;
+        this.valuesGetter = valuesGetter;
+        this.collectionRoles = List.copyOf(collectionRoles);
+        String placeholders = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        this.insertSql = "INSERT INTO " + name + " (" + String.join(", ", columns) + ") VALUES (" + placeholders + ")";
+        this.insertWithIdSql =
+            "INSERT INTO " + name + " (" + String.join(", ", columns) + ", " + ID_COLUMN + ") VALUES (" + placeholders + ", ?)";
+        this.updateSql =
+            "UPDATE " +
+            name +
+            " SET " +
+            columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", ")) +
+            " WHERE " +
+            ID_COLUMN +
+            " = ?";
+    }
+
+    public Class<T> getEntityType() {
+        return entityType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public Long getId(T entity) {
+        return idGetter.apply(entity);
+    }
+
+    public Object[] getValues(T entity) {
+        return valuesGetter.apply(entity);
+    }
+
+    public List<String> getCollectionRoles() {
+        return collectionRoles;
+    }
+
+    /**
+     * @return the insert of the columns, the id being generated by the database.
+     */
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    /**
+     * @return the insert of the columns followed by the id.
+     */
+    public String getInsertWithIdSql() {
+        return insertWithIdSql;
+    }
+
+    /**
+     * @return the update of the columns, followed by the id in the where clause.
+     */
+    public String getUpdateSql() {
+        return updateSql;
+    }
+}
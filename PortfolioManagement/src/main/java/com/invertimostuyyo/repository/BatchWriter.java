@@ -0,0 +1,181 @@
+package com.invertimostuyyo.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes a chunk of entities with JDBC batches: the rows of a chunk are added to a single {@link PreparedStatement}, so the chunk
+ * costs one round trip per statement instead of one per row.
+ * <p>
+ * A chunk is written in its own transaction. If it fails, it is rolled back and its rows are written one by one, so that only the
+ * faulty rows are reported as failed. The written entities are evicted from the second level cache, which is bypassed by the batches.
+ */
+@Component
+public class BatchWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache cache;
+
+    public BatchWriter(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        EntityManagerFactory entityManagerFactory
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * Writes a chunk of entities.
+     * <p>
+     * The entities without id are inserted. The entities with an id are updated when {@code upsert} is set, and inserted with their id
+     * if it does not exist yet; the caller is expected to reject them otherwise.
+     * @param table the table of the entities.
+     * @param entities the entities to write, by their index in the request.
+     * @param upsert whether the entities with an id are updated.
+     * @param <T> the type of the entities.
+     * @return the result of each row, in the order of the indexes.
+     */
+    public <T> List<BatchResult> writeAll(BatchTable<T> table, Map<Long, T> entities, boolean upsert) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        List<BatchResult> results;
+        try {
+            results =
+                transactionTemplate.execute(status ->
+                    jdbcTemplate.execute((ConnectionCallback<List<BatchResult>>) connection -> writeChunk(connection, table, entities, upsert))
+                );
+        } catch (DataAccessException e) {
+            if (entities.size() == 1) {
+                Map.Entry<Long, T> entry = entities.entrySet().iterator().next();
+                return List.of(BatchResult.failed(entry.getKey(), table.getId(entry.getValue()), e.getMostSpecificCause().getMessage()));
+            }
+            results = new ArrayList<>();
+            for (Map.Entry<Long, T> entry : entities.entrySet()) {
+                results.addAll(writeAll(table, Map.of(entry.getKey(), entry.getValue()), upsert));
+            }
+            return results;
+        }
+        evict(table, results);
+        results.sort(Comparator.comparingLong(BatchResult::getIndex));
+        return results;
+    }
+
+    private <T> List<BatchResult> writeChunk(Connection connection, BatchTable<T> table, Map<Long, T> entities, boolean upsert)
+        throws SQLException {
+        List<Long> newIndexes = new ArrayList<>();
+        List<Long> existingIndexes = new ArrayList<>();
+        for (Map.Entry<Long, T> entry : entities.entrySet()) {
+            (table.getId(entry.getValue()) == null ? newIndexes : existingIndexes).add(entry.getKey());
+        }
+        List<BatchResult> results = insert(connection, table, entities, newIndexes);
+        if (!upsert || existingIndexes.isEmpty()) {
+            return results;
+        }
+        int[] rowsUpdated = executeBatch(connection, table.getUpdateSql(), table, entities, existingIndexes);
+        List<Long> missingIndexes = new ArrayList<>();
+        for (int i = 0; i < existingIndexes.size(); i++) {
+            Long index = existingIndexes.get(i);
+            if (rowsUpdated[i] != 0) {
+                results.add(BatchResult.updated(index, table.getId(entities.get(index))));
+            } else {
+                missingIndexes.add(index);
+            }
+        }
+        if (!missingIndexes.isEmpty()) {
+            executeBatch(connection, table.getInsertWithIdSql(), table, entities, missingIndexes);
+            for (Long index : missingIndexes) {
+                results.add(BatchResult.created(index, table.getId(entities.get(index))));
+            }
+        }
+        return results;
+    }
+
+    private <T> List<BatchResult> insert(Connection connection, BatchTable<T> table, Map<Long, T> entities, List<Long> indexes)
+        throws SQLException {
+        List<BatchResult> results = new ArrayList<>();
+        if (indexes.isEmpty()) {
+            return results;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(table.getInsertSql(), new String[] { BatchTable.ID_COLUMN })) {
+            for (Long index : indexes) {
+                bind(statement, table.getValues(entities.get(index)), null);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                for (Long index : indexes) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Missing generated id for the row " + index + " of the " + table.getName() + " batch");
+                    }
+                    results.add(BatchResult.created(index, generatedKeys.getLong(1)));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executes a statement whose parameters are the values of the columns, followed by the id.
+     */
+    private <T> int[] executeBatch(Connection connection, String sql, BatchTable<T> table, Map<Long, T> entities, List<Long> indexes)
+        throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Long index : indexes) {
+                T entity = entities.get(index);
+                bind(statement, table.getValues(entity), table.getId(entity));
+                statement.addBatch();
+            }
+            int[] rowsUpdated = statement.executeBatch();
+            for (int i = 0; i < rowsUpdated.length; i++) {
+                if (rowsUpdated[i] == Statement.EXECUTE_FAILED) {
+                    throw new SQLException("The row " + indexes.get(i) + " of the " + table.getName() + " batch failed");
+                }
+            }
+            return rowsUpdated;
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] values, Long id) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            StatementCreatorUtils.setParameterValue(statement, i + 1, SqlTypeValue.TYPE_UNKNOWN, values[i]);
+        }
+        if (id != null) {
+            statement.setLong(values.length + 1, id);
+        }
+    }
+
+    private void evict(BatchTable<?> table, List<BatchResult> results) {
+        for (BatchResult result : results) {
+            if (result.getStatus() == BatchResult.Status.UPDATED) {
+                cache.evictEntityData(table.getEntityType(), result.getId());
+            }
+        }
+        for (String role : table.getCollectionRoles()) {
+            cache.evictCollectionData(role);
+        }
+    }
+}
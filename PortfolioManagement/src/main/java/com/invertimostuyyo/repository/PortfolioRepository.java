@@ -9,4 +9,4 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {}
+public interface PortfolioRepository extends PortfolioRepositoryWithBatch, JpaRepository<Portfolio, Long> {}
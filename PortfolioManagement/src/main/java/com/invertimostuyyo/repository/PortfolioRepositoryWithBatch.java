@@ -0,0 +1,9 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Portfolio;
+import java.util.List;
+import java.util.Map;
+
+public interface PortfolioRepositoryWithBatch {
+    List<BatchResult> writeAll(Map<Long, Portfolio> portfolios, boolean upsert);
+}
@@ -0,0 +1,28 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Portfolio;
+import java.util.List;
+import java.util.Map;
+
+public class PortfolioRepositoryWithBatchImpl implements PortfolioRepositoryWithBatch {
+
+    static final BatchTable<Portfolio> TABLE = new BatchTable<>(
+        Portfolio.class,
+        "portfolio",
+        List.of("name", "description"),
+        Portfolio::getId,
+        portfolio -> new Object[] { portfolio.getName(), portfolio.getDescription() },
+        List.of()
+    );
+
+    private final BatchWriter batchWriter;
+
+    public PortfolioRepositoryWithBatchImpl(BatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public List<BatchResult> writeAll(Map<Long, Portfolio> portfolios, boolean upsert) {
+        return batchWriter.writeAll(TABLE, portfolios, upsert);
+    }
+}
@@ -9,4 +9,4 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PositionRepository extends JpaRepository<Position, Long> {}
+public interface PositionRepository extends PositionRepositoryWithBatch, JpaRepository<Position, Long> {}
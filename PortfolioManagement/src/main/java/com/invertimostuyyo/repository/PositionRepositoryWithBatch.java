@@ -0,0 +1,9 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Position;
+import java.util.List;
+import java.util.Map;
+
+public interface PositionRepositoryWithBatch {
+    List<BatchResult> writeAll(Map<Long, Position> positions, boolean upsert);
+}
@@ -0,0 +1,34 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Portfolio;
+import com.invertimostuyyo.domain.Position;
+import java.util.List;
+import java.util.Map;
+
+public class PositionRepositoryWithBatchImpl implements PositionRepositoryWithBatch {
+
+    static final BatchTable<Position> TABLE = new BatchTable<>(
+        Position.class,
+        "position",
+        List.of("amount", "price", "portfolio_id"),
+        Position::getId,
+        position ->
+            new Object[] {
+                position.getAmount(),
+                position.getPrice(),
+                position.getPortfolio() != null ? position.getPortfolio().getId() : null,
+            },
+        List.of(Portfolio.class.getName() + ".positions")
+    );
+
+    private final BatchWriter batchWriter;
+
+    public PositionRepositoryWithBatchImpl(BatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public List<BatchResult> writeAll(Map<Long, Position> positions, boolean upsert) {
+        return batchWriter.writeAll(TABLE, positions, upsert);
+    }
+}
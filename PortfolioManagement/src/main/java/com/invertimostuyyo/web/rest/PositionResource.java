@@ -1,19 +1,30 @@
 package com.invertimostuyyo.web.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.invertimostuyyo.config.ApplicationProperties;
 import com.invertimostuyyo.domain.Position;
+import com.invertimostuyyo.repository.BatchSummary;
 import com.invertimostuyyo.repository.PositionRepository;
 import com.invertimostuyyo.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.web.rest.util.BatchUtil;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,8 +47,22 @@ public class PositionResource {
 
     private final PositionRepository positionRepository;
 
-    public PositionResource(PositionRepository positionRepository) {
+    private final ObjectReader positionReader;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public PositionResource(
+        PositionRepository positionRepository,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.positionRepository = positionRepository;
+        this.positionReader = objectMapper.readerFor(Position.class);
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -60,6 +85,41 @@ public class PositionResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /positions/batch} : Create, or update with {@code upsert}, a batch of positions.
+     * <p>
+     * The positions are read as a JSON array or as newline delimited JSON, and written in chunks with JDBC batches. A faulty position
+     * does not fail the batch: it is reported in the failures, along with its index in the request.
+     *
+     * @param body the positions to write.
+     * @param upsert whether the positions with an ID are updated, or inserted with their ID when missing, instead of being rejected.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the numbers of written rows and the failures in body,
+     * or with status {@code 400 (Bad Request)} if the body is not valid JSON.
+     * @throws IOException if the body couldn't be read.
+     */
+    @PostMapping(value = "/positions/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<BatchSummary> createPositionBatch(
+        InputStream body,
+        @RequestParam(value = "upsert", defaultValue = "false") boolean upsert
+    ) throws IOException {
+        log.debug("REST request to save a batch of Positions, upsert: {}", upsert);
+        try {
+            BatchSummary summary = BatchUtil.writeAll(
+                body,
+                positionReader,
+                applicationProperties.getBatch().getChunkSize(),
+                upsert,
+                validator,
+                Position::getId,
+                positionRepository::writeAll
+            );
+            return ResponseEntity.ok(summary);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestAlertException("Invalid batch: " + e.getOriginalMessage(), ENTITY_NAME, "batchinvalid");
+        }
+    }
+
     /**
      * {@code PUT  /positions/:id} : Updates an existing position.
      *
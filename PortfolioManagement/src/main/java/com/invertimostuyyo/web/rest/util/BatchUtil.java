@@ -0,0 +1,92 @@
+package com.invertimostuyyo.web.rest.util;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.invertimostuyyo.repository.BatchResult;
+import com.invertimostuyyo.repository.BatchSummary;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+/**
+ * Utility class for handling batch writes.
+ * <p>
+ * The rows of a batch are read as a stream - a JSON array or newline delimited JSON - and written in chunks of a bounded size, so the
+ * memory used by a batch depends on its failed rows only. The written rows are counted in a {@link BatchSummary}, which keeps the
+ * {@link BatchResult} of the failed rows, identified by their index in the request.
+ */
+public final class BatchUtil {
+
+    private BatchUtil() {}
+
+    /**
+     * Validates the rows of a batch and writes the valid ones, chunk by chunk.
+     * @param body the body of the request.
+     * @param reader the reader of a row.
+     * @param chunkSize the maximum number of rows written at once.
+     * @param upsert whether the rows with an id are updated - they are rejected otherwise.
+     * @param validator the validator of the rows.
+     * @param idGetter the function which reads the id of a row.
+     * @param writer the function which writes a chunk of valid rows, by their index.
+     * @param <T> the type of the rows.
+     * @return the numbers of rows created, updated and failed, with the results of the failed rows, in the order of the request.
+     * @throws IOException if the body is not a JSON array or newline delimited JSON of rows - the chunks read before are written.
+     */
+    public static <T> BatchSummary writeAll(
+        InputStream body,
+        ObjectReader reader,
+        int chunkSize,
+        boolean upsert,
+        Validator validator,
+        Function<T, Long> idGetter,
+        BiFunction<Map<Long, T>, Boolean, List<BatchResult>> writer
+    ) throws IOException {
+        BatchSummary summary = new BatchSummary();
+        try (MappingIterator<T> rows = reader.readValues(body)) {
+            long index = 0;
+            while (rows.hasNextValue()) {
+                List<BatchResult> rejected = new ArrayList<>();
+                Map<Long, T> accepted = new LinkedHashMap<>();
+                for (; accepted.size() + rejected.size() < chunkSize && rows.hasNextValue(); index++) {
+                    T row = rows.nextValue();
+                    String error = validate(row, upsert, validator, idGetter);
+                    if (error != null) {
+                        rejected.add(BatchResult.failed(index, idGetter.apply(row), error));
+                    } else {
+                        accepted.put(index, row);
+                    }
+                }
+                List<BatchResult> chunk = new ArrayList<>(writer.apply(accepted, upsert));
+                chunk.addAll(rejected);
+                chunk.sort(Comparator.comparingLong(BatchResult::getIndex));
+                chunk.forEach(summary::add);
+            }
+        }
+        return summary;
+    }
+
+    private static <T> String validate(T row, boolean upsert, Validator validator, Function<T, Long> idGetter) {
+        if (!upsert && idGetter.apply(row) != null) {
+            return "A new row cannot already have an ID";
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(row);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -1,6 +1,8 @@
 package com.invertimostuyyo.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -11,6 +13,7 @@ import com.invertimostuyyo.repository.PortfolioRepository;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -114,6 +117,81 @@ class PortfolioResourceIT {
         assertThat(portfolioList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createPortfolioBatch() throws Exception {
+        List<Long> idsBeforeCreate = findAllIds();
+        Portfolio invalid = createEntity(em).name(null);
+
+        restPortfolioMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(portfolio, invalid, createUpdatedEntity(em))))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.failed").value(1))
+            .andExpect(jsonPath("$.failures.[*].index").value(contains(1)))
+            .andExpect(jsonPath("$.failures.[*].status").value(contains("FAILED")))
+            .andExpect(jsonPath("$.failures.[0].error").value(containsString("name")));
+
+        List<Long> ids = findNewIds(idsBeforeCreate);
+        try {
+            assertThat(ids).hasSize(2);
+            assertThat(portfolioRepository.findAllById(ids))
+                .extracting(Portfolio::getName)
+                .containsExactlyInAnyOrder(DEFAULT_NAME, UPDATED_NAME);
+        } finally {
+            portfolioRepository.deleteAllById(ids);
+        }
+    }
+
+    @Test
+    void upsertPortfolioBatch() throws Exception {
+        portfolioRepository.saveAndFlush(portfolio);
+        // Load the portfolio in the second level cache
+        portfolioRepository.findById(portfolio.getId());
+        List<Long> idsBeforeUpsert = findAllIds();
+        Portfolio updatedPortfolio = createUpdatedEntity(em);
+        updatedPortfolio.setId(portfolio.getId());
+
+        restPortfolioMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch?upsert=true")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(
+                        new String(TestUtil.convertObjectToJsonBytes(updatedPortfolio)) +
+                        "\n" +
+                        new String(TestUtil.convertObjectToJsonBytes(createEntity(em)))
+                    )
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.updated").value(1))
+            .andExpect(jsonPath("$.failures").isEmpty());
+
+        List<Long> ids = findNewIds(idsBeforeUpsert);
+        ids.add(portfolio.getId());
+        try {
+            assertThat(ids).hasSize(2);
+            Portfolio testPortfolio = portfolioRepository.findById(portfolio.getId()).orElseThrow();
+            assertThat(testPortfolio.getName()).isEqualTo(UPDATED_NAME);
+            assertThat(testPortfolio.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
+        } finally {
+            portfolioRepository.deleteAllById(ids);
+        }
+    }
+
+    private List<Long> findAllIds() {
+        return portfolioRepository.findAll().stream().map(Portfolio::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> findNewIds(List<Long> idsBefore) {
+        List<Long> ids = findAllIds();
+        ids.removeAll(idsBefore);
+        return ids;
+    }
+
     @Test
     @Transactional
     void checkNameIsRequired() throws Exception {
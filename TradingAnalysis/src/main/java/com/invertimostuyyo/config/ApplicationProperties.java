@@ -1,5 +1,8 @@
 package com.invertimostuyyo.config;
 
+import com.invertimostuyyo.domain.BarInterval;
+import java.time.Duration;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +13,248 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Batch batch = new Batch();
+
+    private final PriceBars priceBars = new PriceBars();
+
+    private final Indicators indicators = new Indicators();
+
+    private final AnalysisRun analysisRun = new AnalysisRun();
+
+    private final StockScreen stockScreen = new StockScreen();
+
+    private final HttpCache httpCache = new HttpCache();
+
     // jhipster-needle-application-properties-property
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public PriceBars getPriceBars() {
+        return priceBars;
+    }
+
+    public Indicators getIndicators() {
+        return indicators;
+    }
+
+    public AnalysisRun getAnalysisRun() {
+        return analysisRun;
+    }
+
+    public StockScreen getStockScreen() {
+        return stockScreen;
+    }
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Batch {
+
+        /**
+         * Number of rows written per multi-row statement by the batch endpoints: it bounds the memory used by a batch, whatever its size.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class PriceBars {
+
+        /**
+         * Directory of the segment files of the price bars, with a directory per stock and interval.
+         */
+        private String directory = "data/price-bars";
+
+        /**
+         * Maximum number of segments of a series of price bars, beyond which they are compacted into one.
+         */
+        private int maxSegments = 8;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+    }
+
+    public static class Indicators {
+
+        /**
+         * Maximum number of incremental states of the indicators kept in memory, the least recently used ones being evicted first.
+         */
+        private int maxStates = 1000;
+
+        /**
+         * Maximum number of chunks of the persisted values of an indicator, beyond which they are merged into one.
+         */
+        private int maxChunks = 16;
+
+        public int getMaxStates() {
+            return maxStates;
+        }
+
+        public void setMaxStates(int maxStates) {
+            this.maxStates = maxStates;
+        }
+
+        public int getMaxChunks() {
+            return maxChunks;
+        }
+
+        public void setMaxChunks(int maxChunks) {
+            this.maxChunks = maxChunks;
+        }
+    }
+
+    public static class AnalysisRun {
+
+        /**
+         * Number of threads of the pool which analyses the stocks, the number of processors if 0.
+         */
+        private int parallelism = 0;
+
+        /**
+         * Number of stocks written per transaction, with one checkpoint: a run which is resumed skips the chunks written.
+         */
+        private int chunkSize = 100;
+
+        /**
+         * Interval of the price bars over which the indicators are computed.
+         */
+        private BarInterval interval = BarInterval.ONE_DAY;
+
+        /**
+         * Names of the indicators of each analysis, as parsed by the indicator engine.
+         */
+        private List<String> indicators = List.of("SMA(20)", "EMA(20)", "RSI(14)", "MACD(12,26,9)", "BB(20,2)", "ATR(14)");
+
+        /**
+         * Maximum number of failures of a run reported by its status, the latest ones being kept.
+         */
+        private int maxFailures = 100;
+
+        /**
+         * Duration of the lease of a run by the instance executing it, which renews it with each chunk written and with its heartbeat: a
+         * run whose lease has expired is resumed by the next instance to start it or to beat.
+         */
+        private Duration leaseDuration = Duration.ofMinutes(2);
+
+        /**
+         * Interval of the heartbeat, which renews the leases of the runs executed by the instance, and resumes the runs whose lease has
+         * expired. It must be well below the duration of the lease.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public BarInterval getInterval() {
+            return interval;
+        }
+
+        public void setInterval(BarInterval interval) {
+            this.interval = interval;
+        }
+
+        public List<String> getIndicators() {
+            return indicators;
+        }
+
+        public void setIndicators(List<String> indicators) {
+            this.indicators = indicators;
+        }
+
+        public int getMaxFailures() {
+            return maxFailures;
+        }
+
+        public void setMaxFailures(int maxFailures) {
+            this.maxFailures = maxFailures;
+        }
+
+        public Duration getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        public void setLeaseDuration(Duration leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+    }
+    public static class StockScreen {
+
+        /**
+         * Maximum age of the stocks screened in memory, after which the next screen reloads them in the background: it bounds the
+         * staleness of the writes made through the other instances, the writes made through this one being applied as they are committed.
+         */
+        private Duration maxAge = Duration.ofMinutes(1);
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class HttpCache {
+
+        /**
+         * Time for which the successful GET responses of the reference data - stocks, analyses and indicators - may be cached by the
+         * gateway, instead of the {@code no-store} of the other responses. The browsers revalidate them on every use.
+         */
+        private Duration maxAge = Duration.ofSeconds(30);
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
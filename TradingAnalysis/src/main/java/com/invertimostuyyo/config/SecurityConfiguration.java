@@ -4,12 +4,16 @@ import com.invertimostuyyo.security.*;
 import com.invertimostuyyo.security.jwt.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 import tech.jhipster.config.JHipsterProperties;
 
@@ -20,17 +24,21 @@ public class SecurityConfiguration {
 
     private final JHipsterProperties jHipsterProperties;
 
+    private final ApplicationProperties applicationProperties;
+
     private final TokenProvider tokenProvider;
     private final SecurityProblemSupport problemSupport;
 
     public SecurityConfiguration(
         TokenProvider tokenProvider,
         JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
         SecurityProblemSupport problemSupport
     ) {
         this.tokenProvider = tokenProvider;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Bean
@@ -43,6 +51,10 @@ public class SecurityConfiguration {
             .exceptionHandling()
                 .authenticationEntryPoint(problemSupport)
                 .accessDeniedHandler(problemSupport)
+        .and()
+            .headers()
+                .cacheControl().disable()
+                .addHeaderWriter(cacheControlHeaderWriter())
         .and()
             .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
@@ -63,6 +75,22 @@ public class SecurityConfiguration {
         // @formatter:on
     }
 
+    /**
+     * The GET requests of the reference data are cached by the gateway for the configured time, with a {@code Surrogate-Control}. The
+     * browsers revalidate them on every use with their {@code ETag}, as the gateway cannot evict their copies on a write. The responses
+     * are private, as the gateway caches them by principal.
+     */
+    private CacheControlHeaderWriter cacheControlHeaderWriter() {
+        RequestMatcher referenceData = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/stocks/**", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/analyses/**", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/indicators/**", HttpMethod.GET.name())
+        );
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        CacheControl surrogateControl = CacheControl.maxAge(applicationProperties.getHttpCache().getMaxAge());
+        return new CacheControlHeaderWriter(referenceData, cacheControl.getHeaderValue(), surrogateControl.getHeaderValue());
+    }
+
     private JWTConfigurer securityConfigurerAdapter() {
         return new JWTConfigurer(tokenProvider);
     }
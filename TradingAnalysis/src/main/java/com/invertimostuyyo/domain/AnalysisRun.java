@@ -0,0 +1,165 @@
+package com.invertimostuyyo.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * AnalysisRun: a run of the batch analysis of all the {@link Stock}s for a date, which creates an {@link Analysis} of each stock with
+ * its {@link Indicator}s and their values.
+ * <p>
+ * The counts are those of the stocks whose chunk has been written: the stocks of a chunk which failed to be written are counted once
+ * the chunk is written by a later attempt.
+ */
+public class AnalysisRun implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private Long id;
+
+    private LocalDate date;
+
+    private Status status;
+
+    private int total;
+
+    private int processed;
+
+    private int failed;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public AnalysisRun id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public AnalysisRun date(LocalDate date) {
+        this.setDate(date);
+        return this;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public AnalysisRun status(Status status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the number of stocks of the run.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public AnalysisRun total(int total) {
+        this.setTotal(total);
+        return this;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    /**
+     * @return the number of stocks whose analysis has been written.
+     */
+    public int getProcessed() {
+        return processed;
+    }
+
+    public AnalysisRun processed(int processed) {
+        this.setProcessed(processed);
+        return this;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    /**
+     * @return the number of stocks whose analysis could not be computed, and which have been skipped.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    public AnalysisRun failed(int failed) {
+        this.setFailed(failed);
+        return this;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public AnalysisRun startedAt(Instant startedAt) {
+        this.setStartedAt(startedAt);
+        return this;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public AnalysisRun finishedAt(Instant finishedAt) {
+        this.setFinishedAt(finishedAt);
+        return this;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AnalysisRun{" +
+            "id=" + getId() +
+            ", date='" + getDate() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", total=" + getTotal() +
+            ", processed=" + getProcessed() +
+            ", failed=" + getFailed() +
+            "}";
+    }
+}
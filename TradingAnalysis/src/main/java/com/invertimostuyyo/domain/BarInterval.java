@@ -0,0 +1,12 @@
+package com.invertimostuyyo.domain;
+
+/**
+ * The interval of the price bars of a series: a stock has one series of bars per interval.
+ */
+public enum BarInterval {
+    ONE_MINUTE,
+    FIVE_MINUTES,
+    FIFTEEN_MINUTES,
+    ONE_HOUR,
+    ONE_DAY,
+}
@@ -0,0 +1,123 @@
+package com.invertimostuyyo.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IndicatorValues: the values of an {@link Indicator} computed over the price bars of the stock of its analysis, by column.
+ * <p>
+ * The times are those of the bars, in milliseconds since the epoch, from the first bar for which the indicator is defined. Each output
+ * of the indicator, such as the {@code macd}, {@code signal} and {@code histogram} of a MACD, has a column of values aligned on the
+ * times. The columns are shared, not copied: they must not be modified.
+ */
+public final class IndicatorValues implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long indicatorId;
+
+    private final String name;
+
+    private final BarInterval interval;
+
+    private final Instant computedAt;
+
+    private final long[] time;
+
+    private final Map<String, double[]> values;
+
+    public IndicatorValues(
+        Long indicatorId,
+        String name,
+        BarInterval interval,
+        Instant computedAt,
+        long[] time,
+        Map<String, double[]> values
+    ) {
+        for (double[] column : values.values()) {
+            if (column.length != time.length) {
+                throw new IllegalArgumentException("The columns of the values of an indicator must have the same length as its times");
+            }
+        }
+        this.indicatorId = indicatorId;
+        this.name = name;
+        this.interval = interval;
+        this.computedAt = computedAt;
+        this.time = time;
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    public Long getIndicatorId() {
+        return indicatorId;
+    }
+
+    /**
+     * @param indicatorId the id of an indicator.
+     * @return these values, for the indicator.
+     */
+    public IndicatorValues withIndicatorId(Long indicatorId) {
+        return new IndicatorValues(indicatorId, name, interval, computedAt, time, values);
+    }
+
+    /**
+     * @return the canonical name of the indicator, with all its parameters, such as {@code MACD(12,26,9)}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public BarInterval getInterval() {
+        return interval;
+    }
+
+    public Instant getComputedAt() {
+        return computedAt;
+    }
+
+    public long[] getTime() {
+        return time;
+    }
+
+    public Map<String, double[]> getValues() {
+        return values;
+    }
+
+    /**
+     * @param chunks the values of an indicator over successive bars, at least one.
+     * @return the values of the chunks, one after the other, computed at the time of the last chunk.
+     */
+    public static IndicatorValues concat(List<IndicatorValues> chunks) {
+        IndicatorValues last = chunks.get(chunks.size() - 1);
+        if (chunks.size() == 1) {
+            return last;
+        }
+        long[] time = new long[chunks.stream().mapToInt(chunk -> chunk.time.length).sum()];
+        Map<String, double[]> values = new LinkedHashMap<>();
+        last.values.keySet().forEach(output -> values.put(output, new double[time.length]));
+        int offset = 0;
+        for (IndicatorValues chunk : chunks) {
+            int size = chunk.time.length;
+            System.arraycopy(chunk.time, 0, time, offset, size);
+            for (Map.Entry<String, double[]> column : values.entrySet()) {
+                System.arraycopy(chunk.values.get(column.getKey()), 0, column.getValue(), offset, size);
+            }
+            offset += size;
+        }
+        return new IndicatorValues(last.indicatorId, last.name, last.interval, last.computedAt, time, values);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IndicatorValues{" +
+            "indicatorId=" + getIndicatorId() +
+            ", name='" + getName() + "'" +
+            ", interval='" + getInterval() + "'" +
+            ", size=" + time.length +
+            "}";
+    }
+}
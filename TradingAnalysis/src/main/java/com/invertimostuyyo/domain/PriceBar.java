@@ -0,0 +1,138 @@
+package com.invertimostuyyo.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.time.Instant;
+import javax.validation.constraints.*;
+
+/**
+ * A PriceBar: the open, high, low and close prices of a stock over an interval starting at its time, and the volume traded.
+ * <p>
+ * The bars are not entities: they are stored by column, in the segment files of their stock, and read back as a {@link PriceSeries}.
+ */
+public class PriceBar implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private Instant time;
+
+    @NotNull
+    private Double open;
+
+    @NotNull
+    private Double high;
+
+    @NotNull
+    private Double low;
+
+    @NotNull
+    private Double close;
+
+    @NotNull
+    @Min(value = 0L)
+    private Long volume;
+
+    public Instant getTime() {
+        return this.time;
+    }
+
+    public PriceBar time(Instant time) {
+        this.setTime(time);
+        return this;
+    }
+
+    public void setTime(Instant time) {
+        this.time = time;
+    }
+
+    public Double getOpen() {
+        return this.open;
+    }
+
+    public PriceBar open(Double open) {
+        this.setOpen(open);
+        return this;
+    }
+
+    public void setOpen(Double open) {
+        this.open = open;
+    }
+
+    public Double getHigh() {
+        return this.high;
+    }
+
+    public PriceBar high(Double high) {
+        this.setHigh(high);
+        return this;
+    }
+
+    public void setHigh(Double high) {
+        this.high = high;
+    }
+
+    public Double getLow() {
+        return this.low;
+    }
+
+    public PriceBar low(Double low) {
+        this.setLow(low);
+        return this;
+    }
+
+    public void setLow(Double low) {
+        this.low = low;
+    }
+
+    public Double getClose() {
+        return this.close;
+    }
+
+    public PriceBar close(Double close) {
+        this.setClose(close);
+        return this;
+    }
+
+    public void setClose(Double close) {
+        this.close = close;
+    }
+
+    public Long getVolume() {
+        return this.volume;
+    }
+
+    public PriceBar volume(Long volume) {
+        this.setVolume(volume);
+        return this;
+    }
+
+    public void setVolume(Long volume) {
+        this.volume = volume;
+    }
+
+    /**
+     * @return whether the low and high prices bound the open and close prices, if they are all set.
+     */
+    @JsonIgnore
+    @AssertTrue(message = "the low and high prices must bound the open and close prices")
+    public boolean isConsistent() {
+        if (open == null || high == null || low == null || close == null) {
+            return true;
+        }
+        return low <= Math.min(open, close) && high >= Math.max(open, close);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceBar{" +
+            "time='" + getTime() + "'" +
+            ", open=" + getOpen() +
+            ", high=" + getHigh() +
+            ", low=" + getLow() +
+            ", close=" + getClose() +
+            ", volume=" + getVolume() +
+            "}";
+    }
+}
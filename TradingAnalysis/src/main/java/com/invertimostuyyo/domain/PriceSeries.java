@@ -0,0 +1,199 @@
+package com.invertimostuyyo.domain;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A PriceSeries: price bars by column, in ascending order of time, with at most one bar per time.
+ * <p>
+ * The times are in milliseconds since the epoch. The columns of a series are shared, not copied: they must not be modified.
+ */
+public final class PriceSeries implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final PriceSeries EMPTY = allocate(0);
+
+    private final long[] time;
+
+    private final double[] open;
+
+    private final double[] high;
+
+    private final double[] low;
+
+    private final double[] close;
+
+    private final long[] volume;
+
+    public PriceSeries(long[] time, double[] open, double[] high, double[] low, double[] close, long[] volume) {
+        int size = time.length;
+        if (open.length != size || high.length != size || low.length != size || close.length != size || volume.length != size) {
+            throw new IllegalArgumentException("The columns of a price series must have the same length");
+        }
+        this.time = time;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param bars the bars, in any order.
+     * @return the series of the bars, keeping the last one of the bars with the same time.
+     */
+    public static PriceSeries of(List<PriceBar> bars) {
+        int size = bars.size();
+        PriceSeries series = allocate(size);
+        for (int i = 0; i < size; i++) {
+            PriceBar bar = bars.get(i);
+            series.time[i] = bar.getTime().toEpochMilli();
+            series.open[i] = bar.getOpen();
+            series.high[i] = bar.getHigh();
+            series.low[i] = bar.getLow();
+            series.close[i] = bar.getClose();
+            series.volume[i] = bar.getVolume();
+        }
+        return series.sorted();
+    }
+
+    /**
+     * @param series the series, the later ones overriding the bars of the earlier ones with the same time.
+     * @return the series of the bars of all the series.
+     */
+    public static PriceSeries merge(List<PriceSeries> series) {
+        List<PriceSeries> nonEmpty = series.stream().filter(s -> s.size() > 0).collect(Collectors.toList());
+        if (nonEmpty.isEmpty()) {
+            return EMPTY;
+        }
+        if (nonEmpty.size() == 1) {
+            return nonEmpty.get(0);
+        }
+        boolean ascending = true;
+        int size = 0;
+        for (int i = 0; i < nonEmpty.size(); i++) {
+            ascending &= i == 0 || nonEmpty.get(i).time[0] > nonEmpty.get(i - 1).lastTime();
+            size += nonEmpty.get(i).size();
+        }
+        PriceSeries merged = allocate(size);
+        int offset = 0;
+        for (PriceSeries s : nonEmpty) {
+            System.arraycopy(s.time, 0, merged.time, offset, s.size());
+            System.arraycopy(s.open, 0, merged.open, offset, s.size());
+            System.arraycopy(s.high, 0, merged.high, offset, s.size());
+            System.arraycopy(s.low, 0, merged.low, offset, s.size());
+            System.arraycopy(s.close, 0, merged.close, offset, s.size());
+            System.arraycopy(s.volume, 0, merged.volume, offset, s.size());
+            offset += s.size();
+        }
+        return ascending ? merged : merged.sorted();
+    }
+
+    /**
+     * @return the bars of the series from the index {@code from}, inclusive, to the index {@code to}, exclusive.
+     */
+    public PriceSeries slice(int from, int to) {
+        if (from == 0 && to == size()) {
+            return this;
+        }
+        return new PriceSeries(
+            Arrays.copyOfRange(time, from, to),
+            Arrays.copyOfRange(open, from, to),
+            Arrays.copyOfRange(high, from, to),
+            Arrays.copyOfRange(low, from, to),
+            Arrays.copyOfRange(close, from, to),
+            Arrays.copyOfRange(volume, from, to)
+        );
+    }
+
+    public int size() {
+        return time.length;
+    }
+
+    /**
+     * @return the time of the first bar, the series being non-empty.
+     */
+    public long firstTime() {
+        return time[0];
+    }
+
+    /**
+     * @return the time of the last bar, the series being non-empty.
+     */
+    public long lastTime() {
+        return time[time.length - 1];
+    }
+
+    public long[] getTime() {
+        return time;
+    }
+
+    public double[] getOpen() {
+        return open;
+    }
+
+    public double[] getHigh() {
+        return high;
+    }
+
+    public double[] getLow() {
+        return low;
+    }
+
+    public double[] getClose() {
+        return close;
+    }
+
+    public long[] getVolume() {
+        return volume;
+    }
+
+    /**
+     * @return the series sorted by time, keeping the last one of the bars with the same time.
+     */
+    private PriceSeries sorted() {
+        if (IntStream.range(1, size()).allMatch(i -> time[i] > time[i - 1])) {
+            return this;
+        }
+        Integer[] order = IntStream.range(0, size()).boxed().toArray(Integer[]::new);
+        // The sort is stable: the bars with the same time stay in their order, and the last one is kept
+        Arrays.sort(order, Comparator.comparingLong(i -> time[i]));
+        int[] kept = IntStream
+            .range(0, order.length)
+            .filter(i -> i == order.length - 1 || time[order[i]] != time[order[i + 1]])
+            .map(i -> order[i])
+            .toArray();
+        int size = kept.length;
+        PriceSeries sorted = allocate(size);
+        for (int i = 0; i < size; i++) {
+            sorted.time[i] = time[kept[i]];
+            sorted.open[i] = open[kept[i]];
+            sorted.high[i] = high[kept[i]];
+            sorted.low[i] = low[kept[i]];
+            sorted.close[i] = close[kept[i]];
+            sorted.volume[i] = volume[kept[i]];
+        }
+        return sorted;
+    }
+
+    private static PriceSeries allocate(int size) {
+        return new PriceSeries(new long[size], new double[size], new double[size], new double[size], new double[size], new long[size]);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceSeries{" +
+            "size=" + size() +
+            "}";
+    }
+}
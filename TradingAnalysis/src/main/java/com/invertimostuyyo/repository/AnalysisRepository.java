@@ -1,7 +1,10 @@
 package com.invertimostuyyo.repository;
 
 import com.invertimostuyyo.domain.Analysis;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +12,10 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface AnalysisRepository extends JpaRepository<Analysis, Long> {}
+public interface AnalysisRepository extends AnalysisRepositoryWithBatch, JpaRepository<Analysis, Long> {
+    @Query(
+        "select analysis from Analysis analysis join fetch analysis.stock where analysis.stock.id = :stockId " +
+        "order by analysis.date desc, analysis.id desc"
+    )
+    List<Analysis> findLatestWithStockByStockId(@Param("stockId") Long stockId, Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Analysis;
+import java.util.List;
+import java.util.Map;
+
+public interface AnalysisRepositoryWithBatch {
+    List<BatchResult> writeAll(Map<Long, Analysis> analyses, boolean upsert);
+
+    List<Long> insertAll(List<Analysis> analyses);
+}
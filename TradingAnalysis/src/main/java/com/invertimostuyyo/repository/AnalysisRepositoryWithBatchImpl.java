@@ -0,0 +1,39 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.Stock;
+import java.util.List;
+import java.util.Map;
+
+public class AnalysisRepositoryWithBatchImpl implements AnalysisRepositoryWithBatch {
+
+    static final BatchTable<Analysis> TABLE = new BatchTable<>(
+        Analysis.class,
+        "analysis",
+        List.of("date", "description", "stock_id"),
+        Analysis::getId,
+        analysis ->
+            new Object[] {
+                analysis.getDate(),
+                analysis.getDescription(),
+                analysis.getStock() != null ? analysis.getStock().getId() : null,
+            },
+        List.of(Stock.class.getName() + ".analyses")
+    );
+
+    private final BatchWriter batchWriter;
+
+    public AnalysisRepositoryWithBatchImpl(BatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public List<BatchResult> writeAll(Map<Long, Analysis> analyses, boolean upsert) {
+        return batchWriter.writeAll(TABLE, analyses, upsert);
+    }
+
+    @Override
+    public List<Long> insertAll(List<Analysis> analyses) {
+        return batchWriter.insertAll(TABLE, analyses);
+    }
+}
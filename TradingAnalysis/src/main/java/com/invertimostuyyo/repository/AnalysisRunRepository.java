@@ -0,0 +1,253 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.AnalysisRun;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for the {@link AnalysisRun}s and their checkpoints.
+ * <p>
+ * A checkpoint is written in the transaction of the analyses of its chunk of stocks, so the stocks it covers are exactly those whose
+ * analyses have been written: a run which is resumed skips them. A checkpoint is unique per first stock of its chunk, so that a chunk
+ * written twice rolls back.
+ * <p>
+ * A run is executed by the instance which holds its lease: an owner and an expiry, claimed and renewed by conditional updates, so that
+ * a single instance at a time writes its chunks.
+ */
+@Repository
+@Transactional
+public class AnalysisRunRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AnalysisRunRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert a new run, and set its id.
+     *
+     * @param run the run to insert.
+     * @return the run.
+     */
+    public AnalysisRun insert(AnalysisRun run) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "insert into analysis_run (run_date, status, total, processed, failed, started_at, finished_at) " +
+                    "values (?, ?, ?, ?, ?, ?, ?)",
+                    new String[] { "id" }
+                );
+                statement.setDate(1, Date.valueOf(run.getDate()));
+                statement.setString(2, run.getStatus().name());
+                statement.setInt(3, run.getTotal());
+                statement.setInt(4, run.getProcessed());
+                statement.setInt(5, run.getFailed());
+                statement.setTimestamp(6, Timestamp.from(run.getStartedAt()));
+                statement.setTimestamp(7, toTimestamp(run.getFinishedAt()));
+                return statement;
+            },
+            keyHolder
+        );
+        return run.id(keyHolder.getKey().longValue());
+    }
+
+    /**
+     * Update the status and the counts of a run, if its lease is held by the owner. The lease is released once the run is no longer
+     * running.
+     *
+     * @param run the run to update.
+     * @param owner the owner of the lease.
+     * @return whether the run has been updated.
+     */
+    public boolean update(AnalysisRun run, String owner) {
+        String release = run.getStatus() != AnalysisRun.Status.RUNNING ? ", lease_owner = null, lease_until = null" : "";
+        return (
+            jdbcTemplate.update(
+                "update analysis_run set status = ?, total = ?, processed = ?, failed = ?, finished_at = ?" +
+                release +
+                " where id = ? and lease_owner = ?",
+                run.getStatus().name(),
+                run.getTotal(),
+                run.getProcessed(),
+                run.getFailed(),
+                toTimestamp(run.getFinishedAt()),
+                run.getId(),
+                owner
+            ) ==
+            1
+        );
+    }
+
+    /**
+     * Claim the lease of a run which is not completed, if it has no owner, if it is already held by the owner, or if it has expired.
+     *
+     * @param id the id of the run.
+     * @param owner the owner of the lease.
+     * @param now the current time.
+     * @param leaseUntil the expiry of the lease.
+     * @return whether the lease has been claimed.
+     */
+    public boolean claim(Long id, String owner, Instant now, Instant leaseUntil) {
+        return (
+            jdbcTemplate.update(
+                "update analysis_run set lease_owner = ?, lease_until = ? " +
+                "where id = ? and status <> ? and (lease_owner is null or lease_owner = ? or lease_until < ?)",
+                owner,
+                Timestamp.from(leaseUntil),
+                id,
+                AnalysisRun.Status.COMPLETED.name(),
+                owner,
+                Timestamp.from(now)
+            ) ==
+            1
+        );
+    }
+
+    /**
+     * Renew the lease of a run, if it is still held by the owner.
+     *
+     * @param id the id of the run.
+     * @param owner the owner of the lease.
+     * @param leaseUntil the new expiry of the lease.
+     * @return whether the lease has been renewed.
+     */
+    public boolean renewLease(Long id, String owner, Instant leaseUntil) {
+        return (
+            jdbcTemplate.update(
+                "update analysis_run set lease_until = ? where id = ? and lease_owner = ?",
+                Timestamp.from(leaseUntil),
+                id,
+                owner
+            ) ==
+            1
+        );
+    }
+
+    public Optional<AnalysisRun> findById(Long id) {
+        return jdbcTemplate
+            .query("select * from analysis_run where id = ?", (resultSet, row) -> toAnalysisRun(resultSet), id)
+            .stream()
+            .findFirst();
+    }
+
+    public Optional<AnalysisRun> findByDate(LocalDate date) {
+        return jdbcTemplate
+            .query("select * from analysis_run where run_date = ?", (resultSet, row) -> toAnalysisRun(resultSet), Date.valueOf(date))
+            .stream()
+            .findFirst();
+    }
+
+    public List<AnalysisRun> findByStatus(AnalysisRun.Status status) {
+        return jdbcTemplate.query(
+            "select * from analysis_run where status = ? order by id",
+            (resultSet, row) -> toAnalysisRun(resultSet),
+            status.name()
+        );
+    }
+
+    /**
+     * Insert the checkpoint of a chunk of stocks, in the transaction of their analyses.
+     *
+     * @param checkpoint the checkpoint to insert.
+     */
+    public void insertCheckpoint(Checkpoint checkpoint) {
+        jdbcTemplate.update(
+            "insert into analysis_run_checkpoint (run_id, first_stock_id, last_stock_id, processed, failed) values (?, ?, ?, ?, ?)",
+            checkpoint.getRunId(),
+            checkpoint.getFirstStockId(),
+            checkpoint.getLastStockId(),
+            checkpoint.getProcessed(),
+            checkpoint.getFailed()
+        );
+    }
+
+    public List<Checkpoint> findCheckpoints(Long runId) {
+        return jdbcTemplate.query(
+            "select * from analysis_run_checkpoint where run_id = ? order by first_stock_id",
+            (resultSet, row) ->
+                new Checkpoint(
+                    resultSet.getLong("run_id"),
+                    resultSet.getLong("first_stock_id"),
+                    resultSet.getLong("last_stock_id"),
+                    resultSet.getInt("processed"),
+                    resultSet.getInt("failed")
+                ),
+            runId
+        );
+    }
+
+    public void deleteById(Long id) {
+        jdbcTemplate.update("delete from analysis_run where id = ?", id);
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return instant != null ? Timestamp.from(instant) : null;
+    }
+
+    private static AnalysisRun toAnalysisRun(ResultSet resultSet) throws SQLException {
+        Timestamp finishedAt = resultSet.getTimestamp("finished_at");
+        return new AnalysisRun()
+            .id(resultSet.getLong("id"))
+            .date(resultSet.getDate("run_date").toLocalDate())
+            .status(AnalysisRun.Status.valueOf(resultSet.getString("status")))
+            .total(resultSet.getInt("total"))
+            .processed(resultSet.getInt("processed"))
+            .failed(resultSet.getInt("failed"))
+            .startedAt(resultSet.getTimestamp("started_at").toInstant())
+            .finishedAt(finishedAt != null ? finishedAt.toInstant() : null);
+    }
+
+    /**
+     * The checkpoint of a chunk of stocks of a run: the range of their ids, and their counts.
+     */
+    public static class Checkpoint {
+
+        private final Long runId;
+        private final long firstStockId;
+        private final long lastStockId;
+        private final int processed;
+        private final int failed;
+
+        public Checkpoint(Long runId, long firstStockId, long lastStockId, int processed, int failed) {
+            this.runId = runId;
+            this.firstStockId = firstStockId;
+            this.lastStockId = lastStockId;
+            this.processed = processed;
+            this.failed = failed;
+        }
+
+        public Long getRunId() {
+            return runId;
+        }
+
+        public long getFirstStockId() {
+            return firstStockId;
+        }
+
+        public long getLastStockId() {
+            return lastStockId;
+        }
+
+        public int getProcessed() {
+            return processed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+}
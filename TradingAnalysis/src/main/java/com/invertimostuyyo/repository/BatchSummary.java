@@ -0,0 +1,58 @@
+package com.invertimostuyyo.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of writing a batch: the number of rows created, updated and failed, and the {@link BatchResult} of the failed rows only,
+ * so that its size does not depend on the number of rows written.
+ */
+public class BatchSummary {
+
+    private long created;
+    private long updated;
+    private final List<BatchResult> failures = new ArrayList<>();
+
+    /**
+     * Count the result of a row, keeping it if the row failed.
+     *
+     * @param result the result of a row.
+     */
+    public void add(BatchResult result) {
+        switch (result.getStatus()) {
+            case CREATED:
+                created++;
+                break;
+            case UPDATED:
+                updated++;
+                break;
+            default:
+                failures.add(result);
+        }
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getFailed() {
+        return failures.size();
+    }
+
+    /**
+     * @return the results of the failed rows, in the order of the request.
+     */
+    public List<BatchResult> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchSummary{" + "created=" + created + ", updated=" + updated + ", failed=" + failures.size() + "}";
+    }
+}
@@ -1,7 +1,10 @@
 package com.invertimostuyyo.repository;
 
 import com.invertimostuyyo.domain.Indicator;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +12,7 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface IndicatorRepository extends JpaRepository<Indicator, Long> {}
+public interface IndicatorRepository extends IndicatorRepositoryWithBatch, JpaRepository<Indicator, Long> {
+    @Query("select indicator from Indicator indicator where indicator.analysis.id in :analysisIds order by indicator.id")
+    List<Indicator> findByAnalysisIdIn(@Param("analysisIds") Collection<Long> analysisIds);
+}
@@ -0,0 +1,11 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Indicator;
+import java.util.List;
+import java.util.Map;
+
+public interface IndicatorRepositoryWithBatch {
+    List<BatchResult> writeAll(Map<Long, Indicator> indicators, boolean upsert);
+
+    List<Long> insertAll(List<Indicator> indicators);
+}
@@ -0,0 +1,39 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.Indicator;
+import java.util.List;
+import java.util.Map;
+
+public class IndicatorRepositoryWithBatchImpl implements IndicatorRepositoryWithBatch {
+
+    static final BatchTable<Indicator> TABLE = new BatchTable<>(
+        Indicator.class,
+        "indicator",
+        List.of("name", "description", "analysis_id"),
+        Indicator::getId,
+        indicator ->
+            new Object[] {
+                indicator.getName(),
+                indicator.getDescription(),
+                indicator.getAnalysis() != null ? indicator.getAnalysis().getId() : null,
+            },
+        List.of(Analysis.class.getName() + ".indicators")
+    );
+
+    private final BatchWriter batchWriter;
+
+    public IndicatorRepositoryWithBatchImpl(BatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public List<BatchResult> writeAll(Map<Long, Indicator> indicators, boolean upsert) {
+        return batchWriter.writeAll(TABLE, indicators, upsert);
+    }
+
+    @Override
+    public List<Long> insertAll(List<Indicator> indicators) {
+        return batchWriter.insertAll(TABLE, indicators);
+    }
+}
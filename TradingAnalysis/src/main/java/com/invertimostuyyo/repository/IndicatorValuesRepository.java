@@ -0,0 +1,219 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.IndicatorValues;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the {@link IndicatorValues}, with rows per indicator: its values are stored in chunks, numbered from 0, so that the
+ * values of new bars are appended without writing the previous ones again.
+ * <p>
+ * The times and the values are stored in binary, by column: a chunk is read and written as a whole, and costs 8 bytes per time and per
+ * output instead of a row per bar.
+ */
+@Repository
+public class IndicatorValuesRepository {
+
+    private static final String INSERT_SQL =
+        "insert into indicator_values (indicator_id, chunk, name, bar_interval, outputs, size, times, series_values, computed_at) " +
+        "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndicatorValuesRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Save the values of an indicator as a single chunk, replacing its previous ones.
+     *
+     * @param values the values to save.
+     */
+    public void save(IndicatorValues values) {
+        jdbcTemplate.update("delete from indicator_values where indicator_id = ?", values.getIndicatorId());
+        jdbcTemplate.update(INSERT_SQL, toRow(values, 0));
+    }
+
+    /**
+     * Append values to the ones of an indicator, as a new chunk.
+     *
+     * @param values the values to append, all after the previous ones.
+     * @param chunk the number of the new chunk, which is the number of chunks of the indicator.
+     */
+    public void append(IndicatorValues values, int chunk) {
+        jdbcTemplate.update(INSERT_SQL, toRow(values, chunk));
+    }
+
+    /**
+     * Update the time of computation of the values of an indicator, when no values have been appended to them.
+     *
+     * @param indicatorId the id of the indicator.
+     * @param computedAt the time of the computation.
+     */
+    public void updateComputedAt(Long indicatorId, Instant computedAt) {
+        jdbcTemplate.update("update indicator_values set computed_at = ? where indicator_id = ?", Timestamp.from(computedAt), indicatorId);
+    }
+
+    /**
+     * Insert the values of indicators which have none yet, with a single batch.
+     *
+     * @param values the values to insert.
+     */
+    public void insertAll(List<IndicatorValues> values) {
+        if (!values.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, values.stream().map(value -> toRow(value, 0)).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Find the values of the indicators of an analysis, with their chunks appended in order.
+     *
+     * @param analysisId the id of the analysis.
+     * @return the values of the indicators of the analysis which have been computed, in the order of the ids of the indicators.
+     */
+    public List<IndicatorValues> findByAnalysisId(Long analysisId) {
+        return concat(
+            jdbcTemplate.query(
+                "select v.* from indicator_values v join indicator i on i.id = v.indicator_id where i.analysis_id = ? " +
+                "order by v.indicator_id, v.chunk",
+                (resultSet, row) -> toIndicatorValues(resultSet),
+                analysisId
+            )
+        );
+    }
+
+    /**
+     * Find the values of an indicator, with its chunks appended in order.
+     *
+     * @param indicatorId the id of the indicator.
+     * @return the values of the indicator, if they have been computed.
+     */
+    public Optional<IndicatorValues> findByIndicatorId(Long indicatorId) {
+        return concat(
+            jdbcTemplate.query(
+                "select * from indicator_values where indicator_id = ? order by chunk",
+                (resultSet, row) -> toIndicatorValues(resultSet),
+                indicatorId
+            )
+        )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Find the number of chunks of the values of the indicators of an analysis, and the time of their last computation, without reading
+     * the values.
+     *
+     * @param analysisId the id of the analysis.
+     * @return the chunks of the indicators of the analysis which have been computed, by id of indicator.
+     */
+    public Map<Long, Chunks> findChunksByAnalysisId(Long analysisId) {
+        Map<Long, Chunks> result = new HashMap<>();
+        jdbcTemplate.query(
+            "select v.indicator_id, count(*) as chunks, max(v.computed_at) as computed_at from indicator_values v " +
+            "join indicator i on i.id = v.indicator_id where i.analysis_id = ? group by v.indicator_id",
+            resultSet -> {
+                result.put(
+                    resultSet.getLong("indicator_id"),
+                    new Chunks(resultSet.getInt("chunks"), resultSet.getTimestamp("computed_at").toInstant())
+                );
+            },
+            analysisId
+        );
+        return result;
+    }
+
+    /**
+     * @param chunks the chunks of indicators, in the order of the ids of the indicators, then of their numbers.
+     * @return the values of each indicator.
+     */
+    private static List<IndicatorValues> concat(List<IndicatorValues> chunks) {
+        List<IndicatorValues> result = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= chunks.size(); i++) {
+            if (i == chunks.size() || !chunks.get(i).getIndicatorId().equals(chunks.get(from).getIndicatorId())) {
+                result.add(IndicatorValues.concat(chunks.subList(from, i)));
+                from = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The number of chunks of the values of an indicator, and the time of their last computation.
+     */
+    public static final class Chunks {
+
+        private final int count;
+
+        private final Instant computedAt;
+
+        public Chunks(int count, Instant computedAt) {
+            this.count = count;
+            this.computedAt = computedAt;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public Instant getComputedAt() {
+            return computedAt;
+        }
+    }
+
+    private static Object[] toRow(IndicatorValues values, int chunk) {
+        int size = values.getTime().length;
+        ByteBuffer times = ByteBuffer.allocate(size * Long.BYTES);
+        times.asLongBuffer().put(values.getTime());
+        ByteBuffer series = ByteBuffer.allocate(size * values.getValues().size() * Double.BYTES);
+        DoubleBuffer seriesValues = series.asDoubleBuffer();
+        values.getValues().values().forEach(seriesValues::put);
+        return new Object[] {
+            values.getIndicatorId(),
+            chunk,
+            values.getName(),
+            values.getInterval().name(),
+            String.join(",", values.getValues().keySet()),
+            size,
+            times.array(),
+            series.array(),
+            Timestamp.from(values.getComputedAt()),
+        };
+    }
+
+    private static IndicatorValues toIndicatorValues(ResultSet resultSet) throws SQLException {
+        int size = resultSet.getInt("size");
+        long[] time = new long[size];
+        ByteBuffer.wrap(resultSet.getBytes("times")).asLongBuffer().get(time);
+        DoubleBuffer series = ByteBuffer.wrap(resultSet.getBytes("series_values")).asDoubleBuffer();
+        Map<String, double[]> values = new LinkedHashMap<>();
+        for (String output : resultSet.getString("outputs").split(",")) {
+            double[] column = new double[size];
+            series.get(column);
+            values.put(output, column);
+        }
+        return new IndicatorValues(
+            resultSet.getLong("indicator_id"),
+            resultSet.getString("name"),
+            BarInterval.valueOf(resultSet.getString("bar_interval")),
+            resultSet.getTimestamp("computed_at").toInstant(),
+            time,
+            values
+        );
+    }
+}
@@ -0,0 +1,157 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.PriceSeries;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A segment file of price bars, written once and never modified.
+ * <p>
+ * A segment has a header, with the number of bars and the time of the first and last ones, followed by the columns of the bars, each
+ * one contiguous: the times, the open, high, low and close prices, and the volumes. The header lets the segments out of a range be
+ * skipped, and a segment in a range is read with a single sequential read.
+ */
+final class PriceBarSegment {
+
+    private static final int MAGIC = 0x4f484c43;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int COLUMNS = 6;
+
+    /**
+     * Suffix of the temporary file a segment is written to before being moved in place.
+     */
+    static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private PriceBarSegment() {}
+
+    /**
+     * Writes a segment, atomically: a segment is either complete or absent. A temporary file left over by a crash is overwritten.
+     *
+     * @param file the segment file, which must not exist.
+     * @param series the non-empty bars of the segment.
+     * @throws IOException if the segment couldn't be written.
+     */
+    static void write(Path file, PriceSeries series) throws IOException {
+        int size = series.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + COLUMNS * Long.BYTES * size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(0).putLong(series.firstTime()).putLong(series.lastTime());
+        buffer.asLongBuffer().put(series.getTime());
+        buffer.position(buffer.position() + Long.BYTES * size);
+        buffer.asDoubleBuffer().put(series.getOpen());
+        buffer.position(buffer.position() + Double.BYTES * size);
+        buffer.asDoubleBuffer().put(series.getHigh());
+        buffer.position(buffer.position() + Double.BYTES * size);
+        buffer.asDoubleBuffer().put(series.getLow());
+        buffer.position(buffer.position() + Double.BYTES * size);
+        buffer.asDoubleBuffer().put(series.getClose());
+        buffer.position(buffer.position() + Double.BYTES * size);
+        buffer.asLongBuffer().put(series.getVolume());
+        buffer.rewind();
+
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+        try (
+            FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the bars of a segment in a range of times.
+     *
+     * @param file the segment file.
+     * @param from the start of the range, inclusive, in milliseconds since the epoch.
+     * @param to the end of the range, exclusive, in milliseconds since the epoch.
+     * @return the bars of the segment in the range, possibly none.
+     * @throws IOException if the segment couldn't be read, or is corrupted.
+     */
+    static PriceSeries read(Path file, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a price bar segment: " + file);
+            }
+            int size = header.getInt();
+            header.getInt();
+            long firstTime = header.getLong();
+            long lastTime = header.getLong();
+            if (channel.size() != HEADER_SIZE + (long) COLUMNS * Long.BYTES * size) {
+                throw new IOException("Truncated price bar segment: " + file);
+            }
+            if (size == 0 || lastTime < from || firstTime >= to) {
+                return PriceSeries.empty();
+            }
+            ByteBuffer columns = readFully(channel, HEADER_SIZE, COLUMNS * Long.BYTES * size);
+            LongBuffer times = columns.asLongBuffer();
+            int start = lowerBound(times, size, from);
+            int end = lowerBound(times, size, to);
+            int length = end - start;
+            long[] time = new long[length];
+            double[] open = new double[length];
+            double[] high = new double[length];
+            double[] low = new double[length];
+            double[] close = new double[length];
+            long[] volume = new long[length];
+            column(columns, 0, size, start).asLongBuffer().get(time);
+            column(columns, 1, size, start).asDoubleBuffer().get(open);
+            column(columns, 2, size, start).asDoubleBuffer().get(high);
+            column(columns, 3, size, start).asDoubleBuffer().get(low);
+            column(columns, 4, size, start).asDoubleBuffer().get(close);
+            column(columns, 5, size, start).asLongBuffer().get(volume);
+            return new PriceSeries(time, open, high, low, close, volume);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated price bar segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @return the columns positioned at the bar {@code start} of the column {@code column}.
+     */
+    private static ByteBuffer column(ByteBuffer columns, int column, int size, int start) {
+        return columns.position((column * size + start) * Long.BYTES);
+    }
+
+    /**
+     * @return the index of the first time greater than or equal to {@code time}, or {@code size} if there is none.
+     */
+    private static int lowerBound(LongBuffer times, int size, long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times.get(middle) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,250 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.config.ApplicationProperties;
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.PriceSeries;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Store of the price bars of the stocks, by column in append-only segment files rather than one row per bar.
+ * <p>
+ * The bars of a stock and interval form a series, stored in its own directory: each append writes a new segment, and the segments of
+ * a series are compacted into one when there are more than the configured maximum, so that a whole series is usually read with a
+ * single sequential read. A bar appended again overrides the previous one with the same time. The temporary files of the segments
+ * left over by a crash are deleted by the next append.
+ * <p>
+ * The appends and reads of a series are serialized by a lock of this store: the directory must not be shared between instances. The lock
+ * of a series is dropped when the series is deleted.
+ */
+@Repository
+public class PriceBarStore {
+
+    private static final String SEGMENT_SUFFIX = ".bars";
+
+    private final Logger log = LoggerFactory.getLogger(PriceBarStore.class);
+
+    private final Map<Path, ReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    private final int maxSegments;
+
+    @Autowired
+    public PriceBarStore(ApplicationProperties applicationProperties) {
+        this(Path.of(applicationProperties.getPriceBars().getDirectory()), applicationProperties.getPriceBars().getMaxSegments());
+    }
+
+    PriceBarStore(Path directory, int maxSegments) {
+        this.directory = directory;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Appends bars to the series of a stock.
+     *
+     * @param stockId the id of the stock.
+     * @param interval the interval of the bars.
+     * @param bars the bars to append, overriding the bars of the series with the same time.
+     */
+    public void append(Long stockId, BarInterval interval, PriceSeries bars) {
+        if (bars.size() == 0) {
+            return;
+        }
+        Path series = seriesDirectory(stockId, interval);
+        Lock lock = lock(series, true);
+        try {
+            Files.createDirectories(series);
+            deleteTemporaryFiles(series);
+            List<Path> segments = segments(series);
+            long sequence = segments.isEmpty() ? 1 : sequence(segments.get(segments.size() - 1)) + 1;
+            PriceBarSegment.write(segmentFile(series, sequence), bars);
+            if (segments.size() + 1 > maxSegments) {
+                compact(series, sequence + 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append the price bars of the stock " + stockId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the bars of the series of a stock in a range of times.
+     *
+     * @param stockId the id of the stock.
+     * @param interval the interval of the bars.
+     * @param from the start of the range, inclusive, in milliseconds since the epoch.
+     * @param to the end of the range, exclusive, in milliseconds since the epoch.
+     * @return the bars in the range, possibly none.
+     */
+    public PriceSeries find(Long stockId, BarInterval interval, long from, long to) {
+        Path series = seriesDirectory(stockId, interval);
+        Lock lock = lock(series, false);
+        try {
+            if (!Files.isDirectory(series)) {
+                return PriceSeries.empty();
+            }
+            return read(segments(series), from, to);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the price bars of the stock " + stockId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes all the series of a stock, once the current transaction is committed, so that the bars of a stock whose deletion is rolled
+     * back are kept.
+     *
+     * @param stockId the id of the stock.
+     */
+    public void deleteAfterCommit(Long stockId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        delete(stockId);
+                    }
+                }
+            );
+        } else {
+            delete(stockId);
+        }
+    }
+
+    /**
+     * Deletes all the series of a stock.
+     *
+     * @param stockId the id of the stock.
+     */
+    public void delete(Long stockId) {
+        for (BarInterval interval : BarInterval.values()) {
+            Path series = seriesDirectory(stockId, interval);
+            ReadWriteLock lock = locks.computeIfAbsent(series, key -> new ReentrantReadWriteLock());
+            lock.writeLock().lock();
+            try {
+                FileSystemUtils.deleteRecursively(series);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete the price bars of the stock " + stockId, e);
+            } finally {
+                locks.remove(series, lock);
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(String.valueOf(stockId)));
+        } catch (IOException e) {
+            log.debug("Could not delete the price bars directory of the stock {}: {}", stockId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of segments of a series, for the tests.
+     */
+    int countSegments(Long stockId, BarInterval interval) throws IOException {
+        Path series = seriesDirectory(stockId, interval);
+        return Files.isDirectory(series) ? segments(series).size() : 0;
+    }
+
+    /**
+     * Compacts the segments of a series into a new one, the write lock of the series being held.
+     */
+    private void compact(Path series, long sequence) throws IOException {
+        List<Path> segments = segments(series);
+        PriceSeries bars = read(segments, Long.MIN_VALUE, Long.MAX_VALUE);
+        PriceBarSegment.write(segmentFile(series, sequence), bars);
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        log.debug("Compacted {} segments of {} into {} bars", segments.size(), series, bars.size());
+    }
+
+    private static PriceSeries read(List<Path> segments, long from, long to) throws IOException {
+        List<PriceSeries> bars = new ArrayList<>(segments.size());
+        for (Path segment : segments) {
+            bars.add(PriceBarSegment.read(segment, from, to));
+        }
+        return PriceSeries.merge(bars);
+    }
+
+    /**
+     * @return the segments of a series, in the order they were written.
+     */
+    private static List<Path> segments(Path series) throws IOException {
+        try (Stream<Path> files = Files.list(series)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the segments which were being written when the application stopped, the write lock of the series
+     * being held.
+     */
+    private void deleteTemporaryFiles(Path series) throws IOException {
+        List<Path> temporaryFiles;
+        try (Stream<Path> files = Files.list(series)) {
+            temporaryFiles =
+                files.filter(file -> file.getFileName().toString().endsWith(PriceBarSegment.TEMPORARY_SUFFIX)).collect(Collectors.toList());
+        }
+        for (Path temporaryFile : temporaryFiles) {
+            log.warn("Deleting the incomplete price bars segment {}", temporaryFile);
+            Files.delete(temporaryFile);
+        }
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static Path segmentFile(Path series, long sequence) {
+        return series.resolve(String.format(Locale.ROOT, "%019d%s", sequence, SEGMENT_SUFFIX));
+    }
+
+    private Path seriesDirectory(Long stockId, BarInterval interval) {
+        return directory.resolve(String.valueOf(stockId)).resolve(interval.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Locks a series, again if its lock was dropped by a deletion while waiting for it, so that all the holders share the same lock.
+     */
+    private Lock lock(Path series, boolean write) {
+        while (true) {
+            ReadWriteLock lock = locks.computeIfAbsent(series, key -> new ReentrantReadWriteLock());
+            Lock acquired = write ? lock.writeLock() : lock.readLock();
+            acquired.lock();
+            if (locks.get(series) == lock) {
+                return acquired;
+            }
+            acquired.unlock();
+        }
+    }
+
+    /**
+     * @return the number of series locks, for the tests.
+     */
+    int countLocks() {
+        return locks.size();
+    }
+}
@@ -1,6 +1,7 @@
 package com.invertimostuyyo.repository;
 
 import com.invertimostuyyo.domain.Stock;
+import java.util.List;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,15 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface StockRepository extends JpaRepository<Stock, Long> {}
+public interface StockRepository extends StockRepositoryWithBatch, JpaRepository<Stock, Long> {
+    @Query("select stock.id from Stock stock order by stock.id")
+    List<Long> findAllIds();
+
+    /**
+     * @return the id, name, sector, icnome, expenses, capitalization and employees of each stock: the fields of the stock screens.
+     */
+    @Query(
+        "select stock.id, stock.name, stock.sector, stock.icnome, stock.expenses, stock.capitalization, stock.employees from Stock stock"
+    )
+    List<Object[]> findAllScreenedFields();
+}
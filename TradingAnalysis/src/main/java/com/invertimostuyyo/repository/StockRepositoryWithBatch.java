@@ -0,0 +1,9 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Stock;
+import java.util.List;
+import java.util.Map;
+
+public interface StockRepositoryWithBatch {
+    List<BatchResult> writeAll(Map<Long, Stock> stocks, boolean upsert);
+}
@@ -0,0 +1,38 @@
+package com.invertimostuyyo.repository;
+
+import com.invertimostuyyo.domain.Stock;
+import java.util.List;
+import java.util.Map;
+
+public class StockRepositoryWithBatchImpl implements StockRepositoryWithBatch {
+
+    static final BatchTable<Stock> TABLE = new BatchTable<>(
+        Stock.class,
+        "stock",
+        List.of("name", "sector", "fundation", "description", "icnome", "expenses", "capitalization", "employees"),
+        Stock::getId,
+        stock ->
+            new Object[] {
+                stock.getName(),
+                stock.getSector(),
+                stock.getFundation(),
+                stock.getDescription(),
+                stock.getIcnome(),
+                stock.getExpenses(),
+                stock.getCapitalization(),
+                stock.getEmployees(),
+            },
+        List.of()
+    );
+
+    private final BatchWriter batchWriter;
+
+    public StockRepositoryWithBatchImpl(BatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public List<BatchResult> writeAll(Map<Long, Stock> stocks, boolean upsert) {
+        return batchWriter.writeAll(TABLE, stocks, upsert);
+    }
+}
@@ -0,0 +1,50 @@
+package com.invertimostuyyo.security;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Writes the {@code Cache-Control} and {@code Surrogate-Control} headers of the successful responses to the cacheable requests, and the
+ * {@code no-store} headers of Spring Security to the other responses.
+ * <p>
+ * The {@code Surrogate-Control} header is read by the response cache of the gateway, which strips it, so that the gateway may cache a
+ * response which the browsers revalidate on every use. The headers are written when the response is committed, so its status is
+ * known, and a {@code Cache-Control} set by the controller is kept, without a {@code Surrogate-Control}.
+ */
+public class CacheControlHeaderWriter implements HeaderWriter {
+
+    public static final String SURROGATE_CONTROL = "Surrogate-Control";
+
+    private final RequestMatcher cacheable;
+
+    private final String cacheControl;
+
+    private final String surrogateControl;
+
+    private final HeaderWriter noStore = new CacheControlHeadersWriter();
+
+    /**
+     * @param cacheable the matcher of the requests whose responses may be cached.
+     * @param cacheControl the {@code Cache-Control} of their successful responses, for the browsers.
+     * @param surrogateControl the {@code Surrogate-Control} of their successful responses, for the gateway.
+     */
+    public CacheControlHeaderWriter(RequestMatcher cacheable, String cacheControl, String surrogateControl) {
+        this.cacheable = cacheable;
+        this.cacheControl = cacheControl;
+        this.surrogateControl = surrogateControl;
+    }
+
+    @Override
+    public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
+        if (response.getStatus() != HttpServletResponse.SC_OK || !cacheable.matches(request)) {
+            noStore.writeHeaders(request, response);
+        } else if (!response.containsHeader(HttpHeaders.CACHE_CONTROL)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.setHeader(SURROGATE_CONTROL, surrogateControl);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.invertimostuyyo.service;
+
+import com.invertimostuyyo.config.ApplicationProperties;
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.AnalysisRun;
+import com.invertimostuyyo.domain.Indicator;
+import com.invertimostuyyo.domain.IndicatorValues;
+import com.invertimostuyyo.domain.PriceSeries;
+import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.repository.AnalysisRepository;
+import com.invertimostuyyo.repository.AnalysisRunRepository;
+import com.invertimostuyyo.repository.IndicatorRepository;
+import com.invertimostuyyo.repository.IndicatorValuesRepository;
+import com.invertimostuyyo.repository.PriceBarStore;
+import com.invertimostuyyo.repository.StockRepository;
+import com.invertimostuyyo.service.dto.AnalysisRunDTO;
+import com.invertimostuyyo.service.indicator.IndicatorSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class for the batch analysis of all the stocks: a run creates, for a date, an {@link Analysis} of each stock with an
+ * {@link Indicator} per configured indicator, and computes their values over the price bars of the stock.
+ * <p>
+ * The stocks are split in chunks, in the order of their ids, which are analysed in parallel on a fork-join pool. The analyses of a
+ * chunk are computed in memory, then written with batch inserts in one transaction, along with the checkpoint of the chunk. A run which
+ * has been interrupted, by a crash or by the failure of a chunk, is resumed from its checkpoints: at startup and by the heartbeat for the
+ * runs which were running, or when the run of the same date is started again.
+ * <p>
+ * A run is executed by the instance which holds its lease, renewed with each chunk written and by the heartbeat: another instance
+ * resumes it only once its lease has expired, and a chunk written after the lease has been lost rolls back.
+ */
+@Service
+public class AnalysisRunService {
+
+    private final Logger log = LoggerFactory.getLogger(AnalysisRunService.class);
+
+    private final StockRepository stockRepository;
+
+    private final AnalysisRepository analysisRepository;
+
+    private final IndicatorRepository indicatorRepository;
+
+    private final IndicatorValuesRepository indicatorValuesRepository;
+
+    private final AnalysisRunRepository analysisRunRepository;
+
+    private final IndicatorValuesService indicatorValuesService;
+
+    private final PriceBarStore priceBarStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties.AnalysisRun properties;
+
+    private final List<IndicatorSpec> specs;
+
+    /**
+     * The owner of the leases of the runs executed by this instance.
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * The progress of the runs executed since startup, by id of run.
+     */
+    private final Map<Long, Progress> progresses = new ConcurrentHashMap<>();
+
+    public AnalysisRunService(
+        StockRepository stockRepository,
+        AnalysisRepository analysisRepository,
+        IndicatorRepository indicatorRepository,
+        IndicatorValuesRepository indicatorValuesRepository,
+        AnalysisRunRepository analysisRunRepository,
+        IndicatorValuesService indicatorValuesService,
+        PriceBarStore priceBarStore,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.stockRepository = stockRepository;
+        this.analysisRepository = analysisRepository;
+        this.indicatorRepository = indicatorRepository;
+        this.indicatorValuesRepository = indicatorValuesRepository;
+        this.analysisRunRepository = analysisRunRepository;
+        this.indicatorValuesService = indicatorValuesService;
+        this.priceBarStore = priceBarStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getAnalysisRun();
+        this.specs =
+            properties
+                .getIndicators()
+                .stream()
+                .map(name ->
+                    IndicatorSpec.parse(name).orElseThrow(() -> new IllegalArgumentException("Invalid indicator in analysis run: " + name))
+                )
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Start the run of a date, in the background, or resume it if it has been interrupted.
+     *
+     * @param date the date of the analyses.
+     * @return the status of the run.
+     */
+    public synchronized AnalysisRunDTO start(LocalDate date) {
+        log.debug("Request to start the AnalysisRun of {}", date);
+        AnalysisRun run = analysisRunRepository.findByDate(date).orElseGet(() -> insert(date));
+        if (run.getStatus() != AnalysisRun.Status.COMPLETED) {
+            submit(run);
+        }
+        return findStatus(run.getId()).orElseThrow();
+    }
+
+    /**
+     * Resume the runs which were running when their instance stopped, once their lease has expired.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeInterruptedRuns() {
+        for (AnalysisRun run : analysisRunRepository.findByStatus(AnalysisRun.Status.RUNNING)) {
+            if (submit(run)) {
+                log.info("Resuming the AnalysisRun of {} from its checkpoints", run.getDate());
+            }
+        }
+    }
+
+    /**
+     * Renew the leases of the runs executed by this instance, and resume the runs whose lease has expired.
+     */
+    @Scheduled(
+        initialDelayString = "${application.analysis-run.heartbeat-interval:PT30S}",
+        fixedDelayString = "${application.analysis-run.heartbeat-interval:PT30S}"
+    )
+    public synchronized void heartbeat() {
+        for (Progress progress : progresses.values()) {
+            if (progress.running && !analysisRunRepository.renewLease(progress.run.getId(), owner, leaseUntil())) {
+                log.warn("The lease of the AnalysisRun of {} has been lost, stopping it", progress.run.getDate());
+                progress.leaseLost = true;
+            }
+        }
+        resumeInterruptedRuns();
+    }
+
+    /**
+     * Get the status of a run.
+     *
+     * @param id the id of the run.
+     * @return the status of the run, or empty if it does not exist.
+     */
+    public Optional<AnalysisRunDTO> findStatus(Long id) {
+        Progress progress = progresses.get(id);
+        if (progress != null && progress.running) {
+            return Optional.of(progress.toDTO());
+        }
+        return analysisRunRepository
+            .findById(id)
+            .map(run -> {
+                if (progress != null) {
+                    return new AnalysisRunDTO(run, progress.stocksPerSecond(), progress.failures());
+                }
+                long millis = run.getFinishedAt() != null ? Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis() : 0;
+                return new AnalysisRunDTO(run, millis > 0 ? run.getProcessed() * 1000.0 / millis : 0, List.of());
+            });
+    }
+
+    private AnalysisRun insert(LocalDate date) {
+        try {
+            return analysisRunRepository.insert(new AnalysisRun().date(date).status(AnalysisRun.Status.RUNNING).startedAt(Instant.now()));
+        } catch (DuplicateKeyException e) {
+            return analysisRunRepository.findByDate(date).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Execute a run in the background, if it is not already executed by this instance, and if its lease can be claimed.
+     *
+     * @return whether the run has been submitted.
+     */
+    private boolean submit(AnalysisRun run) {
+        Progress previous = progresses.get(run.getId());
+        if (previous != null && previous.running) {
+            return false;
+        }
+        if (!analysisRunRepository.claim(run.getId(), owner, Instant.now(), leaseUntil())) {
+            log.debug("The AnalysisRun of {} is leased by another instance", run.getDate());
+            return false;
+        }
+        Progress progress = new Progress(run, properties.getMaxFailures());
+        progresses.put(run.getId(), progress);
+        taskExecutor.execute(() -> execute(progress));
+        return true;
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plus(properties.getLeaseDuration());
+    }
+
+    private void execute(Progress progress) {
+        AnalysisRun run = progress.run;
+        try {
+            List<AnalysisRunRepository.Checkpoint> checkpoints = analysisRunRepository.findCheckpoints(run.getId());
+            TreeMap<Long, Long> checkpointed = new TreeMap<>();
+            for (AnalysisRunRepository.Checkpoint checkpoint : checkpoints) {
+                checkpointed.merge(checkpoint.getFirstStockId(), checkpoint.getLastStockId(), Math::max);
+                progress.processedBefore += checkpoint.getProcessed();
+                progress.failedBefore += checkpoint.getFailed();
+            }
+            TreeMap<Long, Long> done = mergeRanges(checkpointed);
+            List<Long> stockIds = stockRepository
+                .findAllIds()
+                .stream()
+                .filter(id -> {
+                    Map.Entry<Long, Long> range = done.floorEntry(id);
+                    return range == null || id > range.getValue();
+                })
+                .collect(Collectors.toList());
+            run
+                .status(AnalysisRun.Status.RUNNING)
+                .total(progress.processedBefore + progress.failedBefore + stockIds.size())
+                .processed(progress.processedBefore)
+                .failed(progress.failedBefore)
+                .finishedAt(null);
+            if (!analysisRunRepository.update(run, owner)) {
+                progress.leaseLost = true;
+                throw new IllegalStateException("the lease of the run is held by another instance");
+            }
+            log.info(
+                "Starting the AnalysisRun of {}: {} stocks to analyse, {} chunks done",
+                run.getDate(),
+                stockIds.size(),
+                checkpoints.size()
+            );
+
+            List<Callable<Void>> chunks = new ArrayList<>();
+            for (List<Long> chunk : split(stockIds, done, properties.getChunkSize())) {
+                chunks.add(() -> {
+                    if (!progress.leaseLost) {
+                        processChunk(progress, chunk);
+                    }
+                    return null;
+                });
+            }
+            int parallelism = properties.getParallelism() > 0 ? properties.getParallelism() : Runtime.getRuntime().availableProcessors();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invokeAll(chunks);
+            } finally {
+                pool.shutdown();
+            }
+            run.status(progress.unwritten.get() == 0 && !progress.leaseLost ? AnalysisRun.Status.COMPLETED : AnalysisRun.Status.FAILED);
+        } catch (RuntimeException e) {
+            log.error("The AnalysisRun of {} failed", run.getDate(), e);
+            progress.addFailure("run: " + e.getMessage());
+            run.status(AnalysisRun.Status.FAILED);
+        } finally {
+            progress.endNanos = System.nanoTime();
+            run.processed(progress.processedBefore + progress.processed.get());
+            run.failed(progress.failedBefore + progress.failed.get() + progress.unwritten.get());
+            run.finishedAt(Instant.now());
+            try {
+                if (!analysisRunRepository.update(run, owner)) {
+                    log.warn("The AnalysisRun of {} is leased by another instance, its status is left to it", run.getDate());
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not save the status of the AnalysisRun of {}", run.getDate(), e);
+            }
+            progress.running = false;
+            log.info("Finished the AnalysisRun of {}: {}", run.getDate(), progress.toDTO());
+        }
+    }
+
+    /**
+     * Merge the overlapping ranges of stock ids, so that the range of a stock id, if any, is its floor entry.
+     *
+     * @param ranges the last stock id of the ranges, by first stock id.
+     * @return the merged ranges.
+     */
+    private static TreeMap<Long, Long> mergeRanges(TreeMap<Long, Long> ranges) {
+        TreeMap<Long, Long> merged = new TreeMap<>();
+        for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+            Map.Entry<Long, Long> previous = merged.lastEntry();
+            if (previous != null && range.getKey() <= previous.getValue()) {
+                merged.put(previous.getKey(), Math.max(previous.getValue(), range.getValue()));
+            } else {
+                merged.put(range.getKey(), range.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Split the stock ids left to analyse into chunks, cut at the ranges already done, so that the range of a chunk, from its first to
+     * its last stock id, does not overlap the checkpoint of another chunk.
+     *
+     * @param stockIds the ids of the stocks to analyse, in ascending order, none of them in the ranges done.
+     * @param done the ranges of stock ids done, merged.
+     * @param chunkSize the maximum number of stocks of a chunk.
+     * @return the chunks.
+     */
+    private static List<List<Long>> split(List<Long> stockIds, TreeMap<Long, Long> done, int chunkSize) {
+        List<List<Long>> chunks = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= stockIds.size(); i++) {
+            if (i == stockIds.size() || i - from == chunkSize || isDoneBetween(done, stockIds.get(i - 1), stockIds.get(i))) {
+                chunks.add(stockIds.subList(from, i));
+                from = i;
+            }
+        }
+        return chunks;
+    }
+
+    private static boolean isDoneBetween(TreeMap<Long, Long> done, long previousStockId, long stockId) {
+        Long first = done.higherKey(previousStockId);
+        return first != null && first < stockId;
+    }
+
+    /**
+     * Analyse a chunk of stocks, and write their analyses with the checkpoint of the chunk, renewing the lease of the run last so that
+     * its row is locked only briefly. The stocks whose analysis fails are skipped, the chunk is retried when the run is resumed if it
+     * cannot be written, or rolled back if the lease has been lost.
+     */
+    private void processChunk(Progress progress, List<Long> stockIds) {
+        AnalysisRun run = progress.run;
+        Instant computedAt = Instant.now();
+        List<Analysis> analyses = new ArrayList<>();
+        List<IndicatorValues> values = new ArrayList<>();
+        int failed = 0;
+        for (Long stockId : stockIds) {
+            try {
+                PriceSeries bars = priceBarStore.find(stockId, properties.getInterval(), Long.MIN_VALUE, Long.MAX_VALUE);
+                for (IndicatorSpec spec : specs) {
+                    values.add(indicatorValuesService.computeValues(spec, properties.getInterval(), bars, computedAt));
+                }
+                analyses.add(new Analysis().date(run.getDate()).description("Analysis run " + run.getId()).stock(new Stock().id(stockId)));
+            } catch (RuntimeException e) {
+                values.subList(analyses.size() * specs.size(), values.size()).clear();
+                failed++;
+                progress.addFailure("stock " + stockId + ": " + e.getMessage());
+            }
+        }
+        int skipped = failed;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> analysisIds = analysisRepository.insertAll(analyses);
+                List<Indicator> indicators = new ArrayList<>();
+                for (Long analysisId : analysisIds) {
+                    for (IndicatorSpec spec : specs) {
+                        indicators.add(new Indicator().name(spec.getName()).analysis(new Analysis().id(analysisId)));
+                    }
+                }
+                List<Long> indicatorIds = indicatorRepository.insertAll(indicators);
+                List<IndicatorValues> rows = new ArrayList<>(values.size());
+                for (int i = 0; i < values.size(); i++) {
+                    rows.add(values.get(i).withIndicatorId(indicatorIds.get(i)));
+                }
+                indicatorValuesRepository.insertAll(rows);
+                analysisRunRepository.insertCheckpoint(
+                    new AnalysisRunRepository.Checkpoint(
+                        run.getId(),
+                        stockIds.get(0),
+                        stockIds.get(stockIds.size() - 1),
+                        analyses.size(),
+                        skipped
+                    )
+                );
+                if (!analysisRunRepository.renewLease(run.getId(), owner, leaseUntil())) {
+                    progress.leaseLost = true;
+                    throw new IllegalStateException("the lease of the run is held by another instance");
+                }
+            });
+            progress.processed.addAndGet(analyses.size());
+            progress.failed.addAndGet(skipped);
+        } catch (RuntimeException e) {
+            log.warn("Could not write the analyses of the stocks {} to {}", stockIds.get(0), stockIds.get(stockIds.size() - 1), e);
+            progress.unwritten.addAndGet(stockIds.size());
+            progress.addFailure("stocks " + stockIds.get(0) + " to " + stockIds.get(stockIds.size() - 1) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The progress of an execution of a run: the counts of the stocks of its checkpoints when it started, and of those it has done.
+     */
+    private static final class Progress {
+
+        private final AnalysisRun run;
+
+        private final int maxFailures;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicInteger processed = new AtomicInteger();
+
+        private final AtomicInteger failed = new AtomicInteger();
+
+        /**
+         * The number of stocks of the chunks which could not be written.
+         */
+        private final AtomicInteger unwritten = new AtomicInteger();
+
+        private final Deque<String> failures = new ArrayDeque<>();
+
+        private volatile int processedBefore;
+
+        private volatile int failedBefore;
+
+        private volatile boolean running = true;
+
+        /**
+         * Whether the lease of the run has been lost, the chunks not yet written being skipped.
+         */
+        private volatile boolean leaseLost;
+
+        private volatile long endNanos;
+
+        private Progress(AnalysisRun run, int maxFailures) {
+            this.run = run;
+            this.maxFailures = maxFailures;
+        }
+
+        private synchronized void addFailure(String failure) {
+            if (maxFailures <= 0) {
+                return;
+            }
+            if (failures.size() == maxFailures) {
+                failures.removeFirst();
+            }
+            failures.addLast(failure);
+        }
+
+        private synchronized List<String> failures() {
+            return new ArrayList<>(failures);
+        }
+
+        private double stocksPerSecond() {
+            long nanos = (running ? System.nanoTime() : endNanos) - startNanos;
+            return nanos > 0 ? (processed.get() + failed.get()) * 1e9 / nanos : 0;
+        }
+
+        private AnalysisRunDTO toDTO() {
+            AnalysisRun snapshot = new AnalysisRun()
+                .id(run.getId())
+                .date(run.getDate())
+                .status(running ? AnalysisRun.Status.RUNNING : run.getStatus())
+                .total(run.getTotal())
+                .processed(processedBefore + processed.get())
+                .failed(failedBefore + failed.get() + unwritten.get())
+                .startedAt(run.getStartedAt())
+                .finishedAt(running ? null : run.getFinishedAt());
+            return new AnalysisRunDTO(snapshot, stocksPerSecond(), failures());
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.invertimostuyyo.service;
+
+import com.invertimostuyyo.config.ApplicationProperties;
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.Indicator;
+import com.invertimostuyyo.domain.IndicatorValues;
+import com.invertimostuyyo.domain.PriceSeries;
+import com.invertimostuyyo.repository.IndicatorRepository;
+import com.invertimostuyyo.repository.IndicatorValuesRepository;
+import com.invertimostuyyo.repository.PriceBarStore;
+import com.invertimostuyyo.service.indicator.IndicatorCalculator;
+import com.invertimostuyyo.service.indicator.IndicatorSpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for computing the values of the {@link Indicator}s of an {@link Analysis} over the price bars of its stock.
+ * <p>
+ * The indicators are computed incrementally: the calculator of each indicator is kept in memory after a computation, so the next one
+ * only reads and feeds it the bars appended since, in constant time per bar, and persists their values only, as a new chunk of the
+ * persisted ones, without reading them. The chunks of an indicator are merged into one every {@code application.indicators.max-chunks}
+ * computations, so that they stay few to read: only then are the persisted values read back. The calculators of a series are dropped
+ * when bars are appended before its end, and the indicators are then computed again over the whole series, as they are when their
+ * calculator has been evicted.
+ * <p>
+ * The calculators are kept by each instance: a calculator goes on only when the number of persisted chunks and the time of their last
+ * computation are the ones it wrote, so that the values written by another instance since are never continued from a stale state,
+ * but computed again over the whole series.
+ */
+@Service
+@Transactional
+public class IndicatorValuesService {
+
+    private final Logger log = LoggerFactory.getLogger(IndicatorValuesService.class);
+
+    private final IndicatorRepository indicatorRepository;
+
+    private final IndicatorValuesRepository indicatorValuesRepository;
+
+    private final PriceBarStore priceBarStore;
+
+    /**
+     * The calculators by id of indicator, the least recently used ones first. A calculator is removed while it is used, so that it is
+     * never used by two computations at once.
+     */
+    private final Map<Long, State> states;
+
+    /**
+     * The number of invalidations, so that a calculator used by a computation during an invalidation is not kept.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final int maxChunks;
+
+    public IndicatorValuesService(
+        IndicatorRepository indicatorRepository,
+        IndicatorValuesRepository indicatorValuesRepository,
+        PriceBarStore priceBarStore,
+        ApplicationProperties applicationProperties
+    ) {
+        this.indicatorRepository = indicatorRepository;
+        this.indicatorValuesRepository = indicatorValuesRepository;
+        this.priceBarStore = priceBarStore;
+        this.maxChunks = applicationProperties.getIndicators().getMaxChunks();
+        int maxStates = applicationProperties.getIndicators().getMaxStates();
+        this.states =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, State> eldest) {
+                    return size() > maxStates;
+                }
+            };
+    }
+
+    /**
+     * Compute and save the values of the indicators of an analysis over the price bars of its stock.
+     * <p>
+     * The indicators whose name is not one of a supported indicator are skipped.
+     *
+     * @param analysis the analysis, which must have a stock.
+     * @param interval the interval of the price bars.
+     * @return the values computed for each indicator, in the order of their ids: the values of the bars appended since the last
+     * computation, or all the values if they have been computed again over the whole series.
+     */
+    public List<IndicatorValues> compute(Analysis analysis, BarInterval interval) {
+        log.debug("Request to compute the {} values of the Indicators of Analysis : {}", interval, analysis.getId());
+        Long stockId = analysis.getStock().getId();
+        Map<Long, IndicatorValuesRepository.Chunks> persisted = indicatorValuesRepository.findChunksByAnalysisId(analysis.getId());
+        // The time of computation is compared with the persisted one, whose precision depends on the database
+        Instant computedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        PriceSeries bars = null;
+        List<IndicatorValues> result = new ArrayList<>();
+        for (Indicator indicator : indicatorRepository.findByAnalysisIdIn(List.of(analysis.getId()))) {
+            Optional<IndicatorSpec> spec = IndicatorSpec.parse(indicator.getName());
+            if (spec.isEmpty()) {
+                log.debug("Skipping Indicator {} : '{}' is not a supported indicator", indicator.getId(), indicator.getName());
+                continue;
+            }
+            long seenInvalidations = invalidations.get();
+            State state = take(indicator.getId());
+            IndicatorValues values;
+            if (state != null && state.continues(stockId, interval, spec.get().getName(), persisted.get(indicator.getId()))) {
+                long from = state.lastTime == Long.MIN_VALUE ? Long.MIN_VALUE : state.lastTime + 1;
+                values = state.update(indicator.getId(), priceBarStore.find(stockId, interval, from, Long.MAX_VALUE), computedAt);
+                if (values.getTime().length == 0) {
+                    indicatorValuesRepository.updateComputedAt(indicator.getId(), computedAt);
+                } else if (state.chunks < maxChunks) {
+                    indicatorValuesRepository.append(values, state.chunks);
+                    state.chunks++;
+                } else {
+                    merge(values);
+                    state.chunks = 1;
+                }
+            } else {
+                if (bars == null) {
+                    bars = priceBarStore.find(stockId, interval, Long.MIN_VALUE, Long.MAX_VALUE);
+                }
+                state = new State(stockId, interval, spec.get());
+                values = state.update(indicator.getId(), bars, computedAt);
+                indicatorValuesRepository.save(values);
+            }
+            state.computedAt = computedAt;
+            release(indicator.getId(), state, seenInvalidations);
+            result.add(values);
+        }
+        return result;
+    }
+
+    /**
+     * Save the persisted values of an indicator and the appended ones as a single chunk.
+     */
+    private void merge(IndicatorValues appended) {
+        Optional<IndicatorValues> previous = indicatorValuesRepository.findByIndicatorId(appended.getIndicatorId());
+        indicatorValuesRepository.save(previous.map(values -> IndicatorValues.concat(List.of(values, appended))).orElse(appended));
+    }
+
+    /**
+     * Compute the values of an indicator over price bars, without keeping its calculator.
+     *
+     * @param spec the specification of the indicator.
+     * @param interval the interval of the price bars.
+     * @param bars the price bars.
+     * @param computedAt the time of the computation.
+     * @return the values of the indicator, without indicator id.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public IndicatorValues computeValues(IndicatorSpec spec, BarInterval interval, PriceSeries bars, Instant computedAt) {
+        return new State(null, interval, spec).update(null, bars, computedAt);
+    }
+
+    /**
+     * Get the values of the indicators of an analysis, as last computed.
+     *
+     * @param analysisId the id of the analysis.
+     * @return the values of the indicators which have been computed, in the order of their ids.
+     */
+    @Transactional(readOnly = true)
+    public List<IndicatorValues> findByAnalysisId(Long analysisId) {
+        log.debug("Request to get the values of the Indicators of Analysis : {}", analysisId);
+        return indicatorValuesRepository.findByAnalysisId(analysisId);
+    }
+
+    /**
+     * Drop the calculators of a series of price bars whose bars may have changed, because bars have been appended before their end.
+     *
+     * @param stockId the id of the stock of the series.
+     * @param interval the interval of the series.
+     * @param from the time of the first appended bar, in milliseconds since the epoch.
+     */
+    public void invalidate(Long stockId, BarInterval interval, long from) {
+        invalidations.incrementAndGet();
+        synchronized (states) {
+            states.values().removeIf(state -> state.stockId.equals(stockId) && state.interval == interval && state.lastTime >= from);
+        }
+    }
+
+    private State take(Long indicatorId) {
+        synchronized (states) {
+            return states.remove(indicatorId);
+        }
+    }
+
+    private void release(Long indicatorId, State state, long seenInvalidations) {
+        synchronized (states) {
+            if (invalidations.get() == seenInvalidations) {
+                states.put(indicatorId, state);
+            }
+        }
+    }
+
+    /**
+     * The calculator of an indicator over a series, the time of the last bar it has been fed, and the number of chunks of its persisted
+     * values with the time they were last computed.
+     */
+    private static final class State {
+
+        private final Long stockId;
+
+        private final BarInterval interval;
+
+        private final String name;
+
+        private final IndicatorCalculator calculator;
+
+        private long lastTime = Long.MIN_VALUE;
+
+        private int chunks = 1;
+
+        private Instant computedAt;
+
+        private State(Long stockId, BarInterval interval, IndicatorSpec spec) {
+            this.stockId = stockId;
+            this.interval = interval;
+            this.name = spec.getName();
+            this.calculator = spec.newCalculator();
+        }
+
+        /**
+         * @return whether the persisted values of the indicator are the ones computed with this calculator, so that it can go on.
+         */
+        private boolean continues(Long stockId, BarInterval interval, String name, IndicatorValuesRepository.Chunks persisted) {
+            return (
+                persisted != null &&
+                this.stockId.equals(stockId) &&
+                this.interval == interval &&
+                this.name.equals(name) &&
+                persisted.getCount() == chunks &&
+                persisted.getComputedAt().equals(computedAt)
+            );
+        }
+
+        /**
+         * Feeds bars to the calculator.
+         *
+         * @param bars the bars, all after the last bar fed to the calculator.
+         * @return the values of the bars for which the indicator is defined.
+         */
+        private IndicatorValues update(Long indicatorId, PriceSeries bars, Instant computedAt) {
+            List<String> outputs = calculator.outputs();
+            int size = bars.size();
+            double[][] values = new double[outputs.size()][size];
+            double[] high = bars.getHigh();
+            double[] low = bars.getLow();
+            double[] close = bars.getClose();
+            for (int i = 0; i < size; i++) {
+                calculator.update(high[i], low[i], close[i], values, i);
+            }
+            if (size > 0) {
+                lastTime = bars.lastTime();
+            }
+            int start = 0;
+            while (start < size && !isDefined(values, start)) {
+                start++;
+            }
+            long[] time = Arrays.copyOfRange(bars.getTime(), start, size);
+            Map<String, double[]> columns = new LinkedHashMap<>();
+            for (int k = 0; k < outputs.size(); k++) {
+                columns.put(outputs.get(k), Arrays.copyOfRange(values[k], start, size));
+            }
+            return new IndicatorValues(indicatorId, name, interval, computedAt, time, columns);
+        }
+
+        private static boolean isDefined(double[][] values, int index) {
+            for (double[] column : values) {
+                if (Double.isNaN(column[index])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.invertimostuyyo.service;
+
+import com.invertimostuyyo.config.ApplicationProperties;
+import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.repository.StockRepository;
+import com.invertimostuyyo.service.dto.ScreenedStockDTO;
+import com.invertimostuyyo.service.dto.StockScreenDTO;
+import com.invertimostuyyo.service.screen.ScreenExpression;
+import com.invertimostuyyo.service.screen.StockColumns;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service class for screening the {@link Stock}s on their fundamentals.
+ * <p>
+ * The screens are evaluated in memory, against the {@link StockColumns} of all the stocks: they are loaded by the first screen, and
+ * then kept in sync with the writes of the stocks, which are applied once their transaction is committed. The batch writes invalidate
+ * them instead, so that they are loaded again by the next screen. The writes made through the other instances are seen once the
+ * columns are older than the configured maximum age: the next screen then reloads them in the background, into new columns which
+ * replace the old ones once loaded, the screens being evaluated against the old columns meanwhile.
+ */
+@Service
+public class StockScreenService {
+
+    /**
+     * The maximum number of stocks returned by a screen.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(StockScreenService.class);
+
+    private final StockRepository stockRepository;
+
+    private final Executor taskExecutor;
+
+    private final long maxAgeNanos;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether the columns are being reloaded in the background.
+     */
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    /**
+     * The writes applied to the columns while they are reloaded, to apply to the reloaded columns too.
+     */
+    private final List<Consumer<StockColumns>> reloadedUpdates = new ArrayList<>();
+
+    /**
+     * The number of times the columns were invalidated, by which a reload started before an invalidation is discarded.
+     */
+    private long invalidations;
+
+    /**
+     * The columns of the stocks, or null until they are loaded.
+     */
+    private StockColumns columns;
+
+    /**
+     * The time at which the columns were loaded, in nanoseconds.
+     */
+    private long loadedAt;
+
+    public StockScreenService(
+        StockRepository stockRepository,
+        ApplicationProperties applicationProperties,
+        @Qualifier("taskExecutor") Executor taskExecutor
+    ) {
+        this.stockRepository = stockRepository;
+        this.taskExecutor = taskExecutor;
+        this.maxAgeNanos = applicationProperties.getStockScreen().getMaxAge().toNanos();
+    }
+
+    /**
+     * Screen the stocks.
+     *
+     * @param filter the condition of the stocks to select, as a {@link ScreenExpression}, or null to select all the stocks.
+     * @param rank the operand to rank the selected stocks by, as a {@link ScreenExpression}, or null to rank them by id.
+     * @param ascending whether the stocks are ranked by ascending value, the stocks without value being last either way.
+     * @param limit the maximum number of stocks to return, at most {@value #MAX_LIMIT}.
+     * @return the number of stocks selected, and the best ranked of them.
+     * @throws IllegalArgumentException if the filter or the rank is not a valid expression.
+     */
+    public StockScreenDTO screen(String filter, String rank, boolean ascending, int limit) {
+        log.debug("Request to screen the Stocks : {}, ranked by {}", filter, rank);
+        ScreenExpression.Condition condition = filter != null && !filter.isBlank() ? ScreenExpression.parseCondition(filter) : null;
+        ScreenExpression.Operand ranking = rank != null && !rank.isBlank() ? ScreenExpression.parseOperand(rank) : null;
+        lock.readLock().lock();
+        if (columns == null) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (columns == null) {
+                    loadedAt = System.nanoTime();
+                    columns = load();
+                }
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        boolean expired = System.nanoTime() - loadedAt >= maxAgeNanos;
+        long invalidationsBefore = invalidations;
+        try {
+            BitSet rows = columns.rows();
+            BitSet selected = condition != null ? condition.select(columns, rows) : rows;
+            List<ScreenedStockDTO> stocks = new ArrayList<>();
+            for (int row : top(selected, ranking, ascending, Math.min(limit, MAX_LIMIT))) {
+                stocks.add(toDTO(row, ranking));
+            }
+            return new StockScreenDTO(selected.cardinality(), stocks);
+        } finally {
+            lock.readLock().unlock();
+            if (expired) {
+                reload(invalidationsBefore);
+            }
+        }
+    }
+
+    /**
+     * Add or update a stock in the screened stocks, once the current transaction is committed.
+     *
+     * @param stock the stock, which has been saved.
+     */
+    public void put(Stock stock) {
+        afterCommit(() -> update(loaded -> loaded.put(stock)));
+    }
+
+    /**
+     * Remove a stock from the screened stocks, once the current transaction is committed.
+     *
+     * @param id the id of the stock, which has been deleted.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> update(loaded -> loaded.remove(id)));
+    }
+
+    /**
+     * Drop the screened stocks, once the current transaction is committed, so that they are loaded again by the next screen.
+     */
+    public void invalidate() {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                columns = null;
+                invalidations++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Reload the columns in the background, unless they are already being reloaded, and replace the current ones with them unless they
+     * have been invalidated meanwhile.
+     *
+     * @param invalidationsBefore the number of times the columns were invalidated, when they were found expired.
+     */
+    private void reload(long invalidationsBefore) {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                long startedAt = System.nanoTime();
+                StockColumns loaded = null;
+                try {
+                    loaded = load();
+                } catch (RuntimeException e) {
+                    log.warn("Could not reload the Stocks to screen: {}", e.getMessage());
+                }
+                replace(loaded, startedAt, invalidationsBefore);
+            });
+        } catch (RuntimeException e) {
+            reloading.set(false);
+            log.warn("Could not reload the Stocks to screen: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the columns with the reloaded ones, with the writes applied since the reload started, and end the reload.
+     */
+    private void replace(StockColumns loaded, long loadedAt, long invalidationsBefore) {
+        lock.writeLock().lock();
+        try {
+            if (loaded != null && columns != null && invalidations == invalidationsBefore) {
+                reloadedUpdates.forEach(update -> update.accept(loaded));
+                this.columns = loaded;
+                this.loadedAt = loadedAt;
+            }
+        } finally {
+            reloadedUpdates.clear();
+            reloading.set(false);
+            lock.writeLock().unlock();
+        }
+    }
+
+    private StockColumns load() {
+        StockColumns loaded = new StockColumns();
+        for (Object[] fields : stockRepository.findAllScreenedFields()) {
+            loaded.put(
+                (Long) fields[0],
+                (String) fields[1],
+                (String) fields[2],
+                (Number) fields[3],
+                (Number) fields[4],
+                (Number) fields[5],
+                (Number) fields[6]
+            );
+        }
+        log.debug("Loaded the {} Stocks to screen", loaded.count());
+        return loaded;
+    }
+
+    /**
+     * Select the best ranked rows, keeping only the best {@code limit} ones seen so far in a heap whose head is the worst of them.
+     */
+    private int[] top(BitSet selected, ScreenExpression.Operand ranking, boolean ascending, int limit) {
+        double[] values = new double[selected.length()];
+        for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+            double value = ranking != null ? ranking.value(columns, row) : columns.id(row);
+            values[row] = Double.isInfinite(value) ? Double.NaN : value;
+        }
+        Comparator<Integer> order = (left, right) -> {
+            double leftValue = values[left];
+            double rightValue = values[right];
+            if (Double.isNaN(leftValue) || Double.isNaN(rightValue)) {
+                int missing = Boolean.compare(Double.isNaN(leftValue), Double.isNaN(rightValue));
+                if (missing != 0) {
+                    return missing;
+                }
+            } else {
+                int compared = ascending ? Double.compare(leftValue, rightValue) : Double.compare(rightValue, leftValue);
+                if (compared != 0) {
+                    return compared;
+                }
+            }
+            return Long.compare(columns.id(left), columns.id(right));
+        };
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, order.reversed());
+        for (int row = selected.nextSetBit(0); row >= 0 && limit > 0; row = selected.nextSetBit(row + 1)) {
+            if (best.size() < limit) {
+                best.add(row);
+            } else if (order.compare(row, best.peek()) < 0) {
+                best.poll();
+                best.add(row);
+            }
+        }
+        int[] rows = new int[best.size()];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            rows[i] = best.poll();
+        }
+        return rows;
+    }
+
+    private ScreenedStockDTO toDTO(int row, ScreenExpression.Operand ranking) {
+        ScreenedStockDTO stock = new ScreenedStockDTO();
+        stock.setId(columns.id(row));
+        stock.setName(columns.name(row));
+        stock.setSector(columns.sector(row));
+        stock.setIcnome(toDouble(columns.value(StockColumns.ICNOME, row)));
+        stock.setExpenses(toDouble(columns.value(StockColumns.EXPENSES, row)));
+        stock.setCapitalization(toDouble(columns.value(StockColumns.CAPITALIZATION, row)));
+        double employees = columns.value(StockColumns.EMPLOYEES, row);
+        stock.setEmployees(Double.isNaN(employees) ? null : (int) employees);
+        stock.setRank(ranking != null ? toDouble(ranking.value(columns, row)) : null);
+        return stock;
+    }
+
+    private void update(Consumer<StockColumns> update) {
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                update.accept(columns);
+                if (reloading.get()) {
+                    reloadedUpdates.add(update);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+
+    private static Double toDouble(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : value;
+    }
+}
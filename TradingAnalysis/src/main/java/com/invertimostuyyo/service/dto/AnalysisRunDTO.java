@@ -0,0 +1,152 @@
+package com.invertimostuyyo.service.dto;
+
+import com.invertimostuyyo.domain.AnalysisRun;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the status of an {@link AnalysisRun}: its progress, its throughput and its latest failures.
+ */
+public class AnalysisRunDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private LocalDate date;
+
+    private AnalysisRun.Status status;
+
+    private int total;
+
+    private int processed;
+
+    private int failed;
+
+    private double stocksPerSecond;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private List<String> failures = new ArrayList<>();
+
+    public AnalysisRunDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    /**
+     * @param run the run.
+     * @param stocksPerSecond the number of stocks analysed per second.
+     * @param failures the latest failures of the run.
+     */
+    public AnalysisRunDTO(AnalysisRun run, double stocksPerSecond, List<String> failures) {
+        this.id = run.getId();
+        this.date = run.getDate();
+        this.status = run.getStatus();
+        this.total = run.getTotal();
+        this.processed = run.getProcessed();
+        this.failed = run.getFailed();
+        this.stocksPerSecond = stocksPerSecond;
+        this.startedAt = run.getStartedAt();
+        this.finishedAt = run.getFinishedAt();
+        this.failures = failures;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public AnalysisRun.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(AnalysisRun.Status status) {
+        this.status = status;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public double getStocksPerSecond() {
+        return stocksPerSecond;
+    }
+
+    public void setStocksPerSecond(double stocksPerSecond) {
+        this.stocksPerSecond = stocksPerSecond;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<String> failures) {
+        this.failures = failures;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AnalysisRunDTO{" +
+            "id=" + getId() +
+            ", date='" + getDate() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", total=" + getTotal() +
+            ", processed=" + getProcessed() +
+            ", failed=" + getFailed() +
+            ", stocksPerSecond=" + getStocksPerSecond() +
+            "}";
+    }
+}
@@ -0,0 +1,102 @@
+package com.invertimostuyyo.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO representing a stock selected by a screen, with its screened fields and its rank value.
+ */
+public class ScreenedStockDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String sector;
+
+    private Double icnome;
+
+    private Double expenses;
+
+    private Double capitalization;
+
+    private Integer employees;
+
+    private Double rank;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSector() {
+        return sector;
+    }
+
+    public void setSector(String sector) {
+        this.sector = sector;
+    }
+
+    public Double getIcnome() {
+        return icnome;
+    }
+
+    public void setIcnome(Double icnome) {
+        this.icnome = icnome;
+    }
+
+    public Double getExpenses() {
+        return expenses;
+    }
+
+    public void setExpenses(Double expenses) {
+        this.expenses = expenses;
+    }
+
+    public Double getCapitalization() {
+        return capitalization;
+    }
+
+    public void setCapitalization(Double capitalization) {
+        this.capitalization = capitalization;
+    }
+
+    public Integer getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(Integer employees) {
+        this.employees = employees;
+    }
+
+    public Double getRank() {
+        return rank;
+    }
+
+    public void setRank(Double rank) {
+        this.rank = rank;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ScreenedStockDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", sector='" + getSector() + "'" +
+            ", rank=" + getRank() +
+            "}";
+    }
+}
@@ -0,0 +1,51 @@
+package com.invertimostuyyo.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the result of a stock screen: the number of stocks satisfying its filter, and the best ranked of them.
+ */
+public class StockScreenDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int total;
+
+    private List<ScreenedStockDTO> stocks = new ArrayList<>();
+
+    public StockScreenDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public StockScreenDTO(int total, List<ScreenedStockDTO> stocks) {
+        this.total = total;
+        this.stocks = stocks;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public List<ScreenedStockDTO> getStocks() {
+        return stocks;
+    }
+
+    public void setStocks(List<ScreenedStockDTO> stocks) {
+        this.stocks = stocks;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StockScreenDTO{" +
+            "total=" + getTotal() +
+            ", stocks=" + getStocks().size() +
+            "}";
+    }
+}
@@ -0,0 +1,44 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * Average true range over a period, with the smoothing of Wilder, seeded with the simple average of the first period of true ranges.
+ * The true range of the first bar is its high minus its low.
+ */
+public class AtrCalculator implements IndicatorCalculator {
+
+    private final int period;
+
+    private int count;
+
+    private double previousClose = Double.NaN;
+
+    private double atr;
+
+    public AtrCalculator(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("atr");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double[][] values, int index) {
+        double trueRange = high - low;
+        if (!Double.isNaN(previousClose)) {
+            trueRange = Math.max(trueRange, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+        }
+        previousClose = close;
+        if (count < period) {
+            atr += trueRange / period;
+            count++;
+            values[0][index] = count < period ? Double.NaN : atr;
+            return;
+        }
+        atr = (atr * (period - 1) + trueRange) / period;
+        values[0][index] = atr;
+    }
+}
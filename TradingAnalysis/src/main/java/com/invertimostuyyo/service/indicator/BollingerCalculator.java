@@ -0,0 +1,68 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * Bollinger bands of the close prices: the simple moving average over a period, and the bands at a number of population standard
+ * deviations of the window above and below it.
+ * <p>
+ * As for the {@link SmaCalculator}, the sums of the window are recomputed exactly each time the window has been fully replaced.
+ */
+public class BollingerCalculator implements IndicatorCalculator {
+
+    private final double[] window;
+
+    private final double deviations;
+
+    private int position;
+
+    private int count;
+
+    private double sum;
+
+    private double sumOfSquares;
+
+    public BollingerCalculator(int period, double deviations) {
+        this.window = new double[period];
+        this.deviations = deviations;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("middle", "upper", "lower");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double[][] values, int index) {
+        if (count == window.length) {
+            double leaving = window[position];
+            sum -= leaving;
+            sumOfSquares -= leaving * leaving;
+        } else {
+            count++;
+        }
+        window[position] = close;
+        sum += close;
+        sumOfSquares += close * close;
+        position = (position + 1) % window.length;
+        if (position == 0) {
+            sum = 0;
+            sumOfSquares = 0;
+            for (double value : window) {
+                sum += value;
+                sumOfSquares += value * value;
+            }
+        }
+        if (count < window.length) {
+            values[0][index] = Double.NaN;
+            values[1][index] = Double.NaN;
+            values[2][index] = Double.NaN;
+            return;
+        }
+        double mean = sum / window.length;
+        double deviation = Math.sqrt(Math.max(0, sumOfSquares / window.length - mean * mean));
+        values[0][index] = mean;
+        values[1][index] = mean + deviations * deviation;
+        values[2][index] = mean - deviations * deviation;
+    }
+}
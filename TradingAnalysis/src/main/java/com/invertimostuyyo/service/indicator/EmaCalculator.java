@@ -0,0 +1,50 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * Exponential moving average of the close prices over a period, with a smoothing factor of {@code 2 / (period + 1)}, seeded with the
+ * simple average of the first period.
+ */
+public class EmaCalculator implements IndicatorCalculator {
+
+    private final int period;
+
+    private final double alpha;
+
+    private int count;
+
+    private double ema;
+
+    public EmaCalculator(int period) {
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("ema");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double[][] values, int index) {
+        values[0][index] = next(close);
+    }
+
+    /**
+     * @return the average with the value, or {@link Double#NaN} if less than a period has been seen.
+     */
+    double next(double value) {
+        if (count < period) {
+            ema += value;
+            count++;
+            if (count < period) {
+                return Double.NaN;
+            }
+            ema /= period;
+            return ema;
+        }
+        ema += alpha * (value - ema);
+        return ema;
+    }
+}
@@ -0,0 +1,27 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * A calculator of a technical indicator, which is fed the bars of a series one by one, in ascending order of time.
+ * <p>
+ * A calculator keeps the state of the indicator, so each bar is computed in constant time, without allocation: the values of the bar
+ * are written in the columns of the caller. They are {@link Double#NaN} until the indicator has seen enough bars to be defined.
+ */
+public interface IndicatorCalculator {
+    /**
+     * @return the names of the outputs of the indicator, in the order of their columns.
+     */
+    List<String> outputs();
+
+    /**
+     * Feeds the next bar of the series.
+     *
+     * @param high the high price of the bar.
+     * @param low the low price of the bar.
+     * @param close the close price of the bar.
+     * @param values the columns of the outputs, in which the values of the bar are written.
+     * @param index the index of the bar in the columns.
+     */
+    void update(double high, double low, double close, double[][] values, int index);
+}
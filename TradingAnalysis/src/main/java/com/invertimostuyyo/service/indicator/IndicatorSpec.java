@@ -0,0 +1,119 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The specification of a technical indicator, parsed from the name of an {@link com.invertimostuyyo.domain.Indicator}: its type, such as
+ * {@code SMA}, {@code EMA}, {@code RSI}, {@code MACD}, {@code BB} or {@code ATR}, and optionally its parameters, such as
+ * {@code MACD(12,26,9)}. The parameters default to the usual ones: {@code SMA(20)}, {@code EMA(20)}, {@code RSI(14)},
+ * {@code MACD(12,26,9)}, {@code BB(20,2)} and {@code ATR(14)}.
+ */
+public final class IndicatorSpec {
+
+    /**
+     * Maximum period of an indicator, which bounds the memory of its calculator.
+     */
+    public static final int MAX_PERIOD = 10_000;
+
+    private static final Pattern NAME = Pattern.compile("\\s*([A-Za-z]+)\\s*(?:\\(([^)]*)\\))?\\s*");
+
+    private final String name;
+
+    private final Function<double[], IndicatorCalculator> factory;
+
+    private final double[] parameters;
+
+    private IndicatorSpec(String name, Function<double[], IndicatorCalculator> factory, double[] parameters) {
+        this.name = name;
+        this.factory = factory;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @param name the name of an indicator.
+     * @return the specification of the indicator, or empty if the name is not one of a supported indicator with valid parameters.
+     */
+    public static Optional<IndicatorSpec> parse(String name) {
+        Matcher matcher = name != null ? NAME.matcher(name) : null;
+        if (matcher == null || !matcher.matches()) {
+            return Optional.empty();
+        }
+        double[] parameters;
+        try {
+            parameters =
+                matcher.group(2) == null || matcher.group(2).isBlank()
+                    ? new double[0]
+                    : Arrays.stream(matcher.group(2).split(",")).mapToDouble(parameter -> Double.parseDouble(parameter.trim())).toArray();
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        switch (matcher.group(1).toUpperCase(Locale.ROOT)) {
+            case "SMA":
+                return of("SMA", parameters, new double[] { 20 }, 1, p -> new SmaCalculator((int) p[0]));
+            case "EMA":
+                return of("EMA", parameters, new double[] { 20 }, 1, p -> new EmaCalculator((int) p[0]));
+            case "RSI":
+                return of("RSI", parameters, new double[] { 14 }, 1, p -> new RsiCalculator((int) p[0]));
+            case "MACD":
+                return of("MACD", parameters, new double[] { 12, 26, 9 }, 3, p -> new MacdCalculator((int) p[0], (int) p[1], (int) p[2]));
+            case "BB":
+            case "BOLLINGER":
+                return of("BB", parameters, new double[] { 20, 2 }, 1, p -> new BollingerCalculator((int) p[0], p[1]));
+            case "ATR":
+                return of("ATR", parameters, new double[] { 14 }, 1, p -> new AtrCalculator((int) p[0]));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * @param periods the number of leading parameters which are periods, and must be positive integers.
+     */
+    private static Optional<IndicatorSpec> of(
+        String type,
+        double[] parameters,
+        double[] defaults,
+        int periods,
+        Function<double[], IndicatorCalculator> factory
+    ) {
+        if (parameters.length > defaults.length) {
+            return Optional.empty();
+        }
+        double[] values = defaults.clone();
+        System.arraycopy(parameters, 0, values, 0, parameters.length);
+        for (int i = 0; i < values.length; i++) {
+            boolean valid = i < periods ? values[i] >= 1 && values[i] <= MAX_PERIOD && values[i] == Math.rint(values[i]) : values[i] > 0;
+            if (!valid || Double.isInfinite(values[i])) {
+                return Optional.empty();
+            }
+        }
+        String name = Arrays.stream(values).mapToObj(IndicatorSpec::format).collect(Collectors.joining(",", type + "(", ")"));
+        return Optional.of(new IndicatorSpec(name, factory, values));
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    /**
+     * @return the canonical name of the indicator, with all its parameters, such as {@code MACD(12,26,9)}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public IndicatorCalculator newCalculator() {
+        return factory.apply(parameters);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
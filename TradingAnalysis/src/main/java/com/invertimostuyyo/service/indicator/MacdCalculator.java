@@ -0,0 +1,36 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * Moving average convergence divergence of the close prices: the difference between a fast and a slow exponential moving average,
+ * its signal line, an exponential moving average of the difference, and their histogram.
+ */
+public class MacdCalculator implements IndicatorCalculator {
+
+    private final EmaCalculator fast;
+
+    private final EmaCalculator slow;
+
+    private final EmaCalculator signal;
+
+    public MacdCalculator(int fastPeriod, int slowPeriod, int signalPeriod) {
+        this.fast = new EmaCalculator(fastPeriod);
+        this.slow = new EmaCalculator(slowPeriod);
+        this.signal = new EmaCalculator(signalPeriod);
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("macd", "signal", "histogram");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double[][] values, int index) {
+        double macd = fast.next(close) - slow.next(close);
+        double signalValue = Double.isNaN(macd) ? Double.NaN : signal.next(macd);
+        values[0][index] = macd;
+        values[1][index] = signalValue;
+        values[2][index] = macd - signalValue;
+    }
+}
@@ -0,0 +1,58 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * Relative strength index of the close prices over a period, with the smoothing of Wilder: the average gain and loss are seeded with
+ * the simple averages of the first period of changes.
+ */
+public class RsiCalculator implements IndicatorCalculator {
+
+    private final int period;
+
+    private int changes;
+
+    private double previousClose = Double.NaN;
+
+    private double averageGain;
+
+    private double averageLoss;
+
+    public RsiCalculator(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("rsi");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double[][] values, int index) {
+        double change = close - previousClose;
+        previousClose = close;
+        if (Double.isNaN(change)) {
+            values[0][index] = Double.NaN;
+            return;
+        }
+        double gain = Math.max(change, 0);
+        double loss = Math.max(-change, 0);
+        if (changes < period) {
+            averageGain += gain / period;
+            averageLoss += loss / period;
+            changes++;
+            if (changes < period) {
+                values[0][index] = Double.NaN;
+                return;
+            }
+        } else {
+            averageGain = (averageGain * (period - 1) + gain) / period;
+            averageLoss = (averageLoss * (period - 1) + loss) / period;
+        }
+        if (averageLoss == 0) {
+            values[0][index] = averageGain == 0 ? 50 : 100;
+        } else {
+            values[0][index] = 100 - 100 / (1 + averageGain / averageLoss);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.invertimostuyyo.service.indicator;
+
+import java.util.List;
+
+/**
+ * Simple moving average of the close prices over a period.
+ * <p>
+ * The sum of the window is kept up to date as the bars come in and out of it, and recomputed exactly each time the window has been
+ * fully replaced, so that the rounding errors do not accumulate.
+ */
+public class SmaCalculator implements IndicatorCalculator {
+
+    private final double[] window;
+
+    private int position;
+
+    private int count;
+
+    private double sum;
+
+    public SmaCalculator(int period) {
+        this.window = new double[period];
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("sma");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double[][] values, int index) {
+        values[0][index] = next(close);
+    }
+
+    /**
+     * @return the average of the window with the value, or {@link Double#NaN} if the window is not full yet.
+     */
+    double next(double value) {
+        if (count == window.length) {
+            sum -= window[position];
+        } else {
+            count++;
+        }
+        window[position] = value;
+        sum += value;
+        position = (position + 1) % window.length;
+        if (position == 0) {
+            sum = 0;
+            for (double windowValue : window) {
+                sum += windowValue;
+            }
+        }
+        return count == window.length ? sum / window.length : Double.NaN;
+    }
+}
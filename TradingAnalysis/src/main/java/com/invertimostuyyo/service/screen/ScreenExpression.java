@@ -0,0 +1,643 @@
+package com.invertimostuyyo.service.screen;
+
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The expressions of a screen of the {@link StockColumns}: a condition, which selects the stocks, and an operand, which ranks them.
+ * <p>
+ * An operand is a number, a numeric field of {@link StockColumns#FIELDS}, or an arithmetic expression of them with {@code + - * /} and
+ * parentheses, such as {@code (icnome - expenses) / icnome}. A condition compares two operands with {@code = != <> < <= > >=}, tests
+ * the sector with {@code sector = 'Energy'}, {@code sector != 'Energy'} or {@code sector [NOT] IN ('Energy', 'Utilities')}, and is
+ * combined with {@code AND}, {@code OR}, {@code NOT} and parentheses, for example
+ * {@code capitalization > 1e9 AND (icnome - expenses) / icnome > 0.2 AND sector IN ('Energy', 'Utilities')}.
+ * <p>
+ * A comparison with a missing value, or with the result of a division by zero, is false. The keywords and the fields are case
+ * insensitive, the sectors are not.
+ */
+public final class ScreenExpression {
+
+    /**
+     * The maximum length of an expression.
+     */
+    public static final int MAX_LENGTH = 4096;
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final Set<String> SYMBOLS = Set.of("(", ")", ",", "+", "-", "*", "/", "=", "!=", "<>", "<", "<=", ">", ">=");
+
+    /**
+     * A condition, which selects the rows of the stocks satisfying it.
+     */
+    public interface Condition {
+        /**
+         * @param columns the columns of the stocks.
+         * @param rows the rows to test, which are not modified.
+         * @return a new bitset of the rows satisfying the condition.
+         */
+        BitSet select(StockColumns columns, BitSet rows);
+    }
+
+    /**
+     * An operand, whose value is computed for a row.
+     */
+    public interface Operand {
+        /**
+         * @param columns the columns of the stocks.
+         * @param row the row of a stock.
+         * @return the value of the operand for the stock, {@link Double#NaN} if one of its values is missing.
+         */
+        double value(StockColumns columns, int row);
+    }
+
+    private ScreenExpression() {}
+
+    /**
+     * Parse a condition.
+     *
+     * @param expression the expression of the condition.
+     * @return the condition.
+     * @throws IllegalArgumentException if the expression is not a valid condition.
+     */
+    public static Condition parseCondition(String expression) {
+        Parser parser = new Parser(expression);
+        Object condition = parser.or();
+        parser.end();
+        return parser.condition(condition, 0);
+    }
+
+    /**
+     * Parse an operand.
+     *
+     * @param expression the expression of the operand.
+     * @return the operand.
+     * @throws IllegalArgumentException if the expression is not a valid operand.
+     */
+    public static Operand parseOperand(String expression) {
+        Parser parser = new Parser(expression);
+        Object operand = parser.sum();
+        parser.end();
+        return parser.operand(operand, 0);
+    }
+
+    /**
+     * A recursive descent parser of the expressions. Each level returns either a {@link Condition} or an {@link Operand}, whose type is
+     * checked by the level which combines it, so that parentheses group conditions and operands alike.
+     */
+    private static final class Parser {
+
+        private final String expression;
+        private int position;
+        private int depth;
+
+        private TokenType type;
+        private String text;
+        private int start;
+
+        Parser(String expression) {
+            if (expression == null || expression.isBlank()) {
+                throw new IllegalArgumentException("The expression is empty");
+            }
+            if (expression.length() > MAX_LENGTH) {
+                throw new IllegalArgumentException("The expression is longer than " + MAX_LENGTH + " characters");
+            }
+            this.expression = expression;
+            next();
+        }
+
+        Object or() {
+            int from = start;
+            Object left = and();
+            while (isKeyword("or")) {
+                next();
+                int right = start;
+                left = new Or(condition(left, from), condition(and(), right));
+            }
+            return left;
+        }
+
+        Object and() {
+            int from = start;
+            Object left = not();
+            while (isKeyword("and")) {
+                next();
+                int right = start;
+                left = new And(condition(left, from), condition(not(), right));
+            }
+            return left;
+        }
+
+        Object not() {
+            if (isKeyword("not")) {
+                next();
+                int from = start;
+                enter();
+                Condition condition = condition(not(), from);
+                depth--;
+                return new Not(condition);
+            }
+            return comparison();
+        }
+
+        Object comparison() {
+            int from = start;
+            if (type == TokenType.IDENTIFIER && text.equalsIgnoreCase("sector")) {
+                next();
+                return sector();
+            }
+            Object left = sum();
+            ComparisonOperator operator = type == TokenType.SYMBOL ? ComparisonOperator.of(text) : null;
+            if (operator == null) {
+                return left;
+            }
+            next();
+            int right = start;
+            return new Comparison(operand(left, from), operator, operand(sum(), right));
+        }
+
+        Object sum() {
+            int from = start;
+            Object left = product();
+            while (isSymbol("+") || isSymbol("-")) {
+                ArithmeticOperator operator = isSymbol("+") ? ArithmeticOperator.ADD : ArithmeticOperator.SUBTRACT;
+                next();
+                int right = start;
+                left = Arithmetic.of(operand(left, from), operator, operand(product(), right));
+            }
+            return left;
+        }
+
+        Object product() {
+            int from = start;
+            Object left = unary();
+            while (isSymbol("*") || isSymbol("/")) {
+                ArithmeticOperator operator = isSymbol("*") ? ArithmeticOperator.MULTIPLY : ArithmeticOperator.DIVIDE;
+                next();
+                int right = start;
+                left = Arithmetic.of(operand(left, from), operator, operand(unary(), right));
+            }
+            return left;
+        }
+
+        Object unary() {
+            int from = start;
+            if (isSymbol("-")) {
+                next();
+                enter();
+                Operand operand = operand(unary(), from + 1);
+                depth--;
+                return Arithmetic.of(new Constant(0), ArithmeticOperator.SUBTRACT, operand);
+            }
+            if (isSymbol("(")) {
+                next();
+                enter();
+                Object grouped = or();
+                depth--;
+                expect(")");
+                return grouped;
+            }
+            if (type == TokenType.NUMBER) {
+                double value;
+                try {
+                    value = Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    throw error(from, "invalid number '" + text + "'");
+                }
+                next();
+                return new Constant(value);
+            }
+            if (type == TokenType.IDENTIFIER) {
+                int field = StockColumns.FIELDS.indexOf(text.toLowerCase(Locale.ROOT));
+                if (field < 0) {
+                    throw error(from, "unknown field '" + text + "', expected one of " + StockColumns.FIELDS);
+                }
+                next();
+                return new Field(field);
+            }
+            throw error(from, type == TokenType.END ? "unexpected end" : "unexpected '" + text + "'");
+        }
+
+        /**
+         * Parse the condition on the sector which follows {@code sector}.
+         */
+        private Condition sector() {
+            if (isSymbol("=")) {
+                next();
+                return new SectorIn(Set.of(string()));
+            }
+            if (isSymbol("!=") || isSymbol("<>")) {
+                next();
+                return new Not(new SectorIn(Set.of(string())));
+            }
+            boolean negated = isKeyword("not");
+            if (negated) {
+                next();
+            }
+            if (!isKeyword("in")) {
+                throw error(start, "expected =, !=, IN or NOT IN after sector");
+            }
+            next();
+            expect("(");
+            Set<String> sectors = new LinkedHashSet<>();
+            sectors.add(string());
+            while (isSymbol(",")) {
+                next();
+                sectors.add(string());
+            }
+            expect(")");
+            return negated ? new Not(new SectorIn(sectors)) : new SectorIn(sectors);
+        }
+
+        private String string() {
+            if (type != TokenType.STRING) {
+                throw error(start, "expected a quoted sector");
+            }
+            String value = text;
+            next();
+            return value;
+        }
+
+        Condition condition(Object node, int from) {
+            if (!(node instanceof Condition)) {
+                throw error(from, "expected a condition, such as a comparison");
+            }
+            return (Condition) node;
+        }
+
+        Operand operand(Object node, int from) {
+            if (!(node instanceof Operand)) {
+                throw error(from, "expected a number or a field, not a condition");
+            }
+            return (Operand) node;
+        }
+
+        void end() {
+            if (type != TokenType.END) {
+                throw error(start, "unexpected '" + text + "'");
+            }
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) {
+                throw error(start, "the expression is nested deeper than " + MAX_DEPTH + " levels");
+            }
+        }
+
+        private void expect(String symbol) {
+            if (!isSymbol(symbol)) {
+                throw error(start, "expected '" + symbol + "'");
+            }
+            next();
+        }
+
+        private boolean isSymbol(String symbol) {
+            return type == TokenType.SYMBOL && text.equals(symbol);
+        }
+
+        private boolean isKeyword(String keyword) {
+            return type == TokenType.IDENTIFIER && text.equalsIgnoreCase(keyword);
+        }
+
+        private IllegalArgumentException error(int at, String message) {
+            return new IllegalArgumentException("Invalid expression at position " + (at + 1) + ": " + message);
+        }
+
+        /**
+         * Read the next token.
+         */
+        private void next() {
+            while (Character.isWhitespace(peek(0))) {
+                position++;
+            }
+            start = position;
+            char c = peek(0);
+            if (position == expression.length()) {
+                type = TokenType.END;
+            } else if (Character.isDigit(c) || (c == '.' && Character.isDigit(peek(1)))) {
+                number();
+            } else if (Character.isLetter(c) || c == '_') {
+                while (Character.isLetterOrDigit(peek(0)) || peek(0) == '_') {
+                    position++;
+                }
+                type = TokenType.IDENTIFIER;
+            } else if (c == '\'') {
+                quoted();
+                return;
+            } else {
+                position += SYMBOLS.contains("" + c + peek(1)) ? 2 : 1;
+                type = TokenType.SYMBOL;
+                if (!SYMBOLS.contains(expression.substring(start, position))) {
+                    throw error(start, "unexpected '" + c + "'");
+                }
+            }
+            text = expression.substring(start, position);
+        }
+
+        private void number() {
+            while (Character.isDigit(peek(0)) || peek(0) == '.') {
+                position++;
+            }
+            if (peek(0) == 'e' || peek(0) == 'E') {
+                position++;
+                if (peek(0) == '+' || peek(0) == '-') {
+                    position++;
+                }
+                while (Character.isDigit(peek(0))) {
+                    position++;
+                }
+            }
+            type = TokenType.NUMBER;
+        }
+
+        /**
+         * @return the character at the offset from the position, or {@code 0} past the end of the expression.
+         */
+        private char peek(int offset) {
+            return position + offset < expression.length() ? expression.charAt(position + offset) : 0;
+        }
+
+        /**
+         * Read a quoted string, in which a quote is doubled.
+         */
+        private void quoted() {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (true) {
+                if (position == expression.length()) {
+                    throw error(start, "unterminated quoted sector");
+                }
+                char c = expression.charAt(position++);
+                if (c == '\'') {
+                    if (peek(0) == '\'') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                value.append(c);
+            }
+            type = TokenType.STRING;
+            text = value.toString();
+        }
+    }
+
+    private enum TokenType {
+        NUMBER,
+        IDENTIFIER,
+        STRING,
+        SYMBOL,
+        END,
+    }
+
+    private enum ComparisonOperator {
+        EQUAL("=") {
+            @Override
+            boolean test(double left, double right) {
+                return left == right;
+            }
+        },
+        NOT_EQUAL("!=") {
+            @Override
+            boolean test(double left, double right) {
+                return left != right && !Double.isNaN(left) && !Double.isNaN(right);
+            }
+        },
+        LESS("<") {
+            @Override
+            boolean test(double left, double right) {
+                return left < right;
+            }
+        },
+        LESS_OR_EQUAL("<=") {
+            @Override
+            boolean test(double left, double right) {
+                return left <= right;
+            }
+        },
+        GREATER(">") {
+            @Override
+            boolean test(double left, double right) {
+                return left > right;
+            }
+        },
+        GREATER_OR_EQUAL(">=") {
+            @Override
+            boolean test(double left, double right) {
+                return left >= right;
+            }
+        };
+
+        private final String symbol;
+
+        ComparisonOperator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        abstract boolean test(double left, double right);
+
+        static ComparisonOperator of(String symbol) {
+            if (symbol.equals("<>")) {
+                return NOT_EQUAL;
+            }
+            for (ComparisonOperator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
+    private enum ArithmeticOperator {
+        ADD {
+            @Override
+            double apply(double left, double right) {
+                return left + right;
+            }
+        },
+        SUBTRACT {
+            @Override
+            double apply(double left, double right) {
+                return left - right;
+            }
+        },
+        MULTIPLY {
+            @Override
+            double apply(double left, double right) {
+                return left * right;
+            }
+        },
+        DIVIDE {
+            @Override
+            double apply(double left, double right) {
+                return right != 0 ? left / right : Double.NaN;
+            }
+        };
+
+        abstract double apply(double left, double right);
+    }
+
+    private static final class Constant implements Operand {
+
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double value(StockColumns columns, int row) {
+            return value;
+        }
+    }
+
+    private static final class Field implements Operand {
+
+        private final int field;
+
+        Field(int field) {
+            this.field = field;
+        }
+
+        @Override
+        public double value(StockColumns columns, int row) {
+            return columns.value(field, row);
+        }
+    }
+
+    private static final class Arithmetic implements Operand {
+
+        private final Operand left;
+        private final ArithmeticOperator operator;
+        private final Operand right;
+
+        private Arithmetic(Operand left, ArithmeticOperator operator, Operand right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        /**
+         * @return the arithmetic expression, computed once if both of its operands are numbers.
+         */
+        static Operand of(Operand left, ArithmeticOperator operator, Operand right) {
+            if (left instanceof Constant && right instanceof Constant) {
+                return new Constant(operator.apply(((Constant) left).value, ((Constant) right).value));
+            }
+            return new Arithmetic(left, operator, right);
+        }
+
+        @Override
+        public double value(StockColumns columns, int row) {
+            return operator.apply(left.value(columns, row), right.value(columns, row));
+        }
+    }
+
+    private static final class Comparison implements Condition {
+
+        private final Operand left;
+        private final ComparisonOperator operator;
+        private final Operand right;
+
+        Comparison(Operand left, ComparisonOperator operator, Operand right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet select(StockColumns columns, BitSet rows) {
+            BitSet selected = new BitSet();
+            if (left instanceof Field && right instanceof Constant) {
+                // The most common comparison, of a field with a number, reads the column directly
+                double[] column = columns.column(((Field) left).field);
+                double value = ((Constant) right).value;
+                for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                    if (operator.test(column[row], value)) {
+                        selected.set(row);
+                    }
+                }
+            } else {
+                for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                    if (operator.test(left.value(columns, row), right.value(columns, row))) {
+                        selected.set(row);
+                    }
+                }
+            }
+            return selected;
+        }
+    }
+
+    private static final class SectorIn implements Condition {
+
+        private final Set<String> sectors;
+
+        SectorIn(Set<String> sectors) {
+            this.sectors = sectors;
+        }
+
+        @Override
+        public BitSet select(StockColumns columns, BitSet rows) {
+            BitSet selected = new BitSet();
+            for (String sector : sectors) {
+                selected.or(columns.sectorRows(sector));
+            }
+            selected.and(rows);
+            return selected;
+        }
+    }
+
+    private static final class And implements Condition {
+
+        private final Condition left;
+        private final Condition right;
+
+        And(Condition left, Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet select(StockColumns columns, BitSet rows) {
+            return right.select(columns, left.select(columns, rows));
+        }
+    }
+
+    private static final class Or implements Condition {
+
+        private final Condition left;
+        private final Condition right;
+
+        Or(Condition left, Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet select(StockColumns columns, BitSet rows) {
+            BitSet selected = left.select(columns, rows);
+            BitSet others = (BitSet) rows.clone();
+            others.andNot(selected);
+            selected.or(right.select(columns, others));
+            return selected;
+        }
+    }
+
+    private static final class Not implements Condition {
+
+        private final Condition condition;
+
+        Not(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public BitSet select(StockColumns columns, BitSet rows) {
+            BitSet selected = (BitSet) rows.clone();
+            selected.andNot(condition.select(columns, rows));
+            return selected;
+        }
+    }
+}
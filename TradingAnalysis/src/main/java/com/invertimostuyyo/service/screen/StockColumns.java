@@ -0,0 +1,176 @@
+package com.invertimostuyyo.service.screen;
+
+import com.invertimostuyyo.domain.Stock;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fundamentals of the {@link Stock}s by column, as screened by a {@link ScreenExpression}: a primitive array per numeric field, and
+ * the rows of each sector as a bitset, so that a screen reads the values of its fields sequentially and selects a sector without
+ * reading a row.
+ * <p>
+ * A stock keeps its row while it exists: the row of a deleted stock is reused by the next stock added. A missing value is
+ * {@link Double#NaN}. The columns are not thread-safe.
+ */
+public final class StockColumns {
+
+    /**
+     * The numeric fields which can be screened, by index of their column.
+     */
+    public static final List<String> FIELDS = List.of("icnome", "expenses", "capitalization", "employees");
+
+    public static final int ICNOME = 0;
+    public static final int EXPENSES = 1;
+    public static final int CAPITALIZATION = 2;
+    public static final int EMPLOYEES = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] sectors = new String[INITIAL_CAPACITY];
+    private final double[][] values = new double[FIELDS.size()][INITIAL_CAPACITY];
+
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> sectorRows = new HashMap<>();
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+
+    /**
+     * Add a stock, or update its row.
+     *
+     * @param stock the stock, which must have an id.
+     */
+    public void put(Stock stock) {
+        put(
+            stock.getId(),
+            stock.getName(),
+            stock.getSector(),
+            stock.getIcnome(),
+            stock.getExpenses(),
+            stock.getCapitalization(),
+            stock.getEmployees()
+        );
+    }
+
+    /**
+     * Add a stock, or update its row, from the values of its fields, a missing value being {@code null}.
+     */
+    public void put(long id, String name, String sector, Number icnome, Number expenses, Number capitalization, Number employees) {
+        Integer row = rows.get(id);
+        if (row != null) {
+            clearSector(row);
+        } else {
+            row = freeRows.isEmpty() ? size++ : freeRows.pop();
+            if (row == ids.length) {
+                grow();
+            }
+            rows.put(id, row);
+            live.set(row);
+        }
+        ids[row] = id;
+        names[row] = name;
+        sectors[row] = sector;
+        sectorRows.computeIfAbsent(sector, key -> new BitSet()).set(row);
+        values[ICNOME][row] = toDouble(icnome);
+        values[EXPENSES][row] = toDouble(expenses);
+        values[CAPITALIZATION][row] = toDouble(capitalization);
+        values[EMPLOYEES][row] = toDouble(employees);
+    }
+
+    /**
+     * Remove a stock, if it is in the columns.
+     *
+     * @param id the id of the stock.
+     */
+    public void remove(Long id) {
+        Integer row = rows.remove(id);
+        if (row == null) {
+            return;
+        }
+        clearSector(row);
+        live.clear(row);
+        names[row] = null;
+        sectors[row] = null;
+        freeRows.push(row);
+    }
+
+    /**
+     * @return the number of stocks.
+     */
+    public int count() {
+        return rows.size();
+    }
+
+    /**
+     * @return a copy of the rows of the stocks.
+     */
+    public BitSet rows() {
+        return (BitSet) live.clone();
+    }
+
+    /**
+     * @param sector a sector.
+     * @return the rows of the stocks of the sector, which must not be modified.
+     */
+    BitSet sectorRows(String sector) {
+        return sectorRows.getOrDefault(sector, new BitSet());
+    }
+
+    /**
+     * @param field the index of the field in {@link #FIELDS}.
+     * @return the column of the field, which must not be modified.
+     */
+    double[] column(int field) {
+        return values[field];
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public String sector(int row) {
+        return sectors[row];
+    }
+
+    /**
+     * @param field the index of the field in {@link #FIELDS}.
+     * @param row the row of a stock.
+     * @return the value of the field for the stock, {@link Double#NaN} if it is missing.
+     */
+    public double value(int field, int row) {
+        return values[field][row];
+    }
+
+    private void clearSector(int row) {
+        BitSet sector = sectorRows.get(sectors[row]);
+        sector.clear(row);
+        if (sector.isEmpty()) {
+            sectorRows.remove(sectors[row]);
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        sectors = Arrays.copyOf(sectors, capacity);
+        for (int field = 0; field < values.length; field++) {
+            values[field] = Arrays.copyOf(values[field], capacity);
+        }
+    }
+
+    private static double toDouble(Number value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,57 @@
+package com.invertimostuyyo.web.rest;
+
+import com.invertimostuyyo.service.AnalysisRunService;
+import com.invertimostuyyo.service.dto.AnalysisRunDTO;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for running the batch analysis of all the {@link com.invertimostuyyo.domain.Stock}s, and following its progress.
+ */
+@RestController
+@RequestMapping("/api")
+public class AnalysisRunResource {
+
+    private final Logger log = LoggerFactory.getLogger(AnalysisRunResource.class);
+
+    private final AnalysisRunService analysisRunService;
+
+    public AnalysisRunResource(AnalysisRunService analysisRunService) {
+        this.analysisRunService = analysisRunService;
+    }
+
+    /**
+     * {@code POST  /analysis-runs} : Start the run of a date, which creates an analysis of each stock with its indicators.
+     * <p>
+     * There is one run per date: if the run of the date has been interrupted, it is resumed from its checkpoints, and if it is running
+     * or completed, it is left as is.
+     *
+     * @param date the date of the analyses, today by default.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the status of the run.
+     */
+    @PostMapping("/analysis-runs")
+    public ResponseEntity<AnalysisRunDTO> startAnalysisRun(
+        @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        log.debug("REST request to start the AnalysisRun of {}", date);
+        return ResponseEntity.accepted().body(analysisRunService.start(date != null ? date : LocalDate.now()));
+    }
+
+    /**
+     * {@code GET  /analysis-runs/:id} : get the status of the "id" run: its progress, its throughput and its latest failures.
+     *
+     * @param id the id of the run.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the status of the run,
+     * or with status {@code 404 (Not Found)} if the run does not exist.
+     */
+    @GetMapping("/analysis-runs/{id}")
+    public ResponseEntity<AnalysisRunDTO> getAnalysisRun(@PathVariable Long id) {
+        log.debug("REST request to get the status of the AnalysisRun : {}", id);
+        return ResponseUtil.wrapOrNotFound(analysisRunService.findStatus(id));
+    }
+}
@@ -0,0 +1,84 @@
+package com.invertimostuyyo.web.rest;
+
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.IndicatorValues;
+import com.invertimostuyyo.repository.AnalysisRepository;
+import com.invertimostuyyo.service.IndicatorValuesService;
+import com.invertimostuyyo.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for computing and reading the values of the {@link com.invertimostuyyo.domain.Indicator}s of an {@link Analysis}.
+ * <p>
+ * The values of an indicator are returned by column, as the price bars are: the times in milliseconds since the epoch, and an array of
+ * values per output of the indicator.
+ */
+@RestController
+@RequestMapping("/api")
+public class IndicatorValuesResource {
+
+    private final Logger log = LoggerFactory.getLogger(IndicatorValuesResource.class);
+
+    private static final String ENTITY_NAME = "tradingAnalysisIndicatorValues";
+
+    private final IndicatorValuesService indicatorValuesService;
+
+    private final AnalysisRepository analysisRepository;
+
+    public IndicatorValuesResource(IndicatorValuesService indicatorValuesService, AnalysisRepository analysisRepository) {
+        this.indicatorValuesService = indicatorValuesService;
+        this.analysisRepository = analysisRepository;
+    }
+
+    /**
+     * {@code POST  /analyses/:id/indicators/values} : compute the values of the indicators of the "id" analysis over the price bars of
+     * its stock.
+     * <p>
+     * Only the bars appended since the last computation are computed, unless bars have been appended before its end, and only their
+     * values are returned: the whole values are read with {@code GET}. The indicators whose name is not one of a supported indicator,
+     * such as {@code SMA(50)} or {@code MACD(12,26,9)}, are skipped.
+     *
+     * @param id the id of the analysis.
+     * @param interval the interval of the bars, {@code ONE_DAY} by default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the values computed for the indicators,
+     * or with status {@code 400 (Bad Request)} if the analysis has no stock,
+     * or with status {@code 404 (Not Found)} if the analysis does not exist.
+     */
+    @PostMapping("/analyses/{id}/indicators/values")
+    public ResponseEntity<List<IndicatorValues>> computeIndicatorValues(
+        @PathVariable Long id,
+        @RequestParam(value = "interval", defaultValue = "ONE_DAY") BarInterval interval
+    ) {
+        log.debug("REST request to compute the {} values of the Indicators of Analysis : {}", interval, id);
+        Optional<Analysis> analysis = analysisRepository.findById(id);
+        if (analysis.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (analysis.get().getStock() == null) {
+            throw new BadRequestAlertException("The analysis has no stock", ENTITY_NAME, "analysisnostock");
+        }
+        return ResponseEntity.ok(indicatorValuesService.compute(analysis.get(), interval));
+    }
+
+    /**
+     * {@code GET  /analyses/:id/indicators/values} : get the values of the indicators of the "id" analysis, as last computed.
+     *
+     * @param id the id of the analysis.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the values of the indicators which have been computed,
+     * or with status {@code 404 (Not Found)} if the analysis does not exist.
+     */
+    @GetMapping("/analyses/{id}/indicators/values")
+    public ResponseEntity<List<IndicatorValues>> getIndicatorValues(@PathVariable Long id) {
+        log.debug("REST request to get the values of the Indicators of Analysis : {}", id);
+        if (!analysisRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(indicatorValuesService.findByAnalysisId(id));
+    }
+}
@@ -0,0 +1,128 @@
+package com.invertimostuyyo.web.rest;
+
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.PriceBar;
+import com.invertimostuyyo.domain.PriceSeries;
+import com.invertimostuyyo.repository.PriceBarStore;
+import com.invertimostuyyo.repository.StockRepository;
+import com.invertimostuyyo.service.IndicatorValuesService;
+import com.invertimostuyyo.web.rest.errors.BadRequestAlertException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for managing the price bars of the {@link com.invertimostuyyo.domain.Stock}s.
+ * <p>
+ * The bars are ingested row by row, and read back by column: the response has one array per column, with the times in milliseconds
+ * since the epoch, which is several times smaller than the bars as objects and maps directly onto the storage of the bars.
+ */
+@RestController
+@RequestMapping("/api")
+public class PriceBarResource {
+
+    private final Logger log = LoggerFactory.getLogger(PriceBarResource.class);
+
+    private static final String ENTITY_NAME = "tradingAnalysisPriceBar";
+
+    private final PriceBarStore priceBarStore;
+
+    private final StockRepository stockRepository;
+
+    private final Validator validator;
+
+    private final IndicatorValuesService indicatorValuesService;
+
+    public PriceBarResource(
+        PriceBarStore priceBarStore,
+        StockRepository stockRepository,
+        Validator validator,
+        IndicatorValuesService indicatorValuesService
+    ) {
+        this.priceBarStore = priceBarStore;
+        this.stockRepository = stockRepository;
+        this.validator = validator;
+        this.indicatorValuesService = indicatorValuesService;
+    }
+
+    /**
+     * {@code POST  /stocks/:id/bars} : Append price bars to the "id" stock.
+     * <p>
+     * The bars may be in any order: a bar with the same time as a stored bar of the stock overrides it.
+     *
+     * @param id the id of the stock.
+     * @param interval the interval of the bars, {@code ONE_DAY} by default.
+     * @param bars the bars to append.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)},
+     * or with status {@code 400 (Bad Request)} if a bar is not valid,
+     * or with status {@code 404 (Not Found)} if the stock does not exist.
+     */
+    @PostMapping("/stocks/{id}/bars")
+    public ResponseEntity<Void> appendPriceBars(
+        @PathVariable Long id,
+        @RequestParam(value = "interval", defaultValue = "ONE_DAY") BarInterval interval,
+        @RequestBody List<PriceBar> bars
+    ) {
+        log.debug("REST request to append {} {} PriceBars to Stock : {}", bars.size(), interval, id);
+        for (int i = 0; i < bars.size(); i++) {
+            if (bars.get(i) == null) {
+                throw new BadRequestAlertException("Invalid bar " + i + ": null", ENTITY_NAME, "barinvalid");
+            }
+            Set<ConstraintViolation<PriceBar>> violations = validator.validate(bars.get(i));
+            if (!violations.isEmpty()) {
+                ConstraintViolation<PriceBar> violation = violations.iterator().next();
+                throw new BadRequestAlertException(
+                    "Invalid bar " + i + ": " + violation.getPropertyPath() + " " + violation.getMessage(),
+                    ENTITY_NAME,
+                    "barinvalid"
+                );
+            }
+        }
+        if (!stockRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        PriceSeries series = PriceSeries.of(bars);
+        priceBarStore.append(id, interval, series);
+        if (series.size() > 0) {
+            indicatorValuesService.invalidate(id, interval, series.firstTime());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * {@code GET  /stocks/:id/bars} : get the price bars of the "id" stock in a range of times.
+     *
+     * @param id the id of the stock.
+     * @param interval the interval of the bars, {@code ONE_DAY} by default.
+     * @param from the start of the range, inclusive, unbounded by default.
+     * @param to the end of the range, exclusive, unbounded by default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the bars by column, in ascending order of time,
+     * or with status {@code 400 (Bad Request)} if the range is not valid,
+     * or with status {@code 404 (Not Found)} if the stock does not exist.
+     */
+    @GetMapping("/stocks/{id}/bars")
+    public ResponseEntity<PriceSeries> getPriceBars(
+        @PathVariable Long id,
+        @RequestParam(value = "interval", defaultValue = "ONE_DAY") BarInterval interval,
+        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        log.debug("REST request to get the {} PriceBars of Stock : {}, from {} to {}", interval, id, from, to);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestAlertException("The start of the range is after its end", ENTITY_NAME, "rangeinvalid");
+        }
+        if (!stockRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        long start = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+        long end = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+        return ResponseEntity.ok(priceBarStore.find(id, interval, start, end));
+    }
+}
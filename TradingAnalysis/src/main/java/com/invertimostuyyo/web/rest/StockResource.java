@@ -1,19 +1,36 @@
 package com.invertimostuyyo.web.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.invertimostuyyo.config.ApplicationProperties;
 import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.repository.BatchSummary;
+import com.invertimostuyyo.repository.PriceBarStore;
 import com.invertimostuyyo.repository.StockRepository;
+import com.invertimostuyyo.service.StockScreenService;
+import com.invertimostuyyo.service.StockTreeService;
+import com.invertimostuyyo.service.dto.StockScreenDTO;
+import com.invertimostuyyo.service.dto.StockTreeDTO;
 import com.invertimostuyyo.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.web.rest.util.BatchUtil;
+import com.invertimostuyyo.web.rest.vm.StockScreenVM;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,8 +53,34 @@ public class StockResource {
 
     private final StockRepository stockRepository;
 
-    public StockResource(StockRepository stockRepository) {
+    private final StockTreeService stockTreeService;
+
+    private final ObjectReader stockReader;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final PriceBarStore priceBarStore;
+
+    private final StockScreenService stockScreenService;
+
+    public StockResource(
+        StockRepository stockRepository,
+        StockTreeService stockTreeService,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        PriceBarStore priceBarStore,
+        StockScreenService stockScreenService
+    ) {
         this.stockRepository = stockRepository;
+        this.stockTreeService = stockTreeService;
+        this.stockReader = objectMapper.readerFor(Stock.class);
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
+        this.priceBarStore = priceBarStore;
+        this.stockScreenService = stockScreenService;
     }
 
     /**
@@ -54,12 +97,74 @@ public class StockResource {
             throw new BadRequestAlertException("A new stock cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Stock result = stockRepository.save(stock);
+        stockScreenService.put(result);
         return ResponseEntity
             .created(new URI("/api/stocks/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * {@code POST  /stocks/batch} : Create, or update with {@code upsert}, a batch of stocks.
+     * <p>
+     * The stocks are read as a JSON array or as newline delimited JSON, and written in chunks with JDBC batches. A faulty stock
+     * does not fail the batch: it is reported in the failures, along with its index in the request.
+     *
+     * @param body the stocks to write.
+     * @param upsert whether the stocks with an ID are updated, or inserted with their ID when missing, instead of being rejected.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the numbers of written rows and the failures in body,
+     * or with status {@code 400 (Bad Request)} if the body is not valid JSON.
+     * @throws IOException if the body couldn't be read.
+     */
+    @PostMapping(value = "/stocks/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<BatchSummary> createStockBatch(
+        InputStream body,
+        @RequestParam(value = "upsert", defaultValue = "false") boolean upsert
+    ) throws IOException {
+        log.debug("REST request to save a batch of Stocks, upsert: {}", upsert);
+        try {
+            BatchSummary summary = BatchUtil.writeAll(
+                body,
+                stockReader,
+                applicationProperties.getBatch().getChunkSize(),
+                upsert,
+                validator,
+                Stock::getId,
+                stockRepository::writeAll
+            );
+            stockScreenService.invalidate();
+            return ResponseEntity.ok(summary);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestAlertException("Invalid batch: " + e.getOriginalMessage(), ENTITY_NAME, "batchinvalid");
+        }
+    }
+
+    /**
+     * {@code POST  /stocks/screen} : Screen the stocks on their fundamentals.
+     * <p>
+     * The filter selects the stocks, for example {@code capitalization > 1e9 AND (icnome - expenses) / icnome > 0.2 AND sector IN
+     * ('Energy', 'Utilities')}, and the rank orders them, for example {@code (icnome - expenses) / icnome}. Both are evaluated in
+     * memory over the screened fields of all the stocks, see {@link com.invertimostuyyo.service.screen.ScreenExpression}.
+     *
+     * @param screen the filter, the rank, the order and the maximum number of stocks to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of stocks selected and the best ranked
+     * of them, or with status {@code 400 (Bad Request)} if the filter or the rank is not valid.
+     */
+    @PostMapping("/stocks/screen")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StockScreenDTO> screenStocks(@Valid @RequestBody StockScreenVM screen) {
+        log.debug("REST request to screen Stocks : {}", screen);
+        boolean ascending = screen.getOrder() != null
+            ? screen.getOrder().isAscending()
+            : screen.getRank() == null || screen.getRank().isBlank();
+        try {
+            return ResponseEntity.ok(stockScreenService.screen(screen.getFilter(), screen.getRank(), ascending, screen.getLimit()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "screeninvalid");
+        }
+    }
+
     /**
      * {@code PUT  /stocks/:id} : Updates an existing stock.
      *
@@ -86,6 +191,7 @@ public class StockResource {
         }
 
         Stock result = stockRepository.save(stock);
+        stockScreenService.put(result);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, stock.getId().toString()))
@@ -151,6 +257,7 @@ public class StockResource {
                 return existingStock;
             })
             .map(stockRepository::save);
+        result.ifPresent(stockScreenService::put);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -183,7 +290,29 @@ public class StockResource {
     }
 
     /**
-     * {@code DELETE  /stocks/:id} : delete the "id" stock.
+     * {@code GET  /stocks/:id/tree} : get the "id" stock, with its latest analyses and their indicators.
+     *
+     * @param id the id of the stock to retrieve.
+     * @param analyses the maximum number of analyses, by descending date - at most {@value StockTreeService#MAX_ANALYSES}, the default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the tree of the stock,
+     * or with status {@code 400 (Bad Request)} if the maximum number of analyses is negative,
+     * or with status {@code 404 (Not Found)} if the stock does not exist.
+     */
+    @GetMapping("/stocks/{id}/tree")
+    public ResponseEntity<StockTreeDTO> getStockTree(
+        @PathVariable Long id,
+        @RequestParam(value = "analyses", required = false) Integer analyses
+    ) {
+        log.debug("REST request to get the tree of Stock : {}", id);
+        if (analyses != null && analyses < 0) {
+            throw new BadRequestAlertException("Invalid number of analyses", ENTITY_NAME, "analysesinvalid");
+        }
+        Optional<StockTreeDTO> tree = stockTreeService.findTree(id, analyses != null ? analyses : StockTreeService.MAX_ANALYSES);
+        return ResponseUtil.wrapOrNotFound(tree);
+    }
+
+    /**
+     * {@code DELETE  /stocks/:id} : delete the "id" stock, and its price bars once the deletion is committed.
      *
      * @param id the id of the stock to delete.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
@@ -192,6 +321,8 @@ public class StockResource {
     public ResponseEntity<Void> deleteStock(@PathVariable Long id) {
         log.debug("REST request to delete Stock : {}", id);
         stockRepository.deleteById(id);
+        stockScreenService.remove(id);
+        priceBarStore.deleteAfterCommit(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
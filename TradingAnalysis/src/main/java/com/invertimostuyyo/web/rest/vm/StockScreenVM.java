@@ -0,0 +1,75 @@
+package com.invertimostuyyo.web.rest.vm;
+
+import com.invertimostuyyo.service.StockScreenService;
+import com.invertimostuyyo.service.screen.ScreenExpression;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import org.springframework.data.domain.Sort;
+
+/**
+ * View Model of a stock screen: the filter of the stocks and their ranking, as {@link ScreenExpression}s, and the number of stocks
+ * to return.
+ */
+public class StockScreenVM {
+
+    public static final int DEFAULT_LIMIT = 50;
+
+    @Size(max = ScreenExpression.MAX_LENGTH)
+    private String filter;
+
+    @Size(max = ScreenExpression.MAX_LENGTH)
+    private String rank;
+
+    /**
+     * The order of the ranking: descending by default, or ascending by id when there is no rank.
+     */
+    private Sort.Direction order;
+
+    @Min(1)
+    @Max(StockScreenService.MAX_LIMIT)
+    private int limit = DEFAULT_LIMIT;
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    public String getRank() {
+        return rank;
+    }
+
+    public void setRank(String rank) {
+        this.rank = rank;
+    }
+
+    public Sort.Direction getOrder() {
+        return order;
+    }
+
+    public void setOrder(Sort.Direction order) {
+        this.order = order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StockScreenVM{" +
+            "filter='" + filter + "'" +
+            ", rank='" + rank + "'" +
+            ", order=" + order +
+            ", limit=" + limit +
+            "}";
+    }
+}
@@ -0,0 +1,194 @@
+package com.invertimostuyyo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.PriceBar;
+import com.invertimostuyyo.domain.PriceSeries;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class PriceBarStoreTest {
+
+    private static final Long STOCK_ID = 1L;
+
+    private static final Instant START = Instant.parse("2015-01-02T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private PriceBarStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PriceBarStore(directory, 4);
+    }
+
+    @Test
+    void findReturnsTheBarsInTheRange() {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+
+        PriceSeries bars = store.find(STOCK_ID, BarInterval.ONE_DAY, time(2), time(5));
+
+        assertThat(bars.getTime()).containsExactly(time(2), time(3), time(4));
+        assertThat(bars.getOpen()).containsExactly(102, 103, 104);
+        assertThat(bars.getHigh()).containsExactly(112, 113, 114);
+        assertThat(bars.getLow()).containsExactly(92, 93, 94);
+        assertThat(bars.getClose()).containsExactly(107, 108, 109);
+        assertThat(bars.getVolume()).containsExactly(1002, 1003, 1004);
+    }
+
+    @Test
+    void findReturnsNoBarsOutOfTheSeries() {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+
+        assertThat(store.find(STOCK_ID, BarInterval.ONE_DAY, time(20), time(30)).size()).isZero();
+        assertThat(store.find(STOCK_ID, BarInterval.ONE_HOUR, Long.MIN_VALUE, Long.MAX_VALUE).size()).isZero();
+        assertThat(store.find(2L, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isZero();
+    }
+
+    @Test
+    void appendedBarsOverrideTheBarsWithTheSameTime() {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(8, 4, 200));
+
+        PriceSeries bars = store.find(STOCK_ID, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertThat(bars.size()).isEqualTo(12);
+        assertThat(bars.getOpen()[7]).isEqualTo(107);
+        assertThat(bars.getOpen()[8]).isEqualTo(208);
+        assertThat(bars.getOpen()[11]).isEqualTo(211);
+    }
+
+    @Test
+    void appendCompactsTheSegmentsBeyondTheMaximum() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            store.append(STOCK_ID, BarInterval.ONE_DAY, series(i * 10, 10, 100));
+        }
+        assertThat(store.countSegments(STOCK_ID, BarInterval.ONE_DAY)).isEqualTo(4);
+
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(5, 10, 200));
+
+        assertThat(store.countSegments(STOCK_ID, BarInterval.ONE_DAY)).isEqualTo(1);
+        PriceSeries bars = store.find(STOCK_ID, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(bars.size()).isEqualTo(40);
+        assertThat(bars.getOpen()[4]).isEqualTo(104);
+        assertThat(bars.getOpen()[5]).isEqualTo(205);
+        assertThat(bars.getOpen()[15]).isEqualTo(115);
+        assertThat(bars.getTime()).isSorted();
+    }
+
+    @Test
+    void appendRecoversFromTheTemporaryFilesOfACrash() throws IOException {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+        Path series = directory.resolve(String.valueOf(STOCK_ID)).resolve("one_day");
+        for (int sequence = 2; sequence <= 6; sequence++) {
+            Files.write(series.resolve(String.format("%019d.bars.tmp", sequence)), new byte[] { 1, 2, 3 });
+        }
+
+        for (int i = 1; i <= 4; i++) {
+            store.append(STOCK_ID, BarInterval.ONE_DAY, series(i * 10, 10, 100));
+        }
+
+        assertThat(store.countSegments(STOCK_ID, BarInterval.ONE_DAY)).isEqualTo(1);
+        assertThat(store.find(STOCK_ID, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isEqualTo(50);
+        try (Stream<Path> files = Files.list(series)) {
+            assertThat(files.map(file -> file.getFileName().toString())).noneMatch(name -> name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void deleteRemovesAllTheSeriesOfTheStock() {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+        store.append(STOCK_ID, BarInterval.ONE_MINUTE, series(0, 10, 100));
+        store.append(2L, BarInterval.ONE_DAY, series(0, 10, 100));
+
+        store.delete(STOCK_ID);
+
+        assertThat(store.countLocks()).isEqualTo(1);
+        assertThat(store.find(STOCK_ID, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isZero();
+        assertThat(store.find(STOCK_ID, BarInterval.ONE_MINUTE, Long.MIN_VALUE, Long.MAX_VALUE).size()).isZero();
+        assertThat(store.find(2L, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isEqualTo(10);
+        assertThat(directory.resolve(String.valueOf(STOCK_ID))).doesNotExist();
+    }
+
+    @Test
+    void deleteAfterCommitKeepsTheSeriesUntilTheTransactionIsCommitted() {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.deleteAfterCommit(STOCK_ID);
+
+            assertThat(store.find(STOCK_ID, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isEqualTo(10);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(directory.resolve(String.valueOf(STOCK_ID))).doesNotExist();
+    }
+
+    @Test
+    void findFailsOnATruncatedSegment() throws IOException {
+        store.append(STOCK_ID, BarInterval.ONE_DAY, series(0, 10, 100));
+        try (Stream<Path> files = Files.walk(directory)) {
+            Path segment = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+            byte[] bytes = Files.readAllBytes(segment);
+            Files.write(segment, Arrays.copyOf(bytes, bytes.length - 8));
+        }
+
+        assertThatThrownBy(() -> store.find(STOCK_ID, BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE))
+            .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void seriesOfSortsTheBarsAndKeepsTheLastOneOfTheSameTime() {
+        List<PriceBar> bars = new ArrayList<>();
+        bars.add(bar(2, 102));
+        bars.add(bar(0, 100));
+        bars.add(bar(2, 202));
+        bars.add(bar(1, 101));
+
+        PriceSeries series = PriceSeries.of(bars);
+
+        assertThat(series.getTime()).containsExactly(time(0), time(1), time(2));
+        assertThat(series.getOpen()).containsExactly(100, 101, 202);
+    }
+
+    private static PriceSeries series(int firstDay, int days, double price) {
+        List<PriceBar> bars = new ArrayList<>();
+        for (int day = firstDay; day < firstDay + days; day++) {
+            bars.add(bar(day, price + day));
+        }
+        return PriceSeries.of(bars);
+    }
+
+    private static PriceBar bar(int day, double open) {
+        return new PriceBar()
+            .time(START.plus(day, ChronoUnit.DAYS))
+            .open(open)
+            .high(open + 10)
+            .low(open - 10)
+            .close(open + 5)
+            .volume(1000L + day);
+    }
+
+    private static long time(int day) {
+        return START.plus(day, ChronoUnit.DAYS).toEpochMilli();
+    }
+}
@@ -0,0 +1,234 @@
+package com.invertimostuyyo.service.indicator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the calculators against straightforward implementations of the indicators, which recompute each value from its definition.
+ */
+class IndicatorCalculatorTest {
+
+    private static final int SIZE = 500;
+
+    private double[] high;
+
+    private double[] low;
+
+    private double[] close;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        high = new double[SIZE];
+        low = new double[SIZE];
+        close = new double[SIZE];
+        double price = 100;
+        for (int i = 0; i < SIZE; i++) {
+            price = Math.max(1, price + random.nextGaussian());
+            close[i] = price;
+            high[i] = price + random.nextDouble() * 2;
+            low[i] = price - random.nextDouble() * 2;
+        }
+        // A flat stretch, where the sums of the windows are the most sensitive to rounding errors
+        Arrays.fill(close, 300, 340, 50.0);
+    }
+
+    @Test
+    void smaIsTheAverageOfTheWindow() {
+        double[][] values = run(new SmaCalculator(20));
+        for (int i = 0; i < SIZE; i++) {
+            if (i < 19) {
+                assertThat(values[0][i]).isNaN();
+            } else {
+                assertThat(values[0][i]).isCloseTo(average(close, i - 19, i + 1), within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void emaIsSeededWithTheAverageOfTheFirstPeriod() {
+        double[][] values = run(new EmaCalculator(10));
+        double[] expected = ema(close, 10);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected[i], values[0][i]);
+        }
+    }
+
+    @Test
+    void rsiUsesTheSmoothingOfWilder() {
+        double[][] values = run(new RsiCalculator(14));
+        double averageGain = 0;
+        double averageLoss = 0;
+        for (int i = 1; i < SIZE; i++) {
+            double change = close[i] - close[i - 1];
+            if (i <= 14) {
+                averageGain += Math.max(change, 0) / 14;
+                averageLoss += Math.max(-change, 0) / 14;
+            } else {
+                averageGain = (averageGain * 13 + Math.max(change, 0)) / 14;
+                averageLoss = (averageLoss * 13 + Math.max(-change, 0)) / 14;
+            }
+            if (i < 14) {
+                assertThat(values[0][i]).isNaN();
+            } else {
+                assertThat(values[0][i]).isCloseTo(100 * averageGain / (averageGain + averageLoss), within(1e-9));
+            }
+        }
+        assertThat(values[0][0]).isNaN();
+    }
+
+    @Test
+    void rsiOfAFlatSeriesIsNeutral() {
+        RsiCalculator calculator = new RsiCalculator(3);
+        double[][] values = new double[1][5];
+        for (int i = 0; i < 5; i++) {
+            calculator.update(10, 10, 10, values, i);
+        }
+        assertThat(values[0][4]).isEqualTo(50);
+    }
+
+    @Test
+    void macdIsTheDifferenceOfTheAverages() {
+        double[][] values = run(new MacdCalculator(12, 26, 9));
+        double[] fast = ema(close, 12);
+        double[] slow = ema(close, 26);
+        double[] macd = new double[SIZE - 25];
+        for (int i = 25; i < SIZE; i++) {
+            macd[i - 25] = fast[i] - slow[i];
+        }
+        double[] signal = ema(macd, 9);
+        for (int i = 0; i < SIZE; i++) {
+            if (i < 25) {
+                assertThat(values[0][i]).isNaN();
+                assertThat(values[1][i]).isNaN();
+            } else {
+                assertEquals(macd[i - 25], values[0][i]);
+                assertEquals(signal[i - 25], values[1][i]);
+                assertEquals(macd[i - 25] - signal[i - 25], values[2][i]);
+            }
+        }
+        assertThat(values[1][33]).isNotNaN();
+    }
+
+    @Test
+    void bollingerBandsAreAtDeviationsOfTheAverage() {
+        double[][] values = run(new BollingerCalculator(20, 2));
+        for (int i = 19; i < SIZE; i++) {
+            double mean = average(close, i - 19, i + 1);
+            double variance = 0;
+            for (int j = i - 19; j <= i; j++) {
+                variance += (close[j] - mean) * (close[j] - mean) / 20;
+            }
+            assertThat(values[0][i]).isCloseTo(mean, within(1e-9));
+            assertThat(values[1][i]).isCloseTo(mean + 2 * Math.sqrt(variance), within(1e-6));
+            assertThat(values[2][i]).isCloseTo(mean - 2 * Math.sqrt(variance), within(1e-6));
+        }
+        assertThat(values[0][18]).isNaN();
+    }
+
+    @Test
+    void atrUsesTheTrueRange() {
+        double[][] values = run(new AtrCalculator(14));
+        double atr = 0;
+        for (int i = 0; i < SIZE; i++) {
+            double trueRange = high[i] - low[i];
+            if (i > 0) {
+                trueRange = Math.max(trueRange, Math.max(Math.abs(high[i] - close[i - 1]), Math.abs(low[i] - close[i - 1])));
+            }
+            atr = i < 14 ? atr + trueRange / 14 : (atr * 13 + trueRange) / 14;
+            if (i < 13) {
+                assertThat(values[0][i]).isNaN();
+            } else {
+                assertThat(values[0][i]).isCloseTo(atr, within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void feedingTheBarsInChunksGivesTheSameValues() {
+        IndicatorSpec spec = IndicatorSpec.parse("MACD").orElseThrow();
+        double[][] expected = run(spec.newCalculator());
+        IndicatorCalculator calculator = spec.newCalculator();
+        double[][] values = new double[3][];
+        for (int k = 0; k < 3; k++) {
+            values[k] = new double[SIZE];
+        }
+        for (int from = 0; from < SIZE; from += 7) {
+            double[][] chunk = new double[3][7];
+            int to = Math.min(SIZE, from + 7);
+            for (int i = from; i < to; i++) {
+                calculator.update(high[i], low[i], close[i], chunk, i - from);
+            }
+            for (int k = 0; k < 3; k++) {
+                System.arraycopy(chunk[k], 0, values[k], from, to - from);
+            }
+        }
+        for (int k = 0; k < 3; k++) {
+            assertThat(values[k]).containsExactly(expected[k]);
+        }
+    }
+
+    @Test
+    void parseSupportsTheIndicatorsWithTheirDefaultParameters() {
+        assertThat(IndicatorSpec.parse("sma").map(IndicatorSpec::getName)).contains("SMA(20)");
+        assertThat(IndicatorSpec.parse("EMA(50)").map(IndicatorSpec::getName)).contains("EMA(50)");
+        assertThat(IndicatorSpec.parse("RSI").map(IndicatorSpec::getName)).contains("RSI(14)");
+        assertThat(IndicatorSpec.parse(" MACD ( 5, 35 ) ").map(IndicatorSpec::getName)).contains("MACD(5,35,9)");
+        assertThat(IndicatorSpec.parse("Bollinger(20,2.5)").map(IndicatorSpec::getName)).contains("BB(20,2.5)");
+        assertThat(IndicatorSpec.parse("ATR").map(IndicatorSpec::newCalculator)).containsInstanceOf(AtrCalculator.class);
+    }
+
+    @Test
+    void parseRejectsTheUnsupportedIndicators() {
+        assertThat(IndicatorSpec.parse(null)).isEmpty();
+        assertThat(IndicatorSpec.parse("Volume profile")).isEmpty();
+        assertThat(IndicatorSpec.parse("SMA(0)")).isEmpty();
+        assertThat(IndicatorSpec.parse("SMA(2.5)")).isEmpty();
+        assertThat(IndicatorSpec.parse("SMA(20,2)")).isEmpty();
+        assertThat(IndicatorSpec.parse("RSI(x)")).isEmpty();
+        assertThat(IndicatorSpec.parse("BB(20,-1)")).isEmpty();
+        assertThat(IndicatorSpec.parse("EMA(" + (IndicatorSpec.MAX_PERIOD + 1) + ")")).isEmpty();
+    }
+
+    private double[][] run(IndicatorCalculator calculator) {
+        double[][] values = new double[calculator.outputs().size()][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            calculator.update(high[i], low[i], close[i], values, i);
+        }
+        return values;
+    }
+
+    private static double average(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    private static double[] ema(double[] values, int period) {
+        double[] ema = new double[values.length];
+        Arrays.fill(ema, Double.NaN);
+        if (values.length < period) {
+            return ema;
+        }
+        ema[period - 1] = average(values, 0, period);
+        for (int i = period; i < values.length; i++) {
+            ema[i] = ema[i - 1] + 2.0 / (period + 1) * (values[i] - ema[i - 1]);
+        }
+        return ema;
+    }
+
+    private static void assertEquals(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            assertThat(actual).isNaN();
+        } else {
+            assertThat(actual).isCloseTo(expected, within(1e-9));
+        }
+    }
+}
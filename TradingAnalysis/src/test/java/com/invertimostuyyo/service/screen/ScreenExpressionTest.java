@@ -0,0 +1,175 @@
+package com.invertimostuyyo.service.screen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.invertimostuyyo.domain.Stock;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the screens of the {@link StockColumns} against the same conditions written as predicates of the {@link Stock}s.
+ */
+class ScreenExpressionTest {
+
+    private static final int SIZE = 2000;
+
+    private static final String[] SECTORS = { "Energy", "Utilities", "Technology", "Health" };
+
+    private List<Stock> stocks;
+
+    private StockColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        stocks = new ArrayList<>();
+        columns = new StockColumns();
+        for (int i = 0; i < SIZE; i++) {
+            Stock stock = new Stock()
+                .name("Stock " + i)
+                .sector(SECTORS[random.nextInt(SECTORS.length)])
+                .icnome(random.nextInt(10) == 0 ? null : random.nextDouble() * 1000)
+                .expenses(random.nextDouble() * 800)
+                .capitalization(random.nextDouble() * 1e10)
+                .employees(random.nextInt(10) == 0 ? null : random.nextInt(50_000));
+            stock.setId(1000L + i);
+            stocks.add(stock);
+            columns.put(stock);
+        }
+    }
+
+    @Test
+    void comparesAFieldWithANumber() {
+        assertScreen("capitalization > 5e9", stock -> stock.getCapitalization() > 5e9);
+        assertScreen("EMPLOYEES <= 1000", stock -> stock.getEmployees() != null && stock.getEmployees() <= 1000);
+        assertScreen("2.5e9 < capitalization", stock -> stock.getCapitalization() > 2.5e9);
+    }
+
+    @Test
+    void computesArithmeticWithThePrecedenceOfTheOperators() {
+        assertScreen(
+            "(icnome - expenses) / icnome > 0.2",
+            stock ->
+                stock.getIcnome() != null &&
+                stock.getIcnome() != 0 &&
+                (stock.getIcnome() - stock.getExpenses()) / stock.getIcnome() > 0.2
+        );
+        assertScreen(
+            "icnome - expenses * 2 > -100",
+            stock -> stock.getIcnome() != null && stock.getIcnome() - stock.getExpenses() * 2 > -100
+        );
+        assertScreen("-expenses < -400", stock -> stock.getExpenses() > 400);
+    }
+
+    @Test
+    void selectsTheSectors() {
+        assertScreen("sector = 'Energy'", stock -> stock.getSector().equals("Energy"));
+        assertScreen("sector <> 'Energy'", stock -> !stock.getSector().equals("Energy"));
+        assertScreen("sector IN ('Energy', 'Health')", stock -> List.of("Energy", "Health").contains(stock.getSector()));
+        assertScreen("sector not in ('Energy', 'Health')", stock -> !List.of("Energy", "Health").contains(stock.getSector()));
+        assertScreen("sector = 'energy'", stock -> false);
+    }
+
+    @Test
+    void combinesTheConditions() {
+        assertScreen(
+            "capitalization > 1e9 AND (icnome - expenses) / icnome > 0.2 AND sector IN ('Energy', 'Utilities')",
+            stock ->
+                stock.getCapitalization() > 1e9 &&
+                stock.getIcnome() != null &&
+                (stock.getIcnome() - stock.getExpenses()) / stock.getIcnome() > 0.2 &&
+                List.of("Energy", "Utilities").contains(stock.getSector())
+        );
+        assertScreen(
+            "sector = 'Energy' OR employees > 40000 AND capitalization < 5e9",
+            stock ->
+                stock.getSector().equals("Energy") ||
+                (stock.getEmployees() != null && stock.getEmployees() > 40000 && stock.getCapitalization() < 5e9)
+        );
+        assertScreen(
+            "(sector = 'Energy' OR employees > 40000) AND NOT capitalization < 5e9",
+            stock ->
+                (stock.getSector().equals("Energy") || (stock.getEmployees() != null && stock.getEmployees() > 40000)) &&
+                stock.getCapitalization() >= 5e9
+        );
+    }
+
+    @Test
+    void neverSelectsAMissingValue() {
+        assertScreen("icnome != 0", stock -> stock.getIcnome() != null);
+        assertScreen("expenses / 0 > 0", stock -> false);
+    }
+
+    @Test
+    void followsTheWritesOfTheStocks() {
+        Stock first = stocks.get(0);
+        first.sector("Mining").capitalization(1e12);
+        columns.put(first);
+        columns.remove(stocks.get(1).getId());
+
+        assertThat(columns.count()).isEqualTo(SIZE - 1);
+        assertThat(select("capitalization > 1e11")).containsExactly(first.getId());
+        assertThat(select("sector = 'Mining'")).containsExactly(first.getId());
+
+        Stock added = new Stock().name("Added").sector("Mining");
+        added.setId(1L);
+        columns.put(added);
+
+        assertThat(columns.count()).isEqualTo(SIZE);
+        assertThat(select("sector = 'Mining'")).containsExactlyInAnyOrder(first.getId(), added.getId());
+        assertThat(select("sector = 'Mining' AND capitalization > 0")).containsExactly(first.getId());
+    }
+
+    @Test
+    void parsesTheRankingOperands() {
+        ScreenExpression.Operand margin = ScreenExpression.parseOperand("(icnome - expenses) / icnome * 100");
+        Stock stock = new Stock().name("Stock").sector("Energy").icnome(200.0).expenses(150.0);
+        stock.setId(1L);
+        StockColumns single = new StockColumns();
+        single.put(stock);
+
+        assertThat(margin.value(single, 0)).isEqualTo(25.0);
+        assertThat(ScreenExpression.parseOperand("employees").value(single, 0)).isNaN();
+    }
+
+    @Test
+    void rejectsTheInvalidExpressions() {
+        assertInvalid("", "empty");
+        assertInvalid("capitalization >", "position 17: unexpected end");
+        assertInvalid("revenue > 1", "position 1: unknown field 'revenue'");
+        assertInvalid("capitalization", "expected a condition");
+        assertInvalid("capitalization > 1 + (sector = 'Energy')", "expected a number or a field");
+        assertInvalid("sector > 'Energy'", "expected =, !=, IN or NOT IN after sector");
+        assertInvalid("sector IN (Energy)", "expected a quoted sector");
+        assertInvalid("sector = 'Energy", "unterminated quoted sector");
+        assertInvalid("capitalization > 1 capitalization", "unexpected 'capitalization'");
+        assertInvalid("capitalization ! 1", "unexpected '!'");
+        assertInvalid("(".repeat(100) + "capitalization > 1" + ")".repeat(100), "nested deeper than");
+        assertThatThrownBy(() -> ScreenExpression.parseOperand("capitalization > 1"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("unexpected '>'");
+    }
+
+    private void assertScreen(String filter, Predicate<Stock> predicate) {
+        List<Long> expected = stocks.stream().filter(predicate).map(Stock::getId).collect(Collectors.toList());
+        assertThat(select(filter)).as(filter).containsExactlyElementsOf(expected);
+    }
+
+    private List<Long> select(String filter) {
+        BitSet selected = ScreenExpression.parseCondition(filter).select(columns, columns.rows());
+        return selected.stream().mapToObj(columns::id).sorted().collect(Collectors.toList());
+    }
+
+    private void assertInvalid(String filter, String message) {
+        assertThatThrownBy(() -> ScreenExpression.parseCondition(filter))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(message);
+    }
+}
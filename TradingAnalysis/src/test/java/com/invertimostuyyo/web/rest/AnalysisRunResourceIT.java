@@ -0,0 +1,271 @@
+package com.invertimostuyyo.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invertimostuyyo.IntegrationTest;
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.AnalysisRun;
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.IndicatorValues;
+import com.invertimostuyyo.domain.PriceBar;
+import com.invertimostuyyo.domain.PriceSeries;
+import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.repository.AnalysisRepository;
+import com.invertimostuyyo.repository.AnalysisRunRepository;
+import com.invertimostuyyo.repository.IndicatorValuesRepository;
+import com.invertimostuyyo.repository.PriceBarStore;
+import com.invertimostuyyo.repository.StockRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link AnalysisRunResource} REST controller.
+ * <p>
+ * The runs write from their own threads, so the tests are not transactional: they commit their stocks, and delete them afterwards
+ * with the analyses of the runs.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class AnalysisRunResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/analysis-runs";
+
+    private static final LocalDate DATE = LocalDate.parse("2031-01-02");
+
+    private static final LocalDate RESUMED_DATE = LocalDate.parse("2031-01-03");
+
+    private static final Instant START = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private AnalysisRepository analysisRepository;
+
+    @Autowired
+    private AnalysisRunRepository analysisRunRepository;
+
+    @Autowired
+    private IndicatorValuesRepository indicatorValuesRepository;
+
+    @Autowired
+    private PriceBarStore priceBarStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restAnalysisRunMockMvc;
+
+    private final List<Stock> stocks = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        for (int i = 0; i < 3; i++) {
+            stocks.add(stockRepository.saveAndFlush(StockResourceIT.createEntity(em)));
+        }
+        List<PriceBar> bars = IntStream
+            .range(0, 30)
+            .mapToObj(day ->
+                new PriceBar().time(START.plus(day, ChronoUnit.DAYS)).open(10.0).high(11.0 + day).low(9.0).close(10.5 + day).volume(100L)
+            )
+            .collect(Collectors.toList());
+        priceBarStore.append(stocks.get(0).getId(), BarInterval.ONE_DAY, PriceSeries.of(bars));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        String analyses = "select id from analysis where date in ('" + DATE + "', '" + RESUMED_DATE + "')";
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                jdbcTemplate.update("delete from indicator where analysis_id in (" + analyses + ")");
+                jdbcTemplate.update("delete from analysis where id in (" + analyses + ")");
+                jdbcTemplate.update("delete from analysis_run where run_date in (?, ?)", DATE, RESUMED_DATE);
+            });
+        for (Stock stock : stocks) {
+            priceBarStore.delete(stock.getId());
+            stockRepository.deleteById(stock.getId());
+        }
+    }
+
+    @Test
+    void runTheAnalysesOfAllTheStocks() throws Exception {
+        JsonNode run = objectMapper.readTree(
+            restAnalysisRunMockMvc
+                .perform(post(ENTITY_API_URL).param("date", DATE.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.date").value(DATE.toString()))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+        );
+        awaitRun(run.get("id").asLong());
+
+        restAnalysisRunMockMvc
+            .perform(get(ENTITY_API_URL + "/{id}", run.get("id").asLong()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.total").value(greaterThanOrEqualTo(3)))
+            .andExpect(jsonPath("$.failed").value(0))
+            .andExpect(jsonPath("$.failures").isEmpty());
+
+        Analysis analysis = findAnalysis(stocks.get(0), DATE);
+        assertThat(analysis).isNotNull();
+        List<IndicatorValues> values = indicatorValuesRepository.findByAnalysisId(analysis.getId());
+        assertThat(values)
+            .extracting(IndicatorValues::getName)
+            .containsExactly("SMA(20)", "EMA(20)", "RSI(14)", "MACD(12,26,9)", "BB(20,2)", "ATR(14)");
+        assertThat(values.get(0).getTime()).hasSize(11);
+        assertThat(values.get(0).getValues().get("sma")[0]).isEqualTo(20.0);
+        assertThat(findAnalysis(stocks.get(2), DATE)).isNotNull();
+
+        // A completed run is left as is
+        restAnalysisRunMockMvc
+            .perform(post(ENTITY_API_URL).param("date", DATE.toString()))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.id").value(run.get("id").asLong()))
+            .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    void resumeAnInterruptedRunFromItsCheckpoints() throws Exception {
+        AnalysisRun interrupted = analysisRunRepository.insert(
+            new AnalysisRun().date(RESUMED_DATE).status(AnalysisRun.Status.RUNNING).startedAt(Instant.now())
+        );
+        Long firstStockId = stocks.get(0).getId();
+        analysisRunRepository.insertCheckpoint(new AnalysisRunRepository.Checkpoint(interrupted.getId(), 0, firstStockId, 1, 0));
+
+        restAnalysisRunMockMvc.perform(post(ENTITY_API_URL).param("date", RESUMED_DATE.toString())).andExpect(status().isAccepted());
+        awaitRun(interrupted.getId());
+
+        AnalysisRun resumed = analysisRunRepository.findById(interrupted.getId()).orElseThrow();
+        assertThat(resumed.getStatus()).isEqualTo(AnalysisRun.Status.COMPLETED);
+        assertThat(resumed.getProcessed()).isEqualTo(resumed.getTotal());
+        assertThat(findAnalysis(stocks.get(0), RESUMED_DATE)).isNull();
+        assertThat(findAnalysis(stocks.get(1), RESUMED_DATE)).isNotNull();
+        assertThat(findAnalysis(stocks.get(2), RESUMED_DATE)).isNotNull();
+    }
+
+    @Test
+    void resumeARunTwiceWithoutAnalysingAStockAgain() throws Exception {
+        AnalysisRun interrupted = analysisRunRepository.insert(
+            new AnalysisRun().date(RESUMED_DATE).status(AnalysisRun.Status.RUNNING).startedAt(Instant.now())
+        );
+        Long middleStockId = stocks.get(1).getId();
+        analysisRunRepository.insertCheckpoint(
+            new AnalysisRunRepository.Checkpoint(interrupted.getId(), middleStockId, middleStockId, 1, 0)
+        );
+
+        restAnalysisRunMockMvc.perform(post(ENTITY_API_URL).param("date", RESUMED_DATE.toString())).andExpect(status().isAccepted());
+        awaitRun(interrupted.getId());
+        // The instance stopped before saving the status of the run
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status ->
+                jdbcTemplate.update("update analysis_run set status = ? where id = ?", "RUNNING", interrupted.getId())
+            );
+        restAnalysisRunMockMvc.perform(post(ENTITY_API_URL).param("date", RESUMED_DATE.toString())).andExpect(status().isAccepted());
+        awaitRun(interrupted.getId());
+
+        AnalysisRun resumed = analysisRunRepository.findById(interrupted.getId()).orElseThrow();
+        assertThat(resumed.getStatus()).isEqualTo(AnalysisRun.Status.COMPLETED);
+        assertThat(resumed.getProcessed() + resumed.getFailed()).isEqualTo(resumed.getTotal());
+        assertThat(resumed.getTotal()).isEqualTo(stockRepository.count());
+        assertThat(countAnalyses(stocks.get(0), RESUMED_DATE)).isEqualTo(1);
+        assertThat(countAnalyses(stocks.get(1), RESUMED_DATE)).isZero();
+        assertThat(countAnalyses(stocks.get(2), RESUMED_DATE)).isEqualTo(1);
+    }
+
+    @Test
+    void resumeARunLeasedByAnotherInstanceOnceItsLeaseHasExpired() throws Exception {
+        AnalysisRun leased = analysisRunRepository.insert(
+            new AnalysisRun().date(RESUMED_DATE).status(AnalysisRun.Status.RUNNING).startedAt(Instant.now())
+        );
+        assertThat(analysisRunRepository.claim(leased.getId(), "other", Instant.now(), Instant.now().plus(1, ChronoUnit.HOURS))).isTrue();
+        AnalysisRunRepository.Checkpoint checkpoint = new AnalysisRunRepository.Checkpoint(leased.getId(), 0, stocks.get(0).getId(), 1, 0);
+        analysisRunRepository.insertCheckpoint(checkpoint);
+        assertThatThrownBy(() -> analysisRunRepository.insertCheckpoint(checkpoint)).isInstanceOf(DuplicateKeyException.class);
+
+        restAnalysisRunMockMvc
+            .perform(post(ENTITY_API_URL).param("date", RESUMED_DATE.toString()))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value("RUNNING"));
+
+        assertThat(analysisRunRepository.findCheckpoints(leased.getId())).hasSize(1);
+        assertThat(findAnalysis(stocks.get(1), RESUMED_DATE)).isNull();
+
+        // The other instance stopped, and its lease expired
+        assertThat(analysisRunRepository.renewLease(leased.getId(), "other", Instant.now().minusSeconds(1))).isTrue();
+        restAnalysisRunMockMvc.perform(post(ENTITY_API_URL).param("date", RESUMED_DATE.toString())).andExpect(status().isAccepted());
+        awaitRun(leased.getId());
+
+        AnalysisRun resumed = analysisRunRepository.findById(leased.getId()).orElseThrow();
+        assertThat(resumed.getStatus()).isEqualTo(AnalysisRun.Status.COMPLETED);
+        assertThat(findAnalysis(stocks.get(0), RESUMED_DATE)).isNull();
+        assertThat(findAnalysis(stocks.get(1), RESUMED_DATE)).isNotNull();
+        assertThat(analysisRunRepository.claim(leased.getId(), "other", Instant.now(), Instant.now().plusSeconds(60))).isFalse();
+    }
+
+    @Test
+    void getNonExistingAnalysisRun() throws Exception {
+        restAnalysisRunMockMvc.perform(get(ENTITY_API_URL + "/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    private void awaitRun(Long id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (analysisRunRepository.findById(id).orElseThrow().getStatus() != AnalysisRun.Status.RUNNING) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private long countAnalyses(Stock stock, LocalDate date) {
+        String sql = "select count(*) from analysis where stock_id = ? and date = ?";
+        return jdbcTemplate.queryForObject(sql, Long.class, stock.getId(), date);
+    }
+
+    private Analysis findAnalysis(Stock stock, LocalDate date) {
+        return analysisRepository
+            .findLatestWithStockByStockId(stock.getId(), PageRequest.ofSize(10))
+            .stream()
+            .filter(analysis -> analysis.getDate().equals(date))
+            .findFirst()
+            .orElse(null);
+    }
+}
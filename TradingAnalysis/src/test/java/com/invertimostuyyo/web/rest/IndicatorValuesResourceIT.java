@@ -0,0 +1,260 @@
+package com.invertimostuyyo.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.invertimostuyyo.IntegrationTest;
+import com.invertimostuyyo.config.ApplicationProperties;
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.Indicator;
+import com.invertimostuyyo.domain.PriceBar;
+import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.repository.AnalysisRepository;
+import com.invertimostuyyo.repository.IndicatorRepository;
+import com.invertimostuyyo.repository.PriceBarStore;
+import com.invertimostuyyo.repository.StockRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link IndicatorValuesResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class IndicatorValuesResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/analyses/{id}/indicators/values";
+
+    private static final String BARS_API_URL = "/api/stocks/{id}/bars";
+
+    private static final Instant START = Instant.parse("2021-06-01T00:00:00Z");
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private AnalysisRepository analysisRepository;
+
+    @Autowired
+    private IndicatorRepository indicatorRepository;
+
+    @Autowired
+    private PriceBarStore priceBarStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restIndicatorValuesMockMvc;
+
+    private Stock stock;
+
+    private Analysis analysis;
+
+    @BeforeEach
+    public void initTest() {
+        stock = StockResourceIT.createEntity(em);
+        analysis = AnalysisResourceIT.createEntity(em);
+    }
+
+    @Test
+    @Transactional
+    void computeIndicatorValues() throws Exception {
+        Indicator sma = saveAnalysisWithIndicators("SMA(3)", "Volume profile");
+        appendBars(0, 5);
+
+        restIndicatorValuesMockMvc
+            .perform(post(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].indicatorId").value(sma.getId()))
+            .andExpect(jsonPath("$.[0].name").value("SMA(3)"))
+            .andExpect(jsonPath("$.[0].interval").value("ONE_DAY"))
+            .andExpect(jsonPath("$.[0].time").value(contains(time(2), time(3), time(4))))
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(11.5, 12.5, 13.5)));
+
+        restIndicatorValuesMockMvc
+            .perform(get(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].time").value(contains(time(2), time(3), time(4))))
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(11.5, 12.5, 13.5)));
+    }
+
+    @Test
+    @Transactional
+    void computeIndicatorValuesIncrementally() throws Exception {
+        Indicator sma = saveAnalysisWithIndicators("SMA(3)");
+        appendBars(0, 4);
+        restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, analysis.getId())).andExpect(status().isOk());
+
+        appendBars(4, 6);
+        restIndicatorValuesMockMvc
+            .perform(post(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].time").value(contains(time(4), time(5))))
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(13.5, 14.5)));
+        assertThat(countChunks(sma)).isEqualTo(2);
+        restIndicatorValuesMockMvc
+            .perform(get(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].time").value(contains(time(2), time(3), time(4), time(5))))
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(11.5, 12.5, 13.5, 14.5)));
+
+        // A bar before the end of the series changes the values from its time on
+        restIndicatorValuesMockMvc
+            .perform(
+                post(BARS_API_URL, stock.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(createBar(3, 16.0))))
+            )
+            .andExpect(status().isNoContent());
+        restIndicatorValuesMockMvc
+            .perform(post(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(11.5, 13.5, 14.5, 15.5)));
+        assertThat(countChunks(sma)).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    void computeIndicatorValuesAgainWhenWrittenByAnotherInstance() throws Exception {
+        Indicator sma = saveAnalysisWithIndicators("SMA(3)");
+        appendBars(0, 4);
+        restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, analysis.getId())).andExpect(status().isOk());
+        jdbcTemplate.update("update indicator_values set computed_at = ? where indicator_id = ?", Timestamp.from(START), sma.getId());
+
+        appendBars(4, 5);
+        restIndicatorValuesMockMvc
+            .perform(post(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].time").value(contains(time(2), time(3), time(4))))
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(11.5, 12.5, 13.5)));
+        assertThat(countChunks(sma)).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    void mergeTheChunksOfIndicatorValues() throws Exception {
+        Indicator sma = saveAnalysisWithIndicators("SMA(3)");
+        int maxChunks = applicationProperties.getIndicators().getMaxChunks();
+        appendBars(0, 3);
+        restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, analysis.getId())).andExpect(status().isOk());
+        for (int day = 3; day < 3 + maxChunks - 1; day++) {
+            appendBars(day, day + 1);
+            restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, analysis.getId())).andExpect(status().isOk());
+        }
+        assertThat(countChunks(sma)).isEqualTo(maxChunks);
+
+        restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, analysis.getId())).andExpect(status().isOk());
+        assertThat(countChunks(sma)).isEqualTo(maxChunks);
+
+        appendBars(2 + maxChunks, 3 + maxChunks);
+        restIndicatorValuesMockMvc
+            .perform(post(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].time").value(contains(time(2 + maxChunks))))
+            .andExpect(jsonPath("$.[0].values.sma").value(contains(11.5 + maxChunks)));
+        assertThat(countChunks(sma)).isEqualTo(1);
+
+        restIndicatorValuesMockMvc
+            .perform(get(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].time", hasSize(maxChunks + 1)))
+            .andExpect(jsonPath("$.[0].time[" + maxChunks + "]").value(time(2 + maxChunks)))
+            .andExpect(jsonPath("$.[0].values.sma[" + maxChunks + "]").value(11.5 + maxChunks));
+    }
+
+    @Test
+    @Transactional
+    void computeIndicatorValuesOfAnAnalysisWithoutStock() throws Exception {
+        analysisRepository.saveAndFlush(analysis);
+
+        restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, analysis.getId())).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getIndicatorValuesNotComputed() throws Exception {
+        saveAnalysisWithIndicators("RSI");
+
+        restIndicatorValuesMockMvc
+            .perform(get(ENTITY_API_URL, analysis.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void getIndicatorValuesOfNonExistingAnalysis() throws Exception {
+        restIndicatorValuesMockMvc.perform(get(ENTITY_API_URL, Long.MAX_VALUE)).andExpect(status().isNotFound());
+        restIndicatorValuesMockMvc.perform(post(ENTITY_API_URL, Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    private Indicator saveAnalysisWithIndicators(String... names) {
+        stockRepository.saveAndFlush(stock);
+        priceBarStore.delete(stock.getId());
+        analysisRepository.saveAndFlush(analysis.stock(stock));
+        Indicator first = null;
+        for (String name : names) {
+            Indicator indicator = indicatorRepository.saveAndFlush(new Indicator().name(name).analysis(analysis));
+            first = first != null ? first : indicator;
+        }
+        return first;
+    }
+
+    private Integer countChunks(Indicator indicator) {
+        return jdbcTemplate.queryForObject(
+            "select count(*) from indicator_values where indicator_id = ?",
+            Integer.class,
+            indicator.getId()
+        );
+    }
+
+    private void appendBars(int fromDay, int toDay) throws Exception {
+        List<PriceBar> bars = IntStream.range(fromDay, toDay).mapToObj(day -> createBar(day, 10.0 + day)).collect(Collectors.toList());
+        restIndicatorValuesMockMvc
+            .perform(
+                post(BARS_API_URL, stock.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(bars))
+            )
+            .andExpect(status().isNoContent());
+    }
+
+    private static PriceBar createBar(int day, double open) {
+        return new PriceBar()
+            .time(START.plus(day, ChronoUnit.DAYS))
+            .open(open)
+            .high(open + 1)
+            .low(open - 1)
+            .close(open + 0.5)
+            .volume(1000L + day);
+    }
+
+    private static Long time(int day) {
+        return START.plus(day, ChronoUnit.DAYS).toEpochMilli();
+    }
+}
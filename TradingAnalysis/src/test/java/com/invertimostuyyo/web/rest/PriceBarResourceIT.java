@@ -0,0 +1,157 @@
+package com.invertimostuyyo.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.invertimostuyyo.IntegrationTest;
+import com.invertimostuyyo.domain.BarInterval;
+import com.invertimostuyyo.domain.PriceBar;
+import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.repository.PriceBarStore;
+import com.invertimostuyyo.repository.StockRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link PriceBarResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class PriceBarResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/stocks/{id}/bars";
+
+    private static final Instant START = Instant.parse("2020-03-02T00:00:00Z");
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private PriceBarStore priceBarStore;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restPriceBarMockMvc;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void initTest() {
+        stock = StockResourceIT.createEntity(em);
+    }
+
+    @Test
+    @Transactional
+    void appendAndGetPriceBars() throws Exception {
+        stockRepository.saveAndFlush(stock);
+        priceBarStore.delete(stock.getId());
+        List<PriceBar> bars = List.of(createBar(1, 11.0), createBar(0, 10.0), createBar(2, 12.0));
+
+        restPriceBarMockMvc
+            .perform(
+                post(ENTITY_API_URL, stock.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(bars))
+            )
+            .andExpect(status().isNoContent());
+
+        restPriceBarMockMvc
+            .perform(get(ENTITY_API_URL, stock.getId()).param("from", START.plus(1, ChronoUnit.DAYS).toString()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.time").value(contains(time(1), time(2))))
+            .andExpect(jsonPath("$.open").value(contains(11.0, 12.0)))
+            .andExpect(jsonPath("$.high").value(contains(12.0, 13.0)))
+            .andExpect(jsonPath("$.low").value(contains(10.0, 11.0)))
+            .andExpect(jsonPath("$.close").value(contains(11.5, 12.5)))
+            .andExpect(jsonPath("$.volume").value(contains(1001, 1002)));
+
+        restPriceBarMockMvc
+            .perform(get(ENTITY_API_URL, stock.getId()).param("interval", "ONE_MINUTE"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.time").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void appendInvalidPriceBar() throws Exception {
+        stockRepository.saveAndFlush(stock);
+        PriceBar bar = createBar(0, 10.0).low(10.5);
+
+        restPriceBarMockMvc
+            .perform(
+                post(ENTITY_API_URL, stock.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(bar)))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPriceBarsWithInvalidRange() throws Exception {
+        stockRepository.saveAndFlush(stock);
+
+        restPriceBarMockMvc
+            .perform(
+                get(ENTITY_API_URL, stock.getId()).param("from", START.plus(2, ChronoUnit.DAYS).toString()).param("to", START.toString())
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPriceBarsOfNonExistingStock() throws Exception {
+        restPriceBarMockMvc.perform(get(ENTITY_API_URL, Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void deleteStockDeletesItsPriceBars() throws Exception {
+        stockRepository.saveAndFlush(stock);
+        priceBarStore.delete(stock.getId());
+        restPriceBarMockMvc
+            .perform(
+                post(ENTITY_API_URL, stock.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(createBar(0, 10.0))))
+            )
+            .andExpect(status().isNoContent());
+
+        restPriceBarMockMvc.perform(delete("/api/stocks/{id}", stock.getId())).andExpect(status().isNoContent());
+
+        // The bars are kept until the deletion of the stock is committed
+        assertThat(priceBarStore.find(stock.getId(), BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isEqualTo(1);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(priceBarStore.find(stock.getId(), BarInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE).size()).isZero();
+    }
+
+    private static PriceBar createBar(int day, double open) {
+        return new PriceBar()
+            .time(START.plus(day, ChronoUnit.DAYS))
+            .open(open)
+            .high(open + 1)
+            .low(open - 1)
+            .close(open + 0.5)
+            .volume(1000L + day);
+    }
+
+    private static Long time(int day) {
+        return START.plus(day, ChronoUnit.DAYS).toEpochMilli();
+    }
+}
@@ -1,23 +1,30 @@
 package com.invertimostuyyo.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.invertimostuyyo.IntegrationTest;
+import com.invertimostuyyo.domain.Analysis;
+import com.invertimostuyyo.domain.Indicator;
 import com.invertimostuyyo.domain.Stock;
 import com.invertimostuyyo.repository.StockRepository;
+import com.invertimostuyyo.security.CacheControlHeaderWriter;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -156,6 +163,110 @@ class StockResourceIT {
         assertThat(stockList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createStockBatch() throws Exception {
+        List<Long> idsBeforeCreate = findAllIds();
+        Stock invalid = createEntity(em).name(null);
+        Stock withId = createEntity(em);
+        withId.setId(1L);
+
+        restStockMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(stock, invalid, withId, createUpdatedEntity(em))))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.updated").value(0))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.failures.[*].index").value(contains(1, 2)))
+            .andExpect(jsonPath("$.failures.[*].status").value(contains("FAILED", "FAILED")))
+            .andExpect(jsonPath("$.failures.[0].error").value(containsString("name")));
+
+        List<Long> ids = findNewIds(idsBeforeCreate);
+        try {
+            assertThat(ids).hasSize(2);
+            assertThat(stockRepository.findAllById(ids)).extracting(Stock::getName).containsExactlyInAnyOrder(DEFAULT_NAME, UPDATED_NAME);
+        } finally {
+            stockRepository.deleteAllById(ids);
+        }
+    }
+
+    @Test
+    void createStockBatchAsStream() throws Exception {
+        List<Long> idsBeforeCreate = findAllIds();
+        String body =
+            new String(TestUtil.convertObjectToJsonBytes(stock)) +
+            "\n" +
+            new String(TestUtil.convertObjectToJsonBytes(createUpdatedEntity(em)));
+
+        restStockMockMvc
+            .perform(post(ENTITY_API_URL + "/batch").contentType(MediaType.APPLICATION_NDJSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.failures").isEmpty());
+
+        List<Long> ids = findNewIds(idsBeforeCreate);
+        try {
+            assertThat(ids).hasSize(2);
+        } finally {
+            stockRepository.deleteAllById(ids);
+        }
+    }
+
+    @Test
+    void upsertStockBatch() throws Exception {
+        stockRepository.saveAndFlush(stock);
+        // Load the stock in the second level cache
+        stockRepository.findById(stock.getId());
+        List<Long> idsBeforeUpsert = findAllIds();
+        Stock updatedStock = createUpdatedEntity(em);
+        updatedStock.setId(stock.getId());
+        Stock missingStock = createUpdatedEntity(em);
+        missingStock.setId(stock.getId() + 1000);
+
+        restStockMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch?upsert=true")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(updatedStock, createEntity(em), missingStock)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.updated").value(1))
+            .andExpect(jsonPath("$.failed").value(0));
+
+        List<Long> ids = findNewIds(idsBeforeUpsert);
+        ids.add(stock.getId());
+        try {
+            assertThat(ids).hasSize(3).contains(missingStock.getId());
+            Stock testStock = stockRepository.findById(stock.getId()).orElseThrow();
+            assertThat(testStock.getName()).isEqualTo(UPDATED_NAME);
+            assertThat(testStock.getEmployees()).isEqualTo(UPDATED_EMPLOYEES);
+            assertThat(stockRepository.findById(missingStock.getId())).isPresent();
+        } finally {
+            stockRepository.deleteAllById(ids);
+        }
+    }
+
+    @Test
+    void createStockBatchWithInvalidJson() throws Exception {
+        restStockMockMvc
+            .perform(post(ENTITY_API_URL + "/batch").contentType(MediaType.APPLICATION_JSON).content("[{\"name\": "))
+            .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> findAllIds() {
+        return stockRepository.findAll().stream().map(Stock::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> findNewIds(List<Long> idsBefore) {
+        List<Long> ids = findAllIds();
+        ids.removeAll(idsBefore);
+        return ids;
+    }
+
     @Test
     @Transactional
     void checkNameIsRequired() throws Exception {
@@ -234,6 +345,56 @@ class StockResourceIT {
             .andExpect(jsonPath("$.employees").value(DEFAULT_EMPLOYEES));
     }
 
+    @Test
+    @Transactional
+    void getStockTree() throws Exception {
+        // Initialize the database
+        stockRepository.saveAndFlush(stock);
+        Analysis oldest = AnalysisResourceIT.createEntity(em).date(LocalDate.ofEpochDay(1L)).stock(stock);
+        Analysis latest = AnalysisResourceIT.createEntity(em).date(LocalDate.ofEpochDay(3L)).stock(stock);
+        Analysis middle = AnalysisResourceIT.createEntity(em).date(LocalDate.ofEpochDay(2L)).stock(stock);
+        em.persist(oldest);
+        em.persist(latest);
+        em.persist(middle);
+        Indicator indicator = IndicatorResourceIT.createEntity(em).analysis(latest);
+        em.persist(indicator);
+        em.persist(IndicatorResourceIT.createEntity(em).analysis(oldest));
+        em.flush();
+        em.clear();
+
+        // Get the tree of the stock, with its two latest analyses
+        restStockMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/tree?analyses=2", stock.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(stock.getId().intValue()))
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.analyses[*].id").value(contains(latest.getId().intValue(), middle.getId().intValue())))
+            .andExpect(jsonPath("$.analyses[0].indicators[*].id").value(contains(indicator.getId().intValue())))
+            .andExpect(jsonPath("$.analyses[1].indicators").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void getStockTreeWithoutAnalyses() throws Exception {
+        // Initialize the database
+        stockRepository.saveAndFlush(stock);
+
+        // Get the tree of the stock
+        restStockMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/tree", stock.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(stock.getId().intValue()))
+            .andExpect(jsonPath("$.analyses").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingStockTree() throws Exception {
+        // Get the tree of the stock
+        restStockMockMvc.perform(get(ENTITY_API_URL_ID + "/tree", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void getNonExistingStock() throws Exception {
@@ -241,6 +402,29 @@ class StockResourceIT {
         restStockMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    void getStockIsCacheable() throws Exception {
+        stockRepository.saveAndFlush(stock);
+
+        restStockMockMvc
+            .perform(get(ENTITY_API_URL_ID, stock.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andExpect(header().string(CacheControlHeaderWriter.SURROGATE_CONTROL, "max-age=30"))
+            .andExpect(header().doesNotExist(HttpHeaders.PRAGMA));
+        restStockMockMvc
+            .perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE))
+            .andExpect(status().isNotFound())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")));
+        restStockMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/screen").contentType(MediaType.APPLICATION_JSON).content("{\"limit\": 1}")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")));
+    }
+
     @Test
     @Transactional
     void putExistingStock() throws Exception {
@@ -0,0 +1,200 @@
+package com.invertimostuyyo.web.rest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invertimostuyyo.IntegrationTest;
+import com.invertimostuyyo.config.ApplicationProperties;
+import com.invertimostuyyo.domain.Stock;
+import com.invertimostuyyo.service.StockScreenService;
+import com.invertimostuyyo.web.rest.vm.StockScreenVM;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the screens of the {@link StockResource} REST controller.
+ * <p>
+ * The screened stocks follow the committed writes, so the tests are not transactional: they write the stocks of their own sector,
+ * and delete them afterwards.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class StockScreenIT {
+
+    private static final String ENTITY_API_URL = "/api/stocks";
+
+    private final String sector = "Screen " + UUID.randomUUID();
+
+    @Autowired
+    private StockScreenService stockScreenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MockMvc restStockMockMvc;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> jdbcTemplate.update("delete from stock where sector = ?", sector));
+        stockScreenService.invalidate();
+    }
+
+    @Test
+    void screenTheStocksAsTheyAreWritten() throws Exception {
+        Stock profitable = create("Profitable", 1000.0, 500.0, 3e9);
+        Stock large = create("Large", 1000.0, 900.0, 9e9);
+        create("Small", 1000.0, 100.0, 1e8);
+
+        screen("capitalization > 1e9 AND (icnome - expenses) / icnome > 0.2 AND sector = '" + sector + "'", null, null, 10)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(1))
+            .andExpect(jsonPath("$.stocks.[*].name").value(contains("Profitable")))
+            .andExpect(jsonPath("$.stocks.[0].capitalization").value(3e9))
+            .andExpect(jsonPath("$.stocks.[0].rank").value(nullValue()));
+
+        screen("sector = '" + sector + "'", "(icnome - expenses) / icnome", null, 2)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.stocks.[*].name").value(contains("Small", "Profitable")))
+            .andExpect(jsonPath("$.stocks.[0].rank").value(0.9));
+
+        large.setExpenses(100.0);
+        restStockMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/{id}", large.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(large))
+            )
+            .andExpect(status().isOk());
+        restStockMockMvc.perform(delete(ENTITY_API_URL + "/{id}", profitable.getId())).andExpect(status().isNoContent());
+
+        screen("sector = '" + sector + "'", "capitalization", Sort.Direction.ASC, 10)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(2))
+            .andExpect(jsonPath("$.stocks.[*].name").value(contains("Small", "Large")))
+            .andExpect(jsonPath("$.stocks.[1].expenses").value(100.0));
+    }
+
+    @Test
+    void screenTheStocksWrittenByBatch() throws Exception {
+        screen(null, null, null, 1).andExpect(status().isOk());
+
+        restStockMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        TestUtil.convertObjectToJsonBytes(
+                            List.of(stock("First", 10.0, 5.0, 1e6), stock("Second", 10.0, 5.0, 2e6), stock("Third", 10.0, 5.0, null))
+                        )
+                    )
+            )
+            .andExpect(status().isOk());
+
+        screen("sector IN ('" + sector + "')", "capitalization", null, 10)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.stocks.[*].name").value(contains("Second", "First", "Third")));
+    }
+
+    @Test
+    void screenTheStocksWrittenByAnotherInstanceOnceTheyExpire() throws Exception {
+        screen(null, null, null, 1).andExpect(status().isOk());
+
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status ->
+                jdbcTemplate.update(
+                    "insert into stock (name, sector, icnome, expenses, capitalization, employees) values (?, ?, ?, ?, ?, ?)",
+                    "Elsewhere",
+                    sector,
+                    10.0,
+                    5.0,
+                    1e6,
+                    10
+                )
+            );
+        Thread.sleep(applicationProperties.getStockScreen().getMaxAge().toMillis() + 100);
+
+        // The expired stocks are still screened while they are reloaded in the background
+        screen("sector = '" + sector + "'", null, null, 10).andExpect(status().isOk()).andExpect(jsonPath("$.total").value(0));
+        for (int i = 0; i < 50 && stockScreenService.screen("sector = '" + sector + "'", null, false, 10).getTotal() == 0; i++) {
+            Thread.sleep(100);
+        }
+        screen("sector = '" + sector + "'", null, null, 10)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(1))
+            .andExpect(jsonPath("$.stocks.[*].name").value(contains("Elsewhere")));
+    }
+
+    @Test
+    void screenWithAnInvalidFilter() throws Exception {
+        screen("capitalization >> 1", null, null, 10)
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.screeninvalid"))
+            .andExpect(jsonPath("$.title").value(containsString("position 17")));
+        screen(null, "sector", null, 10).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void screenWithAnInvalidLimit() throws Exception {
+        screen(null, null, null, 0).andExpect(status().isBadRequest());
+        screen(null, null, null, StockScreenService.MAX_LIMIT + 1).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions screen(String filter, String rank, Sort.Direction order, int limit) throws Exception {
+        StockScreenVM screen = new StockScreenVM();
+        screen.setFilter(filter);
+        screen.setRank(rank);
+        screen.setOrder(order);
+        screen.setLimit(limit);
+        return restStockMockMvc.perform(
+            post(ENTITY_API_URL + "/screen").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(screen))
+        );
+    }
+
+    private Stock create(String name, Double icnome, Double expenses, Double capitalization) throws Exception {
+        String created = restStockMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(stock(name, icnome, expenses, capitalization)))
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readValue(created, Stock.class);
+    }
+
+    private Stock stock(String name, Double icnome, Double expenses, Double capitalization) {
+        return new Stock().name(name).sector(sector).icnome(icnome).expenses(expenses).capitalization(capitalization).employees(10);
+    }
+}
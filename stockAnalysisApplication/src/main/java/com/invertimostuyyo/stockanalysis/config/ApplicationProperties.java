@@ -1,6 +1,7 @@
 package com.invertimostuyyo.stockanalysis.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Stock Analysis Application.
@@ -10,7 +11,286 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Batch batch = new Batch();
+
+    private final Cache cache = new Cache();
+
+    private final ResponseCache responseCache = new ResponseCache();
+
+    private final LoadBalancer loadBalancer = new LoadBalancer();
+
+    private final Http2 http2 = new Http2();
+
+    private final BatchApi batchApi = new BatchApi();
+
+    private final Diagnostics diagnostics = new Diagnostics();
+
     // jhipster-needle-application-properties-property
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    public Http2 getHttp2() {
+        return http2;
+    }
+
+    public BatchApi getBatchApi() {
+        return batchApi;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Batch {
+
+        /**
+         * Number of rows written per multi-row statement by the batch endpoints: it bounds the memory used by a batch, whatever its size.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Time to live of the cached entities and query results, which bounds how stale a write made by another gateway instance can be.
+         */
+        private int timeToLiveSeconds = 60;
+
+        private long maxEntries = 10_000;
+
+        private long maxQueries = 100;
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxQueries() {
+            return maxQueries;
+        }
+
+        public void setMaxQueries(long maxQueries) {
+            this.maxQueries = maxQueries;
+        }
+    }
+
+    public static class ResponseCache {
+
+        /**
+         * Maximum size of the bodies of the proxied responses cached by the gateway, all routes included.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class LoadBalancer {
+
+        /**
+         * Time constant of the decay of the latency of an instance: a latency spike is forgotten after a few times this duration.
+         */
+        private int latencyDecaySeconds = 10;
+
+        /**
+         * Error rate over which an instance is ejected, once it has served the minimum number of requests.
+         */
+        private double ejectionErrorRate = 0.5;
+
+        private int ejectionMinRequests = 10;
+
+        private int ejectionSeconds = 30;
+
+        public int getLatencyDecaySeconds() {
+            return latencyDecaySeconds;
+        }
+
+        public void setLatencyDecaySeconds(int latencyDecaySeconds) {
+            this.latencyDecaySeconds = latencyDecaySeconds;
+        }
+
+        public double getEjectionErrorRate() {
+            return ejectionErrorRate;
+        }
+
+        public void setEjectionErrorRate(double ejectionErrorRate) {
+            this.ejectionErrorRate = ejectionErrorRate;
+        }
+
+        public int getEjectionMinRequests() {
+            return ejectionMinRequests;
+        }
+
+        public void setEjectionMinRequests(int ejectionMinRequests) {
+            this.ejectionMinRequests = ejectionMinRequests;
+        }
+
+        public int getEjectionSeconds() {
+            return ejectionSeconds;
+        }
+
+        public void setEjectionSeconds(int ejectionSeconds) {
+            this.ejectionSeconds = ejectionSeconds;
+        }
+    }
+
+    public static class Http2 {
+
+        /**
+         * Whether the requests are proxied to the services over HTTP/2 cleartext (h2c), multiplexed on a few connections: every
+         * service must then accept h2c.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of connections opened to each service instance, on which the requests are multiplexed: a few connections spread the
+         * requests over the event loops of the gateway.
+         */
+        private int connections = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+    }
+
+    public static class BatchApi {
+
+        /**
+         * Maximum number of sub-requests of a request to {@code /api/batch}.
+         */
+        private int maxRequests = 50;
+
+        /**
+         * Number of sub-requests of a batch run concurrently.
+         */
+        private int parallelism = 8;
+
+        /**
+         * Maximum size of the body of a sub-response, which is held in memory until the batch is answered.
+         */
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+    }
+
+    public static class Diagnostics {
+
+        /**
+         * Whether the Reactor debug agent is installed, so that the errors of the reactive pipelines show the line where each operator
+         * was assembled: the checkpoints are added to the bytecode when the classes are loaded, without capturing a stack trace on every
+         * operator assembly as {@code Hooks.onOperatorDebug()} does.
+         */
+        private boolean debugAgent = false;
+
+        /**
+         * Whether BlockHound is installed to report the blocking calls made from a non-blocking thread, such as a Netty event loop. It
+         * needs the {@code -XX:+AllowRedefinitionToAddDeleteMethods} JVM flag from Java 13.
+         */
+        private boolean blockingDetection = false;
+
+        /**
+         * Maximum number of distinct call sites of blocking calls kept for the {@code blockingcalls} management endpoint.
+         */
+        private int maxCallSites = 100;
+
+        public boolean isDebugAgent() {
+            return debugAgent;
+        }
+
+        public void setDebugAgent(boolean debugAgent) {
+            this.debugAgent = debugAgent;
+        }
+
+        public boolean isBlockingDetection() {
+            return blockingDetection;
+        }
+
+        public void setBlockingDetection(boolean blockingDetection) {
+            this.blockingDetection = blockingDetection;
+        }
+
+        public int getMaxCallSites() {
+            return maxCallSites;
+        }
+
+        public void setMaxCallSites(int maxCallSites) {
+            this.maxCallSites = maxCallSites;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -1,5 +1,12 @@
 package com.invertimostuyyo.stockanalysis.config;
 
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Indicator;
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.service.EntityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -8,4 +15,46 @@ import org.springframework.context.annotation.*;
 
 @Configuration
 @EnableCaching
-public class CacheConfiguration {}
+public class CacheConfiguration {
+
+    private final ApplicationProperties.Cache cache;
+
+    private final MeterRegistry meterRegistry;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.cache = applicationProperties.getCache();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public EntityCache<Indicator> indicatorCache() {
+        return createEntityCache("indicators", List.of());
+    }
+
+    /**
+     * The indicators are read with their analysis, so they depend on the analyses.
+     */
+    @Bean
+    public EntityCache<Analysis> analysisCache(EntityCache<Indicator> indicatorCache) {
+        return createEntityCache("analyses", List.of(indicatorCache));
+    }
+
+    /**
+     * The analyses are read with their stock, so they depend on the stocks.
+     */
+    @Bean
+    public EntityCache<Stock> stockCache(EntityCache<Analysis> analysisCache) {
+        return createEntityCache("stocks", List.of(analysisCache));
+    }
+
+    private <T> EntityCache<T> createEntityCache(String name, List<EntityCache<?>> dependents) {
+        return new EntityCache<>(
+            name,
+            Duration.ofSeconds(cache.getTimeToLiveSeconds()),
+            cache.getMaxEntries(),
+            cache.getMaxQueries(),
+            dependents,
+            meterRegistry
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package com.invertimostuyyo.stockanalysis.config;
+
+import java.util.List;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Configures the HTTP client which proxies the requests of the gateway to the services.
+ * <p>
+ * When {@code application.http2.enabled} is set, the requests are proxied over HTTP/2 cleartext (h2c) with prior knowledge: the
+ * concurrent requests to an instance are multiplexed as streams of {@code application.http2.connections} connections, instead of
+ * taking one pooled HTTP/1.1 connection each. h2c is not negotiated with an HTTP/1.1 upgrade, as the upgraded connections would not be
+ * shared by concurrent requests. The connections and streams are published under the
+ * {@code reactor.netty.connection.provider.*} meters when {@code spring.cloud.gateway.httpclient.pool.metrics} is set.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    @Bean
+    public HttpClientCustomizer http2HttpClientCustomizer(ApplicationProperties applicationProperties) {
+        boolean http2 = applicationProperties.getHttp2().isEnabled();
+        return httpClient -> http2 ? httpClient.protocol(HttpProtocol.H2C) : httpClient;
+    }
+
+    /**
+     * Replaces the factory of the gateway, so that the connection pool multiplexes the streams of its HTTP/2 connections: the pool opens
+     * up to the minimum number of connections, and then waits for the streams of these connections.
+     */
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(
+        HttpClientProperties properties,
+        ServerProperties serverProperties,
+        List<HttpClientCustomizer> customizers,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Http2 http2 = applicationProperties.getHttp2();
+        return new HttpClientFactory(properties, serverProperties, customizers) {
+            @Override
+            protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+                ConnectionProvider connectionProvider = super.buildConnectionProvider(properties);
+                ConnectionProvider.Builder builder = http2.isEnabled() ? connectionProvider.mutate() : null;
+                if (builder == null) {
+                    return connectionProvider;
+                }
+                connectionProvider.dispose();
+                HttpClientProperties.Pool pool = properties.getPool();
+                int maxConnections = pool.getType() == HttpClientProperties.Pool.PoolType.FIXED
+                    ? pool.getMaxConnections()
+                    : Integer.MAX_VALUE;
+                return builder
+                    .allocationStrategy(
+                        Http2AllocationStrategy
+                            .builder()
+                            .maxConnections(maxConnections)
+                            .minConnections(http2.getConnections())
+                            .build()
+                    )
+                    .build();
+            }
+        };
+    }
+}
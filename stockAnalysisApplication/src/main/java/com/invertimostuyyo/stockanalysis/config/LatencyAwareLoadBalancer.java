@@ -0,0 +1,106 @@
+package com.invertimostuyyo.stockanalysis.config;
+
+import com.invertimostuyyo.stockanalysis.management.LoadBalancerStatsService;
+import com.invertimostuyyo.stockanalysis.web.filter.HedgingGatewayFilterFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Chooses an instance with the power of two choices: two instances are drawn at random, and the one with the lower cost, as computed
+ * by the {@link LoadBalancerStatsService} from its latency and requests in flight, is chosen.
+ * <p>
+ * The ejected instances are left out, unless all the instances are ejected. An instance without any request yet has no cost, so that
+ * a new instance is tried at once. The instance named by the {@link HedgingGatewayFilterFactory#EXCLUDED_INSTANCE_HEADER} of a hedged
+ * request, which is the instance of its first attempt, is left out too, unless it is the only one available.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final LoadBalancerStatsService loadBalancerStatsService;
+
+    public LatencyAwareLoadBalancer(
+        ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+        LoadBalancerStatsService loadBalancerStatsService
+    ) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.loadBalancerStatsService = loadBalancerStatsService;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String excludedInstance = getExcludedInstance(request);
+        return supplier
+            .get(request)
+            .next()
+            .map(instances -> {
+                loadBalancerStatsService.retainInstances(supplier.getServiceId(), instances);
+                return choose(instances, excludedInstance);
+            });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        return choose(instances, null);
+    }
+
+    /**
+     * @param instances the instances of the service.
+     * @param excludedInstance the id of the instance to leave out if possible, or null.
+     * @return the chosen instance.
+     */
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String excludedInstance) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        List<ServiceInstance> available = instances
+            .stream()
+            .filter(instance -> !loadBalancerStatsService.isEjected(instance))
+            .collect(Collectors.toList());
+        if (available.isEmpty()) {
+            available = instances;
+        }
+        if (excludedInstance != null && available.size() > 1) {
+            available =
+                available
+                    .stream()
+                    .filter(instance -> !excludedInstance.equals(HedgingGatewayFilterFactory.getInstanceId(instance)))
+                    .collect(Collectors.toList());
+        }
+        if (available.size() == 1) {
+            return new DefaultResponse(available.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = available.get(first);
+        ServiceInstance b = available.get(second);
+        return new DefaultResponse(loadBalancerStatsService.getCost(a) <= loadBalancerStatsService.getCost(b) ? a : b);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static String getExcludedInstance(Request request) {
+        if (!(request.getContext() instanceof RequestDataContext)) {
+            return null;
+        }
+        RequestData clientRequest = ((RequestDataContext) request.getContext()).getClientRequest();
+        return clientRequest != null ? clientRequest.getHeaders().getFirst(HedgingGatewayFilterFactory.EXCLUDED_INSTANCE_HEADER) : null;
+    }
+}
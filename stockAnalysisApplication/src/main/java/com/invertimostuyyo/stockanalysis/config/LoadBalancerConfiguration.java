@@ -0,0 +1,39 @@
+package com.invertimostuyyo.stockanalysis.config;
+
+import com.invertimostuyyo.stockanalysis.management.LoadBalancerStatsService;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Replaces the round-robin load balancer of the discovered services with a {@link LatencyAwareLoadBalancer}.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfiguration.LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfiguration {
+
+    /**
+     * The configuration of the load balancer of each service, in the child context of the service: it must not be a
+     * {@code @Configuration}, so that it is not picked up by the component scan.
+     */
+    public static class LatencyAwareLoadBalancerConfiguration {
+
+        @Bean
+        public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            LoadBalancerStatsService loadBalancerStatsService
+        ) {
+            String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                loadBalancerStatsService
+            );
+        }
+    }
+}
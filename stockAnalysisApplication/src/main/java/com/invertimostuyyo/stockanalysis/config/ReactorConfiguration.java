@@ -1,15 +1,67 @@
 package com.invertimostuyyo.stockanalysis.config;
 
+import com.invertimostuyyo.stockanalysis.management.BlockingCallsService;
+import java.util.ServiceLoader;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
-import reactor.core.publisher.Hooks;
-import tech.jhipster.config.JHipsterConstants;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.integration.BlockHoundIntegration;
+import reactor.tools.agent.ReactorDebugAgent;
 
+/**
+ * Configures the diagnostics of the reactive pipelines, which are switched by the {@code application.diagnostics} properties rather
+ * than by profile, so that every environment runs the same code unless asked otherwise.
+ * <p>
+ * The debug agent of {@code reactor-tools} adds a checkpoint with its assembly line to each operator, by instrumenting the classes
+ * loaded after it is installed and the ones already loaded: unlike {@code Hooks.onOperatorDebug()}, it captures no stack trace at run
+ * time.
+ * <p>
+ * The blocking detection installs BlockHound with the integrations found on the class path, in report mode: a blocking call from a
+ * non-blocking thread is recorded by the {@link BlockingCallsService} instead of failing the request. BlockHound is installed once per
+ * JVM: in the tests, where it is installed by {@code blockhound-junit-platform}, a blocking call fails the test instead.
+ */
 @Configuration
-@Profile("!" + JHipsterConstants.SPRING_PROFILE_PRODUCTION)
 public class ReactorConfiguration {
 
-    public ReactorConfiguration() {
-        Hooks.onOperatorDebug();
+    private final Logger log = LoggerFactory.getLogger(ReactorConfiguration.class);
+
+    public ReactorConfiguration(ApplicationProperties applicationProperties, BlockingCallsService blockingCallsService) {
+        ApplicationProperties.Diagnostics diagnostics = applicationProperties.getDiagnostics();
+        if (diagnostics.isDebugAgent()) {
+            installDebugAgent();
+        }
+        if (diagnostics.isBlockingDetection()) {
+            installBlockHound(blockingCallsService);
+        }
+    }
+
+    private void installDebugAgent() {
+        try {
+            ReactorDebugAgent.init();
+            ReactorDebugAgent.processExistingClasses();
+            log.info("The Reactor debug agent is installed: the errors of the reactive pipelines show the assembly of their operators");
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("Could not install the Reactor debug agent, the assembly of the operators is not shown: {}", e.getMessage());
+        }
+    }
+
+    private void installBlockHound(BlockingCallsService blockingCallsService) {
+        BlockHound.Builder builder = BlockHound.builder();
+        StreamSupport.stream(ServiceLoader.load(BlockHoundIntegration.class).spliterator(), false).sorted().forEach(builder::with);
+        builder.blockingMethodCallback(method ->
+            blockingCallsService.record(
+                method.getClassName() + "." + method.getName(),
+                new Throwable().getStackTrace(),
+                Thread.currentThread().getName()
+            )
+        );
+        try {
+            builder.install();
+            log.info("BlockHound is installed: the blocking calls are reported by the blockingcalls management endpoint");
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("Could not install BlockHound, the blocking calls are not detected: {}", e.getMessage());
+        }
     }
 }
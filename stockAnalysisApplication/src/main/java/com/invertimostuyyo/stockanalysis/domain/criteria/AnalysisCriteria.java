@@ -0,0 +1,140 @@
+package com.invertimostuyyo.stockanalysis.domain.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.springdoc.api.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.LocalDateFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Criteria class for the {@link com.invertimostuyyo.stockanalysis.domain.Analysis} entity. This class is used
+ * in {@link com.invertimostuyyo.stockanalysis.web.rest.AnalysisResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /analyses?stockId.equals=5&date.greaterThanOrEqual=2022-01-01}
+ * As Spring is unable to properly convert the types, unless specific {@link tech.jhipster.service.filter.Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class AnalysisCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private LocalDateFilter date;
+
+    private StringFilter description;
+
+    private LongFilter stockId;
+
+    public AnalysisCriteria() {}
+
+    public AnalysisCriteria(AnalysisCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.date = other.date == null ? null : other.date.copy();
+        this.description = other.description == null ? null : other.description.copy();
+        this.stockId = other.stockId == null ? null : other.stockId.copy();
+    }
+
+    @Override
+    public AnalysisCriteria copy() {
+        return new AnalysisCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public LocalDateFilter getDate() {
+        return date;
+    }
+
+    public LocalDateFilter date() {
+        if (date == null) {
+            date = new LocalDateFilter();
+        }
+        return date;
+    }
+
+    public void setDate(LocalDateFilter date) {
+        this.date = date;
+    }
+
+    public StringFilter getDescription() {
+        return description;
+    }
+
+    public StringFilter description() {
+        if (description == null) {
+            description = new StringFilter();
+        }
+        return description;
+    }
+
+    public void setDescription(StringFilter description) {
+        this.description = description;
+    }
+
+    public LongFilter getStockId() {
+        return stockId;
+    }
+
+    public LongFilter stockId() {
+        if (stockId == null) {
+            stockId = new LongFilter();
+        }
+        return stockId;
+    }
+
+    public void setStockId(LongFilter stockId) {
+        this.stockId = stockId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final AnalysisCriteria that = (AnalysisCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(date, that.date) &&
+            Objects.equals(description, that.description) &&
+            Objects.equals(stockId, that.stockId)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, date, description, stockId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AnalysisCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (date != null ? "date=" + date + ", " : "") +
+            (description != null ? "description=" + description + ", " : "") +
+            (stockId != null ? "stockId=" + stockId + ", " : "") +
+            "}";
+    }
+}
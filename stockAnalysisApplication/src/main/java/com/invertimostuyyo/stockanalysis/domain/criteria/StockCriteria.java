@@ -0,0 +1,242 @@
+package com.invertimostuyyo.stockanalysis.domain.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.springdoc.api.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.DoubleFilter;
+import tech.jhipster.service.filter.IntegerFilter;
+import tech.jhipster.service.filter.LocalDateFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Criteria class for the {@link com.invertimostuyyo.stockanalysis.domain.Stock} entity. This class is used
+ * in {@link com.invertimostuyyo.stockanalysis.web.rest.StockResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /stocks?sector.in=Energy,Banking&capitalization.greaterThan=1000000&fundation.lessThan=2000-01-01}
+ * As Spring is unable to properly convert the types, unless specific {@link tech.jhipster.service.filter.Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class StockCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private StringFilter name;
+
+    private StringFilter sector;
+
+    private LocalDateFilter fundation;
+
+    private StringFilter description;
+
+    private DoubleFilter icnome;
+
+    private DoubleFilter expenses;
+
+    private DoubleFilter capitalization;
+
+    private IntegerFilter employees;
+
+    public StockCriteria() {}
+
+    public StockCriteria(StockCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.name = other.name == null ? null : other.name.copy();
+        this.sector = other.sector == null ? null : other.sector.copy();
+        this.fundation = other.fundation == null ? null : other.fundation.copy();
+        this.description = other.description == null ? null : other.description.copy();
+        this.icnome = other.icnome == null ? null : other.icnome.copy();
+        this.expenses = other.expenses == null ? null : other.expenses.copy();
+        this.capitalization = other.capitalization == null ? null : other.capitalization.copy();
+        this.employees = other.employees == null ? null : other.employees.copy();
+    }
+
+    @Override
+    public StockCriteria copy() {
+        return new StockCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getName() {
+        return name;
+    }
+
+    public StringFilter name() {
+        if (name == null) {
+            name = new StringFilter();
+        }
+        return name;
+    }
+
+    public void setName(StringFilter name) {
+        this.name = name;
+    }
+
+    public StringFilter getSector() {
+        return sector;
+    }
+
+    public StringFilter sector() {
+        if (sector == null) {
+            sector = new StringFilter();
+        }
+        return sector;
+    }
+
+    public void setSector(StringFilter sector) {
+        this.sector = sector;
+    }
+
+    public LocalDateFilter getFundation() {
+        return fundation;
+    }
+
+    public LocalDateFilter fundation() {
+        if (fundation == null) {
+            fundation = new LocalDateFilter();
+        }
+        return fundation;
+    }
+
+    public void setFundation(LocalDateFilter fundation) {
+        this.fundation = fundation;
+    }
+
+    public StringFilter getDescription() {
+        return description;
+    }
+
+    public StringFilter description() {
+        if (description == null) {
+            description = new StringFilter();
+        }
+        return description;
+    }
+
+    public void setDescription(StringFilter description) {
+        this.description = description;
+    }
+
+    public DoubleFilter getIcnome() {
+        return icnome;
+    }
+
+    public DoubleFilter icnome() {
+        if (icnome == null) {
+            icnome = new DoubleFilter();
+        }
+        return icnome;
+    }
+
+    public void setIcnome(DoubleFilter icnome) {
+        this.icnome = icnome;
+    }
+
+    public DoubleFilter getExpenses() {
+        return expenses;
+    }
+
+    public DoubleFilter expenses() {
+        if (expenses == null) {
+            expenses = new DoubleFilter();
+        }
+        return expenses;
+    }
+
+    public void setExpenses(DoubleFilter expenses) {
+        this.expenses = expenses;
+    }
+
+    public DoubleFilter getCapitalization() {
+        return capitalization;
+    }
+
+    public DoubleFilter capitalization() {
+        if (capitalization == null) {
+            capitalization = new DoubleFilter();
+        }
+        return capitalization;
+    }
+
+    public void setCapitalization(DoubleFilter capitalization) {
+        this.capitalization = capitalization;
+    }
+
+    public IntegerFilter getEmployees() {
+        return employees;
+    }
+
+    public IntegerFilter employees() {
+        if (employees == null) {
+            employees = new IntegerFilter();
+        }
+        return employees;
+    }
+
+    public void setEmployees(IntegerFilter employees) {
+        this.employees = employees;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final StockCriteria that = (StockCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(name, that.name) &&
+            Objects.equals(sector, that.sector) &&
+            Objects.equals(fundation, that.fundation) &&
+            Objects.equals(description, that.description) &&
+            Objects.equals(icnome, that.icnome) &&
+            Objects.equals(expenses, that.expenses) &&
+            Objects.equals(capitalization, that.capitalization) &&
+            Objects.equals(employees, that.employees)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, sector, fundation, description, icnome, expenses, capitalization, employees);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StockCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (name != null ? "name=" + name + ", " : "") +
+            (sector != null ? "sector=" + sector + ", " : "") +
+            (fundation != null ? "fundation=" + fundation + ", " : "") +
+            (description != null ? "description=" + description + ", " : "") +
+            (icnome != null ? "icnome=" + icnome + ", " : "") +
+            (expenses != null ? "expenses=" + expenses + ", " : "") +
+            (capitalization != null ? "capitalization=" + capitalization + ", " : "") +
+            (employees != null ? "employees=" + employees + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Criteria classes holding the filtering options of the entity REST endpoints.
+ */
+package com.invertimostuyyo.stockanalysis.domain.criteria;
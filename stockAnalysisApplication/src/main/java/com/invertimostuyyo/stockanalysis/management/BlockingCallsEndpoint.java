@@ -0,0 +1,26 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint showing the blocking calls made from a non-blocking thread, by blocking method and call site, when the blocking
+ * detection of the diagnostics is turned on.
+ */
+@Component
+@Endpoint(id = "blockingcalls")
+public class BlockingCallsEndpoint {
+
+    private final BlockingCallsService blockingCallsService;
+
+    public BlockingCallsEndpoint(BlockingCallsService blockingCallsService) {
+        this.blockingCallsService = blockingCallsService;
+    }
+
+    @ReadOperation
+    public List<BlockingCallsService.BlockingCall> blockingCalls() {
+        return blockingCallsService.getBlockingCalls();
+    }
+}
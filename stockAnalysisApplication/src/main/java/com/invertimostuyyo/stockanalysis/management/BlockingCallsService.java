@@ -0,0 +1,141 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Collects the blocking calls made from a non-blocking thread, such as a Netty event loop, as reported by BlockHound when the blocking
+ * detection of the diagnostics is turned on.
+ * <p>
+ * The calls are grouped by blocking method and call site: the call site is the first frame of the application below the blocking method
+ * in the stack trace, or else the first frame outside of the JDK. The first call of a call site is logged with its stack trace, and the
+ * number of call sites kept is bounded by the configured maximum.
+ */
+@Service
+public class BlockingCallsService {
+
+    private static final String APPLICATION_PACKAGE = "com.invertimostuyyo.";
+
+    private static final String BLOCKHOUND_PACKAGE = "reactor.blockhound.";
+
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+
+    private final Logger log = LoggerFactory.getLogger(BlockingCallsService.class);
+
+    private final Map<String, BlockingCall> blockingCalls = new ConcurrentHashMap<>();
+
+    private final int maxCallSites;
+
+    @Autowired
+    public BlockingCallsService(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getDiagnostics().getMaxCallSites());
+    }
+
+    BlockingCallsService(int maxCallSites) {
+        this.maxCallSites = maxCallSites;
+    }
+
+    /**
+     * Records a blocking call.
+     *
+     * @param blockingMethod the blocking method, such as {@code java.lang.Thread.sleep}.
+     * @param stackTrace the stack trace of the call, which may start with the frames of BlockHound.
+     * @param thread the name of the non-blocking thread which made the call.
+     */
+    public void record(String blockingMethod, StackTraceElement[] stackTrace, String thread) {
+        String callSite = callSite(stackTrace);
+        String key = blockingMethod + " " + callSite;
+        BlockingCall blockingCall = blockingCalls.get(key);
+        if (blockingCall == null) {
+            if (blockingCalls.size() >= maxCallSites) {
+                return;
+            }
+            BlockingCall newCall = new BlockingCall(blockingMethod, callSite);
+            blockingCall = blockingCalls.putIfAbsent(key, newCall);
+            if (blockingCall == null) {
+                blockingCall = newCall;
+                Throwable trace = new Throwable("Blocking call to " + blockingMethod);
+                trace.setStackTrace(stackTrace);
+                log.warn("Blocking call to {} from {} on the non-blocking thread {}", blockingMethod, callSite, thread, trace);
+            }
+        }
+        blockingCall.count.increment();
+        blockingCall.thread = thread;
+    }
+
+    /**
+     * @return the blocking calls, the most frequent first.
+     */
+    public List<BlockingCall> getBlockingCalls() {
+        return blockingCalls
+            .values()
+            .stream()
+            .sorted(Comparator.comparingLong(BlockingCall::getCount).reversed())
+            .collect(Collectors.toList());
+    }
+
+    static String callSite(StackTraceElement[] stackTrace) {
+        int start = 0;
+        for (int i = 0; i < stackTrace.length; i++) {
+            if (stackTrace[i].getClassName().startsWith(BLOCKHOUND_PACKAGE)) {
+                start = i + 1;
+            }
+        }
+        List<StackTraceElement> frames = Arrays.asList(stackTrace).subList(Math.min(start + 1, stackTrace.length), stackTrace.length);
+        return frames
+            .stream()
+            .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE))
+            .findFirst()
+            .or(() -> frames.stream().filter(frame -> JDK_PACKAGES.stream().noneMatch(frame.getClassName()::startsWith)).findFirst())
+            .map(StackTraceElement::toString)
+            .orElse("unknown");
+    }
+
+    /**
+     * The blocking calls to a blocking method from a call site.
+     */
+    public static class BlockingCall {
+
+        private final String blockingMethod;
+
+        private final String callSite;
+
+        private final LongAdder count = new LongAdder();
+
+        private volatile String thread;
+
+        BlockingCall(String blockingMethod, String callSite) {
+            this.blockingMethod = blockingMethod;
+            this.callSite = callSite;
+        }
+
+        public String getBlockingMethod() {
+            return blockingMethod;
+        }
+
+        public String getCallSite() {
+            return callSite;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the non-blocking thread of the last call.
+         */
+        public String getThread() {
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CoalescingMetersService {
+
+    public static final String COALESCING_REQUESTS_METER_NAME = "gateway.coalescing.requests";
+    public static final String COALESCING_REQUESTS_METER_DESCRIPTION =
+        "Indicates the proxied requests eligible for coalescing, by whether they were sent upstream or served from an identical request.";
+    public static final String COALESCING_REQUESTS_METER_RESULT_DIMENSION = "result";
+    public static final String COALESCING_RATIO_METER_NAME = "gateway.coalescing.ratio";
+    public static final String COALESCING_RATIO_METER_DESCRIPTION =
+        "Indicates the ratio of the requests eligible for coalescing which were served from an identical in-flight request.";
+    public static final String COALESCING_SAVED_BYTES_METER_NAME = "gateway.coalescing.saved";
+    public static final String COALESCING_SAVED_BYTES_METER_DESCRIPTION =
+        "Indicates the bytes of the responses served from an identical in-flight request, instead of being read from upstream.";
+    public static final String COALESCING_SAVED_BYTES_METER_BASE_UNIT = "bytes";
+
+    private final Counter upstreamCounter;
+    private final Counter coalescedCounter;
+    private final Counter fallbackCounter;
+    private final Counter savedBytesCounter;
+
+    public CoalescingMetersService(MeterRegistry registry) {
+        this.upstreamCounter = coalescingRequestsCounterForResultBuilder("upstream").register(registry);
+        this.coalescedCounter = coalescingRequestsCounterForResultBuilder("coalesced").register(registry);
+        this.fallbackCounter = coalescingRequestsCounterForResultBuilder("fallback").register(registry);
+        this.savedBytesCounter =
+            Counter
+                .builder(COALESCING_SAVED_BYTES_METER_NAME)
+                .baseUnit(COALESCING_SAVED_BYTES_METER_BASE_UNIT)
+                .description(COALESCING_SAVED_BYTES_METER_DESCRIPTION)
+                .register(registry);
+        Gauge
+            .builder(COALESCING_RATIO_METER_NAME, this, CoalescingMetersService::getCoalescingRatio)
+            .description(COALESCING_RATIO_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    private Counter.Builder coalescingRequestsCounterForResultBuilder(String result) {
+        return Counter
+            .builder(COALESCING_REQUESTS_METER_NAME)
+            .description(COALESCING_REQUESTS_METER_DESCRIPTION)
+            .tag(COALESCING_REQUESTS_METER_RESULT_DIMENSION, result);
+    }
+
+    private double getCoalescingRatio() {
+        double requests = this.upstreamCounter.count() + this.coalescedCounter.count() + this.fallbackCounter.count();
+        return requests == 0 ? 0 : this.coalescedCounter.count() / requests;
+    }
+
+    /**
+     * Tracks a request sent upstream, whose response is shared with the identical requests received meanwhile.
+     */
+    public void trackUpstream() {
+        this.upstreamCounter.increment();
+    }
+
+    /**
+     * Tracks a request served with the response of an identical in-flight request.
+     * @param bytes the size of the body of the response.
+     */
+    public void trackCoalesced(long bytes) {
+        this.coalescedCounter.increment();
+        this.savedBytesCounter.increment(bytes);
+    }
+
+    /**
+     * Tracks a request sent upstream after waiting for an identical request whose response could not be shared.
+     */
+    public void trackFallback() {
+        this.fallbackCounter.increment();
+    }
+}
@@ -0,0 +1,60 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ConcurrencyLimitMetersService {
+
+    public static final String CONCURRENCY_LIMIT_METER_NAME = "gateway.concurrency.limit";
+    public static final String CONCURRENCY_LIMIT_METER_DESCRIPTION =
+        "Indicates the current adaptive limit of the requests in flight to a downstream service.";
+    public static final String CONCURRENCY_IN_FLIGHT_METER_NAME = "gateway.concurrency.inflight";
+    public static final String CONCURRENCY_IN_FLIGHT_METER_DESCRIPTION = "Indicates the requests in flight to a downstream service.";
+    public static final String CONCURRENCY_REJECTED_METER_NAME = "gateway.concurrency.rejected";
+    public static final String CONCURRENCY_REJECTED_METER_DESCRIPTION =
+        "Indicates the requests rejected with a 503 because the limit of the requests in flight to their downstream service was reached.";
+    public static final String CONCURRENCY_SERVICE_DIMENSION = "service";
+
+    private final MeterRegistry registry;
+
+    public ConcurrencyLimitMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registers the gauges of the limiter of a service.
+     * @param service the id of the service.
+     * @param limiter the limiter, which is only weakly referenced by the gauges.
+     * @param limit the function giving the current limit of the limiter.
+     * @param inFlight the function giving the requests in flight through the limiter.
+     */
+    public <T> void registerLimiter(String service, T limiter, ToDoubleFunction<T> limit, ToDoubleFunction<T> inFlight) {
+        Gauge
+            .builder(CONCURRENCY_LIMIT_METER_NAME, limiter, limit)
+            .description(CONCURRENCY_LIMIT_METER_DESCRIPTION)
+            .tag(CONCURRENCY_SERVICE_DIMENSION, service)
+            .register(registry);
+        Gauge
+            .builder(CONCURRENCY_IN_FLIGHT_METER_NAME, limiter, inFlight)
+            .description(CONCURRENCY_IN_FLIGHT_METER_DESCRIPTION)
+            .tag(CONCURRENCY_SERVICE_DIMENSION, service)
+            .register(registry);
+    }
+
+    /**
+     * Tracks a request rejected because the limit of its service was reached.
+     * @param service the id of the service.
+     */
+    public void trackRejected(String service) {
+        Counter
+            .builder(CONCURRENCY_REJECTED_METER_NAME)
+            .description(CONCURRENCY_REJECTED_METER_DESCRIPTION)
+            .tag(CONCURRENCY_SERVICE_DIMENSION, service)
+            .register(registry)
+            .increment();
+    }
+}
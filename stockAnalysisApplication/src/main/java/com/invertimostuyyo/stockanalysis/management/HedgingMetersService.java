@@ -0,0 +1,53 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+@Service
+public class HedgingMetersService {
+
+    public static final String HEDGING_SENT_METER_NAME = "gateway.hedging.sent";
+    public static final String HEDGING_SENT_METER_DESCRIPTION =
+        "Indicates the hedged requests sent because the first attempt did not answer within the hedging delay of its route.";
+    public static final String HEDGING_WON_METER_NAME = "gateway.hedging.won";
+    public static final String HEDGING_WON_METER_DESCRIPTION = "Indicates the hedged requests which answered before the first attempt.";
+    public static final String HEDGING_THROTTLED_METER_NAME = "gateway.hedging.throttled";
+    public static final String HEDGING_THROTTLED_METER_DESCRIPTION =
+        "Indicates the hedged requests not sent because the hedge budget of their route was spent.";
+    public static final String HEDGING_ROUTE_DIMENSION = "route";
+
+    private final MeterRegistry registry;
+
+    public HedgingMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Tracks a hedged request sent.
+     * @param route the id of the route.
+     */
+    public void trackSent(String route) {
+        increment(HEDGING_SENT_METER_NAME, HEDGING_SENT_METER_DESCRIPTION, route);
+    }
+
+    /**
+     * Tracks a hedged request whose response was used.
+     * @param route the id of the route.
+     */
+    public void trackWon(String route) {
+        increment(HEDGING_WON_METER_NAME, HEDGING_WON_METER_DESCRIPTION, route);
+    }
+
+    /**
+     * Tracks a hedged request not sent because of the hedge budget.
+     * @param route the id of the route.
+     */
+    public void trackThrottled(String route) {
+        increment(HEDGING_THROTTLED_METER_NAME, HEDGING_THROTTLED_METER_DESCRIPTION, route);
+    }
+
+    private void increment(String name, String description, String route) {
+        Counter.builder(name).description(description).tag(HEDGING_ROUTE_DIMENSION, route).register(registry).increment();
+    }
+}
@@ -0,0 +1,112 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+/**
+ * The statistics of the requests proxied to a service instance: a peak-sensitive moving average of their latency, the requests in
+ * flight, and a moving average of their error rate.
+ * <p>
+ * The latency average jumps to any higher latency at once, and decays exponentially with time otherwise, so that a slow instance is
+ * avoided at once and retried once it has been left alone for a while.
+ */
+final class InstanceStats {
+
+    /**
+     * Weight of the latest outcome in the error rate.
+     */
+    private static final double ERROR_RATE_WEIGHT = 0.1;
+
+    private final String instanceId;
+    private final String host;
+    private final int port;
+
+    private double latencyNanos;
+    private long latencyUpdatedAt;
+    private int inFlight;
+    private double errorRate;
+    private long requests;
+    private boolean ejected;
+    private long ejectedUntil;
+
+    InstanceStats(String instanceId, String host, int port, long now) {
+        this.instanceId = instanceId;
+        this.host = host;
+        this.port = port;
+        this.latencyUpdatedAt = now;
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    synchronized void start() {
+        inFlight++;
+    }
+
+    /**
+     * @param latencyNanos the latency of the request, or a negative value if unknown.
+     * @param error whether the request failed because of the instance.
+     * @param now the current time, in nanoseconds.
+     * @param decayNanos the time constant of the decay of the latency.
+     */
+    synchronized void complete(long latencyNanos, boolean error, long now, long decayNanos) {
+        inFlight = Math.max(0, inFlight - 1);
+        if (latencyNanos > this.latencyNanos) {
+            this.latencyNanos = latencyNanos;
+            this.latencyUpdatedAt = now;
+        } else if (latencyNanos >= 0) {
+            double weight = getDecay(now, decayNanos);
+            this.latencyNanos = this.latencyNanos * weight + latencyNanos * (1 - weight);
+            this.latencyUpdatedAt = now;
+        }
+        errorRate = errorRate * (1 - ERROR_RATE_WEIGHT) + (error ? ERROR_RATE_WEIGHT : 0);
+        requests++;
+    }
+
+    /**
+     * @return the latency average, decayed since its last update.
+     */
+    synchronized double getLatencyNanos(long now, long decayNanos) {
+        return latencyNanos * getDecay(now, decayNanos);
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    synchronized long getRequests() {
+        return requests;
+    }
+
+    synchronized boolean isEjected(long now) {
+        return ejected && now - ejectedUntil < 0;
+    }
+
+    synchronized long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    /**
+     * Ejects the instance until the given time, after which its error rate starts afresh.
+     */
+    synchronized void eject(long until) {
+        ejected = true;
+        ejectedUntil = until;
+        errorRate = 0;
+        requests = 0;
+    }
+
+    private double getDecay(long now, long decayNanos) {
+        return Math.exp(-(double) Math.max(0, now - latencyUpdatedAt) / decayNanos);
+    }
+}
@@ -0,0 +1,27 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint showing the latency, requests in flight, error rate and ejection of the instances of the load-balanced
+ * services, as seen by the gateway.
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final LoadBalancerStatsService loadBalancerStatsService;
+
+    public LoadBalancerEndpoint(LoadBalancerStatsService loadBalancerStatsService) {
+        this.loadBalancerStatsService = loadBalancerStatsService;
+    }
+
+    @ReadOperation
+    public Map<String, List<LoadBalancerStatsService.InstanceScore>> scores() {
+        return loadBalancerStatsService.getScores();
+    }
+}
@@ -0,0 +1,261 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Service;
+
+/**
+ * Collects the latency, requests in flight and errors of the requests proxied to each service instance, as a
+ * {@link LoadBalancerLifecycle} of the load-balanced routes, and ejects the instances whose error rate spikes.
+ * <p>
+ * The cost of an instance, used by the load balancer to choose between two instances, is its latency average multiplied by its
+ * requests in flight plus one. A failed request, or a request answered with a 5xx status other than 501, counts as an error of the
+ * instance: an instance whose error rate reaches the configured rate, after the minimum number of requests, is ejected for the
+ * configured duration.
+ * <p>
+ * The statistics of the instances which discovery no longer returns are dropped when the load balancer gets the instances of their
+ * service, so that the instances of the previous deployments are not kept.
+ */
+@Service
+public class LoadBalancerStatsService implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final Logger log = LoggerFactory.getLogger(LoadBalancerStatsService.class);
+
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+
+    private final ApplicationProperties.LoadBalancer properties;
+
+    private final LongSupplier nanoTime;
+
+    @Autowired
+    public LoadBalancerStatsService(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getLoadBalancer(), System::nanoTime);
+    }
+
+    LoadBalancerStatsService(ApplicationProperties.LoadBalancer properties, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return (
+            RequestDataContext.class.isAssignableFrom(requestContextClass) &&
+            ResponseData.class.isAssignableFrom(responseClass) &&
+            ServiceInstance.class.isAssignableFrom(serverTypeClass)
+        );
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {}
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext) {
+            ((TimedRequestContext) request.getContext()).setRequestStartTime(nanoTime.getAsLong());
+        }
+        getStats(lbResponse.getServer()).start();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        long latency = -1;
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        if (context instanceof TimedRequestContext && ((TimedRequestContext) context).getRequestStartTime() != 0) {
+            latency = now - ((TimedRequestContext) context).getRequestStartTime();
+        }
+        InstanceStats stats = getStats(lbResponse.getServer());
+        stats.complete(latency, isError(completionContext), now, getLatencyDecayNanos());
+        if (
+            !stats.isEjected(now) &&
+            stats.getRequests() >= properties.getEjectionMinRequests() &&
+            stats.getErrorRate() >= properties.getEjectionErrorRate()
+        ) {
+            log.warn(
+                "Ejecting the instance {} of {} for {}s, as its error rate is {}",
+                stats.getInstanceId(),
+                lbResponse.getServer().getServiceId(),
+                properties.getEjectionSeconds(),
+                stats.getErrorRate()
+            );
+            stats.eject(now + Duration.ofSeconds(properties.getEjectionSeconds()).toNanos());
+        }
+    }
+
+    /**
+     * @param instance an instance of a service.
+     * @return whether the instance is ejected.
+     */
+    public boolean isEjected(ServiceInstance instance) {
+        InstanceStats stats = findStats(instance);
+        return stats != null && stats.isEjected(nanoTime.getAsLong());
+    }
+
+    /**
+     * @param instance an instance of a service.
+     * @return the cost of sending a request to the instance: the lower, the better, and 0 for an instance without any request yet.
+     */
+    public double getCost(ServiceInstance instance) {
+        InstanceStats stats = findStats(instance);
+        if (stats == null) {
+            return 0;
+        }
+        return stats.getLatencyNanos(nanoTime.getAsLong(), getLatencyDecayNanos()) * (stats.getInFlight() + 1);
+    }
+
+    /**
+     * Drop the statistics of the instances of a service which are not returned by discovery anymore. The statistics are kept when no
+     * instance is returned, as when discovery is unavailable.
+     *
+     * @param serviceId the id of the service.
+     * @param instances the instances of the service returned by discovery.
+     */
+    public void retainInstances(String serviceId, List<ServiceInstance> instances) {
+        Map<String, InstanceStats> service = serviceId != null ? services.get(serviceId) : null;
+        if (service == null || instances.isEmpty()) {
+            return;
+        }
+        Set<String> instanceIds = instances.stream().map(LoadBalancerStatsService::getInstanceId).collect(Collectors.toSet());
+        if (service.keySet().retainAll(instanceIds)) {
+            log.debug("Dropped the statistics of the instances of {} which are not discovered anymore", serviceId);
+        }
+    }
+
+    /**
+     * @return the scores of the instances which received requests, by service id.
+     */
+    public Map<String, List<InstanceScore>> getScores() {
+        long now = nanoTime.getAsLong();
+        return services
+            .entrySet()
+            .stream()
+            .collect(
+                Collectors.toMap(
+                    Map.Entry::getKey,
+                    service ->
+                        service
+                            .getValue()
+                            .values()
+                            .stream()
+                            .map(stats -> new InstanceScore(stats, now, getLatencyDecayNanos()))
+                            .sorted(Comparator.comparing(InstanceScore::getInstanceId))
+                            .collect(Collectors.toList())
+                )
+            );
+    }
+
+    private InstanceStats getStats(ServiceInstance instance) {
+        return services
+            .computeIfAbsent(instance.getServiceId(), id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(
+                getInstanceId(instance),
+                instanceId -> new InstanceStats(instanceId, instance.getHost(), instance.getPort(), nanoTime.getAsLong())
+            );
+    }
+
+    private InstanceStats findStats(ServiceInstance instance) {
+        Map<String, InstanceStats> service = services.get(instance.getServiceId());
+        return service != null ? service.get(getInstanceId(instance)) : null;
+    }
+
+    private static String getInstanceId(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private long getLatencyDecayNanos() {
+        return Duration.ofSeconds(properties.getLatencyDecaySeconds()).toNanos();
+    }
+
+    private static boolean isError(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        ResponseData response = completionContext.getClientResponse();
+        Integer status = response != null ? response.getRawHttpStatus() : null;
+        return status != null && status >= 500 && status != 501;
+    }
+
+    /**
+     * The statistics of an instance, as shown by the {@code loadbalancer} management endpoint.
+     */
+    public static class InstanceScore {
+
+        private final String instanceId;
+        private final String host;
+        private final int port;
+        private final double latencyMillis;
+        private final int inFlight;
+        private final double errorRate;
+        private final double cost;
+        private final boolean ejected;
+
+        InstanceScore(InstanceStats stats, long now, long decayNanos) {
+            this.instanceId = stats.getInstanceId();
+            this.host = stats.getHost();
+            this.port = stats.getPort();
+            this.latencyMillis = stats.getLatencyNanos(now, decayNanos) / 1_000_000;
+            this.inFlight = stats.getInFlight();
+            this.errorRate = stats.getErrorRate();
+            this.cost = latencyMillis * (inFlight + 1);
+            this.ejected = stats.isEjected(now);
+        }
+
+        public String getInstanceId() {
+            return instanceId;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        public boolean isEjected() {
+            return ejected;
+        }
+    }
+}
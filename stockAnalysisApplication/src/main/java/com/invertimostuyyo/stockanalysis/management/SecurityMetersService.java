@@ -1,6 +1,7 @@
 package com.invertimostuyyo.stockanalysis.management;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
@@ -13,16 +14,39 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String TOKEN_CACHE_METER_NAME = "security.authentication.token-cache";
+    public static final String TOKEN_CACHE_METER_DESCRIPTION = "Indicates the lookups of the tokens in the cache of the verified tokens.";
+    public static final String TOKEN_CACHE_METER_RESULT_DIMENSION = "result";
+    public static final String TOKEN_CACHE_HIT_RATIO_METER_NAME = "security.authentication.token-cache.hit-ratio";
+    public static final String TOKEN_CACHE_HIT_RATIO_METER_DESCRIPTION =
+        "Indicates the ratio of the token lookups served by the cache of the verified tokens.";
+    public static final String TOKEN_CACHE_EVICTIONS_METER_NAME = "security.authentication.token-cache.evictions";
+    public static final String TOKEN_CACHE_EVICTIONS_METER_DESCRIPTION = "Indicates the tokens evicted from the cache of the verified tokens.";
+    public static final String TOKEN_CACHE_EVICTIONS_METER_CAUSE_DIMENSION = "cause";
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
+    private final Counter tokenCacheHitCounter;
+    private final Counter tokenCacheMissCounter;
+    private final Counter tokenCacheExpiredEvictionCounter;
+    private final Counter tokenCacheSizeEvictionCounter;
 
     public SecurityMetersService(MeterRegistry registry) {
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+
+        this.tokenCacheHitCounter = tokenCacheCounterForResultBuilder("hit").register(registry);
+        this.tokenCacheMissCounter = tokenCacheCounterForResultBuilder("miss").register(registry);
+        this.tokenCacheExpiredEvictionCounter = tokenCacheEvictionsCounterForCauseBuilder("expired").register(registry);
+        this.tokenCacheSizeEvictionCounter = tokenCacheEvictionsCounterForCauseBuilder("size").register(registry);
+        Gauge
+            .builder(TOKEN_CACHE_HIT_RATIO_METER_NAME, this, SecurityMetersService::getTokenCacheHitRatio)
+            .description(TOKEN_CACHE_HIT_RATIO_METER_DESCRIPTION)
+            .register(registry);
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -33,6 +57,25 @@ public class SecurityMetersService {
             .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
+    private Counter.Builder tokenCacheCounterForResultBuilder(String result) {
+        return Counter
+            .builder(TOKEN_CACHE_METER_NAME)
+            .description(TOKEN_CACHE_METER_DESCRIPTION)
+            .tag(TOKEN_CACHE_METER_RESULT_DIMENSION, result);
+    }
+
+    private Counter.Builder tokenCacheEvictionsCounterForCauseBuilder(String cause) {
+        return Counter
+            .builder(TOKEN_CACHE_EVICTIONS_METER_NAME)
+            .description(TOKEN_CACHE_EVICTIONS_METER_DESCRIPTION)
+            .tag(TOKEN_CACHE_EVICTIONS_METER_CAUSE_DIMENSION, cause);
+    }
+
+    private double getTokenCacheHitRatio() {
+        double lookups = this.tokenCacheHitCounter.count() + this.tokenCacheMissCounter.count();
+        return lookups == 0 ? 0 : this.tokenCacheHitCounter.count() / lookups;
+    }
+
     public void trackTokenInvalidSignature() {
         this.tokenInvalidSignatureCounter.increment();
     }
@@ -48,4 +91,20 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    public void trackTokenCacheHit() {
+        this.tokenCacheHitCounter.increment();
+    }
+
+    public void trackTokenCacheMiss() {
+        this.tokenCacheMissCounter.increment();
+    }
+
+    public void trackTokenCacheExpiredEviction() {
+        this.tokenCacheExpiredEvictionCounter.increment();
+    }
+
+    public void trackTokenCacheSizeEviction() {
+        this.tokenCacheSizeEvictionCounter.increment();
+    }
 }
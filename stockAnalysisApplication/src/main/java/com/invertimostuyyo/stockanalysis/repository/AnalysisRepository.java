@@ -1,6 +1,8 @@
 package com.invertimostuyyo.stockanalysis.repository;
 
 import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.criteria.AnalysisCriteria;
+import java.util.Map;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.relational.core.query.Criteria;
@@ -39,10 +41,21 @@ interface AnalysisRepositoryInternal {
 
     Flux<Analysis> findAllBy(Pageable pageable);
 
+    Flux<Analysis> findAllByKeyset(Keyset keyset);
+
+    Flux<Analysis> findAllByKeyset(Keyset keyset, AnalysisCriteria criteria);
+
+    Flux<Analysis> findByCriteria(AnalysisCriteria criteria);
+
+    Flux<Analysis> findLatestByStockId(Long stockId, int limit);
+
+    Mono<Long> countByCriteria(AnalysisCriteria criteria);
+
+    Mono<Keyset> findKeysetAfter(Long id, Keyset keyset);
+
+    Flux<BatchResult> writeAll(Map<Long, Analysis> analyses, boolean upsert);
+
     Flux<Analysis> findAll();
 
     Mono<Analysis> findById(Long id);
-    // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
-    // Flux<Analysis> findAllBy(Pageable pageable, Criteria criteria);
-
 }
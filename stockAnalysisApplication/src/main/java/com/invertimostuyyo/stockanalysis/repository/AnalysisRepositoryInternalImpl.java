@@ -3,6 +3,8 @@ package com.invertimostuyyo.stockanalysis.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 
 import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.domain.criteria.AnalysisCriteria;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.AnalysisRowMapper;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.StockRowMapper;
 import io.r2dbc.spi.Row;
@@ -15,7 +17,9 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
@@ -26,7 +30,11 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
@@ -44,9 +52,10 @@ class AnalysisRepositoryInternalImpl extends SimpleR2dbcRepository<Analysis, Lon
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final BatchWriter batchWriter;
 
-    private final StockRowMapper stockMapper;
-    private final AnalysisRowMapper analysisMapper;
+    private final BiFunction<Row, RowMetadata, Stock> stockMapper;
+    private final BiFunction<Row, RowMetadata, Analysis> analysisMapper;
 
     private static final Table entityTable = Table.aliased("analysis", EntityManager.ENTITY_ALIAS);
     private static final Table stockTable = Table.aliased("stock", "stock");
@@ -54,6 +63,7 @@ class AnalysisRepositoryInternalImpl extends SimpleR2dbcRepository<Analysis, Lon
     public AnalysisRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        BatchWriter batchWriter,
         StockRowMapper stockMapper,
         AnalysisRowMapper analysisMapper,
         R2dbcEntityOperations entityOperations,
@@ -67,8 +77,9 @@ class AnalysisRepositoryInternalImpl extends SimpleR2dbcRepository<Analysis, Lon
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.stockMapper = stockMapper;
-        this.analysisMapper = analysisMapper;
+        this.batchWriter = batchWriter;
+        this.stockMapper = stockMapper.compile("stock");
+        this.analysisMapper = analysisMapper.compile(EntityManager.ENTITY_ALIAS);
     }
 
     @Override
@@ -76,35 +87,130 @@ class AnalysisRepositoryInternalImpl extends SimpleR2dbcRepository<Analysis, Lon
         return createQuery(pageable, null).all();
     }
 
+    @Override
+    public Flux<Analysis> findAllByKeyset(Keyset keyset) {
+        return findAllByKeyset(keyset, new AnalysisCriteria());
+    }
+
+    @Override
+    public Flux<Analysis> findAllByKeyset(Keyset keyset, AnalysisCriteria criteria) {
+        return createKeysetQuery(keyset, buildConditions(criteria)).all();
+    }
+
+    @Override
+    public Flux<Analysis> findByCriteria(AnalysisCriteria criteria) {
+        ConditionBuilder conditions = buildConditions(criteria);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Analysis.class, "findByCriteria", conditions.getShape()),
+            () -> entityManager.createSelect(createSelectFrom(), Analysis.class, (Pageable) null, conditions.buildConditions())
+        );
+        return conditions.bind(db.sql(select)).map(this::process).all();
+    }
+
+    /**
+     * Reads the latest analyses of a stock, along with the stock, in a single query.
+     * @param stockId the id of the stock.
+     * @param limit the maximum number of analyses read.
+     * @return the analyses, by descending date then id.
+     */
+    @Override
+    public Flux<Analysis> findLatestByStockId(Long stockId, int limit) {
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Analysis.class, "findLatestByStockId", limit),
+            () -> {
+                Comparison whereClause = Conditions.isEqual(entityTable.column("stock_id"), SQL.bindMarker(":" + EntityManager.ID_MARKER));
+                Pageable latest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "date", "id"));
+                return entityManager.createSelect(createSelectFrom(), Analysis.class, latest, whereClause);
+            }
+        );
+        return db.sql(select).bind(EntityManager.ID_MARKER, stockId).map(this::process).all();
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(AnalysisCriteria criteria) {
+        ConditionBuilder conditions = buildConditions(criteria);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Analysis.class, "countByCriteria", conditions.getShape()),
+            () -> {
+                Condition whereClause = conditions.buildConditions();
+                SelectFromAndJoin selectFrom = Select.builder().select(Functions.count(Expressions.asterisk())).from(entityTable);
+                return entityManager.createSelect(whereClause != null ? selectFrom.where(whereClause).build() : selectFrom.build());
+            }
+        );
+        return conditions.bind(db.sql(select)).map((row, metadata) -> row.get(0, Long.class)).one();
+    }
+
+    @Override
+    public Flux<BatchResult> writeAll(Map<Long, Analysis> analyses, boolean upsert) {
+        return batchWriter.writeAll(Analysis.class, analyses, upsert);
+    }
+
+    @Override
+    public Mono<Keyset> findKeysetAfter(Long id, Keyset keyset) {
+        if (keyset.isSortedById()) {
+            return Mono.just(keyset.after(id, id));
+        }
+        return findById(id).map(cursor -> keyset.after(cursor.getId(), entityManager.getPropertyValue(cursor, keyset.getOrder().getProperty())));
+    }
+
     RowsFetchSpec<Analysis> createQuery(Pageable pageable, Condition whereClause) {
+        String select = entityManager.createSelect(createSelectFrom(), Analysis.class, pageable, whereClause);
+        return db.sql(select).map(this::process);
+    }
+
+    RowsFetchSpec<Analysis> createKeysetQuery(Keyset keyset, ConditionBuilder conditions) {
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Analysis.class, "findAllByKeyset", keyset.getOrder(), keyset.hasCursor(), conditions.getShape()),
+            () -> entityManager.createSelect(createSelectFrom(), Analysis.class, keyset, conditions.buildConditions())
+        );
+        return conditions.bind(entityManager.bind(db.sql(select), keyset)).map(this::process);
+    }
+
+    private ConditionBuilder buildConditions(AnalysisCriteria criteria) {
+        ConditionBuilder builder = new ConditionBuilder();
+        builder.buildFilterConditionForField(criteria.getId(), entityTable.column("id"));
+        builder.buildFilterConditionForField(criteria.getDate(), entityTable.column("date"));
+        builder.buildFilterConditionForField(criteria.getDescription(), entityTable.column("description"));
+        builder.buildFilterConditionForField(criteria.getStockId(), entityTable.column("stock_id"));
+        return builder;
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = AnalysisSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(StockSqlHelper.getColumns(stockTable, "stock"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(stockTable)
             .on(Column.create("stock_id", entityTable))
             .equals(Column.create("id", stockTable));
-        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Analysis.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
     }
 
     @Override
     public Flux<Analysis> findAll() {
-        return findAllBy(null);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Analysis.class, "findAll"),
+            () -> entityManager.createSelect(createSelectFrom(), Analysis.class, (Pageable) null, null)
+        );
+        return db.sql(select).map(this::process).all();
     }
 
     @Override
     public Mono<Analysis> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Analysis.class, "findById"),
+            () -> {
+                Comparison whereClause = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":" + EntityManager.ID_MARKER));
+                return entityManager.createSelect(createSelectFrom(), Analysis.class, (Pageable) null, whereClause);
+            }
+        );
+        return db.sql(select).bind(EntityManager.ID_MARKER, id).map(this::process).one();
     }
 
     private Analysis process(Row row, RowMetadata metadata) {
-        Analysis entity = analysisMapper.apply(row, "e");
-        entity.setStock(stockMapper.apply(row, "stock"));
+        Analysis entity = analysisMapper.apply(row, metadata);
+        entity.setStock(stockMapper.apply(row, metadata));
         return entity;
     }
 
@@ -0,0 +1,59 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+/**
+ * The outcome of writing one row of a batch: the row is identified by its index in the request, so that the client can match the
+ * errors with its input.
+ */
+public class BatchResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED,
+    }
+
+    private final long index;
+    private final Long id;
+    private final Status status;
+    private final String error;
+
+    private BatchResult(long index, Long id, Status status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BatchResult created(long index, Long id) {
+        return new BatchResult(index, id, Status.CREATED, null);
+    }
+
+    public static BatchResult updated(long index, Long id) {
+        return new BatchResult(index, id, Status.UPDATED, null);
+    }
+
+    public static BatchResult failed(long index, Long id, String error) {
+        return new BatchResult(index, id, Status.FAILED, error);
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" + "index=" + index + ", id=" + id + ", status=" + status + ", error='" + error + "'}";
+    }
+}
@@ -0,0 +1,233 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes a chunk of entities with multi-row statements: the rows of a chunk are bound to a single {@link Statement}, one binding set
+ * per row, so the chunk costs one round trip per statement instead of one per row.
+ * <p>
+ * A chunk is written in its own transaction. If it fails, it is rolled back and its rows are written one by one, so that only the
+ * faulty rows are reported as failed.
+ */
+@Component
+public class BatchWriter {
+
+    private final R2dbcConverter converter;
+    private final StatementMapper statementMapper;
+    private final DatabaseClient db;
+    private final TransactionalOperator transactionalOperator;
+
+    public BatchWriter(R2dbcEntityTemplate r2dbcEntityTemplate, ReactiveTransactionManager transactionManager) {
+        this.converter = r2dbcEntityTemplate.getConverter();
+        this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
+        this.db = r2dbcEntityTemplate.getDatabaseClient();
+        this.transactionalOperator =
+            TransactionalOperator.create(
+                transactionManager,
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW)
+            );
+    }
+
+    /**
+     * Writes a chunk of entities.
+     * <p>
+     * The entities without id are inserted. The entities with an id are updated when {@code upsert} is set, and inserted with their id
+     * if it does not exist yet; the caller is expected to reject them otherwise.
+     * @param entityType the entity type which holds the table name.
+     * @param entities the entities to write, by their index in the request.
+     * @param upsert whether the entities with an id are updated.
+     * @param <T> the type of the entities.
+     * @return the result of each row, in the order of the indexes.
+     */
+    public <T> Flux<BatchResult> writeAll(Class<T> entityType, Map<Long, T> entities, boolean upsert) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        return transactionalOperator
+            .transactional(writeChunk(entityType, entities, upsert).collectList())
+            .onErrorResume(e ->
+                entities.size() == 1
+                    ? Mono.just(List.of(failed(entityType, entities.entrySet().iterator().next(), e)))
+                    : Flux
+                        .fromIterable(entities.entrySet())
+                        .concatMap(entry -> writeAll(entityType, Map.of(entry.getKey(), entry.getValue()), upsert))
+                        .collectList()
+            )
+            .flatMapIterable(results -> {
+                List<BatchResult> sorted = new ArrayList<>(results);
+                sorted.sort(Comparator.comparingLong(BatchResult::getIndex));
+                return sorted;
+            });
+    }
+
+    private <T> Flux<BatchResult> writeChunk(Class<T> entityType, Map<Long, T> entities, boolean upsert) {
+        RelationalPersistentEntity<?> persistentEntity = getRequiredPersistentEntity(entityType);
+        List<Long> newIndexes = new ArrayList<>();
+        List<Long> existingIndexes = new ArrayList<>();
+        for (Map.Entry<Long, T> entry : entities.entrySet()) {
+            (getId(persistentEntity, entry.getValue()) == null ? newIndexes : existingIndexes).add(entry.getKey());
+        }
+        Flux<BatchResult> created = insert(persistentEntity, entities, newIndexes, false);
+        if (!upsert || existingIndexes.isEmpty()) {
+            return created;
+        }
+        Flux<BatchResult> upserted = update(persistentEntity, entities, existingIndexes)
+            .collectList()
+            .flatMapMany(rowsUpdated -> {
+                List<BatchResult> updated = new ArrayList<>();
+                List<Long> missingIndexes = new ArrayList<>();
+                for (int i = 0; i < existingIndexes.size(); i++) {
+                    Long index = existingIndexes.get(i);
+                    if (rowsUpdated.get(i) > 0) {
+                        updated.add(BatchResult.updated(index, getId(persistentEntity, entities.get(index))));
+                    } else {
+                        missingIndexes.add(index);
+                    }
+                }
+                return Flux.fromIterable(updated).concatWith(insert(persistentEntity, entities, missingIndexes, true));
+            });
+        return created.concatWith(upserted);
+    }
+
+    private <T> Flux<BatchResult> insert(RelationalPersistentEntity<?> entity, Map<Long, T> entities, List<Long> indexes, boolean withId) {
+        if (indexes.isEmpty()) {
+            return Flux.empty();
+        }
+        SqlIdentifier idColumn = entity.getRequiredIdProperty().getColumnName();
+        List<PreparedOperation<?>> operations = new ArrayList<>();
+        for (Long index : indexes) {
+            OutboundRow row = toRow(entities.get(index));
+            if (!withId) {
+                row.remove(idColumn);
+            }
+            StatementMapper.InsertSpec insert = statementMapper.createInsert(entity.getTableName());
+            for (Map.Entry<SqlIdentifier, Parameter> column : row.entrySet()) {
+                insert = insert.withColumn(column.getKey(), column.getValue());
+            }
+            operations.add(statementMapper.getMappedObject(insert));
+        }
+        if (withId) {
+            return execute(operations, null, Result::getRowsUpdated)
+                .index()
+                .map(inserted -> {
+                    Long index = indexes.get(inserted.getT1().intValue());
+                    return BatchResult.created(index, getId(entity, entities.get(index)));
+                });
+        }
+        return execute(operations, idColumn, result -> result.map((row, metadata) -> ((Number) row.get(0)).longValue()))
+            .index()
+            .map(inserted -> BatchResult.created(indexes.get(inserted.getT1().intValue()), inserted.getT2()));
+    }
+
+    private <T> Flux<Integer> update(RelationalPersistentEntity<?> entity, Map<Long, T> entities, List<Long> indexes) {
+        SqlIdentifier idColumn = entity.getRequiredIdProperty().getColumnName();
+        List<PreparedOperation<?>> operations = new ArrayList<>();
+        for (Long index : indexes) {
+            OutboundRow row = toRow(entities.get(index));
+            Parameter id = row.remove(idColumn);
+            StatementMapper.UpdateSpec update = statementMapper
+                .createUpdate(entity.getTableName(), Update.from(new LinkedHashMap<>(row)))
+                .withCriteria(Criteria.where(idColumn.getReference()).is(id.getValue()));
+            operations.add(statementMapper.getMappedObject(update));
+        }
+        return execute(operations, null, Result::getRowsUpdated);
+    }
+
+    /**
+     * Executes the statement of the first operation once per operation: the operations are expected to render the same SQL.
+     */
+    private <R> Flux<R> execute(
+        List<PreparedOperation<?>> operations,
+        SqlIdentifier generatedColumn,
+        Function<Result, Publisher<R>> mapper
+    ) {
+        return db.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(operations.get(0).toQuery());
+            StatementBindTarget bindTarget = new StatementBindTarget(statement);
+            for (int i = 0; i < operations.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                operations.get(i).bindTo(bindTarget);
+            }
+            if (generatedColumn != null) {
+                statement.returnGeneratedValues(generatedColumn.getReference());
+            }
+            return Flux.from(statement.execute()).concatMap(mapper);
+        });
+    }
+
+    private OutboundRow toRow(Object entity) {
+        OutboundRow row = new OutboundRow();
+        converter.write(entity, row);
+        return row;
+    }
+
+    private <T> BatchResult failed(Class<T> entityType, Map.Entry<Long, T> entry, Throwable e) {
+        return BatchResult.failed(entry.getKey(), getId(getRequiredPersistentEntity(entityType), entry.getValue()), e.getMessage());
+    }
+
+    private RelationalPersistentEntity<?> getRequiredPersistentEntity(Class<?> entityType) {
+        return converter.getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+
+    private static Long getId(RelationalPersistentEntity<?> entity, Object value) {
+        return (Long) entity.getIdentifierAccessor(value).getIdentifier();
+    }
+
+    private static class StatementBindTarget implements BindTarget {
+
+        private final Statement statement;
+
+        StatementBindTarget(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public void bind(String identifier, Object value) {
+            statement.bind(identifier, value);
+        }
+
+        @Override
+        public void bind(int index, Object value) {
+            statement.bind(index, value);
+        }
+
+        @Override
+        public void bindNull(String identifier, Class<?> type) {
+            statement.bindNull(identifier, type);
+        }
+
+        @Override
+        public void bindNull(int index, Class<?> type) {
+            statement.bindNull(index, type);
+        }
+    }
+}
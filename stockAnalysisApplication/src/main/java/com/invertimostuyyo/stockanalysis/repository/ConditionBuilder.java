@@ -0,0 +1,159 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.data.relational.core.sql.BindMarker;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.SQL;
+import org.springframework.r2dbc.core.DatabaseClient;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Translates the {@link Filter}s of a criteria into a where {@link Condition}, so that the filtering is done by the database.
+ * <p>
+ * Filter values are never rendered into the SQL: every value gets its own named bind marker, which is bound with
+ * {@link #bind(DatabaseClient.GenericExecuteSpec)}. Collections bound to a single marker, as used by {@code in} and {@code notIn},
+ * are expanded by the {@link DatabaseClient}.
+ */
+public class ConditionBuilder {
+
+    public static final String FILTER_MARKER_PREFIX = "filter_";
+
+    private final List<Condition> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final List<String> shape = new ArrayList<>();
+
+    /**
+     * Adds the conditions of the given filter on the given column.
+     * @param filter the filter, or null.
+     * @param column the column to filter.
+     * @param <T> the type of the filtered values.
+     */
+    public <T> void buildFilterConditionForField(Filter<T> filter, Column column) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getEquals() != null) {
+            add(column, "=", Conditions.isEqual(column, bindMarker(filter.getEquals())));
+        }
+        if (filter.getNotEquals() != null) {
+            add(column, "!=", Conditions.isNotEqual(column, bindMarker(filter.getNotEquals())));
+        }
+        if (filter.getSpecified() != null) {
+            if (Boolean.TRUE.equals(filter.getSpecified())) {
+                add(column, "IS NOT NULL", column.isNotNull());
+            } else {
+                add(column, "IS NULL", column.isNull());
+            }
+        }
+        if (filter.getIn() != null && !filter.getIn().isEmpty()) {
+            add(column, "IN", Conditions.in(column, bindMarker(filter.getIn())));
+        }
+        if (filter.getNotIn() != null && !filter.getNotIn().isEmpty()) {
+            add(column, "NOT IN", Conditions.notIn(column, bindMarker(filter.getNotIn())));
+        }
+    }
+
+    /**
+     * Adds the conditions of the given range filter on the given column.
+     * @param filter the filter, or null.
+     * @param column the column to filter.
+     * @param <T> the type of the filtered values.
+     */
+    public <T extends Comparable<? super T>> void buildFilterConditionForField(RangeFilter<T> filter, Column column) {
+        if (filter == null) {
+            return;
+        }
+        buildFilterConditionForField((Filter<T>) filter, column);
+        if (filter.getGreaterThan() != null) {
+            add(column, ">", Conditions.isGreater(column, bindMarker(filter.getGreaterThan())));
+        }
+        if (filter.getGreaterThanOrEqual() != null) {
+            add(column, ">=", Conditions.isGreaterOrEqualTo(column, bindMarker(filter.getGreaterThanOrEqual())));
+        }
+        if (filter.getLessThan() != null) {
+            add(column, "<", Conditions.isLess(column, bindMarker(filter.getLessThan())));
+        }
+        if (filter.getLessThanOrEqual() != null) {
+            add(column, "<=", Conditions.isLessOrEqualTo(column, bindMarker(filter.getLessThanOrEqual())));
+        }
+    }
+
+    /**
+     * Adds the conditions of the given string filter on the given column.
+     * @param filter the filter, or null.
+     * @param column the column to filter.
+     */
+    public void buildFilterConditionForField(StringFilter filter, Column column) {
+        if (filter == null) {
+            return;
+        }
+        buildFilterConditionForField((Filter<String>) filter, column);
+        if (filter.getContains() != null) {
+            add(column, "LIKE", Conditions.like(column, bindMarker(toLikePattern(filter.getContains()))));
+        }
+        if (filter.getDoesNotContain() != null) {
+            add(column, "NOT LIKE", Conditions.notLike(column, bindMarker(toLikePattern(filter.getDoesNotContain()))));
+        }
+    }
+
+    /**
+     * @return the conjunction of all the conditions added so far, or null if no filter was set.
+     */
+    public Condition buildConditions() {
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        Condition result = conditions.get(0);
+        for (int i = 1; i < conditions.size(); i++) {
+            result = result.and(conditions.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Binds the filter values to the statement rendered from {@link #buildConditions()}.
+     * @param spec the statement to bind.
+     * @return the statement with all the filter values bound.
+     */
+    public DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec;
+    }
+
+    /**
+     * @return the filtered columns and operators, in the order of the conditions: two builders with the same shape render the same
+     * SQL, whatever the filter values.
+     */
+    public List<String> getShape() {
+        return List.copyOf(shape);
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    private void add(Column column, String operator, Condition condition) {
+        conditions.add(condition);
+        shape.add(column.getName().getReference() + " " + operator);
+    }
+
+    private BindMarker bindMarker(Object value) {
+        String name = FILTER_MARKER_PREFIX + parameters.size();
+        parameters.put(name, value);
+        return SQL.bindMarker(":" + name);
+    }
+
+    private static String toLikePattern(String value) {
+        return "%" + Escaper.DEFAULT.escape(value) + "%";
+    }
+}
@@ -1,23 +1,34 @@
 package com.invertimostuyyo.stockanalysis.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
 import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.dialect.AbstractDialect;
+import org.springframework.data.relational.core.dialect.Dialect;
+import org.springframework.data.relational.core.dialect.LimitClause;
+import org.springframework.data.relational.core.dialect.LockClause;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.BindMarker;
+import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.IdentifierProcessing;
 import org.springframework.data.relational.core.sql.OrderByField;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
@@ -25,6 +36,7 @@ import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.Parameter;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
@@ -40,6 +52,17 @@ public class EntityManager {
 
     public static final String ENTITY_ALIAS = "e";
     public static final String ALIAS_PREFIX = "e_";
+    public static final String CURSOR_ID_MARKER = "cursor_id";
+    public static final String CURSOR_VALUE_MARKER = "cursor_value";
+    public static final String KEYSET_SIZE_MARKER = "keyset_size";
+    public static final String ID_MARKER = "id";
+
+    /**
+     * Upper bound of the rendered statements kept by {@link #getOrCreateSelect(StatementKey, Supplier)}, beyond which Caffeine evicts
+     * the statements it deems least likely to be used again, by their frequency and recency of use. Statement shapes are few, so the
+     * bound is only a guard against a shape parameter taking unexpected values.
+     */
+    static final int MAX_CACHED_STATEMENTS = 512;
 
     public static class LinkTable {
 
@@ -58,12 +81,24 @@ public class EntityManager {
     }
 
     private final SqlRenderer sqlRenderer;
+    private final SqlRenderer keysetSqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final Cache<StatementKey, String> statements = Caffeine
+        .newBuilder()
+        .maximumSize(MAX_CACHED_STATEMENTS)
+        .executor(Runnable::run)
+        .build();
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        R2dbcDialect dialect,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate
+    ) {
         this.sqlRenderer = sqlRenderer;
+        this.keysetSqlRenderer = SqlRenderer.create(new RenderContextFactory(new KeysetDialect(dialect)).createRenderContext());
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
@@ -133,6 +168,97 @@ public class EntityManager {
         }
     }
 
+    /**
+     * Creates an SQL select statement which reads the keyset page following the cursor, seeking past the sort key and id of the
+     * cursor row instead of skipping rows with an offset.
+     * @param selectFrom a representation of a select statement.
+     * @param entityType the entity type which holds the table name.
+     * @param keyset the sort order, page size and cursor.
+     * @param where condition or null. The condition to apply as where clause, along with the seek predicate.
+     * @return sql select statement, whose page size and cursor bind markers are bound with
+     * {@link #bind(DatabaseClient.GenericExecuteSpec, Keyset)}.
+     */
+    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Keyset keyset, Condition where) {
+        Condition condition = and(where, createSeekCondition(entityType, keyset));
+        if (condition != null) {
+            return keysetSqlRenderer.render(
+                orderBy(selectFrom.limit(keyset.getSize()).where(condition), entityType, createKeysetSort(keyset)).build()
+            );
+        } else {
+            return keysetSqlRenderer.render(orderBy(selectFrom.limit(keyset.getSize()), entityType, createKeysetSort(keyset)).build());
+        }
+    }
+
+    /**
+     * Creates an SQL select statement which reads the keyset page following the cursor, seeking past the sort key and id of the
+     * cursor row instead of skipping rows with an offset.
+     * @param selectFrom a representation of a select statement.
+     * @param entityType the entity type which holds the table name.
+     * @param keyset the sort order, page size and cursor.
+     * @param where condition or null. The condition to apply as where clause, along with the seek predicate.
+     * @return sql select statement, whose page size and cursor bind markers are bound with
+     * {@link #bind(DatabaseClient.GenericExecuteSpec, Keyset)}.
+     */
+    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Keyset keyset, Condition where) {
+        Condition condition = and(where, createSeekCondition(entityType, keyset));
+        if (condition != null) {
+            return keysetSqlRenderer.render(
+                orderBy(selectFrom.limit(keyset.getSize()).where(condition), entityType, createKeysetSort(keyset)).build()
+            );
+        } else {
+            return keysetSqlRenderer.render(orderBy(selectFrom.limit(keyset.getSize()), entityType, createKeysetSort(keyset)).build());
+        }
+    }
+
+    /**
+     * Binds the page size and the cursor of the keyset to the statement created by
+     * {@link #createSelect(SelectFromAndJoin, Class, Keyset, Condition)}.
+     * @param spec the statement to bind.
+     * @param keyset the sort order, page size and cursor.
+     * @return the statement with the page size bound, and the cursor values if there is a cursor.
+     */
+    public DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, Keyset keyset) {
+        spec = spec.bind(KEYSET_SIZE_MARKER, keyset.getSize());
+        if (!keyset.hasCursor()) {
+            return spec;
+        }
+        spec = spec.bind(CURSOR_ID_MARKER, keyset.getCursorId());
+        if (!keyset.isSortedById()) {
+            spec = spec.bind(CURSOR_VALUE_MARKER, keyset.getCursorValue());
+        }
+        return spec;
+    }
+
+    /**
+     * Reads the value of a property of the given entity, for example the sort key of a cursor row.
+     * @param entity the entity to read.
+     * @param property the name of the property.
+     * @return the value of the property.
+     */
+    public Object getPropertyValue(Object entity, String property) {
+        RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(entity.getClass());
+        Assert.notNull(persistentEntity, "Unknown entity type " + entity.getClass());
+        return persistentEntity.getPropertyAccessor(entity).getProperty(persistentEntity.getRequiredPersistentProperty(property));
+    }
+
+    /**
+     * Returns the SQL of the statement with the given shape, building and rendering it only the first time the shape is seen.
+     * <p>
+     * The statement must hold bind markers, never values, so that the same SQL is sent to the database for every execution and the
+     * driver can reuse its prepared statement.
+     * @param key the shape of the statement.
+     * @param select renders the statement, called on a cache miss.
+     * @return the generated SQL select.
+     */
+    public String getOrCreateSelect(StatementKey key, Supplier<String> select) {
+        return statements.get(key, shape -> select.get());
+    }
+
+    long getCachedStatementCount() {
+        statements.cleanUp();
+        return statements.estimatedSize();
+    }
+
     /**
      * Generate an actual SQL from the given {@link Select}.
      * @param select a representation of a select statement.
@@ -209,6 +335,10 @@ public class EntityManager {
     }
 
     private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
+        return createSelect(orderBy(selectFrom, entityType, sortParameter).build());
+    }
+
+    private SelectOrdered orderBy(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
         if (sortParameter != null && sortParameter.isSorted()) {
             RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
             if (entity != null) {
@@ -217,7 +347,45 @@ public class EntityManager {
                     selectFrom.orderBy(createOrderByFields(Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS), sort));
             }
         }
-        return createSelect(selectFrom.build());
+        return selectFrom;
+    }
+
+    private Condition createSeekCondition(Class<?> entityType, Keyset keyset) {
+        if (!keyset.hasCursor()) {
+            return null;
+        }
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Assert.notNull(entity, "Unknown entity type " + entityType);
+        Table table = Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS);
+        Column id = table.column(Keyset.ID_PROPERTY);
+        boolean ascending = keyset.getOrder().isAscending();
+        Condition afterId = ascending
+            ? Conditions.isGreater(id, SQL.bindMarker(":" + CURSOR_ID_MARKER))
+            : Conditions.isLess(id, SQL.bindMarker(":" + CURSOR_ID_MARKER));
+        if (keyset.isSortedById()) {
+            return afterId;
+        }
+        Sort.Order order = updateMapper.getMappedObject(Sort.by(keyset.getOrder()), entity).iterator().next();
+        Column sortKey = table.column(order.getProperty());
+        BindMarker cursorValue = SQL.bindMarker(":" + CURSOR_VALUE_MARKER);
+        Condition afterSortKey = ascending ? Conditions.isGreater(sortKey, cursorValue) : Conditions.isLess(sortKey, cursorValue);
+        return Conditions.nest(afterSortKey.or(Conditions.nest(Conditions.isEqual(sortKey, cursorValue).and(afterId))));
+    }
+
+    private static Sort createKeysetSort(Keyset keyset) {
+        Sort sort = Sort.by(keyset.getOrder());
+        if (keyset.isSortedById()) {
+            return sort;
+        }
+        // the id breaks the ties of the sort key, so the seek predicate never skips nor repeats a row
+        return sort.and(Sort.by(keyset.getOrder().getDirection(), Keyset.ID_PROPERTY));
+    }
+
+    private static Condition and(Condition where, Condition seek) {
+        if (where == null) {
+            return seek;
+        }
+        return seek == null ? where : Conditions.nest(where).and(seek);
     }
 
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
@@ -236,4 +404,55 @@ public class EntityManager {
 
         return fields;
     }
+
+    /**
+     * The dialect of the keyset selects, which renders their limit as the {@link #KEYSET_SIZE_MARKER} bind marker, so that the page size
+     * is bound like the cursor and the rendered SQL does not depend on it. The keyset selects are never offset, and the {@code LIMIT}
+     * syntax is the one of the H2, MariaDB, MySQL and PostgreSQL dialects.
+     */
+    private static final class KeysetDialect extends AbstractDialect {
+
+        private static final LimitClause LIMIT_CLAUSE = new LimitClause() {
+            @Override
+            public String getLimit(long limit) {
+                return "LIMIT :" + KEYSET_SIZE_MARKER;
+            }
+
+            @Override
+            public String getOffset(long offset) {
+                throw new UnsupportedOperationException("A keyset select has no offset");
+            }
+
+            @Override
+            public String getLimitOffset(long limit, long offset) {
+                throw new UnsupportedOperationException("A keyset select has no offset");
+            }
+
+            @Override
+            public Position getClausePosition() {
+                return Position.AFTER_ORDER_BY;
+            }
+        };
+
+        private final Dialect delegate;
+
+        KeysetDialect(Dialect delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public LimitClause limit() {
+            return LIMIT_CLAUSE;
+        }
+
+        @Override
+        public LockClause lock() {
+            return delegate.lock();
+        }
+
+        @Override
+        public IdentifierProcessing getIdentifierProcessing() {
+            return delegate.getIdentifierProcessing();
+        }
+    }
 }
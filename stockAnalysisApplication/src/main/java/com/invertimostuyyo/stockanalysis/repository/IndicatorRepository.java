@@ -1,6 +1,8 @@
 package com.invertimostuyyo.stockanalysis.repository;
 
 import com.invertimostuyyo.stockanalysis.domain.Indicator;
+import java.util.Collection;
+import java.util.Map;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.relational.core.query.Criteria;
@@ -18,6 +20,9 @@ public interface IndicatorRepository extends ReactiveCrudRepository<Indicator, L
     @Query("SELECT * FROM indicator entity WHERE entity.analysis_id = :id")
     Flux<Indicator> findByAnalysis(Long id);
 
+    @Query("SELECT * FROM indicator entity WHERE entity.analysis_id IN (:ids) ORDER BY entity.id")
+    Flux<Indicator> findByAnalysisIn(Collection<Long> ids);
+
     @Query("SELECT * FROM indicator entity WHERE entity.analysis_id IS NULL")
     Flux<Indicator> findAllWhereAnalysisIsNull();
 
@@ -39,6 +44,12 @@ interface IndicatorRepositoryInternal {
 
     Flux<Indicator> findAllBy(Pageable pageable);
 
+    Flux<Indicator> findAllByKeyset(Keyset keyset);
+
+    Mono<Keyset> findKeysetAfter(Long id, Keyset keyset);
+
+    Flux<BatchResult> writeAll(Map<Long, Indicator> indicators, boolean upsert);
+
     Flux<Indicator> findAll();
 
     Mono<Indicator> findById(Long id);
@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
 import com.invertimostuyyo.stockanalysis.domain.Indicator;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.AnalysisRowMapper;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.IndicatorRowMapper;
@@ -25,6 +26,7 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
@@ -43,9 +45,10 @@ class IndicatorRepositoryInternalImpl extends SimpleR2dbcRepository<Indicator, L
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final BatchWriter batchWriter;
 
-    private final AnalysisRowMapper analysisMapper;
-    private final IndicatorRowMapper indicatorMapper;
+    private final BiFunction<Row, RowMetadata, Analysis> analysisMapper;
+    private final BiFunction<Row, RowMetadata, Indicator> indicatorMapper;
 
     private static final Table entityTable = Table.aliased("indicator", EntityManager.ENTITY_ALIAS);
     private static final Table analysisTable = Table.aliased("analysis", "analysis");
@@ -53,6 +56,7 @@ class IndicatorRepositoryInternalImpl extends SimpleR2dbcRepository<Indicator, L
     public IndicatorRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        BatchWriter batchWriter,
         AnalysisRowMapper analysisMapper,
         IndicatorRowMapper indicatorMapper,
         R2dbcEntityOperations entityOperations,
@@ -66,8 +70,9 @@ class IndicatorRepositoryInternalImpl extends SimpleR2dbcRepository<Indicator, L
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.analysisMapper = analysisMapper;
-        this.indicatorMapper = indicatorMapper;
+        this.batchWriter = batchWriter;
+        this.analysisMapper = analysisMapper.compile("analysis");
+        this.indicatorMapper = indicatorMapper.compile(EntityManager.ENTITY_ALIAS);
     }
 
     @Override
@@ -75,35 +80,74 @@ class IndicatorRepositoryInternalImpl extends SimpleR2dbcRepository<Indicator, L
         return createQuery(pageable, null).all();
     }
 
+    @Override
+    public Flux<Indicator> findAllByKeyset(Keyset keyset) {
+        return createKeysetQuery(keyset).all();
+    }
+
+    @Override
+    public Flux<BatchResult> writeAll(Map<Long, Indicator> indicators, boolean upsert) {
+        return batchWriter.writeAll(Indicator.class, indicators, upsert);
+    }
+
+    @Override
+    public Mono<Keyset> findKeysetAfter(Long id, Keyset keyset) {
+        if (keyset.isSortedById()) {
+            return Mono.just(keyset.after(id, id));
+        }
+        return findById(id).map(cursor -> keyset.after(cursor.getId(), entityManager.getPropertyValue(cursor, keyset.getOrder().getProperty())));
+    }
+
     RowsFetchSpec<Indicator> createQuery(Pageable pageable, Condition whereClause) {
+        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
+        String select = entityManager.createSelect(createSelectFrom(), Indicator.class, pageable, whereClause);
+        return db.sql(select).map(this::process);
+    }
+
+    RowsFetchSpec<Indicator> createKeysetQuery(Keyset keyset) {
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Indicator.class, "findAllByKeyset", keyset.getOrder(), keyset.hasCursor()),
+            () -> entityManager.createSelect(createSelectFrom(), Indicator.class, keyset, null)
+        );
+        return entityManager.bind(db.sql(select), keyset).map(this::process);
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = IndicatorSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(AnalysisSqlHelper.getColumns(analysisTable, "analysis"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(analysisTable)
             .on(Column.create("analysis_id", entityTable))
             .equals(Column.create("id", analysisTable));
-        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Indicator.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
     }
 
     @Override
     public Flux<Indicator> findAll() {
-        return findAllBy(null);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Indicator.class, "findAll"),
+            () -> entityManager.createSelect(createSelectFrom(), Indicator.class, (Pageable) null, null)
+        );
+        return db.sql(select).map(this::process).all();
     }
 
     @Override
     public Mono<Indicator> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Indicator.class, "findById"),
+            () -> {
+                Comparison whereClause = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":" + EntityManager.ID_MARKER));
+                return entityManager.createSelect(createSelectFrom(), Indicator.class, (Pageable) null, whereClause);
+            }
+        );
+        return db.sql(select).bind(EntityManager.ID_MARKER, id).map(this::process).one();
     }
 
     private Indicator process(Row row, RowMetadata metadata) {
-        Indicator entity = indicatorMapper.apply(row, "e");
-        entity.setAnalysis(analysisMapper.apply(row, "analysis"));
+        Indicator entity = indicatorMapper.apply(row, metadata);
+        entity.setAnalysis(analysisMapper.apply(row, metadata));
         return entity;
     }
 
@@ -0,0 +1,79 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+
+/**
+ * Describes a keyset (cursor) page: the sort order, the page size, and the sort key and id of the last row of the previous page.
+ * <p>
+ * The next page is read by seeking past {@code (sortKey, id)} of the cursor row, so its cost does not depend on how far the client has
+ * already scrolled.
+ */
+public class Keyset {
+
+    public static final String ID_PROPERTY = "id";
+
+    private final Sort.Order order;
+    private final int size;
+    private final Long cursorId;
+    private final Object cursorValue;
+
+    private Keyset(Sort.Order order, int size, Long cursorId, Object cursorValue) {
+        Assert.notNull(order, "order is null");
+        Assert.isTrue(size > 0, "size must be positive");
+        this.order = order;
+        this.size = size;
+        this.cursorId = cursorId;
+        this.cursorValue = cursorValue;
+    }
+
+    /**
+     * Creates the keyset of the first page.
+     * @param order the sort order, or null to sort by ascending id.
+     * @param size the number of rows of a page.
+     * @return the keyset without a cursor.
+     */
+    public static Keyset first(Sort.Order order, int size) {
+        return new Keyset(order != null ? order : Sort.Order.asc(ID_PROPERTY), size, null, null);
+    }
+
+    /**
+     * Creates the keyset of the page following the given cursor row.
+     * @param cursorId the id of the last row of the previous page.
+     * @param cursorValue the value of the sort key of the last row of the previous page.
+     * @return the keyset with the same sort order and page size, positioned after the cursor row.
+     */
+    public Keyset after(Long cursorId, Object cursorValue) {
+        Assert.notNull(cursorId, "cursorId is null");
+        return new Keyset(order, size, cursorId, isSortedById() ? cursorId : cursorValue);
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Long getCursorId() {
+        return cursorId;
+    }
+
+    public Object getCursorValue() {
+        return cursorValue;
+    }
+
+    public boolean hasCursor() {
+        return cursorId != null;
+    }
+
+    public boolean isSortedById() {
+        return ID_PROPERTY.equals(order.getProperty());
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset{" + "order=" + order + ", size=" + size + ", cursorId=" + cursorId + ", cursorValue=" + cursorValue + "}";
+    }
+}
@@ -33,6 +33,10 @@ interface PortfolioRepositoryInternal {
 
     Flux<Portfolio> findAllBy(Pageable pageable);
 
+    Flux<Portfolio> findAllByKeyset(Keyset keyset);
+
+    Mono<Keyset> findKeysetAfter(Long id, Keyset keyset);
+
     Flux<Portfolio> findAll();
 
     Mono<Portfolio> findById(Long id);
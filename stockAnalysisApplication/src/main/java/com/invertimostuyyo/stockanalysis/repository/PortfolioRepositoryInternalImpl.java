@@ -24,6 +24,7 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.Table;
@@ -43,7 +44,7 @@ class PortfolioRepositoryInternalImpl extends SimpleR2dbcRepository<Portfolio, L
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
 
-    private final PortfolioRowMapper portfolioMapper;
+    private final BiFunction<Row, RowMetadata, Portfolio> portfolioMapper;
 
     private static final Table entityTable = Table.aliased("portfolio", EntityManager.ENTITY_ALIAS);
 
@@ -62,7 +63,7 @@ class PortfolioRepositoryInternalImpl extends SimpleR2dbcRepository<Portfolio, L
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.portfolioMapper = portfolioMapper;
+        this.portfolioMapper = portfolioMapper.compile(EntityManager.ENTITY_ALIAS);
     }
 
     @Override
@@ -70,27 +71,61 @@ class PortfolioRepositoryInternalImpl extends SimpleR2dbcRepository<Portfolio, L
         return createQuery(pageable, null).all();
     }
 
+    @Override
+    public Flux<Portfolio> findAllByKeyset(Keyset keyset) {
+        return createKeysetQuery(keyset).all();
+    }
+
+    @Override
+    public Mono<Keyset> findKeysetAfter(Long id, Keyset keyset) {
+        if (keyset.isSortedById()) {
+            return Mono.just(keyset.after(id, id));
+        }
+        return findById(id).map(cursor -> keyset.after(cursor.getId(), entityManager.getPropertyValue(cursor, keyset.getOrder().getProperty())));
+    }
+
     RowsFetchSpec<Portfolio> createQuery(Pageable pageable, Condition whereClause) {
-        List<Expression> columns = PortfolioSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Portfolio.class, pageable, whereClause);
+        String select = entityManager.createSelect(createSelectFrom(), Portfolio.class, pageable, whereClause);
         return db.sql(select).map(this::process);
     }
 
+    RowsFetchSpec<Portfolio> createKeysetQuery(Keyset keyset) {
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Portfolio.class, "findAllByKeyset", keyset.getOrder(), keyset.hasCursor()),
+            () -> entityManager.createSelect(createSelectFrom(), Portfolio.class, keyset, null)
+        );
+        return entityManager.bind(db.sql(select), keyset).map(this::process);
+    }
+
+    private SelectFromAndJoin createSelectFrom() {
+        List<Expression> columns = PortfolioSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return Select.builder().select(columns).from(entityTable);
+    }
+
     @Override
     public Flux<Portfolio> findAll() {
-        return findAllBy(null);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Portfolio.class, "findAll"),
+            () -> entityManager.createSelect(createSelectFrom(), Portfolio.class, (Pageable) null, null)
+        );
+        return db.sql(select).map(this::process).all();
     }
 
     @Override
     public Mono<Portfolio> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Portfolio.class, "findById"),
+            () -> {
+                Comparison whereClause = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":" + EntityManager.ID_MARKER));
+                return entityManager.createSelect(createSelectFrom(), Portfolio.class, (Pageable) null, whereClause);
+            }
+        );
+        return db.sql(select).bind(EntityManager.ID_MARKER, id).map(this::process).one();
     }
 
     private Portfolio process(Row row, RowMetadata metadata) {
-        Portfolio entity = portfolioMapper.apply(row, "e");
+        Portfolio entity = portfolioMapper.apply(row, metadata);
         return entity;
     }
 
@@ -39,6 +39,10 @@ interface PositionRepositoryInternal {
 
     Flux<Position> findAllBy(Pageable pageable);
 
+    Flux<Position> findAllByKeyset(Keyset keyset);
+
+    Mono<Keyset> findKeysetAfter(Long id, Keyset keyset);
+
     Flux<Position> findAll();
 
     Mono<Position> findById(Long id);
@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 
+import com.invertimostuyyo.stockanalysis.domain.Portfolio;
 import com.invertimostuyyo.stockanalysis.domain.Position;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.PortfolioRowMapper;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.PositionRowMapper;
@@ -25,6 +26,7 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
@@ -44,8 +46,8 @@ class PositionRepositoryInternalImpl extends SimpleR2dbcRepository<Position, Lon
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
 
-    private final PortfolioRowMapper portfolioMapper;
-    private final PositionRowMapper positionMapper;
+    private final BiFunction<Row, RowMetadata, Portfolio> portfolioMapper;
+    private final BiFunction<Row, RowMetadata, Position> positionMapper;
 
     private static final Table entityTable = Table.aliased("position", EntityManager.ENTITY_ALIAS);
     private static final Table portfolioTable = Table.aliased("portfolio", "portfolio");
@@ -66,8 +68,8 @@ class PositionRepositoryInternalImpl extends SimpleR2dbcRepository<Position, Lon
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.portfolioMapper = portfolioMapper;
-        this.positionMapper = positionMapper;
+        this.portfolioMapper = portfolioMapper.compile("portfolio");
+        this.positionMapper = positionMapper.compile(EntityManager.ENTITY_ALIAS);
     }
 
     @Override
@@ -75,35 +77,69 @@ class PositionRepositoryInternalImpl extends SimpleR2dbcRepository<Position, Lon
         return createQuery(pageable, null).all();
     }
 
+    @Override
+    public Flux<Position> findAllByKeyset(Keyset keyset) {
+        return createKeysetQuery(keyset).all();
+    }
+
+    @Override
+    public Mono<Keyset> findKeysetAfter(Long id, Keyset keyset) {
+        if (keyset.isSortedById()) {
+            return Mono.just(keyset.after(id, id));
+        }
+        return findById(id).map(cursor -> keyset.after(cursor.getId(), entityManager.getPropertyValue(cursor, keyset.getOrder().getProperty())));
+    }
+
     RowsFetchSpec<Position> createQuery(Pageable pageable, Condition whereClause) {
+        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
+        String select = entityManager.createSelect(createSelectFrom(), Position.class, pageable, whereClause);
+        return db.sql(select).map(this::process);
+    }
+
+    RowsFetchSpec<Position> createKeysetQuery(Keyset keyset) {
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Position.class, "findAllByKeyset", keyset.getOrder(), keyset.hasCursor()),
+            () -> entityManager.createSelect(createSelectFrom(), Position.class, keyset, null)
+        );
+        return entityManager.bind(db.sql(select), keyset).map(this::process);
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = PositionSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(PortfolioSqlHelper.getColumns(portfolioTable, "portfolio"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(portfolioTable)
             .on(Column.create("portfolio_id", entityTable))
             .equals(Column.create("id", portfolioTable));
-        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Position.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
     }
 
     @Override
     public Flux<Position> findAll() {
-        return findAllBy(null);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Position.class, "findAll"),
+            () -> entityManager.createSelect(createSelectFrom(), Position.class, (Pageable) null, null)
+        );
+        return db.sql(select).map(this::process).all();
     }
 
     @Override
     public Mono<Position> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Position.class, "findById"),
+            () -> {
+                Comparison whereClause = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":" + EntityManager.ID_MARKER));
+                return entityManager.createSelect(createSelectFrom(), Position.class, (Pageable) null, whereClause);
+            }
+        );
+        return db.sql(select).bind(EntityManager.ID_MARKER, id).map(this::process).one();
     }
 
     private Position process(Row row, RowMetadata metadata) {
-        Position entity = positionMapper.apply(row, "e");
-        entity.setPortfolio(portfolioMapper.apply(row, "portfolio"));
+        Position entity = positionMapper.apply(row, metadata);
+        entity.setPortfolio(portfolioMapper.apply(row, metadata));
         return entity;
     }
 
@@ -0,0 +1,61 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.util.Assert;
+
+/**
+ * Identifies the shape of a parameterized SQL statement: the entity, the query, and whatever changes the rendered SQL (sort order,
+ * which filters are set...), but never the bound values, such as the page size of a keyset select.
+ * <p>
+ * Statements with the same key render to the same SQL, so {@link EntityManager#getOrCreateSelect(StatementKey, java.util.function.Supplier)}
+ * renders them only once.
+ */
+public final class StatementKey {
+
+    private final Class<?> entityType;
+    private final String query;
+    private final List<Object> shape;
+
+    private StatementKey(Class<?> entityType, String query, List<Object> shape) {
+        Assert.notNull(entityType, "entityType is null");
+        Assert.notNull(query, "query is null");
+        this.entityType = entityType;
+        this.query = query;
+        this.shape = shape;
+    }
+
+    /**
+     * Creates the key of a statement.
+     * @param entityType the entity type which holds the table name.
+     * @param query the name of the query, unique for the entity type.
+     * @param shape the parameters which change the rendered SQL, each with a value-based {@code equals}.
+     * @return the key of the statement.
+     */
+    public static StatementKey of(Class<?> entityType, String query, Object... shape) {
+        return new StatementKey(entityType, query, Arrays.asList(shape));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatementKey)) {
+            return false;
+        }
+        StatementKey that = (StatementKey) o;
+        return entityType.equals(that.entityType) && query.equals(that.query) && shape.equals(that.shape);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityType, query, shape);
+    }
+
+    @Override
+    public String toString() {
+        return "StatementKey{" + "entityType=" + entityType.getSimpleName() + ", query='" + query + "', shape=" + shape + "}";
+    }
+}
@@ -1,6 +1,8 @@
 package com.invertimostuyyo.stockanalysis.repository;
 
 import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.domain.criteria.StockCriteria;
+import java.util.Map;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.relational.core.query.Criteria;
@@ -33,10 +35,19 @@ interface StockRepositoryInternal {
 
     Flux<Stock> findAllBy(Pageable pageable);
 
+    Flux<Stock> findAllByKeyset(Keyset keyset);
+
+    Flux<Stock> findAllByKeyset(Keyset keyset, StockCriteria criteria);
+
+    Flux<Stock> findByCriteria(StockCriteria criteria);
+
+    Mono<Long> countByCriteria(StockCriteria criteria);
+
+    Mono<Keyset> findKeysetAfter(Long id, Keyset keyset);
+
+    Flux<BatchResult> writeAll(Map<Long, Stock> stocks, boolean upsert);
+
     Flux<Stock> findAll();
 
     Mono<Stock> findById(Long id);
-    // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
-    // Flux<Stock> findAllBy(Pageable pageable, Criteria criteria);
-
 }
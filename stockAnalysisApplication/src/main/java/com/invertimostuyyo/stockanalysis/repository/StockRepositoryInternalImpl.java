@@ -3,6 +3,7 @@ package com.invertimostuyyo.stockanalysis.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 
 import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.domain.criteria.StockCriteria;
 import com.invertimostuyyo.stockanalysis.repository.rowmapper.StockRowMapper;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -25,6 +26,9 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.Table;
@@ -43,14 +47,16 @@ class StockRepositoryInternalImpl extends SimpleR2dbcRepository<Stock, Long> imp
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final BatchWriter batchWriter;
 
-    private final StockRowMapper stockMapper;
+    private final BiFunction<Row, RowMetadata, Stock> stockMapper;
 
     private static final Table entityTable = Table.aliased("stock", EntityManager.ENTITY_ALIAS);
 
     public StockRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        BatchWriter batchWriter,
         StockRowMapper stockMapper,
         R2dbcEntityOperations entityOperations,
         R2dbcConverter converter
@@ -63,7 +69,8 @@ class StockRepositoryInternalImpl extends SimpleR2dbcRepository<Stock, Long> imp
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.stockMapper = stockMapper;
+        this.batchWriter = batchWriter;
+        this.stockMapper = stockMapper.compile(EntityManager.ENTITY_ALIAS);
     }
 
     @Override
@@ -71,27 +78,108 @@ class StockRepositoryInternalImpl extends SimpleR2dbcRepository<Stock, Long> imp
         return createQuery(pageable, null).all();
     }
 
+    @Override
+    public Flux<Stock> findAllByKeyset(Keyset keyset) {
+        return findAllByKeyset(keyset, new StockCriteria());
+    }
+
+    @Override
+    public Flux<Stock> findAllByKeyset(Keyset keyset, StockCriteria criteria) {
+        return createKeysetQuery(keyset, buildConditions(criteria)).all();
+    }
+
+    @Override
+    public Flux<Stock> findByCriteria(StockCriteria criteria) {
+        ConditionBuilder conditions = buildConditions(criteria);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Stock.class, "findByCriteria", conditions.getShape()),
+            () -> entityManager.createSelect(createSelectFrom(), Stock.class, (Pageable) null, conditions.buildConditions())
+        );
+        return conditions.bind(db.sql(select)).map(this::process).all();
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(StockCriteria criteria) {
+        ConditionBuilder conditions = buildConditions(criteria);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Stock.class, "countByCriteria", conditions.getShape()),
+            () -> {
+                Condition whereClause = conditions.buildConditions();
+                SelectFromAndJoin selectFrom = Select.builder().select(Functions.count(Expressions.asterisk())).from(entityTable);
+                return entityManager.createSelect(whereClause != null ? selectFrom.where(whereClause).build() : selectFrom.build());
+            }
+        );
+        return conditions.bind(db.sql(select)).map((row, metadata) -> row.get(0, Long.class)).one();
+    }
+
+    @Override
+    public Flux<BatchResult> writeAll(Map<Long, Stock> stocks, boolean upsert) {
+        return batchWriter.writeAll(Stock.class, stocks, upsert);
+    }
+
+    @Override
+    public Mono<Keyset> findKeysetAfter(Long id, Keyset keyset) {
+        if (keyset.isSortedById()) {
+            return Mono.just(keyset.after(id, id));
+        }
+        return findById(id).map(cursor -> keyset.after(cursor.getId(), entityManager.getPropertyValue(cursor, keyset.getOrder().getProperty())));
+    }
+
     RowsFetchSpec<Stock> createQuery(Pageable pageable, Condition whereClause) {
-        List<Expression> columns = StockSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
-        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Stock.class, pageable, whereClause);
+        String select = entityManager.createSelect(createSelectFrom(), Stock.class, pageable, whereClause);
         return db.sql(select).map(this::process);
     }
 
+    RowsFetchSpec<Stock> createKeysetQuery(Keyset keyset, ConditionBuilder conditions) {
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Stock.class, "findAllByKeyset", keyset.getOrder(), keyset.hasCursor(), conditions.getShape()),
+            () -> entityManager.createSelect(createSelectFrom(), Stock.class, keyset, conditions.buildConditions())
+        );
+        return conditions.bind(entityManager.bind(db.sql(select), keyset)).map(this::process);
+    }
+
+    private ConditionBuilder buildConditions(StockCriteria criteria) {
+        ConditionBuilder builder = new ConditionBuilder();
+        builder.buildFilterConditionForField(criteria.getId(), entityTable.column("id"));
+        builder.buildFilterConditionForField(criteria.getName(), entityTable.column("name"));
+        builder.buildFilterConditionForField(criteria.getSector(), entityTable.column("sector"));
+        builder.buildFilterConditionForField(criteria.getFundation(), entityTable.column("fundation"));
+        builder.buildFilterConditionForField(criteria.getDescription(), entityTable.column("description"));
+        builder.buildFilterConditionForField(criteria.getIcnome(), entityTable.column("icnome"));
+        builder.buildFilterConditionForField(criteria.getExpenses(), entityTable.column("expenses"));
+        builder.buildFilterConditionForField(criteria.getCapitalization(), entityTable.column("capitalization"));
+        builder.buildFilterConditionForField(criteria.getEmployees(), entityTable.column("employees"));
+        return builder;
+    }
+
+    private SelectFromAndJoin createSelectFrom() {
+        List<Expression> columns = StockSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return Select.builder().select(columns).from(entityTable);
+    }
+
     @Override
     public Flux<Stock> findAll() {
-        return findAllBy(null);
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Stock.class, "findAll"),
+            () -> entityManager.createSelect(createSelectFrom(), Stock.class, (Pageable) null, null)
+        );
+        return db.sql(select).map(this::process).all();
     }
 
     @Override
     public Mono<Stock> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.getOrCreateSelect(
+            StatementKey.of(Stock.class, "findById"),
+            () -> {
+                Comparison whereClause = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":" + EntityManager.ID_MARKER));
+                return entityManager.createSelect(createSelectFrom(), Stock.class, (Pageable) null, whereClause);
+            }
+        );
+        return db.sql(select).bind(EntityManager.ID_MARKER, id).map(this::process).one();
     }
 
     private Stock process(Row row, RowMetadata metadata) {
-        Stock entity = stockMapper.apply(row, "e");
+        Stock entity = stockMapper.apply(row, metadata);
         return entity;
     }
 
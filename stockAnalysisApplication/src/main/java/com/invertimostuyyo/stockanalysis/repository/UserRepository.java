@@ -7,16 +7,19 @@ import com.invertimostuyyo.stockanalysis.domain.Authority;
 import com.invertimostuyyo.stockanalysis.domain.User;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-import org.apache.commons.beanutils.BeanComparator;
 import org.springframework.data.domain.*;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Table;
@@ -92,30 +95,31 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
         return findOneWithAuthoritiesBy("email", email.toLowerCase());
     }
 
+    /**
+     * Reads a page of users in two queries, so that only the rows of the page are read: the page of users is sorted and limited by
+     * the database, then the authorities of these users only are read by their ids.
+     */
     @Override
     public Flux<User> findAllWithAuthorities(Pageable pageable) {
-        String property = pageable.getSort().stream().map(Sort.Order::getProperty).findFirst().orElse("id");
-        String direction = String.valueOf(
-            pageable.getSort().stream().map(Sort.Order::getDirection).findFirst().orElse(Sort.DEFAULT_DIRECTION)
-        );
-        long page = pageable.getPageNumber();
-        long size = pageable.getPageSize();
-
-        return db
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id")
-            .map((row, metadata) ->
-                Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
-            )
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) {
+            // The id breaks the ties of the sort key, so that the pages do not overlap
+            sort = sort.and(Sort.by("id"));
+        }
+        Pageable page = pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : Pageable.unpaged();
+        return r2dbcEntityTemplate
+            .select(User.class)
+            .matching(query(Criteria.empty()).sort(sort).with(page))
             .all()
-            .groupBy(t -> t.getT1().getLogin())
-            .flatMap(l -> l.collectList().map(t -> updateUserWithAuthorities(t.get(0).getT1(), t)))
-            .sort(
-                Sort.Direction.fromString(direction) == Sort.DEFAULT_DIRECTION
-                    ? new BeanComparator<>(property)
-                    : new BeanComparator<>(property).reversed()
-            )
-            .skip(page * size)
-            .take(size);
+            .collectList()
+            .filter(users -> !users.isEmpty())
+            .flatMapMany(users ->
+                findAuthoritiesByUserIds(users.stream().map(User::getId).collect(Collectors.toList()))
+                    .flatMapIterable(authorities -> {
+                        users.forEach(user -> user.setAuthorities(authorities.getOrDefault(user.getId(), new HashSet<>())));
+                        return users;
+                    })
+            );
     }
 
     @Override
@@ -140,6 +144,19 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
             .map(l -> updateUserWithAuthorities(l.get(0).getT1(), l));
     }
 
+    private Mono<Map<Long, Set<Authority>>> findAuthoritiesByUserIds(List<Long> userIds) {
+        return db
+            .sql("SELECT user_id, authority_name FROM jhi_user_authority WHERE user_id IN (:userIds)")
+            .bind("userIds", userIds)
+            .map((row, metadata) -> {
+                Authority authority = new Authority();
+                authority.setName(row.get("authority_name", String.class));
+                return Tuples.of(row.get("user_id", Long.class), authority);
+            })
+            .all()
+            .collect(Collectors.groupingBy(Tuple2::getT1, Collectors.mapping(Tuple2::getT2, Collectors.toSet())));
+    }
+
     private User updateUserWithAuthorities(User user, List<Tuple2<User, Optional<String>>> tuples) {
         user.setAuthorities(
             tuples
@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository.rowmapper;
 
 import com.invertimostuyyo.stockanalysis.domain.Analysis;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
@@ -12,6 +13,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class AnalysisRowMapper implements BiFunction<Row, String, Analysis> {
 
+    private static final String[] COLUMNS = { "id", "date", "description", "stock_id" };
+
     private final ColumnConverter converter;
 
     public AnalysisRowMapper(ColumnConverter converter) {
@@ -31,4 +34,23 @@ public class AnalysisRowMapper implements BiFunction<Row, String, Analysis> {
         entity.setStockId(converter.fromRow(row, prefix + "_stock_id", Long.class));
         return entity;
     }
+
+    /**
+     * Compiles the mapper of the columns with the given prefix: their indexes are resolved once per result, and each row is then
+     * read by index.
+     * @param prefix the prefix of the columns, as used in the select list.
+     * @return the mapper of a {@link Row} and its {@link RowMetadata} to the {@link Analysis} stored in the database.
+     */
+    public BiFunction<Row, RowMetadata, Analysis> compile(String prefix) {
+        ColumnIndexes columns = new ColumnIndexes(prefix, COLUMNS);
+        return (row, metadata) -> {
+            int[] index = columns.of(metadata);
+            Analysis entity = new Analysis();
+            entity.setId(converter.fromRow(row, index[0], Long.class));
+            entity.setDate(converter.fromRow(row, index[1], LocalDate.class));
+            entity.setDescription(converter.fromRow(row, index[2], String.class));
+            entity.setStockId(converter.fromRow(row, index[3], Long.class));
+            return entity;
+        };
+    }
 }
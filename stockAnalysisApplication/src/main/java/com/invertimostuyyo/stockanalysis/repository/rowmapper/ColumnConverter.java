@@ -55,12 +55,21 @@ public class ColumnConverter {
      * @return the value which can be constructed from the input.
      */
     public <T> T fromRow(Row row, String columnName, Class<T> target) {
-        try {
-            // try, directly the driver
-            return row.get(columnName, target);
-        } catch (Exception e) {
-            Object obj = row.get(columnName);
-            return convert(obj, target);
-        }
+        return convert(row.get(columnName), target);
+    }
+
+    /**
+     * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
+     * <p>
+     * The value is returned as is when the driver already read it with the target type, which is the common case, and converted
+     * otherwise.
+     * @param row which contains the column values.
+     * @param index the index of the column which to convert.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the value which can be constructed from the input.
+     */
+    public <T> T fromRow(Row row, int index, Class<T> target) {
+        return convert(row.get(index), target);
     }
 }
@@ -0,0 +1,87 @@
+package com.invertimostuyyo.stockanalysis.repository.rowmapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.RowMetadata;
+import java.util.List;
+
+/**
+ * Resolves the indexes of the prefixed columns of an entity in the {@link RowMetadata} of a result.
+ * <p>
+ * The rows of a result share its metadata, so the indexes are resolved on the first row and reused for all the others: mapping a row
+ * then reads its values by index, without concatenating nor looking up column names. The indexes of the latest result are checked by
+ * identity of its metadata, without allocating; those of the other results are kept by identity of the metadata, weakly, so that the
+ * results of concurrent queries each resolve theirs once, whatever the order in which their rows are mapped.
+ */
+final class ColumnIndexes {
+
+    /**
+     * Maximum number of results whose indexes are kept, well above the number of queries running at once.
+     */
+    private static final int MAX_RESULTS = 256;
+
+    private final String[] columnNames;
+
+    private final Cache<RowMetadata, int[]> resolved = Caffeine.newBuilder().weakKeys().maximumSize(MAX_RESULTS).build();
+
+    /**
+     * The indexes of the latest result, or null until a result is mapped.
+     */
+    private volatile Resolved latest;
+
+    /**
+     * @param prefix the prefix of the columns, as used in the select list.
+     * @param columns the unprefixed names of the columns, in the order the mapper reads them.
+     */
+    ColumnIndexes(String prefix, String... columns) {
+        this.columnNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.columnNames[i] = prefix + "_" + columns[i];
+        }
+    }
+
+    /**
+     * @param metadata the metadata of the result being mapped.
+     * @return the index of each column in the result, in the order given to the constructor.
+     * @throws IllegalArgumentException if a column is not part of the result.
+     */
+    int[] of(RowMetadata metadata) {
+        Resolved last = latest;
+        if (last != null && last.metadata == metadata) {
+            return last.indexes;
+        }
+        int[] indexes = resolved.get(metadata, this::resolve);
+        latest = new Resolved(metadata, indexes);
+        return indexes;
+    }
+
+    private int[] resolve(RowMetadata metadata) {
+        List<? extends ColumnMetadata> columns = metadata.getColumnMetadatas();
+        int[] indexes = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            indexes[i] = indexOf(columns, columnNames[i]);
+        }
+        return indexes;
+    }
+
+    private static int indexOf(List<? extends ColumnMetadata> columns, String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column " + columnName + " is not part of the result");
+    }
+
+    private static final class Resolved {
+
+        private final RowMetadata metadata;
+        private final int[] indexes;
+
+        Resolved(RowMetadata metadata, int[] indexes) {
+            this.metadata = metadata;
+            this.indexes = indexes;
+        }
+    }
+}
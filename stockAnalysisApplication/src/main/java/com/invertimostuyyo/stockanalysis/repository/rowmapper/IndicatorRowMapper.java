@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository.rowmapper;
 
 import com.invertimostuyyo.stockanalysis.domain.Indicator;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -11,6 +12,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class IndicatorRowMapper implements BiFunction<Row, String, Indicator> {
 
+    private static final String[] COLUMNS = { "id", "name", "description", "analysis_id" };
+
     private final ColumnConverter converter;
 
     public IndicatorRowMapper(ColumnConverter converter) {
@@ -30,4 +33,23 @@ public class IndicatorRowMapper implements BiFunction<Row, String, Indicator> {
         entity.setAnalysisId(converter.fromRow(row, prefix + "_analysis_id", Long.class));
         return entity;
     }
+
+    /**
+     * Compiles the mapper of the columns with the given prefix: their indexes are resolved once per result, and each row is then
+     * read by index.
+     * @param prefix the prefix of the columns, as used in the select list.
+     * @return the mapper of a {@link Row} and its {@link RowMetadata} to the {@link Indicator} stored in the database.
+     */
+    public BiFunction<Row, RowMetadata, Indicator> compile(String prefix) {
+        ColumnIndexes columns = new ColumnIndexes(prefix, COLUMNS);
+        return (row, metadata) -> {
+            int[] index = columns.of(metadata);
+            Indicator entity = new Indicator();
+            entity.setId(converter.fromRow(row, index[0], Long.class));
+            entity.setName(converter.fromRow(row, index[1], String.class));
+            entity.setDescription(converter.fromRow(row, index[2], String.class));
+            entity.setAnalysisId(converter.fromRow(row, index[3], Long.class));
+            return entity;
+        };
+    }
 }
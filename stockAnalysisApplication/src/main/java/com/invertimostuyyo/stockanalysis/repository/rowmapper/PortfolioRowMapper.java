@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository.rowmapper;
 
 import com.invertimostuyyo.stockanalysis.domain.Portfolio;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -11,6 +12,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class PortfolioRowMapper implements BiFunction<Row, String, Portfolio> {
 
+    private static final String[] COLUMNS = { "id", "name", "description" };
+
     private final ColumnConverter converter;
 
     public PortfolioRowMapper(ColumnConverter converter) {
@@ -29,4 +32,22 @@ public class PortfolioRowMapper implements BiFunction<Row, String, Portfolio> {
         entity.setDescription(converter.fromRow(row, prefix + "_description", String.class));
         return entity;
     }
+
+    /**
+     * Compiles the mapper of the columns with the given prefix: their indexes are resolved once per result, and each row is then
+     * read by index.
+     * @param prefix the prefix of the columns, as used in the select list.
+     * @return the mapper of a {@link Row} and its {@link RowMetadata} to the {@link Portfolio} stored in the database.
+     */
+    public BiFunction<Row, RowMetadata, Portfolio> compile(String prefix) {
+        ColumnIndexes columns = new ColumnIndexes(prefix, COLUMNS);
+        return (row, metadata) -> {
+            int[] index = columns.of(metadata);
+            Portfolio entity = new Portfolio();
+            entity.setId(converter.fromRow(row, index[0], Long.class));
+            entity.setName(converter.fromRow(row, index[1], String.class));
+            entity.setDescription(converter.fromRow(row, index[2], String.class));
+            return entity;
+        };
+    }
 }
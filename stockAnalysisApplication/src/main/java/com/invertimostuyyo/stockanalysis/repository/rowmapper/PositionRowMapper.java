@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository.rowmapper;
 
 import com.invertimostuyyo.stockanalysis.domain.Position;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -11,6 +12,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class PositionRowMapper implements BiFunction<Row, String, Position> {
 
+    private static final String[] COLUMNS = { "id", "amount", "price", "portfolio_id" };
+
     private final ColumnConverter converter;
 
     public PositionRowMapper(ColumnConverter converter) {
@@ -30,4 +33,23 @@ public class PositionRowMapper implements BiFunction<Row, String, Position> {
         entity.setPortfolioId(converter.fromRow(row, prefix + "_portfolio_id", Long.class));
         return entity;
     }
+
+    /**
+     * Compiles the mapper of the columns with the given prefix: their indexes are resolved once per result, and each row is then
+     * read by index.
+     * @param prefix the prefix of the columns, as used in the select list.
+     * @return the mapper of a {@link Row} and its {@link RowMetadata} to the {@link Position} stored in the database.
+     */
+    public BiFunction<Row, RowMetadata, Position> compile(String prefix) {
+        ColumnIndexes columns = new ColumnIndexes(prefix, COLUMNS);
+        return (row, metadata) -> {
+            int[] index = columns.of(metadata);
+            Position entity = new Position();
+            entity.setId(converter.fromRow(row, index[0], Long.class));
+            entity.setAmount(converter.fromRow(row, index[1], Double.class));
+            entity.setPrice(converter.fromRow(row, index[2], Double.class));
+            entity.setPortfolioId(converter.fromRow(row, index[3], Long.class));
+            return entity;
+        };
+    }
 }
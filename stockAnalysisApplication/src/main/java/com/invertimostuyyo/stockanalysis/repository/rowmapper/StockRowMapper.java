@@ -2,6 +2,7 @@ package com.invertimostuyyo.stockanalysis.repository.rowmapper;
 
 import com.invertimostuyyo.stockanalysis.domain.Stock;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
@@ -12,6 +13,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class StockRowMapper implements BiFunction<Row, String, Stock> {
 
+    private static final String[] COLUMNS = {
+        "id",
+        "name",
+        "sector",
+        "fundation",
+        "description",
+        "icnome",
+        "expenses",
+        "capitalization",
+        "employees",
+    };
+
     private final ColumnConverter converter;
 
     public StockRowMapper(ColumnConverter converter) {
@@ -36,4 +49,28 @@ public class StockRowMapper implements BiFunction<Row, String, Stock> {
         entity.setEmployees(converter.fromRow(row, prefix + "_employees", Integer.class));
         return entity;
     }
+
+    /**
+     * Compiles the mapper of the columns with the given prefix: their indexes are resolved once per result, and each row is then
+     * read by index.
+     * @param prefix the prefix of the columns, as used in the select list.
+     * @return the mapper of a {@link Row} and its {@link RowMetadata} to the {@link Stock} stored in the database.
+     */
+    public BiFunction<Row, RowMetadata, Stock> compile(String prefix) {
+        ColumnIndexes columns = new ColumnIndexes(prefix, COLUMNS);
+        return (row, metadata) -> {
+            int[] index = columns.of(metadata);
+            Stock entity = new Stock();
+            entity.setId(converter.fromRow(row, index[0], Long.class));
+            entity.setName(converter.fromRow(row, index[1], String.class));
+            entity.setSector(converter.fromRow(row, index[2], String.class));
+            entity.setFundation(converter.fromRow(row, index[3], LocalDate.class));
+            entity.setDescription(converter.fromRow(row, index[4], String.class));
+            entity.setIcnome(converter.fromRow(row, index[5], Double.class));
+            entity.setExpenses(converter.fromRow(row, index[6], Double.class));
+            entity.setCapitalization(converter.fromRow(row, index[7], Double.class));
+            entity.setEmployees(converter.fromRow(row, index[8], Integer.class));
+            return entity;
+        };
+    }
 }
@@ -1,5 +1,6 @@
 package com.invertimostuyyo.stockanalysis.security.jwt;
 
+import java.util.Optional;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -26,9 +27,11 @@ public class JWTFilter implements WebFilter {
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         String jwt = resolveToken(exchange.getRequest());
-        if (StringUtils.hasText(jwt) && this.tokenProvider.validateToken(jwt)) {
-            Authentication authentication = this.tokenProvider.getAuthentication(jwt);
-            return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        if (StringUtils.hasText(jwt)) {
+            Optional<Authentication> authentication = this.tokenProvider.getValidAuthentication(jwt);
+            if (authentication.isPresent()) {
+                return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication.get()));
+            }
         }
         return chain.filter(exchange);
     }
@@ -8,6 +8,10 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+/**
+ * Relays the token of the incoming request to the proxied service, once verified - usually from the cache of the verified tokens, as
+ * the {@link JWTFilter} already verified it.
+ */
 @Component
 public class JWTRelayGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
 
@@ -8,6 +8,7 @@ import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Clock;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -30,6 +31,11 @@ public class TokenProvider {
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
+    /**
+     * The maximum number of verified tokens held by the cache.
+     */
+    static final int MAX_CACHED_TOKENS = 10_000;
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -40,6 +46,13 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Tells whether the tokens are expired, to the parser and to the cache alike.
+     */
+    private Clock clock = Clock.systemUTC();
+
     public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
@@ -55,12 +68,13 @@ public class TokenProvider {
             keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         }
         key = Keys.hmacShaKeyFor(keyBytes);
-        jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        jwtParser = Jwts.parserBuilder().setSigningKey(key).setClock(() -> new Date(clock.millis())).build();
         this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.verifiedTokenCache = new VerifiedTokenCache(MAX_CACHED_TOKENS, securityMetersService);
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -84,25 +98,32 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Builds the authentication of a token, served by the cache of the verified tokens when the token was already verified.
+     * @param token the token.
+     * @return the authentication of the token.
+     * @throws JwtException if the token is not valid.
+     */
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
-
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        Authentication authentication = verifiedTokenCache.get(token, clock);
+        if (authentication != null) {
+            return authentication;
+        }
+        return verify(token);
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Verifies a token, unless it is served by the cache of the verified tokens, and builds its authentication.
+     * @param token the token.
+     * @return the authentication of the token, or empty if the token is not valid.
+     */
+    public Optional<Authentication> getValidAuthentication(String token) {
+        Authentication authentication = verifiedTokenCache.get(token, clock);
+        if (authentication != null) {
+            return Optional.of(authentication);
+        }
         try {
-            jwtParser.parseClaimsJws(authToken);
-
-            return true;
+            return Optional.of(verify(token));
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -123,6 +144,27 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    public boolean validateToken(String authToken) {
+        return getValidAuthentication(authToken).isPresent();
+    }
+
+    private Authentication verify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        Collection<? extends GrantedAuthority> authorities = Arrays
+            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
+            .filter(auth -> !auth.trim().isEmpty())
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+
+        User principal = new User(claims.getSubject(), "", authorities);
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        Date expiration = claims.getExpiration();
+        verifiedTokenCache.put(token, authentication, expiration != null ? expiration.getTime() : Long.MAX_VALUE, clock);
+        return authentication;
     }
 }
@@ -0,0 +1,119 @@
+package com.invertimostuyyo.stockanalysis.security.jwt;
+
+import com.invertimostuyyo.stockanalysis.management.SecurityMetersService;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Caches the {@link Authentication} built from the tokens whose signature was verified, so that a token presented again is neither
+ * parsed nor verified again until it expires.
+ * <p>
+ * The tokens are keyed by their SHA-256 digest. An entry is only served strictly before the expiration of its token, and the cache
+ * holds at most {@code maxSize} entries: when it is full, the expired entries are dropped first, then arbitrary ones.
+ */
+class VerifiedTokenCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final int maxSize;
+    private final SecurityMetersService securityMetersService;
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxSize, SecurityMetersService securityMetersService) {
+        this.maxSize = maxSize;
+        this.securityMetersService = securityMetersService;
+    }
+
+    /**
+     * @param token the token.
+     * @param clock the clock which tells whether the token is expired.
+     * @return the authentication of the token, or null if the token was not verified yet or is expired.
+     */
+    Authentication get(String token, Clock clock) {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = tokens.get(digest);
+        if (verifiedToken == null) {
+            securityMetersService.trackTokenCacheMiss();
+            return null;
+        }
+        if (verifiedToken.isExpired(clock.millis())) {
+            if (tokens.remove(digest, verifiedToken)) {
+                securityMetersService.trackTokenCacheExpiredEviction();
+            }
+            securityMetersService.trackTokenCacheMiss();
+            return null;
+        }
+        securityMetersService.trackTokenCacheHit();
+        return verifiedToken.authentication;
+    }
+
+    /**
+     * @param token the token, whose signature was verified.
+     * @param authentication the authentication built from the claims of the token.
+     * @param expiration the expiration of the token in milliseconds since the epoch, or {@link Long#MAX_VALUE} if it does not expire.
+     * @param clock the clock which tells which entries are expired.
+     */
+    void put(String token, Authentication authentication, long expiration, Clock clock) {
+        if (tokens.size() >= maxSize) {
+            evict(clock.millis());
+        }
+        tokens.put(digest(token), new VerifiedToken(authentication, expiration));
+    }
+
+    int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Drops the expired entries, then arbitrary ones down to three quarters of the maximum size, so that the cost of an eviction is
+     * shared by the many puts which follow it.
+     */
+    private void evict(long now) {
+        tokens
+            .entrySet()
+            .removeIf(entry -> {
+                boolean expired = entry.getValue().isExpired(now);
+                if (expired) {
+                    securityMetersService.trackTokenCacheExpiredEviction();
+                }
+                return expired;
+            });
+        Iterator<VerifiedToken> iterator = tokens.values().iterator();
+        while (tokens.size() > maxSize * 3 / 4 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            securityMetersService.trackTokenCacheSizeEviction();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final Authentication authentication;
+        private final long expiration;
+
+        VerifiedToken(Authentication authentication, long expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiration;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.invertimostuyyo.stockanalysis.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache of the entities of a type: the entities by id, and the results of the queries on the entities.
+ * <p>
+ * Concurrent reads of a missing key share a single load, and an empty load is not cached. Both caches are bounded in size and in
+ * time to live, and report their hits, misses, load times and evictions to Micrometer under the {@code cache.*} meters, tagged with
+ * the name of the cache.
+ * <p>
+ * The writers evict the written entities with {@link #evict(Long)} or {@link #evictAll()}. An eviction is applied at once and
+ * again after the commit of the current transaction, so that a read racing with the transaction cannot cache the row it replaces.
+ * It also evicts all the entries of the dependent caches, whose entities embed the entities of this cache.
+ * @param <T> the type of the entities.
+ */
+public class EntityCache<T> {
+
+    private final AsyncCache<Long, T> entities;
+    private final AsyncCache<Object, List<T>> queries;
+    private final List<EntityCache<?>> dependents;
+
+    /**
+     * @param name the name of the cache, used by the metrics.
+     * @param timeToLive the time to live of the entries.
+     * @param maxEntities the maximum number of entities cached by id.
+     * @param maxQueries the maximum number of query results cached.
+     * @param dependents the caches of the entities which embed the entities of this cache.
+     * @param meterRegistry the registry of the metrics.
+     */
+    public EntityCache(
+        String name,
+        Duration timeToLive,
+        long maxEntities,
+        long maxQueries,
+        List<EntityCache<?>> dependents,
+        MeterRegistry meterRegistry
+    ) {
+        this.entities =
+            CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder().maximumSize(maxEntities).expireAfterWrite(timeToLive).recordStats().<Long, T>buildAsync(),
+                name
+            );
+        this.queries =
+            CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder().maximumSize(maxQueries).expireAfterWrite(timeToLive).recordStats().<Object, List<T>>buildAsync(),
+                name + ".queries"
+            );
+        this.dependents = List.copyOf(dependents);
+    }
+
+    /**
+     * @param id the id of the entity.
+     * @param loader the function which reads the entity from the database.
+     * @return the cached entity, or the entity read by the loader.
+     */
+    public Mono<T> findById(Long id, Function<Long, Mono<T>> loader) {
+        return Mono.fromFuture(() -> entities.get(id, (key, executor) -> loader.apply(key).toFuture()));
+    }
+
+    /**
+     * @param query the query, which must implement {@code equals} and {@code hashCode}.
+     * @param loader the function which reads the result of the query from the database.
+     * @return the cached result, or the result read by the loader.
+     */
+    public Mono<List<T>> findAll(Object query, Supplier<Mono<List<T>>> loader) {
+        return Mono.fromFuture(() -> queries.get(query, (key, executor) -> loader.get().toFuture()));
+    }
+
+    /**
+     * Evicts an entity, and all the query results since they may hold it.
+     * @param id the id of the written entity.
+     * @return a {@link Mono} which completes once the eviction is applied, and registered for after the commit of the current
+     * transaction.
+     */
+    public Mono<Void> evict(Long id) {
+        return evictNowAndAfterCommit(() -> {
+            entities.synchronous().invalidate(id);
+            queries.synchronous().invalidateAll();
+            dependents.forEach(EntityCache::clear);
+        });
+    }
+
+    /**
+     * Evicts all the entities and query results.
+     * @return a {@link Mono} which completes once the eviction is applied, and registered for after the commit of the current
+     * transaction.
+     */
+    public Mono<Void> evictAll() {
+        return evictNowAndAfterCommit(this::clear);
+    }
+
+    private void clear() {
+        entities.synchronous().invalidateAll();
+        queries.synchronous().invalidateAll();
+        dependents.forEach(EntityCache::clear);
+    }
+
+    private static Mono<Void> evictNowAndAfterCommit(Runnable eviction) {
+        return Mono
+            .fromRunnable(eviction)
+            .then(TransactionSynchronizationManager.forCurrentTransaction())
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(synchronizationManager ->
+                synchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCompletion(int status) {
+                            return Mono.fromRunnable(eviction);
+                        }
+                    }
+                )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .then();
+    }
+}
@@ -0,0 +1,249 @@
+package com.invertimostuyyo.stockanalysis.service;
+
+import com.invertimostuyyo.stockanalysis.service.dto.RouteDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.event.HeartbeatMonitor;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains a snapshot of the routes of the gateway and of the instances of their services, so that they are listed without querying
+ * the route locator and the discovery client on each request.
+ * <p>
+ * The routes are reloaded when the gateway refreshes them, and the instances of their services when the discovery client reports a
+ * change of the registry with a heartbeat. The path of a route is read from the arguments of its {@code Path} predicate.
+ * <p>
+ * The requests of each route, recorded by the gateway, give its request rate over the last minute and its latency percentiles, which
+ * are also published to Micrometer under the {@code gateway.route.latency} timer.
+ */
+@Service
+public class RouteTableService {
+
+    public static final String ROUTE_LATENCY_METER_NAME = "gateway.route.latency";
+    public static final String ROUTE_LATENCY_METER_DESCRIPTION = "Indicates the latency of the requests proxied by a route of the gateway.";
+    public static final String ROUTE_DIMENSION = "route";
+
+    /**
+     * Number of seconds over which the request rate of a route is averaged.
+     */
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private final Logger log = LoggerFactory.getLogger(RouteTableService.class);
+
+    private final RouteDefinitionLocator routeDefinitionLocator;
+
+    private final DiscoveryClient discoveryClient;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String appName;
+
+    private final LongSupplier nanoTime;
+
+    private final HeartbeatMonitor heartbeatMonitor = new HeartbeatMonitor();
+
+    private final Map<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+
+    private volatile List<RouteDefinitionEntry> routes = List.of();
+
+    @Autowired
+    public RouteTableService(
+        RouteDefinitionLocator routeDefinitionLocator,
+        DiscoveryClient discoveryClient,
+        MeterRegistry meterRegistry,
+        @Value("${spring.application.name}") String appName
+    ) {
+        this(routeDefinitionLocator, discoveryClient, meterRegistry, appName, System::nanoTime);
+    }
+
+    RouteTableService(
+        RouteDefinitionLocator routeDefinitionLocator,
+        DiscoveryClient discoveryClient,
+        MeterRegistry meterRegistry,
+        String appName,
+        LongSupplier nanoTime
+    ) {
+        this.routeDefinitionLocator = routeDefinitionLocator;
+        this.discoveryClient = discoveryClient;
+        this.meterRegistry = meterRegistry;
+        this.appName = appName;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Reloads the routes, and the instances of the services which were not routed yet.
+     */
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        routeDefinitionLocator
+            .getRouteDefinitions()
+            .map(RouteDefinitionEntry::new)
+            .filter(route -> !route.serviceId.equalsIgnoreCase(appName))
+            .collectList()
+            .subscribe(this::setRoutes, e -> log.warn("Could not reload the routes of the gateway: {}", e.getMessage()));
+    }
+
+    /**
+     * Reloads the instances of the routed services, when the registry has changed.
+     */
+    @EventListener
+    public void onHeartbeat(HeartbeatEvent event) {
+        if (heartbeatMonitor.update(event.getValue())) {
+            instances.keySet().forEach(this::loadInstances);
+        }
+    }
+
+    /**
+     * Records a request proxied by a route.
+     * @param routeId the id of the route.
+     * @param latencyNanos the latency of the request, in nanoseconds.
+     */
+    public void recordRequest(String routeId, long latencyNanos) {
+        stats.computeIfAbsent(routeId, this::createStats).record(nanoTime.getAsLong(), latencyNanos);
+    }
+
+    /**
+     * @return the routes, with the instances of their services and their statistics.
+     */
+    public List<RouteDTO> getRoutes() {
+        long now = nanoTime.getAsLong();
+        return routes.stream().map(route -> toDto(route, now)).collect(Collectors.toList());
+    }
+
+    private void setRoutes(List<RouteDefinitionEntry> routes) {
+        Set<String> serviceIds = routes.stream().map(route -> route.serviceId).collect(Collectors.toSet());
+        Set<String> routeIds = routes.stream().map(route -> route.routeId).collect(Collectors.toSet());
+        serviceIds.stream().filter(serviceId -> !instances.containsKey(serviceId)).forEach(this::loadInstances);
+        instances.keySet().retainAll(serviceIds);
+        stats.keySet().retainAll(routeIds);
+        this.routes = List.copyOf(routes);
+    }
+
+    private void loadInstances(String serviceId) {
+        instances.put(serviceId, List.copyOf(discoveryClient.getInstances(serviceId)));
+    }
+
+    private RouteStats createStats(String routeId) {
+        Timer latency = Timer
+            .builder(ROUTE_LATENCY_METER_NAME)
+            .description(ROUTE_LATENCY_METER_DESCRIPTION)
+            .tag(ROUTE_DIMENSION, routeId)
+            .publishPercentiles(PERCENTILES)
+            .distributionStatisticExpiry(Duration.ofMinutes(1))
+            .distributionStatisticBufferLength(2)
+            .register(meterRegistry);
+        return new RouteStats(latency);
+    }
+
+    private RouteDTO toDto(RouteDefinitionEntry route, long now) {
+        RouteStats routeStats = stats.get(route.routeId);
+        double[] latencies = new double[PERCENTILES.length];
+        double requestRate = 0;
+        if (routeStats != null) {
+            requestRate = routeStats.getRate(now);
+            ValueAtPercentile[] percentiles = routeStats.latency.takeSnapshot().percentileValues();
+            for (int i = 0; i < percentiles.length && i < latencies.length; i++) {
+                latencies[i] = percentiles[i].value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return new RouteDTO(
+            route.routeId,
+            route.path,
+            route.serviceId,
+            instances.getOrDefault(route.serviceId, List.of()),
+            requestRate,
+            latencies[0],
+            latencies[1],
+            latencies[2]
+        );
+    }
+
+    /**
+     * The id, path and service of a route definition.
+     */
+    private static final class RouteDefinitionEntry {
+
+        private final String routeId;
+        private final String path;
+        private final String serviceId;
+
+        RouteDefinitionEntry(RouteDefinition definition) {
+            this.routeId = definition.getId();
+            this.path = definition
+                .getPredicates()
+                .stream()
+                .filter(predicate -> "Path".equals(predicate.getName()))
+                .map(PredicateDefinition::getArgs)
+                .flatMap(args -> args.entrySet().stream().filter(arg -> !arg.getKey().startsWith("match")).map(Map.Entry::getValue))
+                .collect(Collectors.joining(","));
+            boolean loadBalanced = "lb".equals(definition.getUri().getScheme());
+            this.serviceId = (loadBalanced ? definition.getUri().getHost() : definition.getId()).toLowerCase();
+        }
+    }
+
+    /**
+     * The latency timer of a route, and its requests counted by second over the rate window.
+     */
+    private static final class RouteStats {
+
+        private final Timer latency;
+        private final long[] seconds = new long[RATE_WINDOW_SECONDS];
+        private final long[] counts = new long[RATE_WINDOW_SECONDS];
+
+        RouteStats(Timer latency) {
+            this.latency = latency;
+        }
+
+        void record(long now, long latencyNanos) {
+            latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            long second = TimeUnit.NANOSECONDS.toSeconds(now);
+            int slot = (int) Math.floorMod(second, (long) RATE_WINDOW_SECONDS);
+            synchronized (this) {
+                if (seconds[slot] != second) {
+                    seconds[slot] = second;
+                    counts[slot] = 0;
+                }
+                counts[slot]++;
+            }
+        }
+
+        synchronized double getRate(long now) {
+            long second = TimeUnit.NANOSECONDS.toSeconds(now);
+            long requests = 0;
+            for (int slot = 0; slot < RATE_WINDOW_SECONDS; slot++) {
+                if (second - seconds[slot] < RATE_WINDOW_SECONDS && counts[slot] > 0) {
+                    requests += counts[slot];
+                }
+            }
+            return (double) requests / RATE_WINDOW_SECONDS;
+        }
+    }
+}
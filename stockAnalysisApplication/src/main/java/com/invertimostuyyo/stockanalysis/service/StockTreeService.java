@@ -0,0 +1,87 @@
+package com.invertimostuyyo.stockanalysis.service;
+
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Indicator;
+import com.invertimostuyyo.stockanalysis.repository.AnalysisRepository;
+import com.invertimostuyyo.stockanalysis.repository.IndicatorRepository;
+import com.invertimostuyyo.stockanalysis.repository.StockRepository;
+import com.invertimostuyyo.stockanalysis.service.dto.AnalysisTreeDTO;
+import com.invertimostuyyo.stockanalysis.service.dto.StockTreeDTO;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class for reading the tree of a stock: the stock, its latest analyses and their indicators.
+ * <p>
+ * The tree is read with set-based queries, whatever its size: the analyses are read along with their stock, then the indicators of
+ * all the analyses at once.
+ */
+@Service
+@Transactional(readOnly = true)
+public class StockTreeService {
+
+    /**
+     * Maximum number of analyses in a tree, which bounds its payload.
+     */
+    public static final int MAX_ANALYSES = 100;
+
+    private final Logger log = LoggerFactory.getLogger(StockTreeService.class);
+
+    private final StockRepository stockRepository;
+
+    private final AnalysisRepository analysisRepository;
+
+    private final IndicatorRepository indicatorRepository;
+
+    public StockTreeService(
+        StockRepository stockRepository,
+        AnalysisRepository analysisRepository,
+        IndicatorRepository indicatorRepository
+    ) {
+        this.stockRepository = stockRepository;
+        this.analysisRepository = analysisRepository;
+        this.indicatorRepository = indicatorRepository;
+    }
+
+    /**
+     * Get the tree of a stock.
+     *
+     * @param id the id of the stock.
+     * @param maxAnalyses the maximum number of analyses, the latest ones being kept - at most {@link #MAX_ANALYSES}.
+     * @return the tree of the stock, or empty if the stock does not exist.
+     */
+    public Mono<StockTreeDTO> findTree(Long id, int maxAnalyses) {
+        log.debug("Request to get the tree of Stock : {}, with at most {} analyses", id, maxAnalyses);
+        int limit = Math.min(maxAnalyses, MAX_ANALYSES);
+        if (limit <= 0) {
+            return stockRepository.findById(id).map(stock -> new StockTreeDTO(stock, List.of()));
+        }
+        return analysisRepository
+            .findLatestByStockId(id, limit)
+            .collectList()
+            .flatMap(analyses -> {
+                if (analyses.isEmpty()) {
+                    return stockRepository.findById(id).map(stock -> new StockTreeDTO(stock, List.of()));
+                }
+                List<Long> analysisIds = analyses.stream().map(Analysis::getId).collect(Collectors.toList());
+                return indicatorRepository
+                    .findByAnalysisIn(analysisIds)
+                    .collectMultimap(Indicator::getAnalysisId)
+                    .map(indicators -> new StockTreeDTO(analyses.get(0).getStock(), toAnalysisTrees(analyses, indicators)));
+            });
+    }
+
+    private static List<AnalysisTreeDTO> toAnalysisTrees(List<Analysis> analyses, Map<Long, Collection<Indicator>> indicators) {
+        return analyses
+            .stream()
+            .map(analysis -> new AnalysisTreeDTO(analysis, indicators.getOrDefault(analysis.getId(), List.of())))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,80 @@
+package com.invertimostuyyo.stockanalysis.service.dto;
+
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Indicator;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A DTO representing an analysis in the tree of a stock, with its indicators.
+ */
+public class AnalysisTreeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private LocalDate date;
+
+    private String description;
+
+    private List<IndicatorTreeDTO> indicators = new ArrayList<>();
+
+    public AnalysisTreeDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public AnalysisTreeDTO(Analysis analysis, Collection<Indicator> indicators) {
+        this.id = analysis.getId();
+        this.date = analysis.getDate();
+        this.description = analysis.getDescription();
+        this.indicators = indicators.stream().map(IndicatorTreeDTO::new).collect(Collectors.toList());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public List<IndicatorTreeDTO> getIndicators() {
+        return indicators;
+    }
+
+    public void setIndicators(List<IndicatorTreeDTO> indicators) {
+        this.indicators = indicators;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AnalysisTreeDTO{" +
+            "id=" + id +
+            ", date='" + date + "'" +
+            ", description='" + description + "'" +
+            ", indicators=" + indicators +
+            "}";
+    }
+}
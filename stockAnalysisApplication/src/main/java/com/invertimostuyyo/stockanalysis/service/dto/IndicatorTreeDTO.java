@@ -0,0 +1,62 @@
+package com.invertimostuyyo.stockanalysis.service.dto;
+
+import com.invertimostuyyo.stockanalysis.domain.Indicator;
+import java.io.Serializable;
+
+/**
+ * A DTO representing an indicator in the tree of a stock.
+ */
+public class IndicatorTreeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    public IndicatorTreeDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public IndicatorTreeDTO(Indicator indicator) {
+        this.id = indicator.getId();
+        this.name = indicator.getName();
+        this.description = indicator.getDescription();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IndicatorTreeDTO{" +
+            "id=" + id +
+            ", name='" + name + "'" +
+            ", description='" + description + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,93 @@
+package com.invertimostuyyo.stockanalysis.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * A DTO representing a route of the gateway, with the instances of its service and the statistics of its latest requests.
+ */
+public class RouteDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String routeId;
+
+    private final String path;
+
+    private final String serviceId;
+
+    private final List<ServiceInstance> serviceInstances;
+
+    private final double requestRate;
+
+    private final double latencyP50;
+
+    private final double latencyP95;
+
+    private final double latencyP99;
+
+    public RouteDTO(
+        String routeId,
+        String path,
+        String serviceId,
+        List<ServiceInstance> serviceInstances,
+        double requestRate,
+        double latencyP50,
+        double latencyP95,
+        double latencyP99
+    ) {
+        this.routeId = routeId;
+        this.path = path;
+        this.serviceId = serviceId;
+        this.serviceInstances = serviceInstances;
+        this.requestRate = requestRate;
+        this.latencyP50 = latencyP50;
+        this.latencyP95 = latencyP95;
+        this.latencyP99 = latencyP99;
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public List<ServiceInstance> getServiceInstances() {
+        return serviceInstances;
+    }
+
+    /**
+     * @return the requests per second, over the last minute.
+     */
+    public double getRequestRate() {
+        return requestRate;
+    }
+
+    /**
+     * @return the median latency of the latest requests, in milliseconds.
+     */
+    public double getLatencyP50() {
+        return latencyP50;
+    }
+
+    /**
+     * @return the 95th percentile of the latency of the latest requests, in milliseconds.
+     */
+    public double getLatencyP95() {
+        return latencyP95;
+    }
+
+    /**
+     * @return the 99th percentile of the latency of the latest requests, in milliseconds.
+     */
+    public double getLatencyP99() {
+        return latencyP99;
+    }
+}
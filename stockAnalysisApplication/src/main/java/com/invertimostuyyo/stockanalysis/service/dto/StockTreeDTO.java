@@ -0,0 +1,143 @@
+package com.invertimostuyyo.stockanalysis.service.dto;
+
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing a stock with its latest analyses, and their indicators.
+ */
+public class StockTreeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String sector;
+
+    private LocalDate fundation;
+
+    private String description;
+
+    private Double icnome;
+
+    private Double expenses;
+
+    private Double capitalization;
+
+    private Integer employees;
+
+    private List<AnalysisTreeDTO> analyses = new ArrayList<>();
+
+    public StockTreeDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public StockTreeDTO(Stock stock, List<AnalysisTreeDTO> analyses) {
+        this.id = stock.getId();
+        this.name = stock.getName();
+        this.sector = stock.getSector();
+        this.fundation = stock.getFundation();
+        this.description = stock.getDescription();
+        this.icnome = stock.getIcnome();
+        this.expenses = stock.getExpenses();
+        this.capitalization = stock.getCapitalization();
+        this.employees = stock.getEmployees();
+        this.analyses = analyses;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSector() {
+        return sector;
+    }
+
+    public void setSector(String sector) {
+        this.sector = sector;
+    }
+
+    public LocalDate getFundation() {
+        return fundation;
+    }
+
+    public void setFundation(LocalDate fundation) {
+        this.fundation = fundation;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Double getIcnome() {
+        return icnome;
+    }
+
+    public void setIcnome(Double icnome) {
+        this.icnome = icnome;
+    }
+
+    public Double getExpenses() {
+        return expenses;
+    }
+
+    public void setExpenses(Double expenses) {
+        this.expenses = expenses;
+    }
+
+    public Double getCapitalization() {
+        return capitalization;
+    }
+
+    public void setCapitalization(Double capitalization) {
+        this.capitalization = capitalization;
+    }
+
+    public Integer getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(Integer employees) {
+        this.employees = employees;
+    }
+
+    public List<AnalysisTreeDTO> getAnalyses() {
+        return analyses;
+    }
+
+    public void setAnalyses(List<AnalysisTreeDTO> analyses) {
+        this.analyses = analyses;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StockTreeDTO{" +
+            "id=" + id +
+            ", name='" + name + "'" +
+            ", sector='" + sector + "'" +
+            ", analyses=" + analyses +
+            "}";
+    }
+}
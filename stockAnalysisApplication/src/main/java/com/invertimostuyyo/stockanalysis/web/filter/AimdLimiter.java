@@ -0,0 +1,65 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+/**
+ * Limits the requests in flight to a service, adapting the limit with an additive increase, multiplicative decrease (AIMD) algorithm.
+ * <p>
+ * The limit grows by one every {@code limit} requests completed in time while at least half of the limit is in use, and is multiplied
+ * by the backoff ratio on each request completed later than the latency threshold or failed by the service.
+ */
+final class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+    private int inFlight;
+
+    AimdLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return whether the request may be sent: it must then be released with {@link #release(long, boolean)}.
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * @param latencyNanos the latency of the request.
+     * @param dropped whether the request failed because of the service: the service is then considered overloaded.
+     */
+    synchronized void release(long latencyNanos, boolean dropped) {
+        inFlight--;
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Releases a request whose outcome says nothing of the service, for example because it was cancelled by the client.
+     */
+    synchronized void ignore() {
+        inFlight--;
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,60 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Copies the body of a response as it is written, as long as it fits in a maximum size and is not streamed.
+ */
+final class BodyRecorder {
+
+    private final long maxBodySize;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private boolean recordable = true;
+
+    BodyRecorder(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Copies the readable bytes of the buffer, leaving its read position unchanged.
+     */
+    synchronized void record(DataBuffer buffer) {
+        if (!recordable) {
+            return;
+        }
+        if (body.size() + buffer.readableByteCount() > maxBodySize) {
+            discard();
+            return;
+        }
+        ByteBuffer bytes = buffer.asByteBuffer();
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        body.write(copy, 0, copy.length);
+    }
+
+    /**
+     * Gives up the recording, for example because the body is streamed.
+     */
+    synchronized void discard() {
+        recordable = false;
+        body.reset();
+    }
+
+    /**
+     * @param status the status of the response, or null if it was not set.
+     * @param headers the headers of the response, copied.
+     * @return the recorded response, or empty if the body could not be recorded.
+     */
+    synchronized Optional<RecordedResponse> toRecordedResponse(Integer status, HttpHeaders headers) {
+        if (!recordable || status == null) {
+            return Optional.empty();
+        }
+        HttpHeaders copy = new HttpHeaders();
+        copy.putAll(headers);
+        return Optional.of(new RecordedResponse(status, copy, body.toByteArray()));
+    }
+}
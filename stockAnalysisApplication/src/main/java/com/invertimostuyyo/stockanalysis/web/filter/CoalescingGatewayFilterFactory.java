@@ -0,0 +1,110 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import com.invertimostuyyo.stockanalysis.management.CoalescingMetersService;
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Coalesces the identical GET requests in flight: the first one is proxied, and its response is also written to the requests received
+ * until it completes, which are not proxied.
+ * <p>
+ * The requests are identical when they have the same route, path, query, {@code Accept} and {@code Accept-Encoding} headers and
+ * principal. Only the routes listed in the configuration, by route id or by service id, are coalesced. A response which is streamed,
+ * larger than the configured maximum, or whose {@code Vary} header names other request headers, is not shared: the waiting requests
+ * are then proxied on their own, as when the first request fails or is cancelled. The requests marked as streamed by the
+ * {@link StreamingGatewayFilterFactory} are not coalesced, so that their body is not copied.
+ * <p>
+ * The filter is ordered before the {@link NettyWriteResponseFilter}, so that it sees the response body written by the proxy.
+ */
+@Component
+public class CoalescingGatewayFilterFactory extends RouteSelectingGatewayFilterFactory<CoalescingGatewayFilterFactory.Config> {
+
+    private final Map<RequestKey, Sinks.One<Optional<RecordedResponse>>> inFlight = new ConcurrentHashMap<>();
+
+    private final CoalescingMetersService coalescingMetersService;
+
+    public CoalescingGatewayFilterFactory(CoalescingMetersService coalescingMetersService) {
+        super(Config.class);
+        this.coalescingMetersService = coalescingMetersService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(
+            (exchange, chain) -> {
+                Route route = getSelectedRoute(exchange, config);
+                if (
+                    exchange.getRequest().getMethod() != HttpMethod.GET ||
+                    route == null ||
+                    StreamingGatewayFilterFactory.isStreaming(exchange)
+                ) {
+                    return chain.filter(exchange);
+                }
+                return exchange
+                    .getPrincipal()
+                    .map(Principal::getName)
+                    .defaultIfEmpty("")
+                    .flatMap(principal -> filter(exchange, chain, RequestKey.of(route, exchange.getRequest(), principal), config));
+            },
+            NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 3
+        );
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, RequestKey key, Config config) {
+        Sinks.One<Optional<RecordedResponse>> leader = Sinks.one();
+        Sinks.One<Optional<RecordedResponse>> current = inFlight.putIfAbsent(key, leader);
+        if (current != null) {
+            return current
+                .asMono()
+                .flatMap(response -> {
+                    if (response.isEmpty()) {
+                        coalescingMetersService.trackFallback();
+                        return chain.filter(exchange);
+                    }
+                    coalescingMetersService.trackCoalesced(response.get().getBody().length);
+                    return response.get().writeTo(exchange.getResponse());
+                });
+        }
+        coalescingMetersService.trackUpstream();
+        RecordingResponse response = new RecordingResponse(exchange.getResponse(), config.getMaxBodySize().toBytes());
+        return chain
+            .filter(exchange.mutate().response(response).build())
+            .doOnSuccess(done ->
+                complete(key, leader, response.getRecordedResponse().filter(recorded -> RequestKey.isVaryCovered(recorded.getHeaders())))
+            )
+            .doOnError(e -> complete(key, leader, Optional.empty()))
+            .doOnCancel(() -> complete(key, leader, Optional.empty()));
+    }
+
+    private void complete(RequestKey key, Sinks.One<Optional<RecordedResponse>> leader, Optional<RecordedResponse> response) {
+        inFlight.remove(key, leader);
+        leader.tryEmitValue(response);
+    }
+
+    public static class Config extends RoutesConfig<Config> {
+
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public Config setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+    }
+}
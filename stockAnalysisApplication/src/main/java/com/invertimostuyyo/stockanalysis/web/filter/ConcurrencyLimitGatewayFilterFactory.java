@@ -0,0 +1,194 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import com.invertimostuyyo.stockanalysis.management.ConcurrencyLimitMetersService;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Limits the requests in flight to each downstream service, and sheds the excess requests with a {@code 503 Service Unavailable} and a
+ * {@code Retry-After} header instead of queueing them.
+ * <p>
+ * The limit of a service adapts to its latency with an {@link AimdLimiter}: it decreases when the requests get slower than the latency
+ * threshold, or are failed or throttled by the service, and slowly increases otherwise. A slow service is thus given fewer connections
+ * of the shared pool, and the other services keep theirs. The latency is measured up to the response headers, when the response is
+ * committed, so that a long body streamed to the client does not count as a slow service. The limiter of a service is created with
+ * the configuration of the first route of the service, and its limit and requests in flight are published to Micrometer under the
+ * {@code gateway.concurrency.*} meters.
+ * <p>
+ * The filter is ordered after the cache and coalescing filters, whose responses are not limited, and before the
+ * {@link NettyWriteResponseFilter}, so that the transfer of the response body is counted as in flight.
+ */
+@Component
+public class ConcurrencyLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private final Logger log = LoggerFactory.getLogger(ConcurrencyLimitGatewayFilterFactory.class);
+
+    private final Map<String, AimdLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final ConcurrencyLimitMetersService concurrencyLimitMetersService;
+
+    public ConcurrencyLimitGatewayFilterFactory(ConcurrencyLimitMetersService concurrencyLimitMetersService) {
+        super(Config.class);
+        this.concurrencyLimitMetersService = concurrencyLimitMetersService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(
+            (exchange, chain) -> {
+                Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                if (route == null) {
+                    return chain.filter(exchange);
+                }
+                String service = getServiceId(route);
+                AimdLimiter limiter = limiters.computeIfAbsent(service, id -> createLimiter(id, config));
+                if (!limiter.tryAcquire()) {
+                    log.debug("Rejecting a request to {}, whose limit of {} requests in flight is reached", service, limiter.getLimit());
+                    concurrencyLimitMetersService.trackRejected(service);
+                    exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(config.getRetryAfterSeconds()));
+                    return exchange.getResponse().setComplete();
+                }
+                long start = System.nanoTime();
+                AtomicLong latency = new AtomicLong(-1);
+                exchange
+                    .getResponse()
+                    .beforeCommit(() -> {
+                        latency.compareAndSet(-1, System.nanoTime() - start);
+                        return Mono.empty();
+                    });
+                return chain
+                    .filter(exchange)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            limiter.ignore();
+                        } else {
+                            Integer status = exchange.getResponse().getRawStatusCode();
+                            long nanos = latency.get() >= 0 ? latency.get() : System.nanoTime() - start;
+                            limiter.release(nanos, signal == SignalType.ON_ERROR || isOverloaded(status));
+                        }
+                    });
+            },
+            NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2
+        );
+    }
+
+    private AimdLimiter createLimiter(String service, Config config) {
+        AimdLimiter limiter = new AimdLimiter(
+            config.getInitialLimit(),
+            config.getMinLimit(),
+            config.getMaxLimit(),
+            config.getBackoffRatio(),
+            config.getLatencyThreshold().toNanos()
+        );
+        concurrencyLimitMetersService.registerLimiter(service, limiter, AimdLimiter::getLimit, AimdLimiter::getInFlight);
+        return limiter;
+    }
+
+    private static String getServiceId(Route route) {
+        return "lb".equals(route.getUri().getScheme()) ? route.getUri().getHost() : route.getId();
+    }
+
+    private static boolean isOverloaded(Integer status) {
+        return (
+            status != null &&
+            (
+                status == HttpStatus.TOO_MANY_REQUESTS.value() ||
+                status == HttpStatus.SERVICE_UNAVAILABLE.value() ||
+                status == HttpStatus.GATEWAY_TIMEOUT.value()
+            )
+        );
+    }
+
+    public static class Config {
+
+        /**
+         * The limits start at the {@code max-connections} of the connection pool of the gateway, so that a burst is not shed before
+         * the service shows it is overloaded, and back off from there.
+         */
+        private int initialLimit = 1000;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 1000;
+
+        private double backoffRatio = 0.9;
+
+        private Duration latencyThreshold = Duration.ofSeconds(5);
+
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public Config setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public Config setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public Config setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public Config setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public Config setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+            return this;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public Config setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        long getRetryAfterSeconds() {
+            return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A response which is not sent to any client: its body is read and released, so that a request proxied in the background can be
+ * recorded by a decorator.
+ */
+class DetachedResponse extends AbstractServerHttpResponse {
+
+    DetachedResponse(DataBufferFactory dataBufferFactory) {
+        super(dataBufferFactory);
+    }
+
+    @Override
+    public <T> T getNativeResponse() {
+        throw new IllegalStateException("A detached response has no native response");
+    }
+
+    @Override
+    protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+        return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+    }
+
+    @Override
+    protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return Flux.from(body).concatMap(this::writeWithInternal).then();
+    }
+
+    @Override
+    protected void applyStatusCode() {}
+
+    @Override
+    protected void applyHeaders() {}
+
+    @Override
+    protected void applyCookies() {}
+}
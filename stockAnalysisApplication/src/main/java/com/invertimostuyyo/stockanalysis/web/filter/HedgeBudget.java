@@ -0,0 +1,34 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+/**
+ * Caps the hedged requests of a route to a ratio of its requests: each request deposits the ratio, and each hedged request withdraws
+ * one. The balance starts at, and is capped to, the burst, so that a few hedged requests are allowed at once after a quiet period but
+ * a slow route is never sent much more than its share of extra load.
+ */
+final class HedgeBudget {
+
+    private final double ratio;
+    private final double maxBalance;
+    private double balance;
+
+    HedgeBudget(double ratio, int burst) {
+        this.ratio = ratio;
+        this.maxBalance = Math.max(1, burst);
+        this.balance = burst;
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * @return whether a hedged request can be sent, in which case it is withdrawn from the balance.
+     */
+    synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+}
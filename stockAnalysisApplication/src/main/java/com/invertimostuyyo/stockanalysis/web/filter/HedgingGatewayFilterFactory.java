@@ -0,0 +1,420 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import com.invertimostuyyo.stockanalysis.management.HedgingMetersService;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Hedges the GET requests of the configured routes: when the first attempt has not answered within the hedging delay of its route, a
+ * second attempt is sent to another instance, and the response of the attempt which answers first is used, the other being cancelled.
+ * An attempt which fails does not win: the error of the first attempt is returned only when the hedged attempt fails too, or is not sent.
+ * <p>
+ * The hedging delay of a route is the configured percentile of the latency of its latest completed first attempts, those cancelled by
+ * a winning hedged attempt being left out, but no less than the minimum delay, and the initial delay until enough latencies are known.
+ * The hedged attempts of a route are capped by a {@link HedgeBudget}, so that a slow route is not sent much more than the configured
+ * ratio of extra requests. The hedged attempt carries the {@link #EXCLUDED_INSTANCE_HEADER}, by which the load balancer avoids the
+ * instance of the first attempt; as a {@link HttpHeadersFilter}, this factory removes that header from the proxied requests.
+ * <p>
+ * Each attempt is proxied with its own exchange attributes and a detached response, whose body is recorded up to the configured maximum
+ * size, and only the winning response is written. A response which is streamed, or larger than the maximum, is handed straight to the
+ * client by its attempt when no other attempt has answered, the other attempts being cancelled or not sent, and is discarded otherwise:
+ * it is never proxied again. The requests marked as streamed by the {@link StreamingGatewayFilterFactory} are not hedged. The filter is
+ * ordered after the concurrency limit filter, so that a hedged request counts once in its limit, and before the
+ * {@link NettyWriteResponseFilter}, so that the response body is written to the attempt.
+ */
+@Component
+public class HedgingGatewayFilterFactory
+    extends RouteSelectingGatewayFilterFactory<HedgingGatewayFilterFactory.Config>
+    implements HttpHeadersFilter {
+
+    public static final String EXCLUDED_INSTANCE_HEADER = "X-Hedge-Excluded-Instance";
+
+    /**
+     * Number of latest first attempts whose latency gives the hedging delay of a route.
+     */
+    private static final int LATENCY_WINDOW_SIZE = 256;
+
+    /**
+     * Number of latencies under which the initial hedging delay is used.
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final Map<String, HedgeBudget> budgets = new ConcurrentHashMap<>();
+
+    private final HedgingMetersService hedgingMetersService;
+
+    public HedgingGatewayFilterFactory(HedgingMetersService hedgingMetersService) {
+        super(Config.class);
+        this.hedgingMetersService = hedgingMetersService;
+    }
+
+    /**
+     * @param instance a service instance.
+     * @return the id of the instance, as sent in the {@link #EXCLUDED_INSTANCE_HEADER}.
+     */
+    public static String getInstanceId(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(
+            (exchange, chain) -> {
+                Route route = getSelectedRoute(exchange, config);
+                if (
+                    exchange.getRequest().getMethod() != HttpMethod.GET ||
+                    route == null ||
+                    StreamingGatewayFilterFactory.isStreaming(exchange)
+                ) {
+                    return chain.filter(exchange);
+                }
+                return filter(exchange, chain, route.getId(), config);
+            },
+            NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1
+        );
+    }
+
+    @Override
+    public HttpHeaders filter(HttpHeaders input, ServerWebExchange exchange) {
+        if (!input.containsKey(EXCLUDED_INSTANCE_HEADER)) {
+            return input;
+        }
+        HttpHeaders filtered = new HttpHeaders();
+        filtered.putAll(input);
+        filtered.remove(EXCLUDED_INSTANCE_HEADER);
+        return filtered;
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, String routeId, Config config) {
+        LatencyWindow window = latencies.computeIfAbsent(routeId, id -> new LatencyWindow(LATENCY_WINDOW_SIZE));
+        HedgeBudget budget = budgets.computeIfAbsent(routeId, id -> new HedgeBudget(config.getBudgetRatio(), config.getBudgetBurst()));
+        budget.deposit();
+        Attempts attempts = new Attempts();
+        AttemptExchange first = new AttemptExchange(exchange, exchange.getRequest(), config.getMaxBodySize(), attempts);
+        long start = System.nanoTime();
+        Mono<Optional<RecordedResponse>> firstAttempt = first
+            .proxy(chain)
+            .doOnSuccess(response -> window.record(System.nanoTime() - start))
+            .doOnError(attempts::fail);
+        Mono<Optional<RecordedResponse>> hedgedAttempt = Mono
+            .delay(getDelay(window, config))
+            .flatMap(tick -> {
+                if (attempts.isAnswered()) {
+                    return Mono.empty();
+                }
+                if (!budget.tryWithdraw()) {
+                    hedgingMetersService.trackThrottled(routeId);
+                    return Mono.empty();
+                }
+                hedgingMetersService.trackSent(routeId);
+                return new AttemptExchange(exchange, excludeInstance(exchange.getRequest(), first), config.getMaxBodySize(), attempts)
+                    .proxy(chain)
+                    .doOnNext(response -> hedgingMetersService.trackWon(routeId));
+            });
+        return Mono
+            .firstWithValue(firstAttempt, hedgedAttempt)
+            .onErrorMap(NoSuchElementException.class, e -> attempts.getError() != null ? attempts.getError() : e)
+            .flatMap(response -> response.isPresent() ? response.get().writeTo(exchange.getResponse()) : Mono.empty());
+    }
+
+    private static Duration getDelay(LatencyWindow window, Config config) {
+        if (window.getCount() < MIN_LATENCY_SAMPLES) {
+            return config.getInitialDelay();
+        }
+        Duration percentile = Duration.ofNanos(window.getPercentile(config.getPercentile()));
+        return percentile.compareTo(config.getMinDelay()) < 0 ? config.getMinDelay() : percentile;
+    }
+
+    private static ServerHttpRequest excludeInstance(ServerHttpRequest request, ServerWebExchange first) {
+        Response<ServiceInstance> response = first.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return request;
+        }
+        return request.mutate().header(EXCLUDED_INSTANCE_HEADER, getInstanceId(response.getServer())).build();
+    }
+
+    /**
+     * The attempts to proxy a request, of which only one answers it: the first whose response is recorded, or handed to the client.
+     */
+    private static final class Attempts {
+
+        private final AtomicBoolean answered = new AtomicBoolean();
+
+        private final Sinks.One<AttemptResponse> handedOff = Sinks.one();
+
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        /**
+         * @return true if no attempt answered the request before, false otherwise.
+         */
+        boolean answer() {
+            return answered.compareAndSet(false, true);
+        }
+
+        boolean isAnswered() {
+            return answered.get();
+        }
+
+        /**
+         * @param response the response of an attempt, which cannot be recorded.
+         * @return true if the response is to be written to the client, as no attempt answered the request before, false otherwise.
+         */
+        boolean handOff(AttemptResponse response) {
+            if (!answer()) {
+                return false;
+            }
+            handedOff.tryEmitValue(response);
+            return true;
+        }
+
+        /**
+         * @param response the response of an attempt.
+         * @return the completion of the hand-off of the response of another attempt to the client, by which the attempt is cancelled.
+         */
+        Mono<AttemptResponse> getHandedOffOtherThan(AttemptResponse response) {
+            return handedOff.asMono().flatMap(other -> other != response ? Mono.just(other) : Mono.never());
+        }
+
+        /**
+         * @param e the error of the first attempt, or of an attempt whose response is handed to the client.
+         */
+        void fail(Throwable e) {
+            error.set(e);
+        }
+
+        Throwable getError() {
+            return error.get();
+        }
+    }
+
+    /**
+     * An attempt to proxy a request, with its own copy of the exchange attributes and a detached response which records the body.
+     */
+    private static final class AttemptExchange extends ServerWebExchangeDecorator {
+
+        private final Map<String, Object> attributes;
+
+        private final AttemptResponse response;
+
+        private final Attempts attempts;
+
+        AttemptExchange(ServerWebExchange exchange, ServerHttpRequest request, DataSize maxBodySize, Attempts attempts) {
+            this(exchange, request, new AttemptResponse(exchange.getResponse(), maxBodySize.toBytes(), attempts), attempts);
+        }
+
+        private AttemptExchange(ServerWebExchange exchange, ServerHttpRequest request, AttemptResponse response, Attempts attempts) {
+            super(exchange.mutate().request(request).response(response).build());
+            this.response = response;
+            this.attempts = attempts;
+            this.attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+            this.attributes.computeIfPresent(
+                ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR,
+                (name, urls) -> new LinkedHashSet<>((Collection<?>) urls)
+            );
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * @return the recorded response, empty if it was handed to the client, or nothing if it was discarded or another attempt
+         * answered the request.
+         */
+        Mono<Optional<RecordedResponse>> proxy(GatewayFilterChain chain) {
+            return chain
+                .filter(this)
+                .doOnError(e -> {
+                    if (response.isHandedOff()) {
+                        attempts.fail(e);
+                    }
+                })
+                .then(
+                    Mono.defer(() -> {
+                        if (response.isHandedOff()) {
+                            return Mono.just(Optional.<RecordedResponse>empty());
+                        }
+                        return Mono.justOrEmpty(response.getRecordedResponse()).filter(recorded -> attempts.answer()).map(Optional::of);
+                    })
+                )
+                .takeUntilOther(attempts.getHandedOffOtherThan(response));
+        }
+    }
+
+    /**
+     * The response of an attempt, recorded in a detached response up to a maximum size, or handed to the client when it is streamed or
+     * larger, if no other attempt answered the request.
+     */
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpResponse client;
+
+        private final long maxBodySize;
+
+        private final Attempts attempts;
+
+        private final BodyRecorder recorder;
+
+        private volatile boolean handedOff;
+
+        AttemptResponse(ServerHttpResponse client, long maxBodySize, Attempts attempts) {
+            super(new DetachedResponse(client.bufferFactory()));
+            this.client = client;
+            this.maxBodySize = maxBodySize;
+            this.attempts = attempts;
+            this.recorder = new BodyRecorder(maxBodySize);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            AtomicLong size = new AtomicLong();
+            // the buffers held until the body is complete are released when a winning attempt cancels this one
+            return PooledBuffers
+                .releaseDiscarded(
+                    Flux
+                        .from(body)
+                        .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodySize)
+                        .switchOnFirst((signal, buffers) -> {
+                            Flux<DataBuffer> flattened = PooledBuffers.releaseDiscarded(buffers.flatMapIterable(Function.identity()));
+                            if (size.get() <= maxBodySize) {
+                                return super.writeWith(flattened.doOnNext(recorder::record));
+                            }
+                            recorder.discard();
+                            return handOff() ? client.writeWith(flattened) : super.writeWith(flattened);
+                        })
+                )
+                .then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            recorder.discard();
+            return handOff() ? client.writeAndFlushWith(body) : super.writeAndFlushWith(body);
+        }
+
+        private boolean handOff() {
+            if (!attempts.handOff(this)) {
+                return false;
+            }
+            handedOff = true;
+            client.setRawStatusCode(getRawStatusCode());
+            client.getHeaders().putAll(getHeaders());
+            return true;
+        }
+
+        boolean isHandedOff() {
+            return handedOff;
+        }
+
+        /**
+         * @return the response written, or empty if it was streamed or too large.
+         */
+        Optional<RecordedResponse> getRecordedResponse() {
+            return recorder.toRecordedResponse(getRawStatusCode(), getHeaders());
+        }
+    }
+
+    public static class Config extends RoutesConfig<Config> {
+
+        private double percentile = 95;
+
+        private Duration initialDelay = Duration.ofMillis(500);
+
+        private Duration minDelay = Duration.ofMillis(20);
+
+        private double budgetRatio = 0.1;
+
+        private int budgetBurst = 10;
+
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public Config setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Duration getInitialDelay() {
+            return initialDelay;
+        }
+
+        public Config setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public Config setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public Config setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        public int getBudgetBurst() {
+            return budgetBurst;
+        }
+
+        public Config setBudgetBurst(int budgetBurst) {
+            this.budgetBurst = budgetBurst;
+            return this;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public Config setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+    }
+}
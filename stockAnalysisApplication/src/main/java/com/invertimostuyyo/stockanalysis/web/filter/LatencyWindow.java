@@ -0,0 +1,41 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of the latest requests to a route, in a ring of fixed size, from which a percentile is computed on demand.
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency under which the given percentage of the recorded latencies are, or a negative value if none is recorded.
+     */
+    synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.min(count, Math.max(1, rank)) - 1];
+    }
+}
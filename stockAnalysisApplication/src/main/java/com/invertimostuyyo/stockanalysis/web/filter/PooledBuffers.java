@@ -0,0 +1,32 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.Collection;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import reactor.core.publisher.Flux;
+
+/**
+ * Releases the pooled buffers of a body which are dropped by the operators of a filter when the body is cancelled, such as the buffers
+ * held by a {@code bufferUntil} until the body completes: without a discard hook, Reactor drops them without releasing them.
+ */
+final class PooledBuffers {
+
+    private PooledBuffers() {}
+
+    /**
+     * @param body a body, or the chunks of buffers of a body.
+     * @return the body, whose buffers and chunks of buffers discarded upstream are released.
+     */
+    static <T> Flux<T> releaseDiscarded(Flux<T> body) {
+        return body.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release).doOnDiscard(Collection.class, PooledBuffers::release);
+    }
+
+    private static void release(Collection<?> chunk) {
+        for (Object buffer : chunk) {
+            if (buffer instanceof DataBuffer) {
+                DataBufferUtils.release((DataBuffer) buffer);
+            }
+        }
+    }
+}
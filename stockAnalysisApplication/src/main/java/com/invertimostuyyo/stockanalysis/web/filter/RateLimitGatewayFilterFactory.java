@@ -0,0 +1,121 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Limits the rate of the requests of each user to each route, as configured by the {@code jhipster.gateway.rate-limiting} properties:
+ * at most {@code limit} requests per {@code duration-in-seconds}, with bursts of up to {@code limit} requests.
+ * <p>
+ * The user is the subject of the JWT, or the client address for the anonymous requests. The rates are measured by the token buckets
+ * of a {@link TokenBucketTable}, in memory: each gateway instance enforces the limit on its own requests. Each response carries the
+ * {@code X-RateLimit-Limit}, {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset} headers, the latter being the seconds until
+ * the bucket is full again, and a request over the limit is rejected with a {@code 429 Too Many Requests} and a {@code Retry-After}
+ * header.
+ * <p>
+ * The filter is ordered first, so that a rejected request is not served from the cache either.
+ */
+@Component
+public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    public static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    /**
+     * Maximum number of buckets in memory, which bounds the memory used by the filter to a few megabytes.
+     */
+    public static final int MAX_BUCKETS = 100_000;
+
+    private final Logger log = LoggerFactory.getLogger(RateLimitGatewayFilterFactory.class);
+
+    private final boolean enabled;
+
+    private final TokenBucketTable buckets;
+
+    @Autowired
+    public RateLimitGatewayFilterFactory(JHipsterProperties jHipsterProperties) {
+        this(jHipsterProperties.getGateway().getRateLimiting(), System::nanoTime);
+    }
+
+    RateLimitGatewayFilterFactory(JHipsterProperties.Gateway.RateLimiting rateLimiting, LongSupplier nanoTime) {
+        this.enabled = rateLimiting.isEnabled();
+        this.buckets =
+            new TokenBucketTable(
+                rateLimiting.getLimit(),
+                Duration.ofSeconds(rateLimiting.getDurationInSeconds()).toNanos(),
+                MAX_BUCKETS,
+                nanoTime
+            );
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return new OrderedGatewayFilter(
+            (exchange, chain) -> {
+                Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                if (!enabled || route == null) {
+                    return chain.filter(exchange);
+                }
+                return exchange
+                    .getPrincipal()
+                    .map(Principal::getName)
+                    .switchIfEmpty(Mono.fromSupplier(() -> getClientAddress(exchange)))
+                    .flatMap(user -> filter(exchange, chain, route.getId() + " " + user));
+            },
+            NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 5
+        );
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, String key) {
+        TokenBucketTable.Consumption consumption = buckets.tryConsume(key);
+        // Set when the response is committed, so that they replace the headers of a response served from the cache
+        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> setHeaders(exchange.getResponse().getHeaders(), consumption)));
+        if (!consumption.isConsumed()) {
+            log.debug("Rejecting a request of {}, over the rate limit", key);
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange
+                .getResponse()
+                .getHeaders()
+                .set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, toSeconds(consumption.getNanosToNextToken()))));
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    private void setHeaders(HttpHeaders headers, TokenBucketTable.Consumption consumption) {
+        headers.set(LIMIT_HEADER, String.valueOf(buckets.getCapacity()));
+        headers.set(REMAINING_HEADER, String.valueOf(consumption.getRemaining()));
+        headers.set(RESET_HEADER, String.valueOf(toSeconds(consumption.getNanosToReset())));
+    }
+
+    private static String getClientAddress(ServerWebExchange exchange) {
+        return Optional.ofNullable(exchange.getRequest().getRemoteAddress()).map(InetSocketAddress::getHostString).orElse("anonymous");
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * The status, headers and body of a proxied response, which can be written again to other requests.
+ */
+final class RecordedResponse {
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    RecordedResponse(int status, HttpHeaders headers, byte[] body) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Writes the response, its body being sent at once with its length.
+     * @param response the response to write.
+     * @return the completion of the write.
+     */
+    Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setRawStatusCode(status);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+}
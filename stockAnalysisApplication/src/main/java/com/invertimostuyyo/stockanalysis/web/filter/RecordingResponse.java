@@ -0,0 +1,40 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.Optional;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes the response through, while recording it with a {@link BodyRecorder}.
+ */
+class RecordingResponse extends ServerHttpResponseDecorator {
+
+    private final BodyRecorder recorder;
+
+    RecordingResponse(ServerHttpResponse delegate, long maxBodySize) {
+        super(delegate);
+        this.recorder = new BodyRecorder(maxBodySize);
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return super.writeWith(Flux.from(body).doOnNext(recorder::record));
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        recorder.discard();
+        return super.writeAndFlushWith(body);
+    }
+
+    /**
+     * @return the response written, or empty if it was streamed or too large.
+     */
+    Optional<RecordedResponse> getRecordedResponse() {
+        return recorder.toRecordedResponse(getRawStatusCode(), getHeaders());
+    }
+}
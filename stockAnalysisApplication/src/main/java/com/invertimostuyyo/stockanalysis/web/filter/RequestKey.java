@@ -0,0 +1,127 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Identifies the proxied GET requests which get the same response: same route, path, query, {@code Accept} and {@code Accept-Encoding}
+ * headers and principal.
+ * <p>
+ * A response may only be shared by the requests of a key when its {@code Vary} header names none but the headers of the key: see
+ * {@link #isVaryCovered(HttpHeaders)}.
+ */
+final class RequestKey {
+
+    /**
+     * The request headers of the key, in lower case.
+     */
+    private static final Set<String> KEY_HEADERS = Set.of(
+        HttpHeaders.ACCEPT.toLowerCase(Locale.ROOT),
+        HttpHeaders.ACCEPT_ENCODING.toLowerCase(Locale.ROOT)
+    );
+
+    private final String routeId;
+    private final String path;
+    private final String query;
+    private final String accept;
+    private final String acceptEncoding;
+    private final String principal;
+
+    private RequestKey(String routeId, String path, String query, String accept, String acceptEncoding, String principal) {
+        this.routeId = routeId;
+        this.path = path;
+        this.query = query;
+        this.accept = accept;
+        this.acceptEncoding = acceptEncoding;
+        this.principal = principal;
+    }
+
+    static RequestKey of(Route route, ServerHttpRequest request, String principal) {
+        return new RequestKey(
+            route.getId(),
+            request.getURI().getRawPath(),
+            Objects.toString(request.getURI().getRawQuery(), ""),
+            String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT)),
+            String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING)),
+            principal
+        );
+    }
+
+    /**
+     * @param responseHeaders the headers of a response.
+     * @return whether the response is the same for all the requests of its key: its {@code Vary} header, if any, names none but the
+     * headers of the key, and not {@code *}.
+     */
+    static boolean isVaryCovered(HttpHeaders responseHeaders) {
+        for (String vary : responseHeaders.getOrEmpty(HttpHeaders.VARY)) {
+            for (String name : vary.split(",")) {
+                String header = name.trim().toLowerCase(Locale.ROOT);
+                if (!header.isEmpty() && !KEY_HEADERS.contains(header)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    String getRouteId() {
+        return routeId;
+    }
+
+    /**
+     * @return whether the requests of the key have a principal.
+     */
+    boolean isAuthenticated() {
+        return !principal.isEmpty();
+    }
+
+    /**
+     * @param route the route of a written resource.
+     * @param path the path of the written resource.
+     * @return whether the response may hold the resource: the resource, its sub-resources, or the collections it belongs to.
+     */
+    boolean isAffectedBy(Route route, String path) {
+        return (
+            routeId.equals(route.getId()) &&
+            (this.path.equals(path) || this.path.startsWith(path + "/") || path.startsWith(this.path + "/"))
+        );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey that = (RequestKey) o;
+        return (
+            routeId.equals(that.routeId) &&
+            path.equals(that.path) &&
+            query.equals(that.query) &&
+            accept.equals(that.accept) &&
+            acceptEncoding.equals(that.acceptEncoding) &&
+            principal.equals(that.principal)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(routeId, path, query, accept, acceptEncoding, principal);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RequestKey{" +
+            "routeId='" + routeId + "'" +
+            ", path='" + path + "'" +
+            ", query='" + query + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,578 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches the responses of the GET requests, and revalidates them with their {@code ETag}.
+ * <p>
+ * The responses are cached by route, path, query, {@code Accept} and {@code Accept-Encoding} headers and principal, for the routes
+ * listed in the configuration, by route id or by service id. Only the successful responses, not streamed, no larger than the configured
+ * maximum, without cookie and whose {@code Vary} header names none but the headers of the key, are cached. They are given an
+ * {@code ETag}, a digest of their body, unless they have one.
+ * <p>
+ * A service opts its responses in with a {@code Surrogate-Control: max-age}, which is read by this cache only and stripped from the
+ * response, so that the browsers may be told to revalidate with {@code Cache-Control: no-cache}, as TradingAnalysis does for the GET
+ * requests of its reference data. Without a {@code Surrogate-Control}, the {@code Cache-Control} of the response is honoured: the
+ * responses with {@code no-store} - written by Spring Security by default - or {@code no-cache} are not cached, nor the {@code private}
+ * responses of the requests without principal.
+ * <p>
+ * A request whose {@code If-None-Match} header matches the cached response, or the response just proxied, is answered with a
+ * {@code 304 Not Modified}, and any other request with the cached response, without proxying the request. A cached response is fresh
+ * for the configured time to live, or for the {@code max-age} of its {@code Surrogate-Control}, or else the {@code s-maxage} or
+ * {@code max-age} of its {@code Cache-Control}, if shorter, and a response with a {@code max-age} of 0 is not cached. A cached response
+ * older than its time to live is still served during the stale-while-revalidate delay, while a single request refreshes it in the
+ * background.
+ * <p>
+ * A POST, PUT, PATCH or DELETE request evicts the cached responses of its route whose path is the written path, a sub-path or a parent
+ * path of it, before and after it is proxied, and the responses of these paths being proxied are not cached. A write to another
+ * resource is only seen once the cached responses expire. The GET requests marked as streamed by the
+ * {@link StreamingGatewayFilterFactory} are not cached.
+ * <p>
+ * The cached responses are kept on the heap, bounded by the size of their bodies, and their metrics are published to Micrometer under
+ * the {@code cache.*} meters, tagged with {@code cache=gateway.responses}. The filter is ordered before the
+ * {@link CoalescingGatewayFilterFactory coalescing filter}, so that a cached response is not coalesced.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends RouteSelectingGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_NAME = "gateway.responses";
+
+    public static final String SURROGATE_CONTROL = "Surrogate-Control";
+
+    /**
+     * The headers of a cached response which its {@code 304 Not Modified} carries, as the {@code 200 OK} would have (RFC 9110, 15.4.5).
+     */
+    private static final List<String> NOT_MODIFIED_HEADERS = List.of(
+        HttpHeaders.CACHE_CONTROL,
+        HttpHeaders.CONTENT_LOCATION,
+        HttpHeaders.DATE,
+        HttpHeaders.ETAG,
+        HttpHeaders.EXPIRES,
+        HttpHeaders.VARY
+    );
+
+    private final Logger log = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+
+    private final Cache<RequestKey, CachedResponse> cache;
+
+    /**
+     * The keys of the cached responses by route id, so that a write request evicts the responses of its route without scanning the
+     * whole cache. A key is indexed and unindexed atomically with the storage and removal of its response.
+     */
+    private final Map<String, Set<RequestKey>> keysByRoute = new ConcurrentHashMap<>();
+
+    /**
+     * The responses being proxied to be cached, which a write request to their resource marks as evicted, so that a response read
+     * before the write is not cached, as it may be stale, without preventing the caching of the other resources.
+     */
+    private final Set<CachingResponse> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Set<RequestKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    public ResponseCacheGatewayFilterFactory(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.cache =
+            CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine
+                    .newBuilder()
+                    .maximumWeight(applicationProperties.getResponseCache().getMaxSize().toBytes())
+                    .weigher((RequestKey key, CachedResponse value) -> value.getResponse().getBody().length)
+                    .expireAfter(new CachedResponseExpiry())
+                    .evictionListener((RequestKey key, CachedResponse value, RemovalCause cause) -> unindex(key))
+                    .recordStats()
+                    .build(),
+                CACHE_NAME
+            );
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(
+            (exchange, chain) -> {
+                Route route = getSelectedRoute(exchange, config);
+                HttpMethod method = exchange.getRequest().getMethod();
+                if (route == null) {
+                    return chain.filter(exchange);
+                }
+                if (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE) {
+                    String path = exchange.getRequest().getURI().getRawPath();
+                    evict(route, path);
+                    return chain.filter(exchange).doFinally(signal -> evict(route, path));
+                }
+                if (method != HttpMethod.GET || StreamingGatewayFilterFactory.isStreaming(exchange)) {
+                    return chain.filter(exchange);
+                }
+                return exchange
+                    .getPrincipal()
+                    .map(Principal::getName)
+                    .defaultIfEmpty("")
+                    .flatMap(principal -> filter(exchange, chain, RequestKey.of(route, exchange.getRequest(), principal), config));
+            },
+            NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 4
+        );
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, RequestKey key, Config config) {
+        CachedResponse cached = isNoCache(exchange) ? null : cache.getIfPresent(key);
+        if (cached == null) {
+            return proxy(exchange, chain, key, config);
+        }
+        if (!cached.isFresh()) {
+            refresh(exchange, chain, key, config);
+        }
+        HttpHeaders cachedHeaders = cached.getResponse().getHeaders();
+        if (matches(exchange.getRequest().getHeaders().getIfNoneMatch(), cachedHeaders.getETag())) {
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+            for (String header : NOT_MODIFIED_HEADERS) {
+                List<String> values = cachedHeaders.get(header);
+                if (values != null) {
+                    exchange.getResponse().getHeaders().put(header, values);
+                }
+            }
+            return exchange.getResponse().setComplete();
+        }
+        return cached.getResponse().writeTo(exchange.getResponse());
+    }
+
+    private Mono<Void> proxy(ServerWebExchange exchange, GatewayFilterChain chain, RequestKey key, Config config) {
+        CachingResponse response = new CachingResponse(
+            exchange.getResponse(),
+            key,
+            config.getMaxBodySize().toBytes(),
+            exchange.getRequest().getHeaders().getIfNoneMatch()
+        );
+        inFlight.add(response);
+        return chain
+            .filter(exchange.mutate().response(response).build())
+            .doOnSuccess(done -> store(response, config))
+            .doFinally(signal -> inFlight.remove(response));
+    }
+
+    /**
+     * Proxies the request again in the background, unless it is already being refreshed, to replace a stale response. The refresh has
+     * its own exchange attributes, and no conditional headers, so that its response can be stored whatever the client has cached.
+     */
+    private void refresh(ServerWebExchange exchange, GatewayFilterChain chain, RequestKey key, Config config) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        log.debug("Refreshing the stale response of {}", key);
+        CachingResponse response = new CachingResponse(
+            new DetachedResponse(exchange.getResponse().bufferFactory()),
+            key,
+            config.getMaxBodySize().toBytes(),
+            List.of()
+        );
+        inFlight.add(response);
+        chain
+            .filter(new RefreshExchange(exchange, response))
+            .doOnSuccess(done -> store(response, config))
+            .doFinally(signal -> {
+                inFlight.remove(response);
+                refreshing.remove(key);
+            })
+            .subscribe(null, e -> log.debug("Could not refresh the stale response of {}: {}", key, e.getMessage()));
+    }
+
+    private void store(CachingResponse response, Config config) {
+        RequestKey key = response.getKey();
+        response
+            .getCachedResponse()
+            .filter(recorded -> !response.isEvicted() && RequestKey.isVaryCovered(recorded.getHeaders()))
+            .ifPresent(recorded ->
+                getTimeToLive(recorded.getHeaders(), response.getSurrogateControl(), key.isAuthenticated(), config.getTimeToLive())
+                    .ifPresent(timeToLive -> {
+                        CachedResponse cached = new CachedResponse(recorded, timeToLive, config.getStaleWhileRevalidate());
+                        cache
+                            .asMap()
+                            .compute(
+                                key,
+                                (k, previous) -> {
+                                    keysByRoute.computeIfAbsent(k.getRouteId(), routeId -> ConcurrentHashMap.newKeySet()).add(k);
+                                    return cached;
+                                }
+                            );
+                    })
+            );
+    }
+
+    /**
+     * @return the time to live of a response, from its {@code Surrogate-Control} if any, or else from its {@code Cache-Control}, or
+     * empty if it must not be cached.
+     */
+    private static Optional<Duration> getTimeToLive(
+        HttpHeaders headers,
+        List<String> surrogateControl,
+        boolean authenticated,
+        Duration timeToLive
+    ) {
+        if (!surrogateControl.isEmpty()) {
+            Map<String, String> directives = getDirectives(surrogateControl);
+            if (directives.containsKey("no-store")) {
+                return Optional.empty();
+            }
+            return getTimeToLive(directives.get("max-age"), timeToLive);
+        }
+        Map<String, String> directives = getDirectives(headers.getOrEmpty(HttpHeaders.CACHE_CONTROL));
+        if (
+            directives.containsKey("no-store") ||
+            directives.containsKey("no-cache") ||
+            (directives.containsKey("private") && !authenticated)
+        ) {
+            return Optional.empty();
+        }
+        return getTimeToLive(directives.getOrDefault("s-maxage", directives.get("max-age")), timeToLive);
+    }
+
+    /**
+     * @return the max age of a response, if shorter than the configured time to live, or empty if it is 0.
+     */
+    private static Optional<Duration> getTimeToLive(String maxAge, Duration timeToLive) {
+        if (maxAge == null) {
+            return Optional.of(timeToLive);
+        }
+        try {
+            Duration duration = Duration.ofSeconds(Long.parseLong(maxAge));
+            if (duration.isNegative() || duration.isZero()) {
+                return Optional.empty();
+            }
+            return Optional.of(duration.compareTo(timeToLive) < 0 ? duration : timeToLive);
+        } catch (NumberFormatException e) {
+            return Optional.of(timeToLive);
+        }
+    }
+
+    private static Map<String, String> getDirectives(List<String> headerValues) {
+        Map<String, String> directives = new HashMap<>();
+        for (String headerValue : headerValues) {
+            for (String directive : headerValue.split(",")) {
+                String[] nameAndValue = directive.trim().toLowerCase(Locale.ROOT).split("=", 2);
+                directives.putIfAbsent(nameAndValue[0], nameAndValue.length == 2 ? nameAndValue[1].replace("\"", "") : "");
+            }
+        }
+        return directives;
+    }
+
+    private void evict(Route route, String path) {
+        for (CachingResponse response : inFlight) {
+            if (response.getKey().isAffectedBy(route, path)) {
+                response.evict();
+            }
+        }
+        Set<RequestKey> keys = keysByRoute.get(route.getId());
+        if (keys == null) {
+            return;
+        }
+        for (RequestKey key : keys) {
+            if (key.isAffectedBy(route, path)) {
+                cache
+                    .asMap()
+                    .compute(
+                        key,
+                        (k, cached) -> {
+                            unindex(k);
+                            return null;
+                        }
+                    );
+            }
+        }
+    }
+
+    private void unindex(RequestKey key) {
+        Set<RequestKey> keys = keysByRoute.get(key.getRouteId());
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    private static boolean isNoCache(ServerWebExchange exchange) {
+        String cacheControl = exchange.getRequest().getHeaders().getCacheControl();
+        return cacheControl != null && cacheControl.contains("no-cache");
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag));
+    }
+
+    /**
+     * A cached response, fresh until its time to live, then stale until the end of its stale-while-revalidate delay.
+     */
+    private static final class CachedResponse {
+
+        private final RecordedResponse response;
+        private final long createdAt = System.nanoTime();
+        private final Duration timeToLive;
+        private final Duration staleWhileRevalidate;
+
+        CachedResponse(RecordedResponse response, Duration timeToLive, Duration staleWhileRevalidate) {
+            this.response = response;
+            this.timeToLive = timeToLive;
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        RecordedResponse getResponse() {
+            return response;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - createdAt < timeToLive.toNanos();
+        }
+
+        long getExpiration() {
+            return timeToLive.plus(staleWhileRevalidate).toNanos();
+        }
+    }
+
+    private static final class CachedResponseExpiry implements Expiry<RequestKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(RequestKey key, CachedResponse value, long currentTime) {
+            return value.getExpiration();
+        }
+
+        @Override
+        public long expireAfterUpdate(RequestKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.getExpiration();
+        }
+
+        @Override
+        public long expireAfterRead(RequestKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * The exchange of a refresh, with its own copy of the exchange attributes, and the request without its conditional headers.
+     */
+    private static final class RefreshExchange extends ServerWebExchangeDecorator {
+
+        private final Map<String, Object> attributes;
+
+        RefreshExchange(ServerWebExchange exchange, ServerHttpResponse response) {
+            super(exchange.mutate().request(new UnconditionalRequest(exchange.getRequest())).response(response).build());
+            this.attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+            this.attributes.computeIfPresent(
+                ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR,
+                (name, urls) -> new LinkedHashSet<>((Collection<?>) urls)
+            );
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+    }
+
+    /**
+     * A request without its conditional headers, whose headers are copied so that those of the request it decorates are unchanged.
+     */
+    private static final class UnconditionalRequest extends ServerHttpRequestDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        UnconditionalRequest(ServerHttpRequest delegate) {
+            super(delegate);
+            headers.putAll(delegate.getHeaders());
+            headers.remove(HttpHeaders.IF_NONE_MATCH);
+            headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return HttpHeaders.readOnlyHttpHeaders(headers);
+        }
+    }
+
+    /**
+     * Writes the response through, holding back a body no larger than the maximum size until it is complete, so that it is sent
+     * with its {@code ETag} and {@code Content-Length} headers and can be cached, or answered with a {@code 304 Not Modified} if its
+     * {@code ETag} matches the {@code If-None-Match} header of the request. The {@code Surrogate-Control} header is kept aside, and
+     * removed before the response is committed.
+     */
+    private static final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final RequestKey key;
+        private final long maxBodySize;
+        private final List<String> ifNoneMatch;
+        private volatile byte[] body;
+        private volatile boolean notModified;
+        private volatile boolean evicted;
+        private volatile List<String> surrogateControl = List.of();
+
+        CachingResponse(ServerHttpResponse delegate, RequestKey key, long maxBodySize, List<String> ifNoneMatch) {
+            super(delegate);
+            this.key = key;
+            this.maxBodySize = maxBodySize;
+            this.ifNoneMatch = ifNoneMatch;
+            delegate.beforeCommit(() -> {
+                surrogateControl = List.copyOf(delegate.getHeaders().getOrEmpty(SURROGATE_CONTROL));
+                delegate.getHeaders().remove(SURROGATE_CONTROL);
+                return Mono.empty();
+            });
+        }
+
+        List<String> getSurrogateControl() {
+            return surrogateControl;
+        }
+
+        RequestKey getKey() {
+            return key;
+        }
+
+        /**
+         * Marks the response as possibly stale, as its resource was written while it was proxied.
+         */
+        void evict() {
+            evicted = true;
+        }
+
+        boolean isEvicted() {
+            return evicted;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            AtomicLong size = new AtomicLong();
+            // the buffers held until the body is complete are released when the client goes away before
+            Flux<DataBuffer> buffers = PooledBuffers.releaseDiscarded(
+                Flux
+                    .from(body)
+                    .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodySize)
+                    .index()
+                    .map(chunk -> isWholeBody(chunk.getT1(), size.get()) ? record(chunk.getT2()) : bufferFactory().join(chunk.getT2()))
+            );
+            return super.writeWith(buffers);
+        }
+
+        /**
+         * The first chunk is held back until the body is complete, unless the body gets larger than the maximum size.
+         */
+        private boolean isWholeBody(long chunkIndex, long bodySize) {
+            return chunkIndex == 0 && bodySize <= maxBodySize;
+        }
+
+        /**
+         * Records the whole body, and sets the headers derived from it before the response is committed.
+         */
+        private DataBuffer record(List<? extends DataBuffer> chunk) {
+            DataBuffer buffer = bufferFactory().join(chunk);
+            ByteBuffer bytes = buffer.asByteBuffer();
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.get(copy);
+            HttpHeaders headers = getHeaders();
+            if (headers.getETag() == null) {
+                headers.setETag("\"" + DigestUtils.md5DigestAsHex(copy) + "\"");
+            }
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            this.body = copy;
+            if (Integer.valueOf(HttpStatus.OK.value()).equals(getRawStatusCode()) && matches(ifNoneMatch, headers.getETag())) {
+                notModified = true;
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                DataBufferUtils.release(buffer);
+                return bufferFactory().wrap(new byte[0]);
+            }
+            headers.setContentLength(copy.length);
+            return buffer;
+        }
+
+        /**
+         * @return the response written, or empty if it is not a whole successful response without cookie.
+         */
+        Optional<RecordedResponse> getCachedResponse() {
+            HttpHeaders headers = getHeaders();
+            if (
+                body == null ||
+                !(notModified || Integer.valueOf(HttpStatus.OK.value()).equals(getRawStatusCode())) ||
+                headers.containsKey(HttpHeaders.SET_COOKIE)
+            ) {
+                return Optional.empty();
+            }
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(headers);
+            copy.setContentLength(body.length);
+            return Optional.of(new RecordedResponse(HttpStatus.OK.value(), copy, body));
+        }
+    }
+
+    public static class Config extends RoutesConfig<Config> {
+
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        private Duration timeToLive = Duration.ofSeconds(30);
+
+        private Duration staleWhileRevalidate = Duration.ofSeconds(10);
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public Config setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public Config setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public Config setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            return this;
+        }
+    }
+}
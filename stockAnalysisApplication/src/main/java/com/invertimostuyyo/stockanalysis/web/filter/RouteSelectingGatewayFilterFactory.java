@@ -0,0 +1,71 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Base of the gateway filter factories which apply to the routes listed in their configuration, by route id or by service id, such as
+ * {@code Streaming=tradinganalysis,portfoliomanagement}. A filter of these factories passes the requests of the other routes through.
+ *
+ * @param <C> the type of the configuration.
+ */
+public abstract class RouteSelectingGatewayFilterFactory<C extends RouteSelectingGatewayFilterFactory.RoutesConfig<C>>
+    extends AbstractGatewayFilterFactory<C> {
+
+    public static final String ROUTES_KEY = "routes";
+
+    protected RouteSelectingGatewayFilterFactory(Class<C> configClass) {
+        super(configClass);
+    }
+
+    /**
+     * @param exchange an exchange.
+     * @param config the configuration of the filter.
+     * @return the route of the exchange, or {@code null} when the exchange is not routed or its route is not selected.
+     */
+    protected static Route getSelectedRoute(ServerWebExchange exchange, RoutesConfig<?> config) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null && config.isSelected(route) ? route : null;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of(ROUTES_KEY);
+    }
+
+    @Override
+    public ShortcutType shortcutType() {
+        return ShortcutType.GATHER_LIST;
+    }
+
+    /**
+     * @param <C> the type of the configuration, returned by its setters.
+     */
+    public abstract static class RoutesConfig<C extends RoutesConfig<C>> {
+
+        private List<String> routes = new ArrayList<>();
+
+        public List<String> getRoutes() {
+            return routes;
+        }
+
+        @SuppressWarnings("unchecked")
+        public C setRoutes(List<String> routes) {
+            this.routes = routes;
+            return (C) this;
+        }
+
+        /**
+         * @param route a route.
+         * @return whether the route is listed in the configuration, by its id or by the service id of its URI, ignoring case.
+         */
+        public boolean isSelected(Route route) {
+            String serviceId = route.getUri().getHost();
+            return routes.stream().anyMatch(name -> name.equalsIgnoreCase(route.getId()) || name.equalsIgnoreCase(serviceId));
+        }
+    }
+}
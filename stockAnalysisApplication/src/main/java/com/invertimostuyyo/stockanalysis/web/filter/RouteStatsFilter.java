@@ -0,0 +1,43 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import com.invertimostuyyo.stockanalysis.service.RouteTableService;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records the requests of each route, with their latency, in the {@link RouteTableService}.
+ * <p>
+ * The filter is ordered before the rate limit, cache, coalescing, concurrency limit and hedging filters, so that the latency is the one
+ * seen by the clients, and the rejected or cached requests are counted too.
+ */
+@Component
+public class RouteStatsFilter implements GlobalFilter, Ordered {
+
+    private final RouteTableService routeTableService;
+
+    public RouteStatsFilter(RouteTableService routeTableService) {
+        this.routeTableService = routeTableService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> routeTableService.recordRequest(route.getId(), System.nanoTime() - start));
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 6;
+    }
+}
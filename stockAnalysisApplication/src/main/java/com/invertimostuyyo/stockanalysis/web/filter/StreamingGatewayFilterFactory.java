@@ -0,0 +1,95 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Marks the streamed requests of the configured routes, so that their bodies are proxied as they are read, without being recorded,
+ * aggregated or decoded by the gateway.
+ * <p>
+ * A request of a route listed in the configuration, by route id or by service id, is streamed when it accepts or sends one of the
+ * configured media types, such as a bulk export or import in {@code application/x-ndjson}. The pooled buffers of a streamed body are
+ * then written through by the {@link ResponseCacheGatewayFilterFactory cache}, {@link CoalescingGatewayFilterFactory coalescing} and
+ * {@link HedgingGatewayFilterFactory hedging} filters, with the backpressure of the client, and released once written.
+ * <p>
+ * The filter is ordered before these filters, so that they see the mark.
+ */
+@Component
+public class StreamingGatewayFilterFactory extends RouteSelectingGatewayFilterFactory<StreamingGatewayFilterFactory.Config> {
+
+    public static final String STREAMING_ATTR = StreamingGatewayFilterFactory.class.getName() + ".streaming";
+
+    public StreamingGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    /**
+     * @param exchange an exchange.
+     * @return whether the bodies of the exchange are streamed.
+     */
+    public static boolean isStreaming(ServerWebExchange exchange) {
+        return exchange.getAttributeOrDefault(STREAMING_ATTR, Boolean.FALSE);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(
+            (exchange, chain) -> {
+                if (getSelectedRoute(exchange, config) != null && config.isStreamed(exchange.getRequest().getHeaders())) {
+                    exchange.getAttributes().put(STREAMING_ATTR, Boolean.TRUE);
+                }
+                return chain.filter(exchange);
+            },
+            NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 7
+        );
+    }
+
+    public static class Config extends RoutesConfig<Config> {
+
+        /**
+         * The media type of the streamed JSON of former clients, by name since Spring deprecated its constant for NDJSON.
+         */
+        private static final MediaType APPLICATION_STREAM_JSON = MediaType.valueOf("application/stream+json");
+
+        private List<MediaType> mediaTypes = new ArrayList<>(
+            List.of(MediaType.APPLICATION_NDJSON, APPLICATION_STREAM_JSON, MediaType.TEXT_EVENT_STREAM)
+        );
+
+        public List<MediaType> getMediaTypes() {
+            return mediaTypes;
+        }
+
+        public Config setMediaTypes(List<MediaType> mediaTypes) {
+            this.mediaTypes = mediaTypes;
+            return this;
+        }
+
+        /**
+         * A wildcard {@code Accept} header does not make a request streamed, as the response is then rarely streamed, nor a malformed
+         * {@code Accept} or {@code Content-Type} header, which is left to the downstream service to reject.
+         */
+        boolean isStreamed(HttpHeaders headers) {
+            try {
+                MediaType contentType = headers.getContentType();
+                return (
+                    mediaTypes.stream().anyMatch(mediaType -> contentType != null && mediaType.isCompatibleWith(contentType)) ||
+                    headers
+                        .getAccept()
+                        .stream()
+                        .filter(accepted -> !accepted.isWildcardType())
+                        .anyMatch(accepted -> mediaTypes.stream().anyMatch(mediaType -> mediaType.isCompatibleWith(accepted)))
+                );
+            } catch (InvalidMediaTypeException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A table of token buckets, one per key, each holding up to {@code capacity} tokens and refilled with {@code capacity} tokens per
+ * period.
+ * <p>
+ * The table is split in stripes, each guarded by its own lock, so that the requests of different keys seldom contend. Each stripe keeps
+ * its buckets in least recently used order and holds at most its share of the maximum number of buckets: the least recently used
+ * bucket is evicted when the stripe is full, or as soon as it has been idle long enough to be full again, as it is then the same as a
+ * new bucket.
+ */
+final class TokenBucketTable {
+
+    private static final int STRIPE_BITS = 6;
+
+    static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final long capacity;
+    private final long periodNanos;
+    private final LongSupplier nanoTime;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    TokenBucketTable(long capacity, long periodNanos, int maxBuckets, LongSupplier nanoTime) {
+        this.capacity = capacity;
+        this.periodNanos = periodNanos;
+        this.nanoTime = nanoTime;
+        int maxBucketsPerStripe = Math.max(1, maxBuckets / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxBucketsPerStripe);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the key, creating a full bucket if needed.
+     * @param key the key of the bucket.
+     * @return the outcome, and the state of the bucket after it.
+     */
+    Consumption tryConsume(String key) {
+        Stripe stripe = stripes[getStripe(key)];
+        synchronized (stripe) {
+            long now = nanoTime.getAsLong();
+            stripe.now = now;
+            Bucket bucket = stripe.get(key);
+            if (bucket != null) {
+                bucket.refill(now);
+            } else {
+                bucket = new Bucket(capacity, now);
+            }
+            boolean consumed = bucket.tokens >= 1;
+            if (consumed) {
+                bucket.tokens--;
+            }
+            // A new bucket is added once a token is taken, so that it is not seen as idle by the eviction
+            stripe.putIfAbsent(key, bucket);
+            return new Consumption(
+                consumed,
+                (long) bucket.tokens,
+                getNanosToRefill(capacity - bucket.tokens),
+                getNanosToRefill(1 - bucket.tokens)
+            );
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Spreads the keys over the stripes with a multiplicative (Fibonacci) hash, as the hash codes of similar keys, such as the logins
+     * of the users, differ mostly in their low bits.
+     */
+    private static int getStripe(String key) {
+        return (key.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - STRIPE_BITS);
+    }
+
+    private long getNanosToRefill(double tokens) {
+        return tokens <= 0 ? 0 : (long) Math.ceil(tokens * periodNanos / capacity);
+    }
+
+    /**
+     * The outcome of {@link #tryConsume(String)}.
+     */
+    static final class Consumption {
+
+        private final boolean consumed;
+        private final long remaining;
+        private final long nanosToReset;
+        private final long nanosToNextToken;
+
+        Consumption(boolean consumed, long remaining, long nanosToReset, long nanosToNextToken) {
+            this.consumed = consumed;
+            this.remaining = remaining;
+            this.nanosToReset = nanosToReset;
+            this.nanosToNextToken = nanosToNextToken;
+        }
+
+        boolean isConsumed() {
+            return consumed;
+        }
+
+        long getRemaining() {
+            return remaining;
+        }
+
+        long getNanosToReset() {
+            return nanosToReset;
+        }
+
+        long getNanosToNextToken() {
+            return nanosToNextToken;
+        }
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+        private long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+
+        void refill(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - updatedAt) * capacity / periodNanos);
+            updatedAt = now;
+        }
+
+        boolean isFullAt(long now) {
+            return tokens + (double) (now - updatedAt) * capacity / periodNanos >= capacity;
+        }
+    }
+
+    private final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private final int maxBuckets;
+        private long now;
+
+        Stripe(int maxBuckets) {
+            super(16, 0.75f, true);
+            this.maxBuckets = maxBuckets;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxBuckets || eldest.getValue().isFullAt(now);
+        }
+    }
+}
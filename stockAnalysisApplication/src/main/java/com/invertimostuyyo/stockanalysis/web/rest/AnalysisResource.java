@@ -1,24 +1,37 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
 import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.criteria.AnalysisCriteria;
 import com.invertimostuyyo.stockanalysis.repository.AnalysisRepository;
+import com.invertimostuyyo.stockanalysis.repository.BatchSummary;
+import com.invertimostuyyo.stockanalysis.repository.Keyset;
+import com.invertimostuyyo.stockanalysis.service.EntityCache;
 import com.invertimostuyyo.stockanalysis.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.stockanalysis.web.rest.util.BatchUtil;
+import com.invertimostuyyo.stockanalysis.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,13 +49,29 @@ public class AnalysisResource {
 
     private static final String ENTITY_NAME = "analysis";
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "date");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final AnalysisRepository analysisRepository;
 
-    public AnalysisResource(AnalysisRepository analysisRepository) {
+    private final EntityCache<Analysis> analysisCache;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public AnalysisResource(
+        AnalysisRepository analysisRepository,
+        EntityCache<Analysis> analysisCache,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.analysisRepository = analysisRepository;
+        this.analysisCache = analysisCache;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -60,6 +89,7 @@ public class AnalysisResource {
         }
         return analysisRepository
             .save(analysis)
+            .delayUntil(result -> analysisCache.evict(result.getId()))
             .map(result -> {
                 try {
                     return ResponseEntity
@@ -72,6 +102,38 @@ public class AnalysisResource {
             });
     }
 
+    /**
+     * {@code POST  /analyses/batch} : Create, or update with {@code upsert}, a batch of analyses.
+     * <p>
+     * The analyses are read as a JSON array or as newline delimited JSON, and written in chunks with multi-row statements. A faulty analysis
+     * does not fail the batch: it is reported in the failures, along with its index in the request.
+     *
+     * @param analyses the analyses to write.
+     * @param upsert whether the analyses with an ID are updated, or inserted with their ID when missing, instead of being rejected.
+     * @return the {@link Mono} of the numbers of rows created, updated and failed, with the results of the failed rows in the order of
+     * the request.
+     */
+    @PostMapping(
+        value = "/analyses/batch",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BatchSummary> createAnalysisBatch(
+        @RequestBody Flux<Analysis> analyses,
+        @RequestParam(value = "upsert", defaultValue = "false") boolean upsert
+    ) {
+        log.debug("REST request to save a batch of Analysiss, upsert: {}", upsert);
+        return BatchUtil.writeAll(
+            analyses,
+            applicationProperties.getBatch().getChunkSize(),
+            upsert,
+            validator,
+            Analysis::getId,
+            chunk -> analysisRepository.writeAll(chunk, upsert).concatWith(analysisCache.evictAll().thenMany(Flux.empty()))
+        );
+    }
+
     /**
      * {@code PUT  /analyses/:id} : Updates an existing analysis.
      *
@@ -104,6 +166,7 @@ public class AnalysisResource {
 
                 return analysisRepository
                     .save(analysis)
+                    .delayUntil(result -> analysisCache.evict(result.getId()))
                     .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
                     .map(result ->
                         ResponseEntity
@@ -157,7 +220,8 @@ public class AnalysisResource {
 
                         return existingAnalysis;
                     })
-                    .flatMap(analysisRepository::save);
+                    .flatMap(analysisRepository::save)
+                    .delayUntil(res -> analysisCache.evict(res.getId()));
 
                 return result
                     .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
@@ -173,22 +237,84 @@ public class AnalysisResource {
     /**
      * {@code GET  /analyses} : get all the analyses.
      *
+     * @param criteria the criteria which the requested entities should match.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of analyses in body.
      */
     @GetMapping("/analyses")
-    public Mono<List<Analysis>> getAllAnalyses() {
-        log.debug("REST request to get all Analyses");
-        return analysisRepository.findAll().collectList();
+    public Mono<List<Analysis>> getAllAnalyses(AnalysisCriteria criteria) {
+        log.debug("REST request to get Analyses by criteria: {}", criteria);
+        return analysisCache.findAll(criteria, () -> analysisRepository.findByCriteria(criteria).collectList());
     }
 
     /**
      * {@code GET  /analyses} : get all the analyses as a stream.
+     * @param criteria the criteria which the requested entities should match.
      * @return the {@link Flux} of analyses.
      */
     @GetMapping(value = "/analyses", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<Analysis> getAllAnalysesAsStream() {
-        log.debug("REST request to get all Analyses as a stream");
-        return analysisRepository.findAll();
+    public Flux<Analysis> getAllAnalysesAsStream(AnalysisCriteria criteria) {
+        log.debug("REST request to get Analyses as a stream by criteria: {}", criteria);
+        return analysisRepository.findByCriteria(criteria);
+    }
+
+    /**
+     * {@code GET  /analyses/count} : count all the analyses.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/analyses/count")
+    public Mono<ResponseEntity<Long>> countAnalyses(AnalysisCriteria criteria) {
+        log.debug("REST request to count Analyses by criteria: {}", criteria);
+        return analysisRepository.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
+    }
+
+    /**
+     * {@code GET  /analyses?size=:size&after=:id} : get a keyset page of the analyses, following the analysis with the "after" id.
+     * <p>
+     * The page is read by seeking past the sort key and id of the "after" analysis, so deep pages cost the same as the first one.
+     * The {@code Link} header holds the {@code next} page while the page is full.
+     *
+     * @param after the id of the last analysis of the previous page, or null for the first page.
+     * @param criteria the criteria which the requested entities should match.
+     * @param pageable the page size and the sort order, on at most one of {@code id}, {@code date} - the page number is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of analyses in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the "after" analysis are not valid.
+     */
+    @GetMapping(value = "/analyses", params = "size")
+    public Mono<ResponseEntity<List<Analysis>>> getAnalysesAfter(
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) Long after,
+        AnalysisCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Analyses after : {} by criteria: {}", after, criteria);
+        if (!KeysetPaginationUtil.isSortable(pageable, SORTABLE_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Keyset first = KeysetPaginationUtil.createKeyset(pageable);
+        Mono<Keyset> keyset = after == null ? Mono.just(first) : analysisRepository.findKeysetAfter(after, first);
+        return keyset
+            .flatMap(k ->
+                analysisRepository
+                    .findAllByKeyset(k, criteria)
+                    .collectList()
+                    .map(analyses ->
+                        ResponseEntity
+                            .ok()
+                            .headers(
+                                KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    analyses,
+                                    k,
+                                    Analysis::getId
+                                )
+                            )
+                            .body(analyses)
+                    )
+            )
+            .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
     /**
@@ -200,7 +326,7 @@ public class AnalysisResource {
     @GetMapping("/analyses/{id}")
     public Mono<ResponseEntity<Analysis>> getAnalysis(@PathVariable Long id) {
         log.debug("REST request to get Analysis : {}", id);
-        Mono<Analysis> analysis = analysisRepository.findById(id);
+        Mono<Analysis> analysis = analysisCache.findById(id, analysisRepository::findById);
         return ResponseUtil.wrapOrNotFound(analysis);
     }
 
@@ -215,6 +341,7 @@ public class AnalysisResource {
         log.debug("REST request to delete Analysis : {}", id);
         return analysisRepository
             .deleteById(id)
+            .then(analysisCache.evict(id))
             .then(
                 Mono.just(
                     ResponseEntity
@@ -0,0 +1,304 @@
+package com.invertimostuyyo.stockanalysis.web.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import com.invertimostuyyo.stockanalysis.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.stockanalysis.web.rest.vm.BatchRequestVM;
+import com.invertimostuyyo.stockanalysis.web.rest.vm.BatchResponseVM;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.AbstractServerHttpRequest;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.SslInfo;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for running a batch of requests in a single round trip.
+ * <p>
+ * Each sub-request is dispatched in process to the {@link HttpHandler} of the gateway, as if it had been received on its own: it is
+ * handled by the local resources, or proxied through the routes of the gateway to the services, with the same security and filters.
+ * The sub-requests carry over the {@code Authorization}, {@code Cookie} and {@code Accept-Language} headers of the batch request, and
+ * run with its security context.
+ */
+@RestController
+@RequestMapping("/api")
+public class BatchResource {
+
+    private final Logger log = LoggerFactory.getLogger(BatchResource.class);
+
+    private static final String ENTITY_NAME = "batch";
+
+    private static final String BATCH_PATH = "/api/batch";
+
+    /**
+     * Header set on the sub-requests, so that a sub-request which reaches {@link #runBatch} by any path, such as {@code /api/batch/},
+     * is refused instead of fanning out a nested batch.
+     */
+    static final String SUB_REQUEST_HEADER = "X-Batch-Sub-Request";
+
+    /**
+     * Headers of the batch request carried over to its sub-requests, which cannot set them.
+     */
+    private static final List<String> CARRIED_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE, HttpHeaders.ACCEPT_LANGUAGE);
+
+    private final ObjectProvider<HttpHandler> httpHandler;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BatchResource(ObjectProvider<HttpHandler> httpHandler, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.httpHandler = httpHandler;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * {@code POST  /batch} : Run a batch of sub-requests, concurrently up to the configured parallelism.
+     * <p>
+     * A sub-request has a method, {@code GET} by default, a path with its query, relative to the gateway, such as
+     * {@code /api/stocks?page=0} or {@code /services/tradinganalysis/api/analyses}, and optionally headers and a JSON body. A sub-request
+     * which fails does not fail the batch: its response has its own status, headers and body, the JSON bodies being embedded as is.
+     *
+     * @param requests the sub-requests to run.
+     * @param exchange the exchange of the batch request.
+     * @return the {@link Flux} of the responses, in the order of the sub-requests, or with status {@code 400 (Bad Request)} if there are
+     * too many sub-requests or if the batch is itself a sub-request.
+     */
+    @PostMapping("/batch")
+    public Flux<BatchResponseVM> runBatch(@RequestBody List<BatchRequestVM> requests, ServerWebExchange exchange) {
+        log.debug("REST request to run a batch of {} requests", requests.size());
+        if (exchange.getRequest().getHeaders().containsKey(SUB_REQUEST_HEADER)) {
+            throw new BadRequestAlertException("A batch cannot be run by a sub-request of a batch", ENTITY_NAME, "nestedbatch");
+        }
+        ApplicationProperties.BatchApi batchApi = applicationProperties.getBatchApi();
+        if (requests.size() > batchApi.getMaxRequests()) {
+            throw new BadRequestAlertException(
+                "A batch cannot have more than " + batchApi.getMaxRequests() + " requests",
+                ENTITY_NAME,
+                "toomanyrequests"
+            );
+        }
+        return Flux.fromIterable(requests).flatMapSequential(subRequest -> run(subRequest, exchange), batchApi.getParallelism());
+    }
+
+    private Mono<BatchResponseVM> run(BatchRequestVM subRequest, ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        HttpMethod method = HttpMethod.resolve(subRequest.getMethod());
+        URI uri = resolve(request, subRequest.getPath());
+        if (method == null || uri == null) {
+            return Mono.just(new BatchResponseVM(subRequest.getId(), HttpStatus.BAD_REQUEST.value()));
+        }
+        byte[] body;
+        try {
+            body = subRequest.getBody() == null ? new byte[0] : objectMapper.writeValueAsBytes(subRequest.getBody());
+        } catch (JsonProcessingException e) {
+            return Mono.just(new BatchResponseVM(subRequest.getId(), HttpStatus.BAD_REQUEST.value()));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (subRequest.getHeaders() != null) {
+            subRequest.getHeaders().forEach(headers::set);
+        }
+        for (String name : CARRIED_HEADERS) {
+            headers.remove(name);
+            Optional.ofNullable(request.getHeaders().get(name)).ifPresent(values -> headers.put(name, values));
+        }
+        headers.set(SUB_REQUEST_HEADER, Boolean.TRUE.toString());
+        if (body.length > 0) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        SubRequest dispatchedRequest = new SubRequest(method, uri, headers, body, bufferFactory, request);
+        SubResponse response = new SubResponse(bufferFactory, applicationProperties.getBatchApi().getMaxBodySize().toBytes());
+        return httpHandler
+            .getObject()
+            .handle(dispatchedRequest, response)
+            .then(Mono.fromCallable(() -> toResponseVM(subRequest.getId(), response)))
+            .onErrorResume(e -> {
+                log.debug("Could not run the sub-request {}: {}", subRequest, e.getMessage());
+                return Mono.just(new BatchResponseVM(subRequest.getId(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+            });
+    }
+
+    /**
+     * @return the URI of the sub-request, on the host of the batch request, or null if its path is not a valid path of the gateway.
+     */
+    private static URI resolve(ServerHttpRequest request, String path) {
+        if (path == null || !path.startsWith("/") || path.startsWith("//")) {
+            return null;
+        }
+        try {
+            URI uri = request.getURI().resolve(path).normalize();
+            return BATCH_PATH.equals(uri.getPath()) ? null : uri;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private BatchResponseVM toResponseVM(String id, SubResponse response) {
+        Integer status = response.getRawStatusCode();
+        BatchResponseVM responseVM = new BatchResponseVM(id, status != null ? status : HttpStatus.OK.value());
+        responseVM.getHeaders().putAll(response.getHeaders());
+        byte[] body = response.getBody();
+        if (body.length == 0) {
+            return responseVM;
+        }
+        MediaType contentType = response.getHeaders().getContentType();
+        boolean json =
+            contentType != null && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType) || contentType.getSubtype().endsWith("+json"));
+        if (json) {
+            try {
+                responseVM.setBody(objectMapper.readTree(body));
+                return responseVM;
+            } catch (IOException e) {
+                log.debug("Could not parse the JSON body of the sub-request {}: {}", id, e.getMessage());
+            }
+        }
+        Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        responseVM.setBody(TextNode.valueOf(new String(body, charset)));
+        return responseVM;
+    }
+
+    /**
+     * A sub-request, received from the client of the batch request.
+     */
+    private static final class SubRequest extends AbstractServerHttpRequest {
+
+        private final HttpMethod method;
+
+        private final byte[] body;
+
+        private final DataBufferFactory bufferFactory;
+
+        private final ServerHttpRequest request;
+
+        SubRequest(
+            HttpMethod method,
+            URI uri,
+            HttpHeaders headers,
+            byte[] body,
+            DataBufferFactory bufferFactory,
+            ServerHttpRequest request
+        ) {
+            super(uri, "", headers);
+            this.method = method;
+            this.body = body;
+            this.bufferFactory = bufferFactory;
+            this.request = request;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        protected MultiValueMap<String, HttpCookie> initCookies() {
+            return new LinkedMultiValueMap<>(request.getCookies());
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return request.getRemoteAddress();
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return request.getLocalAddress();
+        }
+
+        @Override
+        protected SslInfo initSslInfo() {
+            return request.getSslInfo();
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return body.length == 0 ? Flux.empty() : Flux.defer(() -> Flux.just(bufferFactory.wrap(body)));
+        }
+
+        @Override
+        public <T> T getNativeRequest() {
+            throw new IllegalStateException("A sub-request of a batch has no native request");
+        }
+    }
+
+    /**
+     * The response to a sub-request, whose body is held until the batch is answered.
+     */
+    private static final class SubResponse extends AbstractServerHttpResponse {
+
+        private final int maxBodySize;
+
+        private volatile byte[] body = new byte[0];
+
+        SubResponse(DataBufferFactory bufferFactory, long maxBodySize) {
+            super(bufferFactory);
+            this.maxBodySize = (int) Math.min(maxBodySize, Integer.MAX_VALUE);
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils
+                .join(body, maxBodySize)
+                .doOnNext(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    this.body = bytes;
+                })
+                .then();
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWithInternal(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new IllegalStateException("A sub-request of a batch has no native response");
+        }
+
+        @Override
+        protected void applyStatusCode() {}
+
+        @Override
+        protected void applyHeaders() {}
+
+        @Override
+        protected void applyCookies() {}
+    }
+}
@@ -1,17 +1,14 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
 import com.invertimostuyyo.stockanalysis.security.AuthoritiesConstants;
+import com.invertimostuyyo.stockanalysis.service.RouteTableService;
+import com.invertimostuyyo.stockanalysis.service.dto.RouteDTO;
 import com.invertimostuyyo.stockanalysis.web.rest.vm.RouteVM;
-import java.util.ArrayList;
 import java.util.List;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
-import org.springframework.cloud.gateway.route.Route;
-import org.springframework.cloud.gateway.route.RouteLocator;
+import java.util.stream.Collectors;
 import org.springframework.http.*;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
-import reactor.core.publisher.Flux;
 
 /**
  * REST controller for managing Gateway configuration.
@@ -20,42 +17,32 @@ import reactor.core.publisher.Flux;
 @RequestMapping("/api/gateway")
 public class GatewayResource {
 
-    private final RouteLocator routeLocator;
+    private final RouteTableService routeTableService;
 
-    private final DiscoveryClient discoveryClient;
-
-    @Value("${spring.application.name}")
-    private String appName;
-
-    public GatewayResource(RouteLocator routeLocator, DiscoveryClient discoveryClient) {
-        this.routeLocator = routeLocator;
-        this.discoveryClient = discoveryClient;
+    public GatewayResource(RouteTableService routeTableService) {
+        this.routeTableService = routeTableService;
     }
 
     /**
-     * {@code GET  /routes} : get the active routes.
+     * {@code GET  /routes} : get the active routes, from the snapshot maintained by the {@link RouteTableService}.
      *
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the list of routes.
      */
     @GetMapping("/routes")
     @Secured(AuthoritiesConstants.ADMIN)
     public ResponseEntity<List<RouteVM>> activeRoutes() {
-        Flux<Route> routes = routeLocator.getRoutes();
-        List<RouteVM> routeVMs = new ArrayList<>();
-        routes.subscribe(route -> {
-            RouteVM routeVM = new RouteVM();
-            // Manipulate strings to make Gateway routes look like Zuul's
-            String predicate = route.getPredicate().toString();
-            String path = predicate.substring(predicate.indexOf("[") + 1, predicate.indexOf("]"));
-            routeVM.setPath(path);
-            String serviceId = route.getId().substring(route.getId().indexOf("_") + 1).toLowerCase();
-            routeVM.setServiceId(serviceId);
-            // Exclude gateway app from routes
-            if (!serviceId.equalsIgnoreCase(appName)) {
-                routeVM.setServiceInstances(discoveryClient.getInstances(serviceId));
-                routeVMs.add(routeVM);
-            }
-        });
-        return ResponseEntity.ok(routeVMs);
+        return ResponseEntity.ok(routeTableService.getRoutes().stream().map(GatewayResource::toRouteVM).collect(Collectors.toList()));
+    }
+
+    private static RouteVM toRouteVM(RouteDTO route) {
+        RouteVM routeVM = new RouteVM();
+        routeVM.setPath(route.getPath());
+        routeVM.setServiceId(route.getServiceId());
+        routeVM.setServiceInstances(route.getServiceInstances());
+        routeVM.setRequestRate(route.getRequestRate());
+        routeVM.setLatencyP50(route.getLatencyP50());
+        routeVM.setLatencyP95(route.getLatencyP95());
+        routeVM.setLatencyP99(route.getLatencyP99());
+        return routeVM;
     }
 }
@@ -1,24 +1,36 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
 import com.invertimostuyyo.stockanalysis.domain.Indicator;
+import com.invertimostuyyo.stockanalysis.repository.BatchSummary;
 import com.invertimostuyyo.stockanalysis.repository.IndicatorRepository;
+import com.invertimostuyyo.stockanalysis.repository.Keyset;
+import com.invertimostuyyo.stockanalysis.service.EntityCache;
 import com.invertimostuyyo.stockanalysis.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.stockanalysis.web.rest.util.BatchUtil;
+import com.invertimostuyyo.stockanalysis.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,13 +48,31 @@ public class IndicatorResource {
 
     private static final String ENTITY_NAME = "indicator";
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name");
+
+    private static final String ALL_QUERY = "all";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final IndicatorRepository indicatorRepository;
 
-    public IndicatorResource(IndicatorRepository indicatorRepository) {
+    private final EntityCache<Indicator> indicatorCache;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public IndicatorResource(
+        IndicatorRepository indicatorRepository,
+        EntityCache<Indicator> indicatorCache,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.indicatorRepository = indicatorRepository;
+        this.indicatorCache = indicatorCache;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -60,6 +90,7 @@ public class IndicatorResource {
         }
         return indicatorRepository
             .save(indicator)
+            .delayUntil(result -> indicatorCache.evict(result.getId()))
             .map(result -> {
                 try {
                     return ResponseEntity
@@ -72,6 +103,38 @@ public class IndicatorResource {
             });
     }
 
+    /**
+     * {@code POST  /indicators/batch} : Create, or update with {@code upsert}, a batch of indicators.
+     * <p>
+     * The indicators are read as a JSON array or as newline delimited JSON, and written in chunks with multi-row statements. A faulty indicator
+     * does not fail the batch: it is reported in the failures, along with its index in the request.
+     *
+     * @param indicators the indicators to write.
+     * @param upsert whether the indicators with an ID are updated, or inserted with their ID when missing, instead of being rejected.
+     * @return the {@link Mono} of the numbers of rows created, updated and failed, with the results of the failed rows in the order of
+     * the request.
+     */
+    @PostMapping(
+        value = "/indicators/batch",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BatchSummary> createIndicatorBatch(
+        @RequestBody Flux<Indicator> indicators,
+        @RequestParam(value = "upsert", defaultValue = "false") boolean upsert
+    ) {
+        log.debug("REST request to save a batch of Indicators, upsert: {}", upsert);
+        return BatchUtil.writeAll(
+            indicators,
+            applicationProperties.getBatch().getChunkSize(),
+            upsert,
+            validator,
+            Indicator::getId,
+            chunk -> indicatorRepository.writeAll(chunk, upsert).concatWith(indicatorCache.evictAll().thenMany(Flux.empty()))
+        );
+    }
+
     /**
      * {@code PUT  /indicators/:id} : Updates an existing indicator.
      *
@@ -104,6 +167,7 @@ public class IndicatorResource {
 
                 return indicatorRepository
                     .save(indicator)
+                    .delayUntil(result -> indicatorCache.evict(result.getId()))
                     .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
                     .map(result ->
                         ResponseEntity
@@ -157,7 +221,8 @@ public class IndicatorResource {
 
                         return existingIndicator;
                     })
-                    .flatMap(indicatorRepository::save);
+                    .flatMap(indicatorRepository::save)
+                    .delayUntil(res -> indicatorCache.evict(res.getId()));
 
                 return result
                     .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
@@ -178,7 +243,7 @@ public class IndicatorResource {
     @GetMapping("/indicators")
     public Mono<List<Indicator>> getAllIndicators() {
         log.debug("REST request to get all Indicators");
-        return indicatorRepository.findAll().collectList();
+        return indicatorCache.findAll(ALL_QUERY, () -> indicatorRepository.findAll().collectList());
     }
 
     /**
@@ -191,6 +256,52 @@ public class IndicatorResource {
         return indicatorRepository.findAll();
     }
 
+    /**
+     * {@code GET  /indicators?size=:size&after=:id} : get a keyset page of the indicators, following the indicator with the "after" id.
+     * <p>
+     * The page is read by seeking past the sort key and id of the "after" indicator, so deep pages cost the same as the first one.
+     * The {@code Link} header holds the {@code next} page while the page is full.
+     *
+     * @param after the id of the last indicator of the previous page, or null for the first page.
+     * @param pageable the page size and the sort order, on at most one of {@code id}, {@code name} - the page number is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of indicators in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the "after" indicator are not valid.
+     */
+    @GetMapping(value = "/indicators", params = "size")
+    public Mono<ResponseEntity<List<Indicator>>> getIndicatorsAfter(
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) Long after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Indicators after : {}", after);
+        if (!KeysetPaginationUtil.isSortable(pageable, SORTABLE_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Keyset first = KeysetPaginationUtil.createKeyset(pageable);
+        Mono<Keyset> keyset = after == null ? Mono.just(first) : indicatorRepository.findKeysetAfter(after, first);
+        return keyset
+            .flatMap(k ->
+                indicatorRepository
+                    .findAllByKeyset(k)
+                    .collectList()
+                    .map(indicators ->
+                        ResponseEntity
+                            .ok()
+                            .headers(
+                                KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    indicators,
+                                    k,
+                                    Indicator::getId
+                                )
+                            )
+                            .body(indicators)
+                    )
+            )
+            .defaultIfEmpty(ResponseEntity.badRequest().build());
+    }
+
     /**
      * {@code GET  /indicators/:id} : get the "id" indicator.
      *
@@ -200,7 +311,7 @@ public class IndicatorResource {
     @GetMapping("/indicators/{id}")
     public Mono<ResponseEntity<Indicator>> getIndicator(@PathVariable Long id) {
         log.debug("REST request to get Indicator : {}", id);
-        Mono<Indicator> indicator = indicatorRepository.findById(id);
+        Mono<Indicator> indicator = indicatorCache.findById(id, indicatorRepository::findById);
         return ResponseUtil.wrapOrNotFound(indicator);
     }
 
@@ -215,6 +326,7 @@ public class IndicatorResource {
         log.debug("REST request to delete Indicator : {}", id);
         return indicatorRepository
             .deleteById(id)
+            .then(indicatorCache.evict(id))
             .then(
                 Mono.just(
                     ResponseEntity
@@ -1,24 +1,30 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
 import com.invertimostuyyo.stockanalysis.domain.Portfolio;
+import com.invertimostuyyo.stockanalysis.repository.Keyset;
 import com.invertimostuyyo.stockanalysis.repository.PortfolioRepository;
 import com.invertimostuyyo.stockanalysis.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.stockanalysis.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,6 +42,8 @@ public class PortfolioResource {
 
     private static final String ENTITY_NAME = "portfolio";
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -191,6 +199,52 @@ public class PortfolioResource {
         return portfolioRepository.findAll();
     }
 
+    /**
+     * {@code GET  /portfolios?size=:size&after=:id} : get a keyset page of the portfolios, following the portfolio with the "after" id.
+     * <p>
+     * The page is read by seeking past the sort key and id of the "after" portfolio, so deep pages cost the same as the first one.
+     * The {@code Link} header holds the {@code next} page while the page is full.
+     *
+     * @param after the id of the last portfolio of the previous page, or null for the first page.
+     * @param pageable the page size and the sort order, on at most one of {@code id}, {@code name} - the page number is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of portfolios in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the "after" portfolio are not valid.
+     */
+    @GetMapping(value = "/portfolios", params = "size")
+    public Mono<ResponseEntity<List<Portfolio>>> getPortfoliosAfter(
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) Long after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Portfolios after : {}", after);
+        if (!KeysetPaginationUtil.isSortable(pageable, SORTABLE_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Keyset first = KeysetPaginationUtil.createKeyset(pageable);
+        Mono<Keyset> keyset = after == null ? Mono.just(first) : portfolioRepository.findKeysetAfter(after, first);
+        return keyset
+            .flatMap(k ->
+                portfolioRepository
+                    .findAllByKeyset(k)
+                    .collectList()
+                    .map(portfolios ->
+                        ResponseEntity
+                            .ok()
+                            .headers(
+                                KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    portfolios,
+                                    k,
+                                    Portfolio::getId
+                                )
+                            )
+                            .body(portfolios)
+                    )
+            )
+            .defaultIfEmpty(ResponseEntity.badRequest().build());
+    }
+
     /**
      * {@code GET  /portfolios/:id} : get the "id" portfolio.
      *
@@ -1,24 +1,30 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
 import com.invertimostuyyo.stockanalysis.domain.Position;
+import com.invertimostuyyo.stockanalysis.repository.Keyset;
 import com.invertimostuyyo.stockanalysis.repository.PositionRepository;
 import com.invertimostuyyo.stockanalysis.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.stockanalysis.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,6 +42,8 @@ public class PositionResource {
 
     private static final String ENTITY_NAME = "position";
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -191,6 +199,52 @@ public class PositionResource {
         return positionRepository.findAll();
     }
 
+    /**
+     * {@code GET  /positions?size=:size&after=:id} : get a keyset page of the positions, following the position with the "after" id.
+     * <p>
+     * The page is read by seeking past the sort key and id of the "after" position, so deep pages cost the same as the first one.
+     * The {@code Link} header holds the {@code next} page while the page is full.
+     *
+     * @param after the id of the last position of the previous page, or null for the first page.
+     * @param pageable the page size and the sort order, on at most one of {@code id} - the page number is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of positions in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the "after" position are not valid.
+     */
+    @GetMapping(value = "/positions", params = "size")
+    public Mono<ResponseEntity<List<Position>>> getPositionsAfter(
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) Long after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Positions after : {}", after);
+        if (!KeysetPaginationUtil.isSortable(pageable, SORTABLE_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Keyset first = KeysetPaginationUtil.createKeyset(pageable);
+        Mono<Keyset> keyset = after == null ? Mono.just(first) : positionRepository.findKeysetAfter(after, first);
+        return keyset
+            .flatMap(k ->
+                positionRepository
+                    .findAllByKeyset(k)
+                    .collectList()
+                    .map(positions ->
+                        ResponseEntity
+                            .ok()
+                            .headers(
+                                KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    positions,
+                                    k,
+                                    Position::getId
+                                )
+                            )
+                            .body(positions)
+                    )
+            )
+            .defaultIfEmpty(ResponseEntity.badRequest().build());
+    }
+
     /**
      * {@code GET  /positions/:id} : get the "id" position.
      *
@@ -1,24 +1,39 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
 import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.domain.criteria.StockCriteria;
+import com.invertimostuyyo.stockanalysis.repository.BatchSummary;
+import com.invertimostuyyo.stockanalysis.repository.Keyset;
 import com.invertimostuyyo.stockanalysis.repository.StockRepository;
+import com.invertimostuyyo.stockanalysis.service.EntityCache;
+import com.invertimostuyyo.stockanalysis.service.StockTreeService;
+import com.invertimostuyyo.stockanalysis.service.dto.StockTreeDTO;
 import com.invertimostuyyo.stockanalysis.web.rest.errors.BadRequestAlertException;
+import com.invertimostuyyo.stockanalysis.web.rest.util.BatchUtil;
+import com.invertimostuyyo.stockanalysis.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,13 +51,33 @@ public class StockResource {
 
     private static final String ENTITY_NAME = "stock";
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name", "sector");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final StockRepository stockRepository;
 
-    public StockResource(StockRepository stockRepository) {
+    private final EntityCache<Stock> stockCache;
+
+    private final StockTreeService stockTreeService;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public StockResource(
+        StockRepository stockRepository,
+        EntityCache<Stock> stockCache,
+        StockTreeService stockTreeService,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.stockRepository = stockRepository;
+        this.stockCache = stockCache;
+        this.stockTreeService = stockTreeService;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -60,6 +95,7 @@ public class StockResource {
         }
         return stockRepository
             .save(stock)
+            .delayUntil(result -> stockCache.evict(result.getId()))
             .map(result -> {
                 try {
                     return ResponseEntity
@@ -72,6 +108,38 @@ public class StockResource {
             });
     }
 
+    /**
+     * {@code POST  /stocks/batch} : Create, or update with {@code upsert}, a batch of stocks.
+     * <p>
+     * The stocks are read as a JSON array or as newline delimited JSON, and written in chunks with multi-row statements. A faulty stock
+     * does not fail the batch: it is reported in the failures, along with its index in the request.
+     *
+     * @param stocks the stocks to write.
+     * @param upsert whether the stocks with an ID are updated, or inserted with their ID when missing, instead of being rejected.
+     * @return the {@link Mono} of the numbers of rows created, updated and failed, with the results of the failed rows in the order of
+     * the request.
+     */
+    @PostMapping(
+        value = "/stocks/batch",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BatchSummary> createStockBatch(
+        @RequestBody Flux<Stock> stocks,
+        @RequestParam(value = "upsert", defaultValue = "false") boolean upsert
+    ) {
+        log.debug("REST request to save a batch of Stocks, upsert: {}", upsert);
+        return BatchUtil.writeAll(
+            stocks,
+            applicationProperties.getBatch().getChunkSize(),
+            upsert,
+            validator,
+            Stock::getId,
+            chunk -> stockRepository.writeAll(chunk, upsert).concatWith(stockCache.evictAll().thenMany(Flux.empty()))
+        );
+    }
+
     /**
      * {@code PUT  /stocks/:id} : Updates an existing stock.
      *
@@ -104,6 +172,7 @@ public class StockResource {
 
                 return stockRepository
                     .save(stock)
+                    .delayUntil(result -> stockCache.evict(result.getId()))
                     .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
                     .map(result ->
                         ResponseEntity
@@ -175,7 +244,8 @@ public class StockResource {
 
                         return existingStock;
                     })
-                    .flatMap(stockRepository::save);
+                    .flatMap(stockRepository::save)
+                    .delayUntil(res -> stockCache.evict(res.getId()));
 
                 return result
                     .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
@@ -191,22 +261,84 @@ public class StockResource {
     /**
      * {@code GET  /stocks} : get all the stocks.
      *
+     * @param criteria the criteria which the requested entities should match.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of stocks in body.
      */
     @GetMapping("/stocks")
-    public Mono<List<Stock>> getAllStocks() {
-        log.debug("REST request to get all Stocks");
-        return stockRepository.findAll().collectList();
+    public Mono<List<Stock>> getAllStocks(StockCriteria criteria) {
+        log.debug("REST request to get Stocks by criteria: {}", criteria);
+        return stockCache.findAll(criteria, () -> stockRepository.findByCriteria(criteria).collectList());
     }
 
     /**
      * {@code GET  /stocks} : get all the stocks as a stream.
+     * @param criteria the criteria which the requested entities should match.
      * @return the {@link Flux} of stocks.
      */
     @GetMapping(value = "/stocks", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<Stock> getAllStocksAsStream() {
-        log.debug("REST request to get all Stocks as a stream");
-        return stockRepository.findAll();
+    public Flux<Stock> getAllStocksAsStream(StockCriteria criteria) {
+        log.debug("REST request to get Stocks as a stream by criteria: {}", criteria);
+        return stockRepository.findByCriteria(criteria);
+    }
+
+    /**
+     * {@code GET  /stocks/count} : count all the stocks.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/stocks/count")
+    public Mono<ResponseEntity<Long>> countStocks(StockCriteria criteria) {
+        log.debug("REST request to count Stocks by criteria: {}", criteria);
+        return stockRepository.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
+    }
+
+    /**
+     * {@code GET  /stocks?size=:size&after=:id} : get a keyset page of the stocks, following the stock with the "after" id.
+     * <p>
+     * The page is read by seeking past the sort key and id of the "after" stock, so deep pages cost the same as the first one.
+     * The {@code Link} header holds the {@code next} page while the page is full.
+     *
+     * @param after the id of the last stock of the previous page, or null for the first page.
+     * @param criteria the criteria which the requested entities should match.
+     * @param pageable the page size and the sort order, on at most one of {@code id}, {@code name}, {@code sector} - the page number is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of stocks in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the "after" stock are not valid.
+     */
+    @GetMapping(value = "/stocks", params = "size")
+    public Mono<ResponseEntity<List<Stock>>> getStocksAfter(
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) Long after,
+        StockCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Stocks after : {} by criteria: {}", after, criteria);
+        if (!KeysetPaginationUtil.isSortable(pageable, SORTABLE_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Keyset first = KeysetPaginationUtil.createKeyset(pageable);
+        Mono<Keyset> keyset = after == null ? Mono.just(first) : stockRepository.findKeysetAfter(after, first);
+        return keyset
+            .flatMap(k ->
+                stockRepository
+                    .findAllByKeyset(k, criteria)
+                    .collectList()
+                    .map(stocks ->
+                        ResponseEntity
+                            .ok()
+                            .headers(
+                                KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    stocks,
+                                    k,
+                                    Stock::getId
+                                )
+                            )
+                            .body(stocks)
+                    )
+            )
+            .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
     /**
@@ -218,10 +350,32 @@ public class StockResource {
     @GetMapping("/stocks/{id}")
     public Mono<ResponseEntity<Stock>> getStock(@PathVariable Long id) {
         log.debug("REST request to get Stock : {}", id);
-        Mono<Stock> stock = stockRepository.findById(id);
+        Mono<Stock> stock = stockCache.findById(id, stockRepository::findById);
         return ResponseUtil.wrapOrNotFound(stock);
     }
 
+    /**
+     * {@code GET  /stocks/:id/tree} : get the "id" stock, with its latest analyses and their indicators.
+     *
+     * @param id the id of the stock to retrieve.
+     * @param analyses the maximum number of analyses, by descending date - at most {@value StockTreeService#MAX_ANALYSES}, the default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the tree of the stock,
+     * or with status {@code 400 (Bad Request)} if the maximum number of analyses is negative,
+     * or with status {@code 404 (Not Found)} if the stock does not exist.
+     */
+    @GetMapping("/stocks/{id}/tree")
+    public Mono<ResponseEntity<StockTreeDTO>> getStockTree(
+        @PathVariable Long id,
+        @RequestParam(value = "analyses", required = false) Integer analyses
+    ) {
+        log.debug("REST request to get the tree of Stock : {}", id);
+        if (analyses != null && analyses < 0) {
+            throw new BadRequestAlertException("Invalid number of analyses", ENTITY_NAME, "analysesinvalid");
+        }
+        Mono<StockTreeDTO> tree = stockTreeService.findTree(id, analyses != null ? analyses : StockTreeService.MAX_ANALYSES);
+        return ResponseUtil.wrapOrNotFound(tree);
+    }
+
     /**
      * {@code DELETE  /stocks/:id} : delete the "id" stock.
      *
@@ -233,6 +387,7 @@ public class StockResource {
         log.debug("REST request to delete Stock : {}", id);
         return stockRepository
             .deleteById(id)
+            .then(stockCache.evict(id))
             .then(
                 Mono.just(
                     ResponseEntity
@@ -0,0 +1,85 @@
+package com.invertimostuyyo.stockanalysis.web.rest.util;
+
+import com.invertimostuyyo.stockanalysis.repository.BatchResult;
+import com.invertimostuyyo.stockanalysis.repository.BatchSummary;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * Utility class for handling batch writes.
+ * <p>
+ * The rows of a batch are read as a stream - a JSON array or newline delimited JSON - and written in chunks of a bounded size, so the
+ * memory used by a batch depends on its failed rows only. The written rows are counted in a {@link BatchSummary}, which keeps the
+ * {@link BatchResult} of the failed rows, identified by their index in the request.
+ */
+public final class BatchUtil {
+
+    private BatchUtil() {}
+
+    /**
+     * Validates the rows of a batch and writes the valid ones, chunk by chunk.
+     * @param rows the rows of the request.
+     * @param chunkSize the maximum number of rows written at once.
+     * @param upsert whether the rows with an id are updated - they are rejected otherwise.
+     * @param validator the validator of the rows.
+     * @param idGetter the function which reads the id of a row.
+     * @param writer the function which writes a chunk of valid rows, by their index.
+     * @param <T> the type of the rows.
+     * @return the numbers of rows created, updated and failed, with the results of the failed rows, in the order of the request.
+     */
+    public static <T> Mono<BatchSummary> writeAll(
+        Flux<T> rows,
+        int chunkSize,
+        boolean upsert,
+        Validator validator,
+        Function<T, Long> idGetter,
+        Function<Map<Long, T>, Flux<BatchResult>> writer
+    ) {
+        return rows
+            .index()
+            .buffer(chunkSize)
+            .concatMap(chunk -> {
+                List<BatchResult> rejected = new ArrayList<>();
+                Map<Long, T> accepted = new LinkedHashMap<>();
+                for (Tuple2<Long, T> row : chunk) {
+                    String error = validate(row.getT2(), upsert, validator, idGetter);
+                    if (error != null) {
+                        rejected.add(BatchResult.failed(row.getT1(), idGetter.apply(row.getT2()), error));
+                    } else {
+                        accepted.put(row.getT1(), row.getT2());
+                    }
+                }
+                return writer
+                    .apply(accepted)
+                    .concatWithValues(rejected.toArray(new BatchResult[0]))
+                    .sort(Comparator.comparingLong(BatchResult::getIndex));
+            })
+            .collect(BatchSummary::new, BatchSummary::add);
+    }
+
+    private static <T> String validate(T row, boolean upsert, Validator validator, Function<T, Long> idGetter) {
+        if (!upsert && idGetter.apply(row) != null) {
+            return "A new row cannot already have an ID";
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(row);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+}
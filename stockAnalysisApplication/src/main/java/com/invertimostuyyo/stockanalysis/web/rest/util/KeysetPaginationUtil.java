@@ -0,0 +1,68 @@
+package com.invertimostuyyo.stockanalysis.web.rest.util;
+
+import com.invertimostuyyo.stockanalysis.repository.Keyset;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (cursor) pagination.
+ * <p>
+ * Pagination follows the <a href="https://tools.ietf.org/html/rfc5988">Link header</a> convention: the {@code next} link carries the
+ * id of the last row of the page in the {@code after} query parameter.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Checks that the page is sorted by at most one of the given properties, as the seek predicate is built on a single sort key and the id.
+     * @param pageable the pagination information.
+     * @param sortableProperties the properties which can be used as sort key.
+     * @return true if the page can be read with a keyset.
+     */
+    public static boolean isSortable(Pageable pageable, Set<String> sortableProperties) {
+        Sort sort = pageable.getSort();
+        return sort.stream().count() <= 1 && sort.stream().map(Sort.Order::getProperty).allMatch(sortableProperties::contains);
+    }
+
+    /**
+     * Creates the keyset of the first page from the pagination information - the page number is ignored.
+     * @param pageable the pagination information.
+     * @return the keyset without a cursor.
+     */
+    public static Keyset createKeyset(Pageable pageable) {
+        return Keyset.first(pageable.getSort().stream().findFirst().orElse(null), pageable.getPageSize());
+    }
+
+    /**
+     * Generate the pagination headers of a keyset page: a {@code next} link when the page is full.
+     * @param uriBuilder the uri builder of the current request.
+     * @param content the rows of the page.
+     * @param keyset the keyset used to read the page.
+     * @param idGetter the function which reads the id of a row.
+     * @param <T> the type of the rows.
+     * @return the {@link HttpHeaders} of the page.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        List<T> content,
+        Keyset keyset,
+        Function<T, Long> idGetter
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        if (content.size() < keyset.getSize()) {
+            return headers;
+        }
+        Long lastId = idGetter.apply(content.get(content.size() - 1));
+        String next = uriBuilder.replaceQueryParam(AFTER_PARAMETER, lastId).toUriString();
+        headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        return headers;
+    }
+}
@@ -0,0 +1,70 @@
+package com.invertimostuyyo.stockanalysis.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Map;
+
+/**
+ * View Model that stores a sub-request of a batch request.
+ */
+public class BatchRequestVM {
+
+    private String id;
+
+    private String method = "GET";
+
+    private String path;
+
+    private Map<String, String> headers;
+
+    private JsonNode body;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchRequestVM{" +
+            "id='" + id + '\'' +
+            ", method='" + method + '\'' +
+            ", path='" + path + '\'' +
+            '}';
+    }
+}
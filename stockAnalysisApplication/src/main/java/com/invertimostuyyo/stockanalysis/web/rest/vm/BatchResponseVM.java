@@ -0,0 +1,68 @@
+package com.invertimostuyyo.stockanalysis.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * View Model that stores the response of a sub-request of a batch request.
+ */
+public class BatchResponseVM {
+
+    private String id;
+
+    private int status;
+
+    private HttpHeaders headers = new HttpHeaders();
+
+    private JsonNode body;
+
+    public BatchResponseVM() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BatchResponseVM(String id, int status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(HttpHeaders headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchResponseVM{" +
+            "id='" + id + '\'' +
+            ", status=" + status +
+            '}';
+    }
+}
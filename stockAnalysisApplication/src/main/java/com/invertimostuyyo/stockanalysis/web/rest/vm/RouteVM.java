@@ -14,6 +14,14 @@ public class RouteVM {
 
     private List<ServiceInstance> serviceInstances;
 
+    private double requestRate;
+
+    private double latencyP50;
+
+    private double latencyP95;
+
+    private double latencyP99;
+
     public String getPath() {
         return path;
     }
@@ -37,4 +45,36 @@ public class RouteVM {
     public void setServiceInstances(List<ServiceInstance> serviceInstances) {
         this.serviceInstances = serviceInstances;
     }
+
+    public double getRequestRate() {
+        return requestRate;
+    }
+
+    public void setRequestRate(double requestRate) {
+        this.requestRate = requestRate;
+    }
+
+    public double getLatencyP50() {
+        return latencyP50;
+    }
+
+    public void setLatencyP50(double latencyP50) {
+        this.latencyP50 = latencyP50;
+    }
+
+    public double getLatencyP95() {
+        return latencyP95;
+    }
+
+    public void setLatencyP95(double latencyP95) {
+        this.latencyP95 = latencyP95;
+    }
+
+    public double getLatencyP99() {
+        return latencyP99;
+    }
+
+    public void setLatencyP99(double latencyP99) {
+        this.latencyP99 = latencyP99;
+    }
 }
@@ -94,6 +94,12 @@ export const GatewayPage = () => {
             <th>
               <Translate contentKey="gateway.routes.service">Service</Translate>
             </th>
+            <th>
+              <Translate contentKey="gateway.routes.rate">Requests/s</Translate>
+            </th>
+            <th>
+              <Translate contentKey="gateway.routes.latency">Latency p50 / p95 / p99 (ms)</Translate>
+            </th>
             <th>
               <Translate contentKey="gateway.routes.servers">Available servers</Translate>
             </th>
@@ -104,6 +110,10 @@ export const GatewayPage = () => {
             <tr key={`routes-${i}`}>
               <td>{route.path}</td>
               <td>{route.serviceId}</td>
+              <td>{route.requestRate.toFixed(2)}</td>
+              <td>
+                {route.latencyP50.toFixed(0)} / {route.latencyP95.toFixed(0)} / {route.latencyP99.toFixed(0)}
+              </td>
               <td>{instanceInfo(route)}</td>
             </tr>
           ))}
@@ -0,0 +1,40 @@
+package com.invertimostuyyo.stockanalysis;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the test sources, and writes their results as JSON so that the runs of two commits can be compared.
+ * <p>
+ * Run it with {@code ./mvnw -Pdev,benchmark test}, which compiles the benchmarks, skips the tests and forks the benchmarks with the test
+ * classpath:
+ * <ul>
+ *     <li>{@code -Djmh.include=TokenProvider} runs only the benchmarks whose name matches the regular expression, all by default;</li>
+ *     <li>{@code -Djmh.result=...} sets the file of the results, {@code target/jmh/result.json} by default.</li>
+ * </ul>
+ * The GC profiler reports the bytes allocated per operation ({@code gc.alloc.rate.norm}) next to the throughput.
+ */
+public final class Benchmarks {
+
+    private static final String DEFAULT_INCLUDE = ".*Benchmark.*";
+
+    private static final String DEFAULT_RESULT = "target/jmh/result.json";
+
+    private Benchmarks() {}
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", "");
+        new Runner(
+            new OptionsBuilder()
+                .include(include.isBlank() ? DEFAULT_INCLUDE : include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", DEFAULT_RESULT))
+                .build()
+        )
+            .run();
+    }
+}
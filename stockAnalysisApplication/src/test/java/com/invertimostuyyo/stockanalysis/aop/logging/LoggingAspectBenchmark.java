@@ -0,0 +1,72 @@
+package com.invertimostuyyo.stockanalysis.aop.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.invertimostuyyo.stockanalysis.domain.User;
+import com.invertimostuyyo.stockanalysis.service.dto.UserDTO;
+import com.invertimostuyyo.stockanalysis.service.mapper.UserMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Measures the overhead of {@link LoggingAspect#logAround} on a call to a service, {@link UserMapper#userToUserDTO(User)}, by comparing
+ * the direct call with the call through a proxy advised by the aspect, as Spring creates it for the beans of the application.
+ * <p>
+ * The logger of the service is at {@code INFO}, so the overhead is that of the proxy, of the lookup of the logger and of the check
+ * of its level, not of the logging itself.
+ * <p>
+ * Run it with {@code ./mvnw -Pdev,benchmark test -Djmh.include=LoggingAspectBenchmark}, see
+ * {@link com.invertimostuyyo.stockanalysis.Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private UserMapper userMapper;
+    private UserMapper advisedUserMapper;
+    private User user;
+
+    @Setup
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger(UserMapper.class)).setLevel(Level.INFO);
+
+        userMapper = new UserMapper();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(userMapper);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LoggingAspect(new StandardEnvironment()));
+        advisedUserMapper = proxyFactory.getProxy();
+
+        user = new User();
+        user.setId(1L);
+        user.setLogin("user");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail("john.doe@localhost");
+    }
+
+    @Benchmark
+    public UserDTO direct() {
+        return userMapper.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public UserDTO logAround() {
+        return advisedUserMapper.userToUserDTO(user);
+    }
+}
@@ -0,0 +1,163 @@
+package com.invertimostuyyo.stockanalysis.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Proxies concurrent requests to a local h2c server with the HTTP client of the gateway.
+ * <p>
+ * The benchmark, which compares the connections and the tail latency of HTTP/1.1 and h2c under 1000 concurrent clients, is run with
+ * {@code ./mvnw test -Dtest=HttpClientConfigurationTest -Dbenchmark=true}.
+ */
+class HttpClientConfigurationTest {
+
+    private static final Duration SERVICE_LATENCY = Duration.ofMillis(20);
+
+    private final Set<Channel> connections = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> protocols = ConcurrentHashMap.newKeySet();
+
+    private final List<HttpClient> httpClients = new ArrayList<>();
+
+    private DisposableServer server;
+
+    @BeforeEach
+    public void setup() {
+        server =
+            HttpServer
+                .create()
+                .host("127.0.0.1")
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .handle((request, response) -> {
+                    response.withConnection(connection -> {
+                        boolean http2 = connection.channel() instanceof Http2StreamChannel;
+                        protocols.add(http2 ? "h2c" : "HTTP/1.1");
+                        connections.add(http2 ? connection.channel().parent() : connection.channel());
+                    });
+                    return Mono.delay(SERVICE_LATENCY).then(response.sendString(Mono.just("[]")).then());
+                })
+                .bindNow();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        httpClients.forEach(httpClient -> httpClient.configuration().connectionProvider().dispose());
+        server.disposeNow();
+    }
+
+    @Test
+    void testRequestsAreProxiedOverHttp11ByDefault() throws Exception {
+        HttpClient httpClient = createHttpClient(false);
+
+        proxy(httpClient, 50);
+
+        assertThat(protocols).containsExactly("HTTP/1.1");
+        assertThat(connections).hasSizeGreaterThan(10);
+    }
+
+    @Test
+    void testRequestsAreMultiplexedOverH2c() throws Exception {
+        HttpClient httpClient = createHttpClient(true);
+
+        proxy(httpClient, 50);
+
+        assertThat(protocols).containsExactly("h2c");
+        assertThat(connections).hasSizeBetween(1, new ApplicationProperties().getHttp2().getConnections());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    void benchmarkHttp11AgainstH2c() throws Exception {
+        for (boolean http2 : new boolean[] { false, true }) {
+            HttpClient httpClient = createHttpClient(http2);
+            proxy(httpClient, 1000);
+            connections.clear();
+            long[] latencies = new long[0];
+            for (int round = 0; round < 10; round++) {
+                long[] roundLatencies = proxy(httpClient, 1000);
+                long[] merged = Arrays.copyOf(latencies, latencies.length + roundLatencies.length);
+                System.arraycopy(roundLatencies, 0, merged, latencies.length, roundLatencies.length);
+                latencies = merged;
+            }
+            Arrays.sort(latencies);
+            System.out.printf(
+                "%s: %d connections, p50 %d ms, p99 %d ms, p99.9 %d ms, max %d ms%n",
+                http2 ? "h2c" : "HTTP/1.1",
+                connections.size(),
+                TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length / 2]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[(int) (latencies.length * 0.99)]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[(int) (latencies.length * 0.999)]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length - 1])
+            );
+            connections.clear();
+        }
+    }
+
+    private HttpClient createHttpClient(boolean http2) throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getHttp2().setEnabled(http2);
+        HttpClientConfiguration configuration = new HttpClientConfiguration();
+        HttpClientFactory httpClientFactory = configuration.gatewayHttpClientFactory(
+            new HttpClientProperties(),
+            new ServerProperties(),
+            new ArrayList<>(List.of(configuration.http2HttpClientCustomizer(applicationProperties))),
+            applicationProperties
+        );
+        httpClientFactory.setSingleton(false);
+        HttpClient httpClient = httpClientFactory.getObject();
+        httpClients.add(httpClient);
+        return httpClient.baseUrl("http://127.0.0.1:" + server.port());
+    }
+
+    /**
+     * Sends concurrent requests, and waits for their responses.
+     * @return the latency of each request, in nanoseconds.
+     */
+    private static long[] proxy(HttpClient httpClient, int concurrency) {
+        return Flux
+            .range(0, concurrency)
+            .flatMap(
+                i -> {
+                    long start = System.nanoTime();
+                    return httpClient
+                        .get()
+                        .uri("/api/analyses")
+                        .responseContent()
+                        .aggregate()
+                        .asString()
+                        .map(body -> System.nanoTime() - start);
+                },
+                concurrency
+            )
+            .collectList()
+            .block(Duration.ofMinutes(1))
+            .stream()
+            .mapToLong(Long::longValue)
+            .toArray();
+    }
+}
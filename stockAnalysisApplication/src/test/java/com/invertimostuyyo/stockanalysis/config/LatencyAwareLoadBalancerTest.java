@@ -0,0 +1,171 @@
+package com.invertimostuyyo.stockanalysis.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.management.LoadBalancerStatsService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+
+class LatencyAwareLoadBalancerTest {
+
+    private static final ServiceInstance FIRST = new DefaultServiceInstance("first", "tradinganalysis", "first.local", 8081, false);
+
+    private static final ServiceInstance SECOND = new DefaultServiceInstance("second", "tradinganalysis", "second.local", 8081, false);
+
+    private LoadBalancerStatsService loadBalancerStatsService;
+
+    private LatencyAwareLoadBalancer loadBalancer;
+
+    @BeforeEach
+    public void setup() {
+        loadBalancerStatsService = new LoadBalancerStatsService(new ApplicationProperties());
+        loadBalancer = new LatencyAwareLoadBalancer(null, loadBalancerStatsService);
+    }
+
+    @Test
+    void testSlowerInstanceIsAvoided() {
+        proxy(FIRST, Duration.ofMillis(500), 200);
+        proxy(SECOND, Duration.ofMillis(10), 200);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(loadBalancer.choose(List.of(FIRST, SECOND)).getServer()).isEqualTo(SECOND);
+        }
+    }
+
+    @Test
+    void testBusierInstanceIsAvoided() {
+        proxy(FIRST, Duration.ofMillis(10), 200);
+        proxy(SECOND, Duration.ofMillis(10), 200);
+        for (int i = 0; i < 5; i++) {
+            start(FIRST);
+        }
+
+        assertThat(loadBalancer.choose(List.of(FIRST, SECOND)).getServer()).isEqualTo(SECOND);
+    }
+
+    @Test
+    void testNewInstanceIsTried() {
+        proxy(FIRST, Duration.ofMillis(10), 200);
+
+        assertThat(loadBalancer.choose(List.of(FIRST, SECOND)).getServer()).isEqualTo(SECOND);
+    }
+
+    @Test
+    void testExcludedInstanceIsAvoided() {
+        proxy(FIRST, Duration.ofMillis(10), 200);
+        proxy(SECOND, Duration.ofMillis(500), 200);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(loadBalancer.choose(List.of(FIRST, SECOND), "first").getServer()).isEqualTo(SECOND);
+        }
+        assertThat(loadBalancer.choose(List.of(FIRST), "first").getServer()).isEqualTo(FIRST);
+    }
+
+    @Test
+    void testFailingInstanceIsEjected() {
+        proxy(FIRST, Duration.ofMillis(500), 200);
+        for (int i = 0; i < 10; i++) {
+            proxy(SECOND, Duration.ofMillis(1), 503);
+        }
+
+        assertThat(loadBalancerStatsService.isEjected(SECOND)).isTrue();
+        assertThat(loadBalancer.choose(List.of(FIRST, SECOND)).getServer()).isEqualTo(FIRST);
+        assertThat(loadBalancer.choose(List.of(SECOND)).getServer()).isEqualTo(SECOND);
+    }
+
+    @Test
+    void testNotFoundIsNotAnError() {
+        for (int i = 0; i < 20; i++) {
+            proxy(SECOND, Duration.ofMillis(1), 404);
+        }
+
+        assertThat(loadBalancerStatsService.isEjected(SECOND)).isFalse();
+    }
+
+    @Test
+    void testNoInstance() {
+        assertThat(loadBalancer.choose(List.of()).hasServer()).isFalse();
+        LatencyAwareLoadBalancer withoutSupplier = new LatencyAwareLoadBalancer(
+            new StaticListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class),
+            loadBalancerStatsService
+        );
+        assertThat(withoutSupplier.choose(new DefaultRequest<>()).block().hasServer()).isFalse();
+    }
+
+    @Test
+    void testInstancesNotDiscoveredAnymoreAreDropped() {
+        proxy(FIRST, Duration.ofMillis(10), 200);
+        proxy(SECOND, Duration.ofMillis(10), 200);
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return "tradinganalysis";
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(SECOND));
+            }
+        };
+        LatencyAwareLoadBalancer discovering = new LatencyAwareLoadBalancer(
+            new StaticListableBeanFactory(Map.of("supplier", supplier)).getBeanProvider(ServiceInstanceListSupplier.class),
+            loadBalancerStatsService
+        );
+
+        assertThat(discovering.choose(new DefaultRequest<>()).block().getServer()).isEqualTo(SECOND);
+        assertThat(loadBalancerStatsService.getScores().get("tradinganalysis"))
+            .extracting(LoadBalancerStatsService.InstanceScore::getInstanceId)
+            .containsExactly("second");
+    }
+
+    @Test
+    void testInstancesWithoutRequestsAreNotReported() {
+        loadBalancerStatsService.isEjected(FIRST);
+        loadBalancerStatsService.getCost(FIRST);
+
+        assertThat(loadBalancerStatsService.getScores()).isEmpty();
+    }
+
+    @Test
+    void testScoresAreReported() {
+        proxy(FIRST, Duration.ofMillis(100), 200);
+        start(FIRST);
+
+        List<LoadBalancerStatsService.InstanceScore> scores = loadBalancerStatsService.getScores().get("tradinganalysis");
+
+        assertThat(scores).hasSize(1);
+        assertThat(scores.get(0).getInstanceId()).isEqualTo("first");
+        assertThat(scores.get(0).getInFlight()).isEqualTo(1);
+        assertThat(scores.get(0).getLatencyMillis()).isBetween(90.0, 110.0);
+        assertThat(scores.get(0).isEjected()).isFalse();
+    }
+
+    private DefaultRequest<RequestDataContext> start(ServiceInstance instance) {
+        DefaultRequest<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        loadBalancerStatsService.onStartRequest(request, new DefaultResponse(instance));
+        return request;
+    }
+
+    private void proxy(ServiceInstance instance, Duration latency, int status) {
+        DefaultRequest<RequestDataContext> request = start(instance);
+        request.getContext().setRequestStartTime(request.getContext().getRequestStartTime() - latency.toNanos());
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+        ResponseData responseData = new ResponseData(new HttpHeaders(), null, null, status);
+        loadBalancerStatsService.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response, responseData));
+    }
+}
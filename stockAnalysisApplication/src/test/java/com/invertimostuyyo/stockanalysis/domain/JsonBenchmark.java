@@ -0,0 +1,121 @@
+package com.invertimostuyyo.stockanalysis.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures the serialization and the deserialization of a {@link Stock} with its analyses, an {@link Analysis} with its stock and
+ * indicators, and a {@link Portfolio} with its positions, as the REST resources write and read them.
+ * <p>
+ * The {@link ObjectMapper} is configured as the one of the application: the defaults of Spring Boot, with the modules of
+ * {@link com.invertimostuyyo.stockanalysis.config.JacksonConfiguration} for the dates.
+ * <p>
+ * Run it with {@code ./mvnw -Pdev,benchmark test -Djmh.include=JsonBenchmark}, see
+ * {@link com.invertimostuyyo.stockanalysis.Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private Stock stock;
+    private byte[] stockJson;
+
+    private Analysis analysis;
+    private byte[] analysisJson;
+
+    private Portfolio portfolio;
+    private byte[] portfolioJson;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper =
+            Jackson2ObjectMapperBuilder
+                .json()
+                .modules(new JavaTimeModule(), new Jdk8Module())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        stock = createStock(1L);
+        for (long i = 1; i <= 5; i++) {
+            stock.addAnalysis(new Analysis().id(i).date(LocalDate.ofEpochDay(19000 + i)).description("Analysis " + i));
+        }
+        stockJson = objectMapper.writeValueAsBytes(stock);
+
+        analysis = new Analysis().id(1L).date(LocalDate.ofEpochDay(19000)).description("Analysis").stock(createStock(2L));
+        for (long i = 1; i <= 5; i++) {
+            analysis.addIndicator(new Indicator().id(i).name("Indicator " + i).description("An indicator of the analysis"));
+        }
+        analysisJson = objectMapper.writeValueAsBytes(analysis);
+
+        portfolio = new Portfolio().id(1L).name("Portfolio").description("A portfolio");
+        for (long i = 1; i <= 10; i++) {
+            portfolio.addPosition(new Position().id(i).amount(100D * i).price(10.5D * i));
+        }
+        portfolioJson = objectMapper.writeValueAsBytes(portfolio);
+    }
+
+    @Benchmark
+    public byte[] serializeStock() throws IOException {
+        return objectMapper.writeValueAsBytes(stock);
+    }
+
+    @Benchmark
+    public Stock deserializeStock() throws IOException {
+        return objectMapper.readValue(stockJson, Stock.class);
+    }
+
+    @Benchmark
+    public byte[] serializeAnalysis() throws IOException {
+        return objectMapper.writeValueAsBytes(analysis);
+    }
+
+    @Benchmark
+    public Analysis deserializeAnalysis() throws IOException {
+        return objectMapper.readValue(analysisJson, Analysis.class);
+    }
+
+    @Benchmark
+    public byte[] serializePortfolio() throws IOException {
+        return objectMapper.writeValueAsBytes(portfolio);
+    }
+
+    @Benchmark
+    public Portfolio deserializePortfolio() throws IOException {
+        return objectMapper.readValue(portfolioJson, Portfolio.class);
+    }
+
+    private static Stock createStock(Long id) {
+        return new Stock()
+            .id(id)
+            .name("Stock " + id)
+            .sector("Energy")
+            .fundation(LocalDate.ofEpochDay(10000))
+            .description("A stock")
+            .icnome(1.5e9)
+            .expenses(1.2e9)
+            .capitalization(2.4e10)
+            .employees(12000);
+    }
+}
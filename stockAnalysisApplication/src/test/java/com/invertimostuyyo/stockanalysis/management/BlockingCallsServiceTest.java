@@ -0,0 +1,101 @@
+package com.invertimostuyyo.stockanalysis.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class BlockingCallsServiceTest {
+
+    private static final String SLEEP = "java.lang.Thread.sleep";
+
+    private static final String THREAD = "reactor-http-nio-1";
+
+    @Test
+    void callSiteIsTheFirstApplicationFrameBelowTheBlockingMethod() {
+        StackTraceElement[] stackTrace = {
+            frame("com.invertimostuyyo.stockanalysis.config.ReactorConfiguration", "lambda$installBlockHound$0"),
+            frame("reactor.blockhound.BlockHoundRuntime", "checkBlocking"),
+            frame("java.lang.Thread", "sleep"),
+            frame("java.util.concurrent.TimeUnit", "sleep"),
+            frame("org.thymeleaf.TemplateEngine", "process"),
+            frame("com.invertimostuyyo.stockanalysis.service.MailService", "sendEmailFromTemplate"),
+            frame("reactor.core.publisher.MonoCallable", "call"),
+        };
+
+        assertThat(BlockingCallsService.callSite(stackTrace))
+            .startsWith("com.invertimostuyyo.stockanalysis.service.MailService.sendEmailFromTemplate");
+    }
+
+    @Test
+    void callSiteIsTheFirstFrameOutsideOfTheJdkWithoutApplicationFrame() {
+        StackTraceElement[] stackTrace = {
+            frame("reactor.blockhound.BlockHoundRuntime", "checkBlocking"),
+            frame("java.io.FileInputStream", "readBytes"),
+            frame("java.io.FileInputStream", "read"),
+            frame("org.thymeleaf.TemplateEngine", "process"),
+            frame("reactor.core.publisher.MonoCallable", "call"),
+        };
+
+        assertThat(BlockingCallsService.callSite(stackTrace)).startsWith("org.thymeleaf.TemplateEngine.process");
+    }
+
+    @Test
+    void recordGroupsTheCallsByBlockingMethodAndCallSite() {
+        BlockingCallsService service = new BlockingCallsService(10);
+        StackTraceElement[] userService = stackTrace(frame("com.invertimostuyyo.stockanalysis.service.UserService", "registerUser"));
+        StackTraceElement[] mailService = stackTrace(frame("com.invertimostuyyo.stockanalysis.service.MailService", "sendEmail"));
+
+        service.record(SLEEP, userService, THREAD);
+        service.record(SLEEP, mailService, THREAD);
+        service.record(SLEEP, userService, "reactor-http-nio-2");
+
+        assertThat(service.getBlockingCalls()).hasSize(2);
+        BlockingCallsService.BlockingCall mostFrequent = service.getBlockingCalls().get(0);
+        assertThat(mostFrequent.getBlockingMethod()).isEqualTo(SLEEP);
+        assertThat(mostFrequent.getCallSite()).startsWith("com.invertimostuyyo.stockanalysis.service.UserService.registerUser");
+        assertThat(mostFrequent.getCount()).isEqualTo(2);
+        assertThat(mostFrequent.getThread()).isEqualTo("reactor-http-nio-2");
+    }
+
+    @Test
+    void recordKeepsAtMostTheMaximumNumberOfCallSites() {
+        BlockingCallsService service = new BlockingCallsService(1);
+        StackTraceElement[] userService = stackTrace(frame("com.invertimostuyyo.stockanalysis.service.UserService", "registerUser"));
+
+        service.record(SLEEP, userService, THREAD);
+        service.record(SLEEP, stackTrace(frame("com.invertimostuyyo.stockanalysis.service.MailService", "sendEmail")), THREAD);
+        service.record(SLEEP, userService, THREAD);
+
+        assertThat(service.getBlockingCalls()).singleElement().extracting(BlockingCallsService.BlockingCall::getCount).isEqualTo(2L);
+    }
+
+    @Test
+    void blockingCallsFromNonBlockingThreadsFailTheTests() {
+        Mono<Void> blocking = Mono.<Void>fromRunnable(() -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).subscribeOn(Schedulers.parallel());
+
+        assertThatThrownBy(() -> blocking.block(Duration.ofSeconds(5))).hasCauseInstanceOf(BlockingOperationError.class);
+    }
+
+    private static StackTraceElement[] stackTrace(StackTraceElement caller) {
+        return new StackTraceElement[] {
+            frame("reactor.blockhound.BlockHoundRuntime", "checkBlocking"),
+            frame("java.lang.Thread", "sleep"),
+            caller,
+        };
+    }
+
+    private static StackTraceElement frame(String className, String methodName) {
+        return new StackTraceElement(className, methodName, className.substring(className.lastIndexOf('.') + 1) + ".java", 42);
+    }
+}
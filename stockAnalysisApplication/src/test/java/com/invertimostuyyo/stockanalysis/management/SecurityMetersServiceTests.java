@@ -67,4 +67,26 @@ class SecurityMetersServiceTests {
 
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
+
+    @Test
+    void testTokenCacheMetersAreBoundToCorrectCounters() {
+        assertThat(meterRegistry.get("security.authentication.token-cache.hit-ratio").gauge().value()).isZero();
+
+        securityMetersService.trackTokenCacheMiss();
+        securityMetersService.trackTokenCacheHit();
+        securityMetersService.trackTokenCacheHit();
+        securityMetersService.trackTokenCacheHit();
+
+        assertThat(meterRegistry.get("security.authentication.token-cache").tag("result", "hit").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("security.authentication.token-cache").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.authentication.token-cache.hit-ratio").gauge().value()).isEqualTo(0.75);
+
+        securityMetersService.trackTokenCacheExpiredEviction();
+        securityMetersService.trackTokenCacheSizeEviction();
+        securityMetersService.trackTokenCacheSizeEviction();
+
+        assertThat(meterRegistry.get("security.authentication.token-cache.evictions").tag("cause", "expired").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("security.authentication.token-cache.evictions").tag("cause", "size").counter().count()).isEqualTo(2);
+    }
 }
@@ -0,0 +1,92 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import tech.jhipster.service.filter.DoubleFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+class ConditionBuilderTest {
+
+    private static final Table stockTable = Table.aliased("stock", EntityManager.ENTITY_ALIAS);
+
+    private final SqlRenderer sqlRenderer = SqlRenderer.create(new RenderContextFactory(H2Dialect.INSTANCE).createRenderContext());
+
+    @Test
+    void testNoFilterBuildsNoCondition() {
+        ConditionBuilder builder = new ConditionBuilder();
+        builder.buildFilterConditionForField((StringFilter) null, stockTable.column("sector"));
+        builder.buildFilterConditionForField(new DoubleFilter(), stockTable.column("capitalization"));
+
+        assertThat(builder.buildConditions()).isNull();
+        assertThat(builder.getParameters()).isEmpty();
+    }
+
+    @Test
+    void testFilterValuesAreBoundNotRendered() {
+        StringFilter sector = new StringFilter();
+        sector.setIn(List.of("Energy", "Banking"));
+        DoubleFilter capitalization = new DoubleFilter();
+        capitalization.setGreaterThanOrEqual(1000D);
+        capitalization.setLessThan(2000D);
+
+        ConditionBuilder builder = new ConditionBuilder();
+        builder.buildFilterConditionForField(sector, stockTable.column("sector"));
+        builder.buildFilterConditionForField(capitalization, stockTable.column("capitalization"));
+
+        assertThat(render(builder.buildConditions()))
+            .contains("e.sector IN (:filter_0)")
+            .contains("e.capitalization >= :filter_1")
+            .contains("e.capitalization < :filter_2")
+            .doesNotContain("Energy")
+            .doesNotContain("1000");
+        assertThat(builder.getParameters())
+            .containsEntry("filter_0", List.of("Energy", "Banking"))
+            .containsEntry("filter_1", 1000D)
+            .containsEntry("filter_2", 2000D);
+    }
+
+    @Test
+    void testContainsIsAnEscapedLikePattern() {
+        StringFilter name = new StringFilter();
+        name.setContains("10%");
+        name.setSpecified(true);
+
+        ConditionBuilder builder = new ConditionBuilder();
+        builder.buildFilterConditionForField(name, stockTable.column("name"));
+
+        assertThat(render(builder.buildConditions())).contains("e.name IS NOT NULL").contains("e.name LIKE :filter_0");
+        assertThat(builder.getParameters()).containsEntry("filter_0", "%10\\%%");
+    }
+
+    @Test
+    void testShapeDoesNotDependOnTheFilterValues() {
+        StringFilter energy = new StringFilter();
+        energy.setEquals("Energy");
+        StringFilter banking = new StringFilter();
+        banking.setEquals("Banking");
+        StringFilter bankingOrEnergy = new StringFilter();
+        bankingOrEnergy.setIn(List.of("Banking", "Energy"));
+
+        assertThat(shapeOf(energy)).isEqualTo(shapeOf(banking)).containsExactly("sector =");
+        assertThat(shapeOf(bankingOrEnergy)).isNotEqualTo(shapeOf(banking)).containsExactly("sector IN");
+    }
+
+    private static List<String> shapeOf(StringFilter sector) {
+        ConditionBuilder builder = new ConditionBuilder();
+        builder.buildFilterConditionForField(sector, stockTable.column("sector"));
+        return builder.getShape();
+    }
+
+    private String render(Condition condition) {
+        return sqlRenderer.render(Select.builder().select(Column.create("id", stockTable)).from(stockTable).where(condition).build());
+    }
+}
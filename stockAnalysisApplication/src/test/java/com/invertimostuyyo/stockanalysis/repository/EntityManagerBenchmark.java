@@ -0,0 +1,119 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import static org.mockito.Mockito.mock;
+
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Measures the rendering of the selects of the repositories by {@link EntityManager#createSelect}: a page of stocks, and a keyset page
+ * of analyses joined with their stock, against the lookup of an already rendered statement by
+ * {@link EntityManager#getOrCreateSelect(StatementKey, java.util.function.Supplier)}.
+ * <p>
+ * Run it with {@code ./mvnw -Pdev,benchmark test -Djmh.include=EntityManagerBenchmark}, see
+ * {@link com.invertimostuyyo.stockanalysis.Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityManagerBenchmark {
+
+    private static final Table stockTable = Table.aliased("stock", EntityManager.ENTITY_ALIAS);
+    private static final Table analysisTable = Table.aliased("analysis", EntityManager.ENTITY_ALIAS);
+    private static final Table analysisStockTable = Table.aliased("stock", "stock");
+
+    private static final StatementKey STOCK_PAGE_KEY = StatementKey.of(Stock.class, "findAllBy");
+
+    private EntityManager entityManager;
+    private Pageable pageable;
+    private Keyset keyset;
+
+    @Setup
+    public void setup() {
+        DatabaseClient db = DatabaseClient
+            .builder()
+            .connectionFactory(mock(ConnectionFactory.class))
+            .bindMarkers(H2Dialect.INSTANCE.getBindMarkersFactory())
+            .build();
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(db, H2Dialect.INSTANCE);
+        UpdateMapper updateMapper = new UpdateMapper(H2Dialect.INSTANCE, template.getConverter());
+        SqlRenderer sqlRenderer = SqlRenderer.create(new RenderContextFactory(H2Dialect.INSTANCE).createRenderContext());
+        entityManager = new EntityManager(sqlRenderer, H2Dialect.INSTANCE, updateMapper, template);
+
+        pageable = PageRequest.of(3, 20, Sort.by("name", "id"));
+        keyset = Keyset.first(Sort.Order.desc("date"), 20).after(42L, LocalDate.parse("2022-09-01"));
+        entityManager.getOrCreateSelect(STOCK_PAGE_KEY, this::selectStockPage);
+    }
+
+    @Benchmark
+    public String createStockPageSelect() {
+        return selectStockPage();
+    }
+
+    @Benchmark
+    public String createAnalysisKeysetSelect() {
+        return entityManager.createSelect(selectAnalysisWithStock(), Analysis.class, keyset, null);
+    }
+
+    @Benchmark
+    public String getCachedStockPageSelect() {
+        return entityManager.getOrCreateSelect(STOCK_PAGE_KEY, this::selectStockPage);
+    }
+
+    private String selectStockPage() {
+        List<Expression> columns = StockSqlHelper.getColumns(stockTable, EntityManager.ENTITY_ALIAS);
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(stockTable);
+        return entityManager.createSelect(
+            selectFrom,
+            Stock.class,
+            pageable,
+            Conditions.isEqual(stockTable.column("sector"), SQL.bindMarker(":sector"))
+        );
+    }
+
+    private static SelectFromAndJoinCondition selectAnalysisWithStock() {
+        List<Expression> columns = AnalysisSqlHelper.getColumns(analysisTable, EntityManager.ENTITY_ALIAS);
+        columns.addAll(StockSqlHelper.getColumns(analysisStockTable, "stock"));
+        return Select
+            .builder()
+            .select(columns)
+            .from(analysisTable)
+            .leftOuterJoin(analysisStockTable)
+            .on(Column.create("stock_id", analysisTable))
+            .equals(Column.create("id", analysisStockTable));
+    }
+}
@@ -0,0 +1,134 @@
+package com.invertimostuyyo.stockanalysis.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+class EntityManagerTest {
+
+    private static final Table stockTable = Table.aliased("stock", EntityManager.ENTITY_ALIAS);
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setup() {
+        DatabaseClient db = DatabaseClient
+            .builder()
+            .connectionFactory(mock(ConnectionFactory.class))
+            .bindMarkers(H2Dialect.INSTANCE.getBindMarkersFactory())
+            .build();
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(db, H2Dialect.INSTANCE);
+        UpdateMapper updateMapper = new UpdateMapper(H2Dialect.INSTANCE, template.getConverter());
+        SqlRenderer sqlRenderer = SqlRenderer.create(new RenderContextFactory(H2Dialect.INSTANCE).createRenderContext());
+        entityManager = new EntityManager(sqlRenderer, H2Dialect.INSTANCE, updateMapper, template);
+    }
+
+    @Test
+    void testFirstKeysetPageHasNoSeekPredicateNorOffset() {
+        String sql = entityManager.createSelect(selectStock(), Stock.class, Keyset.first(null, 20), null);
+
+        assertThat(sql).doesNotContain("WHERE").doesNotContain("OFFSET").contains("ORDER BY e_id ASC").endsWith("LIMIT :keyset_size");
+    }
+
+    @Test
+    void testKeysetPageSizeIsBound() {
+        Keyset small = Keyset.first(Sort.Order.asc("name"), 20).after(42L, "ACME");
+        Keyset large = Keyset.first(Sort.Order.asc("name"), 2000).after(42L, "ACME");
+
+        assertThat(entityManager.createSelect(selectStock(), Stock.class, small, null))
+            .isEqualTo(entityManager.createSelect(selectStock(), Stock.class, large, null));
+    }
+
+    @Test
+    void testKeysetPageSortedByIdSeeksPastTheCursorId() {
+        Keyset keyset = Keyset.first(Sort.Order.desc("id"), 20).after(42L, null);
+
+        String sql = entityManager.createSelect(selectStock(), Stock.class, keyset, null);
+
+        assertThat(sql).contains("WHERE e.id < :cursor_id").contains("ORDER BY e_id DESC").doesNotContain("OFFSET");
+        assertThat(keyset.getCursorValue()).isEqualTo(42L);
+    }
+
+    @Test
+    void testKeysetPageSortedByPropertySeeksPastTheSortKeyAndId() {
+        Keyset keyset = Keyset.first(Sort.Order.asc("name"), 20).after(42L, "ACME");
+
+        String sql = entityManager.createSelect(selectStock(), Stock.class, keyset, null);
+
+        assertThat(sql)
+            .contains("WHERE (e.name > :cursor_value OR (e.name = :cursor_value AND e.id > :cursor_id))")
+            .endsWith("ORDER BY e_name ASC, e_id ASC LIMIT :keyset_size")
+            .doesNotContain("OFFSET");
+    }
+
+    @Test
+    void testGetOrCreateSelectRendersEachShapeOnce() {
+        AtomicInteger renderings = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            String sql = entityManager.getOrCreateSelect(
+                StatementKey.of(Stock.class, "findById"),
+                () -> {
+                    renderings.incrementAndGet();
+                    return "SELECT e.id AS e_id FROM stock e WHERE e.id = :id";
+                }
+            );
+            assertThat(sql).isEqualTo("SELECT e.id AS e_id FROM stock e WHERE e.id = :id");
+        }
+        entityManager.getOrCreateSelect(StatementKey.of(Analysis.class, "findById"), () -> "SELECT e.id AS e_id FROM analysis e");
+
+        assertThat(renderings).hasValue(1);
+        assertThat(entityManager.getCachedStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testGetOrCreateSelectIsBoundedAndKeepsTheShapesSeenLater() {
+        for (int shape = 0; shape < EntityManager.MAX_CACHED_STATEMENTS * 2; shape++) {
+            entityManager.getOrCreateSelect(
+                StatementKey.of(Stock.class, "findByCriteria", shape),
+                () -> "SELECT e.id AS e_id FROM stock e WHERE e.id = :id"
+            );
+        }
+        AtomicInteger renderings = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            entityManager.getOrCreateSelect(
+                StatementKey.of(Stock.class, "findById"),
+                () -> {
+                    renderings.incrementAndGet();
+                    return "SELECT e.id AS e_id FROM stock e WHERE e.id = :id";
+                }
+            );
+        }
+
+        assertThat(entityManager.getCachedStatementCount()).isLessThanOrEqualTo(EntityManager.MAX_CACHED_STATEMENTS);
+        assertThat(renderings).hasValue(1);
+    }
+
+    @Test
+    void testGetPropertyValue() {
+        Analysis analysis = new Analysis().date(LocalDate.ofEpochDay(0L));
+
+        assertThat(entityManager.getPropertyValue(analysis, "date")).isEqualTo(LocalDate.ofEpochDay(0L));
+    }
+
+    private static org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin selectStock() {
+        return Select.builder().select(Column.aliased("id", stockTable, "e_id"), Column.aliased("name", stockTable, "e_name")).from(stockTable);
+    }
+}
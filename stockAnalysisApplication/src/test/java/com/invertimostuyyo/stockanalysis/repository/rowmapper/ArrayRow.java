@@ -0,0 +1,114 @@
+package com.invertimostuyyo.stockanalysis.repository.rowmapper;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link Row} holding its values in an array, looking columns up by name the way the drivers do.
+ */
+final class ArrayRow implements Row {
+
+    private final Metadata metadata;
+    private final Object[] values;
+
+    ArrayRow(Metadata metadata, Object... values) {
+        this.metadata = metadata;
+        this.values = values;
+    }
+
+    static Metadata metadata(String... columnNames) {
+        return new Metadata(columnNames);
+    }
+
+    @Override
+    public RowMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        return type.cast(values[index]);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        return get(metadata.indexOf(name), type);
+    }
+
+    static final class Metadata implements RowMetadata {
+
+        private final List<Column> columns = new ArrayList<>();
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        private Metadata(String... columnNames) {
+            for (String columnName : columnNames) {
+                columns.add(new Column(columnName));
+            }
+        }
+
+        int indexOf(String name) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).getName().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Column " + name + " does not exist");
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            return columns.get(index);
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            return columns.get(indexOf(name));
+        }
+
+        @Override
+        public List<? extends ColumnMetadata> getColumnMetadatas() {
+            lookups.incrementAndGet();
+            return columns;
+        }
+
+        /**
+         * @return the number of times the columns have been listed, to resolve their indexes.
+         */
+        int getLookups() {
+            return lookups.get();
+        }
+
+        @Override
+        @Deprecated
+        public Collection<String> getColumnNames() {
+            return columns.stream().map(Column::getName).collect(Collectors.toList());
+        }
+    }
+
+    private static final class Column implements ColumnMetadata {
+
+        private final String name;
+
+        private Column(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Type getType() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
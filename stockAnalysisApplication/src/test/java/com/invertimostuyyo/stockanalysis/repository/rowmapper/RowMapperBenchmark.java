@@ -0,0 +1,126 @@
+package com.invertimostuyyo.stockanalysis.repository.rowmapper;
+
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+/**
+ * Compares mapping a result of stocks or analyses by column name, as {@link StockRowMapper#apply(Row, String)} does, with the compiled
+ * mapper of {@link StockRowMapper#compile(String)}, which reads the columns by index.
+ * <p>
+ * Run it with {@code ./mvnw -Pdev,benchmark test -Djmh.include=RowMapperBenchmark}, see
+ * {@link com.invertimostuyyo.stockanalysis.Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private StockRowMapper stockRowMapper;
+    private BiFunction<Row, RowMetadata, Stock> compiledStockMapper;
+    private ArrayRow.Metadata stockMetadata;
+    private Row[] stockRows;
+
+    private AnalysisRowMapper analysisRowMapper;
+    private BiFunction<Row, RowMetadata, Analysis> compiledAnalysisMapper;
+    private ArrayRow.Metadata analysisMetadata;
+    private Row[] analysisRows;
+
+    @Setup
+    public void setup() {
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(H2Dialect.INSTANCE, List.of());
+        ColumnConverter converter = new ColumnConverter(conversions, new MappingR2dbcConverter(new R2dbcMappingContext(), conversions));
+
+        stockRowMapper = new StockRowMapper(converter);
+        compiledStockMapper = stockRowMapper.compile("e");
+        stockMetadata =
+            ArrayRow.metadata(
+                "E_ID",
+                "E_NAME",
+                "E_SECTOR",
+                "E_FUNDATION",
+                "E_DESCRIPTION",
+                "E_ICNOME",
+                "E_EXPENSES",
+                "E_CAPITALIZATION",
+                "E_EMPLOYEES"
+            );
+        stockRows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            stockRows[i] =
+                new ArrayRow(
+                    stockMetadata,
+                    (long) i,
+                    "Stock " + i,
+                    "Energy",
+                    LocalDate.ofEpochDay(i),
+                    "A stock",
+                    10D * i,
+                    5D * i,
+                    1000D * i,
+                    i
+                );
+        }
+
+        analysisRowMapper = new AnalysisRowMapper(converter);
+        compiledAnalysisMapper = analysisRowMapper.compile("e");
+        analysisMetadata = ArrayRow.metadata("E_ID", "E_DATE", "E_DESCRIPTION", "E_STOCK_ID");
+        analysisRows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            analysisRows[i] = new ArrayRow(analysisMetadata, (long) i, LocalDate.ofEpochDay(i), "An analysis", (long) i % 64);
+        }
+    }
+
+    @Benchmark
+    public void namedStockMapper(Blackhole blackhole) {
+        for (Row row : stockRows) {
+            blackhole.consume(stockRowMapper.apply(row, "e"));
+        }
+    }
+
+    @Benchmark
+    public void compiledStockMapper(Blackhole blackhole) {
+        for (Row row : stockRows) {
+            blackhole.consume(compiledStockMapper.apply(row, stockMetadata));
+        }
+    }
+
+    @Benchmark
+    public void namedAnalysisMapper(Blackhole blackhole) {
+        for (Row row : analysisRows) {
+            blackhole.consume(analysisRowMapper.apply(row, "e"));
+        }
+    }
+
+    @Benchmark
+    public void compiledAnalysisMapper(Blackhole blackhole) {
+        for (Row row : analysisRows) {
+            blackhole.consume(compiledAnalysisMapper.apply(row, analysisMetadata));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.invertimostuyyo.stockanalysis.repository.rowmapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+class StockRowMapperTest {
+
+    private static final String[] COLUMN_NAMES = {
+        "E_ID",
+        "E_NAME",
+        "E_SECTOR",
+        "E_FUNDATION",
+        "E_DESCRIPTION",
+        "E_ICNOME",
+        "E_EXPENSES",
+        "E_CAPITALIZATION",
+        "E_EMPLOYEES",
+    };
+
+    private static final ArrayRow.Metadata METADATA = ArrayRow.metadata(COLUMN_NAMES);
+
+    private StockRowMapper stockRowMapper;
+
+    @BeforeEach
+    public void setup() {
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(H2Dialect.INSTANCE, List.of());
+        stockRowMapper =
+            new StockRowMapper(new ColumnConverter(conversions, new MappingR2dbcConverter(new R2dbcMappingContext(), conversions)));
+    }
+
+    @Test
+    void testCompiledMapperReadsTheSameEntityAsTheNamedMapper() {
+        Row row = new ArrayRow(METADATA, 1L, "ACME", "Energy", LocalDate.ofEpochDay(0L), "Oil", 10D, 5D, 1000D, 42);
+
+        Stock compiled = stockRowMapper.compile("e").apply(row, METADATA);
+        Stock named = stockRowMapper.apply(row, "e");
+
+        assertThat(compiled).usingRecursiveComparison().isEqualTo(named);
+        assertThat(compiled.getName()).isEqualTo("ACME");
+        assertThat(compiled.getFundation()).isEqualTo(LocalDate.ofEpochDay(0L));
+        assertThat(compiled.getEmployees()).isEqualTo(42);
+    }
+
+    @Test
+    void testCompiledMapperResolvesTheColumnsOfEachResult() {
+        BiFunction<Row, RowMetadata, Stock> mapper = stockRowMapper.compile("stock");
+        ArrayRow.Metadata first = ArrayRow.metadata(
+            "stock_id",
+            "stock_name",
+            "stock_sector",
+            "stock_fundation",
+            "stock_description",
+            "stock_icnome",
+            "stock_expenses",
+            "stock_capitalization",
+            "stock_employees"
+        );
+        ArrayRow.Metadata second = ArrayRow.metadata(
+            "e_id",
+            "stock_employees",
+            "stock_capitalization",
+            "stock_expenses",
+            "stock_icnome",
+            "stock_description",
+            "stock_fundation",
+            "stock_sector",
+            "stock_name",
+            "stock_id"
+        );
+
+        Stock fromFirst = mapper.apply(new ArrayRow(first, 1L, "ACME", "Energy", null, null, null, null, null, 42), first);
+        Stock fromSecond = mapper.apply(new ArrayRow(second, 9L, 7, null, null, null, null, null, "Banking", "BANK", 2L), second);
+
+        assertThat(fromFirst.getId()).isEqualTo(1L);
+        assertThat(fromFirst.getEmployees()).isEqualTo(42);
+        assertThat(fromSecond.getId()).isEqualTo(2L);
+        assertThat(fromSecond.getName()).isEqualTo("BANK");
+        assertThat(fromSecond.getEmployees()).isEqualTo(7);
+    }
+
+    @Test
+    void testCompiledMapperResolvesTheColumnsOnceForInterleavedResults() {
+        BiFunction<Row, RowMetadata, Stock> mapper = stockRowMapper.compile("e");
+        ArrayRow.Metadata first = ArrayRow.metadata(COLUMN_NAMES);
+        ArrayRow.Metadata second = ArrayRow.metadata(COLUMN_NAMES);
+
+        for (long id = 0; id < 10; id++) {
+            ArrayRow.Metadata metadata = id % 2 == 0 ? first : second;
+            Stock stock = mapper.apply(new ArrayRow(metadata, id, "ACME", null, null, null, null, null, null, 42), metadata);
+            assertThat(stock.getId()).isEqualTo(id);
+        }
+
+        assertThat(first.getLookups()).isEqualTo(1);
+        assertThat(second.getLookups()).isEqualTo(1);
+    }
+
+    @Test
+    void testCompiledMapperConvertsValuesOfAnotherType() {
+        Row row = new ArrayRow(METADATA, 1, "ACME", "Energy", null, null, 10, null, null, 42L);
+
+        Stock stock = stockRowMapper.compile("e").apply(row, METADATA);
+
+        assertThat(stock.getId()).isEqualTo(1L);
+        assertThat(stock.getIcnome()).isEqualTo(10D);
+        assertThat(stock.getEmployees()).isEqualTo(42);
+    }
+
+    @Test
+    void testCompiledMapperRejectsAMissingColumn() {
+        ArrayRow.Metadata metadata = ArrayRow.metadata("e_id", "e_name");
+
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> stockRowMapper.compile("e").apply(new ArrayRow(metadata, 1L, "ACME"), metadata))
+            .withMessageContaining("e_sector");
+    }
+}
@@ -0,0 +1,98 @@
+package com.invertimostuyyo.stockanalysis.security.jwt;
+
+import com.invertimostuyyo.stockanalysis.management.SecurityMetersService;
+import com.invertimostuyyo.stockanalysis.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Measures {@link TokenProvider#validateToken(String)} and {@link TokenProvider#getAuthentication(String)}, which run on every
+ * authenticated request: once for a token served by the cache of the verified tokens, and once for a token which is parsed and
+ * verified every time.
+ * <p>
+ * Run it with {@code ./mvnw -Pdev,benchmark test -Djmh.include=TokenProviderBenchmark}, see
+ * {@link com.invertimostuyyo.stockanalysis.Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    private TokenProvider cachingTokenProvider;
+    private String cachedToken;
+
+    private TokenProvider verifyingTokenProvider;
+    private String[] verifiedTokens;
+    private int next;
+
+    @Setup
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+
+        cachingTokenProvider = new TokenProvider(jHipsterProperties, new SecurityMetersService(new SimpleMeterRegistry()));
+        cachedToken = cachingTokenProvider.createToken(createAuthentication("user"), false);
+        cachingTokenProvider.getAuthentication(cachedToken);
+
+        // A cache of a single token, presented two tokens in turn, misses every time
+        SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
+        verifyingTokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        ReflectionTestUtils.setField(verifyingTokenProvider, "verifiedTokenCache", new VerifiedTokenCache(1, securityMetersService));
+        verifiedTokens =
+            new String[] {
+                verifyingTokenProvider.createToken(createAuthentication("user"), false),
+                verifyingTokenProvider.createToken(createAuthentication("admin"), false),
+            };
+    }
+
+    @Benchmark
+    public boolean validateCachedToken() {
+        return cachingTokenProvider.validateToken(cachedToken);
+    }
+
+    @Benchmark
+    public Authentication getAuthenticationOfCachedToken() {
+        return cachingTokenProvider.getAuthentication(cachedToken);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return verifyingTokenProvider.validateToken(nextToken());
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return verifyingTokenProvider.getAuthentication(nextToken());
+    }
+
+    private String nextToken() {
+        next ^= 1;
+        return verifiedTokens[next];
+    }
+
+    private static Authentication createAuthentication(String login) {
+        return new UsernamePasswordAuthenticationToken(login, login, List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+    }
+}
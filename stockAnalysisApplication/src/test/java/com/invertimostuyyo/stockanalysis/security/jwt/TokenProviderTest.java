@@ -1,5 +1,7 @@
 package com.invertimostuyyo.stockanalysis.security.jwt;
 
+import static com.invertimostuyyo.stockanalysis.management.SecurityMetersService.TOKEN_CACHE_EVICTIONS_METER_NAME;
+import static com.invertimostuyyo.stockanalysis.management.SecurityMetersService.TOKEN_CACHE_METER_NAME;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.invertimostuyyo.stockanalysis.management.SecurityMetersService;
@@ -7,10 +9,13 @@ import com.invertimostuyyo.stockanalysis.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
 import io.jsonwebtoken.security.Keys;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Clock;
+import java.time.ZoneOffset;
 import java.util.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -88,6 +93,54 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testVerifiedTokenIsServedFromCache() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenProvider tokenProvider = createTokenProvider(meterRegistry);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        Authentication authentication = tokenProvider.getAuthentication(token);
+        assertThat(tokenProvider.getValidAuthentication(token)).containsSame(authentication);
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(authentication.getCredentials()).isEqualTo(token);
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_NAME).tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_NAME).tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testCachedTokenIsRejectedAtItsExpiration() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenProvider tokenProvider = createTokenProvider(meterRegistry);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        Date expiration = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getExpiration();
+
+        ReflectionTestUtils.setField(tokenProvider, "clock", Clock.fixed(expiration.toInstant().minusMillis(1), ZoneOffset.UTC));
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+
+        ReflectionTestUtils.setField(tokenProvider, "clock", Clock.fixed(expiration.toInstant().plusSeconds(1), ZoneOffset.UTC));
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(tokenProvider.getValidAuthentication(token)).isEmpty();
+
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_NAME).tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(TOKEN_CACHE_EVICTIONS_METER_NAME).tag("cause", "expired").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.authentication.invalid-tokens").tag("cause", "expired").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testTokenWithInvalidSignatureIsNotCached() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenProvider tokenProvider = createTokenProvider(meterRegistry);
+        String token = createTokenWithDifferentSignature();
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_NAME).tag("result", "hit").counter().count()).isZero();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -116,6 +169,13 @@ class TokenProviderTest {
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
     }
 
+    private TokenProvider createTokenProvider(SimpleMeterRegistry meterRegistry) {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(Encoders.BASE64.encode(key.getEncoded()));
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setTokenValidityInSeconds(60);
+        return new TokenProvider(jHipsterProperties, new SecurityMetersService(meterRegistry));
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,67 @@
+package com.invertimostuyyo.stockanalysis.security.jwt;
+
+import static com.invertimostuyyo.stockanalysis.management.SecurityMetersService.TOKEN_CACHE_EVICTIONS_METER_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.management.SecurityMetersService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+class VerifiedTokenCacheTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1_000_000), ZoneOffset.UTC);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(4, new SecurityMetersService(meterRegistry));
+    }
+
+    @Test
+    void testEntryIsServedUntilItsExpiration() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("user", "token", List.of());
+        cache.put("token", authentication, CLOCK.millis() + 1, CLOCK);
+
+        assertThat(cache.get("token", CLOCK)).isSameAs(authentication);
+        assertThat(cache.get("other", CLOCK)).isNull();
+        assertThat(cache.get("token", Clock.offset(CLOCK, Duration.ofMillis(1)))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testExpiredEntriesAreEvictedFirstWhenFull() {
+        for (int i = 0; i < 3; i++) {
+            cache.put("valid" + i, new UsernamePasswordAuthenticationToken("user", "valid" + i, List.of()), Long.MAX_VALUE, CLOCK);
+        }
+        cache.put("expired", new UsernamePasswordAuthenticationToken("user", "expired", List.of()), CLOCK.millis(), CLOCK);
+
+        cache.put("new", new UsernamePasswordAuthenticationToken("user", "new", List.of()), Long.MAX_VALUE, CLOCK);
+
+        assertThat(cache.size()).isEqualTo(4);
+        assertThat(cache.get("valid0", CLOCK)).isNotNull();
+        assertThat(cache.get("new", CLOCK)).isNotNull();
+        assertThat(meterRegistry.get(TOKEN_CACHE_EVICTIONS_METER_NAME).tag("cause", "expired").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(TOKEN_CACHE_EVICTIONS_METER_NAME).tag("cause", "size").counter().count()).isZero();
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        for (int i = 0; i < 100; i++) {
+            cache.put("token" + i, new UsernamePasswordAuthenticationToken("user", "token" + i, List.of()), Long.MAX_VALUE, CLOCK);
+            assertThat(cache.size()).isLessThanOrEqualTo(4);
+        }
+        assertThat(meterRegistry.get(TOKEN_CACHE_EVICTIONS_METER_NAME).tag("cause", "size").counter().count()).isEqualTo(96);
+    }
+}
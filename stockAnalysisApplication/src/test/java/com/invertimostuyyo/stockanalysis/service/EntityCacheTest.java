@@ -0,0 +1,82 @@
+package com.invertimostuyyo.stockanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class EntityCacheTest {
+
+    private MeterRegistry meterRegistry;
+
+    private EntityCache<String> dependentCache;
+
+    private EntityCache<String> cache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        dependentCache = new EntityCache<>("dependent", Duration.ofMinutes(1), 10, 10, List.of(), meterRegistry);
+        cache = new EntityCache<>("entity", Duration.ofMinutes(1), 10, 10, List.of(dependentCache), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testFindByIdLoadsOnce() {
+        assertThat(cache.findById(1L, this::load).block()).isEqualTo("entity-1-1");
+        assertThat(cache.findById(1L, this::load).block()).isEqualTo("entity-1-1");
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "entity").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "entity").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEmptyLoadIsNotCached() {
+        assertThat(cache.findById(1L, id -> Mono.<String>empty().doOnSubscribe(s -> loads.incrementAndGet())).block()).isNull();
+        assertThat(cache.findById(1L, this::load).block()).isEqualTo("entity-1-2");
+    }
+
+    @Test
+    void testEvictReloadsTheEntityAndTheQueries() {
+        cache.findById(1L, this::load).block();
+        cache.findAll("all", () -> load(0L).map(List::of)).block();
+
+        cache.evict(1L).block();
+
+        assertThat(cache.findById(1L, this::load).block()).isEqualTo("entity-1-3");
+        assertThat(cache.findAll("all", () -> load(0L).map(List::of)).block()).containsExactly("entity-0-4");
+    }
+
+    @Test
+    void testEvictClearsTheDependentCaches() {
+        dependentCache.findById(2L, this::load).block();
+
+        cache.evict(1L).block();
+
+        assertThat(dependentCache.findById(2L, this::load).block()).isEqualTo("entity-2-2");
+    }
+
+    @Test
+    void testEvictAllReloadsEverything() {
+        cache.findById(1L, this::load).block();
+        cache.findById(2L, this::load).block();
+
+        cache.evictAll().block();
+
+        assertThat(cache.findById(1L, this::load).block()).isEqualTo("entity-1-3");
+        assertThat(cache.findById(2L, this::load).block()).isEqualTo("entity-2-4");
+    }
+
+    private Mono<String> load(Long id) {
+        return Mono.fromCallable(() -> "entity-" + id + "-" + loads.incrementAndGet());
+    }
+}
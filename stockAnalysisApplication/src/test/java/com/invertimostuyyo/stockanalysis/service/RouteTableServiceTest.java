@@ -0,0 +1,144 @@
+package com.invertimostuyyo.stockanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.service.dto.RouteDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import reactor.core.publisher.Flux;
+
+class RouteTableServiceTest {
+
+    private AtomicLong nanoTime;
+
+    private List<RouteDefinition> routeDefinitions;
+
+    private SimpleDiscoveryProperties discoveryProperties;
+
+    private AtomicInteger discoveryCalls;
+
+    private RouteTableService routeTableService;
+
+    @BeforeEach
+    public void setup() {
+        nanoTime = new AtomicLong();
+        routeDefinitions = new ArrayList<>();
+        routeDefinitions.add(createRouteDefinition("ReactiveCompositeDiscoveryClient_TRADINGANALYSIS", "tradinganalysis"));
+        routeDefinitions.add(createRouteDefinition("ReactiveCompositeDiscoveryClient_GATEWAY", "stockanalysisapplication"));
+        discoveryProperties = new SimpleDiscoveryProperties();
+        discoveryProperties.setInstances(Map.of("tradinganalysis", List.of(createInstance("first"))));
+        discoveryCalls = new AtomicInteger();
+        SimpleDiscoveryClient discoveryClient = new SimpleDiscoveryClient(discoveryProperties) {
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                discoveryCalls.incrementAndGet();
+                return super.getInstances(serviceId);
+            }
+        };
+        routeTableService =
+            new RouteTableService(
+                () -> Flux.fromIterable(routeDefinitions),
+                discoveryClient,
+                new SimpleMeterRegistry(),
+                "stockAnalysisApplication",
+                nanoTime::get
+            );
+    }
+
+    @Test
+    void testRoutesAreLoadedOnRefresh() {
+        assertThat(routeTableService.getRoutes()).isEmpty();
+
+        routeTableService.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+
+        List<RouteDTO> routes = routeTableService.getRoutes();
+        assertThat(routes).hasSize(1);
+        assertThat(routes.get(0).getServiceId()).isEqualTo("tradinganalysis");
+        assertThat(routes.get(0).getPath()).isEqualTo("/services/tradinganalysis/**");
+        assertThat(routes.get(0).getServiceInstances()).extracting("instanceId").containsExactly("first");
+    }
+
+    @Test
+    void testRoutesAreServedFromTheSnapshot() {
+        routeTableService.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+        int calls = discoveryCalls.get();
+
+        for (int i = 0; i < 10; i++) {
+            routeTableService.getRoutes();
+        }
+
+        assertThat(discoveryCalls.get()).isEqualTo(calls);
+    }
+
+    @Test
+    void testInstancesAreReloadedOnRegistryChange() {
+        routeTableService.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+        routeTableService.onHeartbeat(new HeartbeatEvent(this, 1L));
+        discoveryProperties.setInstances(Map.of("tradinganalysis", List.of(createInstance("first"), createInstance("second"))));
+        int calls = discoveryCalls.get();
+
+        routeTableService.onHeartbeat(new HeartbeatEvent(this, 1L));
+        assertThat(discoveryCalls.get()).isEqualTo(calls);
+        routeTableService.onHeartbeat(new HeartbeatEvent(this, 2L));
+
+        assertThat(routeTableService.getRoutes().get(0).getServiceInstances()).extracting("instanceId").containsExactly("first", "second");
+    }
+
+    @Test
+    void testRemovedRoutesAreDropped() {
+        routeTableService.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+        routeDefinitions.remove(0);
+
+        routeTableService.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+
+        assertThat(routeTableService.getRoutes()).isEmpty();
+    }
+
+    @Test
+    void testRequestRateAndLatencyAreReported() {
+        routeTableService.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+        for (int i = 0; i < 120; i++) {
+            Duration latency = Duration.ofMillis(i < 100 ? 10 : 500);
+            routeTableService.recordRequest("ReactiveCompositeDiscoveryClient_TRADINGANALYSIS", latency.toNanos());
+            nanoTime.addAndGet(Duration.ofMillis(250).toNanos());
+        }
+
+        RouteDTO route = routeTableService.getRoutes().get(0);
+
+        assertThat(route.getRequestRate()).isEqualTo(2.0);
+        assertThat(route.getLatencyP50()).isBetween(9.0, 11.0);
+        assertThat(route.getLatencyP99()).isBetween(450.0, 550.0);
+    }
+
+    private static RouteDefinition createRouteDefinition(String id, String serviceId) {
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setUri(URI.create("lb://" + serviceId));
+        PredicateDefinition path = new PredicateDefinition();
+        path.setName("Path");
+        path.addArg("pattern", "/services/" + serviceId + "/**");
+        path.addArg("matchTrailingSlash", "true");
+        definition.setPredicates(List.of(path));
+        return definition;
+    }
+
+    private static DefaultServiceInstance createInstance(String instanceId) {
+        return new DefaultServiceInstance(instanceId, "tradinganalysis", instanceId + ".local", 8081, false);
+    }
+}
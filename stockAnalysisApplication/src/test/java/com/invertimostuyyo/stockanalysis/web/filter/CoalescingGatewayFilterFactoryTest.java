@@ -0,0 +1,206 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.management.CoalescingMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CoalescingGatewayFilterFactoryTest {
+
+    private static final Route ROUTE = Route.async().id("tradinganalysis-route").uri("lb://tradinganalysis").predicate(e -> true).build();
+
+    private MeterRegistry meterRegistry;
+
+    private GatewayFilter filter;
+
+    private Sinks.Empty<Void> upstream;
+
+    private AtomicInteger upstreamCalls;
+
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        CoalescingGatewayFilterFactory factory = new CoalescingGatewayFilterFactory(new CoalescingMetersService(meterRegistry));
+        filter = factory.apply(new CoalescingGatewayFilterFactory.Config().setRoutes(List.of("TradingAnalysis")));
+        upstream = Sinks.empty();
+        upstreamCalls = new AtomicInteger();
+        chain = exchange -> {
+            int call = upstreamCalls.incrementAndGet();
+            return upstream
+                .asMono()
+                .then(
+                    Mono.defer(() -> {
+                        exchange.getResponse().setStatusCode(HttpStatus.OK);
+                        byte[] body = ("stock-" + call).getBytes(StandardCharsets.UTF_8);
+                        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+                    })
+                );
+        };
+    }
+
+    @Test
+    void testIdenticalRequestsAreProxiedOnce() {
+        ServerWebExchange first = createExchange("/api/stocks/1", "user");
+        ServerWebExchange second = createExchange("/api/stocks/1", "user");
+
+        Disposable firstRequest = filter.filter(first, chain).subscribe();
+        Disposable secondRequest = filter.filter(second, chain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(firstRequest.isDisposed()).isTrue();
+        assertThat(secondRequest.isDisposed()).isTrue();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(getBody(first)).isEqualTo("stock-1");
+        assertThat(getBody(second)).isEqualTo("stock-1");
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("gateway.coalescing.requests").tag("result", "coalesced").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.coalescing.saved").counter().count()).isEqualTo(7);
+        assertThat(meterRegistry.get("gateway.coalescing.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testRequestsOfOtherPrincipalsAreNotCoalesced() {
+        ServerWebExchange first = createExchange("/api/stocks/1", "user");
+        ServerWebExchange second = createExchange("/api/stocks/1", "admin");
+
+        filter.filter(first, chain).subscribe();
+        filter.filter(second, chain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(getBody(first)).isEqualTo("stock-1");
+        assertThat(getBody(second)).isEqualTo("stock-2");
+    }
+
+    @Test
+    void testRequestsOfOtherQueriesAreNotCoalesced() {
+        ServerWebExchange first = createExchange("/api/stocks?name.equals=A", "user");
+        ServerWebExchange second = createExchange("/api/stocks?name.equals=B", "user");
+
+        filter.filter(first, chain).subscribe();
+        filter.filter(second, chain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testRequestsOfOtherEncodingsAreNotCoalesced() {
+        ServerWebExchange first = createExchange(
+            MockServerHttpRequest.get("/api/stocks/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"),
+            "user"
+        );
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+
+        filter.filter(first, chain).subscribe();
+        filter.filter(second, chain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(getBody(second)).isEqualTo("stock-2");
+    }
+
+    @Test
+    void testResponsesVaryingOnOtherHeadersAreNotShared() {
+        GatewayFilterChain varyingChain = exchange -> {
+            exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ORIGIN));
+            return chain.filter(exchange);
+        };
+        ServerWebExchange first = createExchange("/api/stocks/1", "user");
+        ServerWebExchange second = createExchange("/api/stocks/1", "user");
+
+        filter.filter(first, varyingChain).subscribe();
+        filter.filter(second, varyingChain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(getBody(second)).isEqualTo("stock-2");
+        assertThat(meterRegistry.get("gateway.coalescing.requests").tag("result", "fallback").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSequentialRequestsAreNotCoalesced() {
+        upstream.tryEmitEmpty();
+
+        filter.filter(createExchange("/api/stocks/1", "user"), chain).block();
+        filter.filter(createExchange("/api/stocks/1", "user"), chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testRoutesNotConfiguredAreNotCoalesced() {
+        Route otherRoute = Route.async().id("portfoliomanagement").uri("lb://portfoliomanagement").predicate(e -> true).build();
+        ServerWebExchange first = createExchange("/api/portfolios/1", "user");
+        ServerWebExchange second = createExchange("/api/portfolios/1", "user");
+        first.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, otherRoute);
+        second.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, otherRoute);
+
+        filter.filter(first, chain).subscribe();
+        filter.filter(second, chain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testResponsesLargerThanTheMaximumAreNotShared() {
+        CoalescingGatewayFilterFactory factory = new CoalescingGatewayFilterFactory(new CoalescingMetersService(meterRegistry));
+        filter =
+            factory.apply(
+                new CoalescingGatewayFilterFactory.Config().setRoutes(List.of("tradinganalysis")).setMaxBodySize(DataSize.ofBytes(4))
+            );
+        ServerWebExchange first = createExchange("/api/stocks/1", "user");
+        ServerWebExchange second = createExchange("/api/stocks/1", "user");
+
+        filter.filter(first, chain).subscribe();
+        filter.filter(second, chain).subscribe();
+        upstream.tryEmitEmpty();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(getBody(second)).isEqualTo("stock-2");
+        assertThat(meterRegistry.get("gateway.coalescing.requests").tag("result", "fallback").counter().count()).isEqualTo(1);
+    }
+
+    private static ServerWebExchange createExchange(String uri, String user) {
+        return createExchange(MockServerHttpRequest.get(uri), user);
+    }
+
+    private static ServerWebExchange createExchange(MockServerHttpRequest.BaseBuilder<?> request, String user) {
+        Principal principal = () -> user;
+        ServerWebExchange exchange = MockServerWebExchange
+            .from(request.build())
+            .mutate()
+            .principal(Mono.just(principal))
+            .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+
+    private static String getBody(ServerWebExchange exchange) {
+        return ((MockServerHttpResponse) exchange.getResponse()).getBodyAsString().block();
+    }
+}
@@ -0,0 +1,186 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.management.ConcurrencyLimitMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ConcurrencyLimitGatewayFilterFactoryTest {
+
+    private static final Route TRADING_ANALYSIS = Route
+        .async()
+        .id("tradinganalysis-route")
+        .uri("lb://tradinganalysis")
+        .predicate(e -> true)
+        .build();
+
+    private static final Route PORTFOLIO_MANAGEMENT = Route
+        .async()
+        .id("portfoliomanagement-route")
+        .uri("lb://portfoliomanagement")
+        .predicate(e -> true)
+        .build();
+
+    private MeterRegistry meterRegistry;
+
+    private ConcurrencyLimitGatewayFilterFactory factory;
+
+    private Sinks.Empty<Void> upstream;
+
+    private AtomicInteger upstreamCalls;
+
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new ConcurrencyLimitGatewayFilterFactory(new ConcurrencyLimitMetersService(meterRegistry));
+        upstream = Sinks.empty();
+        upstreamCalls = new AtomicInteger();
+        chain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono().then(Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.OK)));
+        };
+    }
+
+    @Test
+    void testRequestsOverTheLimitAreRejected() {
+        GatewayFilter filter = factory.apply(new ConcurrencyLimitGatewayFilterFactory.Config().setInitialLimit(1));
+        ServerWebExchange first = createExchange(TRADING_ANALYSIS);
+        ServerWebExchange second = createExchange(TRADING_ANALYSIS);
+
+        filter.filter(first, chain).subscribe();
+        filter.filter(second, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("gateway.concurrency.rejected").tag("service", "tradinganalysis").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.concurrency.inflight").tag("service", "tradinganalysis").gauge().value()).isEqualTo(1);
+
+        upstream.tryEmitEmpty();
+
+        assertThat(first.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("gateway.concurrency.inflight").tag("service", "tradinganalysis").gauge().value()).isZero();
+    }
+
+    @Test
+    void testServicesAreLimitedSeparately() {
+        GatewayFilter filter = factory.apply(new ConcurrencyLimitGatewayFilterFactory.Config().setInitialLimit(1));
+        ServerWebExchange other = createExchange(PORTFOLIO_MANAGEMENT);
+
+        filter.filter(createExchange(TRADING_ANALYSIS), chain).subscribe();
+        filter.filter(other, chain).subscribe();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(other.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void testLimitDecreasesWhenTheServiceIsOverloaded() {
+        GatewayFilter filter = factory.apply(new ConcurrencyLimitGatewayFilterFactory.Config().setInitialLimit(10));
+        GatewayFilterChain overloaded = exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return Mono.empty();
+        };
+
+        filter.filter(createExchange(TRADING_ANALYSIS), overloaded).block();
+
+        assertThat(meterRegistry.get("gateway.concurrency.limit").tag("service", "tradinganalysis").gauge().value()).isEqualTo(9);
+    }
+
+    @Test
+    void testLimitIgnoresTheTransferOfASlowBody() throws InterruptedException {
+        GatewayFilter filter = factory.apply(
+            new ConcurrencyLimitGatewayFilterFactory.Config()
+                .setInitialLimit(10)
+                .setBackoffRatio(0.5)
+                .setLatencyThreshold(Duration.ofMillis(200))
+        );
+        Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+        ServerWebExchange exchange = createExchange(TRADING_ANALYSIS);
+
+        filter.filter(exchange, streaming -> streaming.getResponse().writeWith(body.asFlux())).subscribe();
+        body.tryEmitNext(createBuffer("{\"id\":1}\n"));
+        Thread.sleep(300);
+        body.tryEmitNext(createBuffer("{\"id\":2}\n"));
+        body.tryEmitComplete();
+
+        assertThat(meterRegistry.get("gateway.concurrency.inflight").tag("service", "tradinganalysis").gauge().value()).isZero();
+        assertThat(meterRegistry.get("gateway.concurrency.limit").tag("service", "tradinganalysis").gauge().value()).isEqualTo(10);
+
+        GatewayFilterChain slowHeaders = slow -> upstream.asMono().then(slow.getResponse().writeWith(Flux.just(createBuffer("{}"))));
+        filter.filter(createExchange(TRADING_ANALYSIS), slowHeaders).subscribe();
+        Thread.sleep(300);
+        upstream.tryEmitEmpty();
+
+        assertThat(meterRegistry.get("gateway.concurrency.limit").tag("service", "tradinganalysis").gauge().value()).isEqualTo(5);
+    }
+
+    @Test
+    void testLimitDecreasesWhenTheServiceIsSlow() {
+        AimdLimiter limiter = new AimdLimiter(10, 1, 100, 0.5, Duration.ofSeconds(1).toNanos());
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(Duration.ofSeconds(2).toNanos(), false);
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void testLimitIncreasesWhenTheServiceIsBusyAndFast() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 100, 0.5, Duration.ofSeconds(1).toNanos());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(0, false);
+            limiter.release(0, false);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void testLimitDoesNotIncreaseWhenTheServiceIsIdle() {
+        AimdLimiter limiter = new AimdLimiter(10, 1, 100, 0.5, Duration.ofSeconds(1).toNanos());
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(0, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    private static DataBuffer createBuffer(String content) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ServerWebExchange createExchange(Route route) {
+        ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/stocks"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
@@ -0,0 +1,322 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.invertimostuyyo.stockanalysis.management.HedgingMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class HedgingGatewayFilterFactoryTest {
+
+    private static final Route TRADING_ANALYSIS = Route
+        .async()
+        .id("tradinganalysis-route")
+        .uri("lb://tradinganalysis")
+        .predicate(e -> true)
+        .build();
+
+    private static final Route PORTFOLIO_MANAGEMENT = Route
+        .async()
+        .id("portfoliomanagement-route")
+        .uri("lb://portfoliomanagement")
+        .predicate(e -> true)
+        .build();
+
+    private MeterRegistry meterRegistry;
+
+    private HedgingGatewayFilterFactory factory;
+
+    private Queue<Duration> latencies;
+
+    private AtomicInteger upstreamCalls;
+
+    private AtomicInteger cancelledCalls;
+
+    private List<String> excludedInstances;
+
+    private Set<Integer> failingCalls;
+
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new HedgingGatewayFilterFactory(new HedgingMetersService(meterRegistry));
+        latencies = new ConcurrentLinkedQueue<>();
+        upstreamCalls = new AtomicInteger();
+        cancelledCalls = new AtomicInteger();
+        excludedInstances = new CopyOnWriteArrayList<>();
+        failingCalls = new CopyOnWriteArraySet<>();
+        chain = exchange -> {
+            int call = upstreamCalls.incrementAndGet();
+            String excluded = exchange.getRequest().getHeaders().getFirst(HedgingGatewayFilterFactory.EXCLUDED_INSTANCE_HEADER);
+            excludedInstances.add(excluded != null ? excluded : "");
+            exchange
+                .getAttributes()
+                .put(
+                    ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+                    new DefaultResponse(new DefaultServiceInstance("instance-" + call, "tradinganalysis", "localhost", 8080 + call, false))
+                );
+            Duration latency = latencies.poll();
+            return Mono
+                .delay(latency != null ? latency : Duration.ZERO)
+                .then(
+                    Mono.defer(() -> {
+                        if (failingCalls.contains(call)) {
+                            return Mono.error(new IllegalStateException("attempt-" + call + " failed"));
+                        }
+                        exchange.getResponse().setStatusCode(HttpStatus.OK);
+                        byte[] body = ("attempt-" + call).getBytes(StandardCharsets.UTF_8);
+                        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+                    })
+                )
+                .doOnCancel(cancelledCalls::incrementAndGet);
+        };
+    }
+
+    @Test
+    void testSlowRequestIsHedged() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(20)));
+        latencies.add(Duration.ofSeconds(5));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        long start = System.nanoTime();
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(cancelledCalls.get()).isEqualTo(1);
+        assertThat(excludedInstances).containsExactly("", "instance-1");
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-2");
+        assertThat(meterRegistry.get("gateway.hedging.sent").tag("route", "tradinganalysis-route").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.hedging.won").tag("route", "tradinganalysis-route").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testFastRequestIsNotHedged() {
+        GatewayFilter filter = factory.apply(createConfig());
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-1");
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(9);
+    }
+
+    @Test
+    void testDelayFollowsObservedLatency() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofSeconds(10)).setMinDelay(Duration.ofMillis(10)));
+        for (int i = 0; i < 20; i++) {
+            filter.filter(createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses")), chain).block();
+        }
+        upstreamCalls.set(0);
+        latencies.add(Duration.ofSeconds(5));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-2");
+    }
+
+    @Test
+    void testDelayLeavesOutTheFirstAttemptsCancelledByAHedge() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(10)).setBudgetBurst(100));
+        for (int i = 0; i < 20; i++) {
+            latencies.add(Duration.ofSeconds(5));
+            latencies.add(Duration.ofMillis(100));
+            filter.filter(createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses")), chain).block(Duration.ofSeconds(2));
+        }
+        upstreamCalls.set(0);
+        latencies.add(Duration.ofMillis(60));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        // Still the initial delay: the first attempts cancelled after about 110ms are not latencies of the route
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-2");
+    }
+
+    @Test
+    void testFailedFirstAttemptIsHedged() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(50)));
+        failingCalls.add(1);
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-2");
+    }
+
+    @Test
+    void testErrorIsReturnedWhenBothAttemptsFail() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(10)));
+        failingCalls.add(1);
+        failingCalls.add(2);
+        latencies.add(Duration.ofMillis(50));
+
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        assertThatThrownBy(() -> filter.filter(exchange, chain).block(Duration.ofSeconds(2)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("attempt-1 failed");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testErrorIsReturnedWhenTheHedgeIsThrottled() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(10)).setBudgetBurst(0));
+        failingCalls.add(1);
+
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        assertThatThrownBy(() -> filter.filter(exchange, chain).block(Duration.ofSeconds(2)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("attempt-1 failed");
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testHedgesAreCappedByBudget() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(10)).setBudgetBurst(0));
+        latencies.add(Duration.ofMillis(200));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-1");
+        assertThat(meterRegistry.get("gateway.hedging.throttled").tag("route", "tradinganalysis-route").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testWritesAndOtherRoutesAreNotHedged() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(10)));
+        latencies.add(Duration.ofMillis(100));
+        latencies.add(Duration.ofMillis(100));
+
+        filter.filter(createExchange(TRADING_ANALYSIS, MockServerHttpRequest.post("/api/analyses")), chain).block();
+        filter.filter(createExchange(PORTFOLIO_MANAGEMENT, MockServerHttpRequest.get("/api/portfolios")), chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(cancelledCalls.get()).isZero();
+    }
+
+    @Test
+    void testLargeResponseIsHandedToTheClient() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(50)).setMaxBodySize(DataSize.ofBytes(4)));
+        latencies.add(Duration.ofMillis(10));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+        Mono.delay(Duration.ofMillis(100)).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-1");
+    }
+
+    @Test
+    void testLargeHedgedResponseCancelsTheFirstAttempt() {
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(20)).setMaxBodySize(DataSize.ofBytes(4)));
+        latencies.add(Duration.ofSeconds(5));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(cancelledCalls.get()).isEqualTo(1);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-2");
+    }
+
+    @Test
+    void testBodyOfTheCancelledAttemptIsReleased() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, false);
+        NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(allocator);
+        List<DataBuffer> produced = new CopyOnWriteArrayList<>();
+        GatewayFilterChain stallingChain = exchange -> {
+            int call = upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            Flux<DataBuffer> body = Flux
+                .range(0, 4)
+                .map(i -> {
+                    ByteBuf buffer = allocator.directBuffer(64);
+                    buffer.writeCharSequence("attempt-" + call, StandardCharsets.UTF_8);
+                    DataBuffer dataBuffer = bufferFactory.wrap(buffer);
+                    produced.add(dataBuffer);
+                    return dataBuffer;
+                });
+            // the first attempt stalls in the middle of its body, holding its first buffers
+            return exchange.getResponse().writeWith(call == 1 ? body.concatWith(Mono.never()) : body);
+        };
+        GatewayFilter filter = factory.apply(createConfig().setInitialDelay(Duration.ofMillis(20)));
+        MockServerWebExchange exchange = createExchange(TRADING_ANALYSIS, MockServerHttpRequest.get("/api/analyses"));
+
+        filter.filter(exchange, stallingChain).block(Duration.ofSeconds(2));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(exchange.getResponse().getBodyAsString().block()).startsWith("attempt-2");
+        assertThat(produced).hasSize(8);
+        for (DataBuffer buffer : produced) {
+            assertThat(((NettyDataBuffer) buffer).getNativeBuffer().refCnt()).isZero();
+        }
+        assertThat(allocator.metric().directArenas().stream().mapToLong(PoolArenaMetric::numActiveAllocations).sum()).isZero();
+    }
+
+    @Test
+    void testExcludedInstanceHeaderIsNotForwarded() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.ACCEPT, "application/json");
+        headers.add(HedgingGatewayFilterFactory.EXCLUDED_INSTANCE_HEADER, "instance-1");
+
+        HttpHeaders filtered = factory.filter(HttpHeaders.readOnlyHttpHeaders(headers), null);
+
+        assertThat(filtered.containsKey(HedgingGatewayFilterFactory.EXCLUDED_INSTANCE_HEADER)).isFalse();
+        assertThat(filtered.getFirst(HttpHeaders.ACCEPT)).isEqualTo("application/json");
+    }
+
+    private static HedgingGatewayFilterFactory.Config createConfig() {
+        return new HedgingGatewayFilterFactory.Config().setRoutes(List.of("tradinganalysis"));
+    }
+
+    private static MockServerWebExchange createExchange(Route route, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
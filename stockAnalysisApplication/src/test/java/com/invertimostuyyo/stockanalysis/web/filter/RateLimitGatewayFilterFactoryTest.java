@@ -0,0 +1,171 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import tech.jhipster.config.JHipsterProperties;
+
+class RateLimitGatewayFilterFactoryTest {
+
+    private static final Route TRADING_ANALYSIS = Route
+        .async()
+        .id("tradinganalysis")
+        .uri("lb://tradinganalysis")
+        .predicate(e -> true)
+        .build();
+
+    private static final Route PORTFOLIO_MANAGEMENT = Route
+        .async()
+        .id("portfoliomanagement")
+        .uri("lb://portfoliomanagement")
+        .predicate(e -> true)
+        .build();
+
+    private AtomicLong nanoTime;
+
+    private AtomicInteger upstreamCalls;
+
+    private GatewayFilterChain chain;
+
+    private GatewayFilter filter;
+
+    @BeforeEach
+    public void setup() {
+        nanoTime = new AtomicLong();
+        upstreamCalls = new AtomicInteger();
+        chain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        };
+        filter = createFilter(true);
+    }
+
+    @Test
+    void testResponseHasRateLimitHeaders() {
+        ServerWebExchange exchange = createExchange(TRADING_ANALYSIS, "user");
+
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(headers.getFirst(RateLimitGatewayFilterFactory.LIMIT_HEADER)).isEqualTo("2");
+        assertThat(headers.getFirst(RateLimitGatewayFilterFactory.REMAINING_HEADER)).isEqualTo("1");
+        assertThat(headers.getFirst(RateLimitGatewayFilterFactory.RESET_HEADER)).isEqualTo("30");
+    }
+
+    @Test
+    void testRequestsOverTheLimitAreRejected() {
+        filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        ServerWebExchange rejected = createExchange(TRADING_ANALYSIS, "user");
+
+        filter.filter(rejected, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(rejected.getResponse().getHeaders().getFirst(RateLimitGatewayFilterFactory.REMAINING_HEADER)).isEqualTo("0");
+    }
+
+    @Test
+    void testTokensAreRefilledOverTime() {
+        filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+        ServerWebExchange exchange = createExchange(TRADING_ANALYSIS, "user");
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testUsersAndRoutesAreLimitedSeparately() {
+        filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        ServerWebExchange otherUser = createExchange(TRADING_ANALYSIS, "admin");
+        ServerWebExchange otherRoute = createExchange(PORTFOLIO_MANAGEMENT, "user");
+
+        filter.filter(otherUser, chain).block();
+        filter.filter(otherRoute, chain).block();
+
+        assertThat(otherUser.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(otherRoute.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void testRequestsAreNotLimitedWhenDisabled() {
+        filter = createFilter(false);
+        ServerWebExchange exchange = createExchange(TRADING_ANALYSIS, "user");
+
+        for (int i = 0; i < 10; i++) {
+            filter.filter(createExchange(TRADING_ANALYSIS, "user"), chain).block();
+        }
+        filter.filter(exchange, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(11);
+        assertThat(exchange.getResponse().getHeaders().containsKey(RateLimitGatewayFilterFactory.LIMIT_HEADER)).isFalse();
+    }
+
+    @Test
+    void testBucketsAreBounded() {
+        TokenBucketTable buckets = new TokenBucketTable(10, Duration.ofSeconds(1).toNanos(), TokenBucketTable.STRIPES, nanoTime::get);
+
+        for (int i = 0; i < 1000; i++) {
+            buckets.tryConsume("user-" + i);
+        }
+
+        assertThat(buckets.size()).isLessThanOrEqualTo(TokenBucketTable.STRIPES);
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted() {
+        TokenBucketTable buckets = new TokenBucketTable(10, Duration.ofSeconds(1).toNanos(), 100_000, nanoTime::get);
+        for (int i = 0; i < 100; i++) {
+            buckets.tryConsume("idle-" + i);
+        }
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        for (int i = 0; i < 1000; i++) {
+            buckets.tryConsume("active-" + i);
+        }
+
+        assertThat(buckets.size()).isEqualTo(1000);
+    }
+
+    private GatewayFilter createFilter(boolean enabled) {
+        JHipsterProperties.Gateway.RateLimiting rateLimiting = new JHipsterProperties.Gateway.RateLimiting();
+        rateLimiting.setEnabled(enabled);
+        rateLimiting.setLimit(2);
+        rateLimiting.setDurationInSeconds(60);
+        return new RateLimitGatewayFilterFactory(rateLimiting, nanoTime::get).apply(new Object());
+    }
+
+    private static ServerWebExchange createExchange(Route route, String user) {
+        Principal principal = () -> user;
+        ServerWebExchange exchange = MockServerWebExchange
+            .from(MockServerHttpRequest.get("/api/stocks"))
+            .mutate()
+            .principal(Mono.just(principal))
+            .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
@@ -0,0 +1,443 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.web.server.header.CacheControlServerHttpHeadersWriter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final Route ROUTE = Route.async().id("tradinganalysis-route").uri("lb://tradinganalysis").predicate(e -> true).build();
+
+    private MeterRegistry meterRegistry;
+
+    private ResponseCacheGatewayFilterFactory factory;
+
+    private GatewayFilter filter;
+
+    private AtomicInteger upstreamCalls;
+
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new ResponseCacheGatewayFilterFactory(new ApplicationProperties(), meterRegistry);
+        filter = factory.apply(new ResponseCacheGatewayFilterFactory.Config().setRoutes(List.of("TradingAnalysis")));
+        upstreamCalls = new AtomicInteger();
+        chain = exchange -> {
+            int call = upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            byte[] body = ("stock-" + call).getBytes(StandardCharsets.UTF_8);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+        };
+    }
+
+    @Test
+    void testResponseIsCachedWithAnETag() {
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+
+        filter.filter(first, chain).block();
+        filter.filter(second, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(getBody(second)).isEqualTo("stock-1");
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getResponse().getHeaders().getETag()).isNotNull();
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo(first.getResponse().getHeaders().getETag());
+        assertThat(second.getResponse().getHeaders().getContentLength()).isEqualTo(7);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "gateway.responses").tag("result", "hit").functionCounter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testMatchingIfNoneMatchIsAnsweredWithNotModified() {
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(first, chain).block();
+        String eTag = first.getResponse().getHeaders().getETag();
+
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1").ifNoneMatch(eTag), "user");
+        filter.filter(second, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo(eTag);
+        assertThat(getBody(second)).isNullOrEmpty();
+    }
+
+    @Test
+    void testNotModifiedCarriesTheCachingHeadersOfTheCachedResponse() {
+        GatewayFilterChain cachingChain = exchange -> {
+            exchange.getResponse().getHeaders().setCacheControl("max-age=60");
+            exchange.getResponse().getHeaders().setExpires(ZonedDateTime.parse("2026-10-18T12:00:00Z"));
+            exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT));
+            exchange.getResponse().getHeaders().set("X-Total-Count", "1");
+            return chain.filter(exchange);
+        };
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(first, cachingChain).block();
+        String eTag = first.getResponse().getHeaders().getETag();
+
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1").ifNoneMatch(eTag), "user");
+        filter.filter(second, cachingChain).block();
+
+        HttpHeaders headers = second.getResponse().getHeaders();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(headers.getETag()).isEqualTo(eTag);
+        assertThat(headers.getCacheControl()).isEqualTo("max-age=60");
+        assertThat(headers.getExpires()).isEqualTo(first.getResponse().getHeaders().getExpires());
+        assertThat(headers.getVary()).containsExactly(HttpHeaders.ACCEPT);
+        assertThat(headers.containsKey("X-Total-Count")).isFalse();
+    }
+
+    @Test
+    void testMatchingIfNoneMatchOfAMissIsAnsweredWithNotModified() {
+        GatewayFilterChain unchangedChain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            byte[] body = "stock".getBytes(StandardCharsets.UTF_8);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+        };
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(first, unchangedChain).block();
+        String eTag = first.getResponse().getHeaders().getETag();
+
+        ServerWebExchange revalidated = createExchange(
+            MockServerHttpRequest.get("/api/stocks/1").ifNoneMatch(eTag).header(HttpHeaders.CACHE_CONTROL, "no-cache"),
+            "user"
+        );
+        filter.filter(revalidated, unchangedChain).block();
+        ServerWebExchange cached = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(cached, unchangedChain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getResponse().getHeaders().getETag()).isEqualTo(eTag);
+        assertThat(getBody(revalidated)).isNullOrEmpty();
+        assertThat(cached.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(cached.getResponse().getHeaders().getContentLength()).isEqualTo(5);
+        assertThat(getBody(cached)).isEqualTo("stock");
+    }
+
+    @Test
+    void testCacheControlOfTheResponseIsHonoured() {
+        for (String cacheControl : List.of("no-cache", "max-age=0", "public, max-age=60, s-maxage=0")) {
+            GatewayFilterChain uncachedChain = exchange -> {
+                exchange.getResponse().getHeaders().setCacheControl(cacheControl);
+                return chain.filter(exchange);
+            };
+            upstreamCalls.set(0);
+            filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), uncachedChain).block();
+            filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), uncachedChain).block();
+
+            assertThat(upstreamCalls.get()).as(cacheControl).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testResponsesWithTheHeadersOfSpringSecurityAreNotCached() {
+        GatewayFilterChain securedChain = exchange ->
+            new CacheControlServerHttpHeadersWriter().writeHttpHeaders(exchange).then(chain.filter(exchange));
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), securedChain).block();
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(second, securedChain).block();
+
+        assertThat(second.getResponse().getHeaders().getCacheControl()).contains("no-store");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testPrivateResponsesWithAMaxAgeAreCached() {
+        GatewayFilterChain referenceDataChain = exchange -> {
+            exchange.getResponse().getHeaders().setCacheControl("max-age=30, private");
+            return chain.filter(exchange);
+        };
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), referenceDataChain).block();
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(second, referenceDataChain).block();
+
+        assertThat(getBody(second)).isEqualTo("stock-1");
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testPrivateResponsesWithoutPrincipalAreNotCached() {
+        GatewayFilterChain referenceDataChain = exchange -> {
+            exchange.getResponse().getHeaders().setCacheControl("max-age=30, private");
+            return chain.filter(exchange);
+        };
+        for (int i = 0; i < 2; i++) {
+            ServerWebExchange anonymous = MockServerWebExchange.from(MockServerHttpRequest.get("/api/stocks/1").build());
+            anonymous.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+            filter.filter(anonymous, referenceDataChain).block();
+        }
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testSurrogateControlIsHonouredAndStripped() {
+        GatewayFilterChain referenceDataChain = exchange -> {
+            exchange.getResponse().getHeaders().setCacheControl("no-cache, private");
+            exchange.getResponse().getHeaders().set(ResponseCacheGatewayFilterFactory.SURROGATE_CONTROL, "max-age=30");
+            return chain.filter(exchange);
+        };
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(first, referenceDataChain).block();
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(second, referenceDataChain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(getBody(second)).isEqualTo("stock-1");
+        for (ServerWebExchange exchange : List.of(first, second)) {
+            assertThat(exchange.getResponse().getHeaders().getCacheControl()).isEqualTo("no-cache, private");
+            assertThat(exchange.getResponse().getHeaders().getETag()).isNotNull();
+            assertThat(exchange.getResponse().getHeaders().containsKey(ResponseCacheGatewayFilterFactory.SURROGATE_CONTROL)).isFalse();
+        }
+    }
+
+    @Test
+    void testResponsesAreCachedByEncoding() {
+        filter
+            .filter(createExchange(MockServerHttpRequest.get("/api/stocks/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"), "user"), chain)
+            .block();
+        ServerWebExchange identity = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(identity, chain).block();
+
+        assertThat(getBody(identity)).isEqualTo("stock-2");
+    }
+
+    @Test
+    void testResponsesVaryingOnOtherHeadersAreNotCached() {
+        GatewayFilterChain varyingChain = exchange -> {
+            exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ORIGIN));
+            return chain.filter(exchange);
+        };
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), varyingChain).block();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), varyingChain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testMaxAgeOfTheResponseShortensItsTimeToLive() throws InterruptedException {
+        GatewayFilterChain shortChain = exchange -> {
+            exchange.getResponse().getHeaders().setCacheControl("max-age=1");
+            return chain.filter(exchange);
+        };
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), shortChain).block();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), shortChain).block();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+
+        Thread.sleep(1100);
+        ServerWebExchange stale = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(stale, shortChain).block();
+
+        assertThat(getBody(stale)).isEqualTo("stock-1");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testStaleResponseIsServedWhileRefreshed() {
+        filter =
+            factory.apply(
+                new ResponseCacheGatewayFilterFactory.Config().setRoutes(List.of("tradinganalysis")).setTimeToLive(Duration.ZERO)
+            );
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), chain).block();
+
+        ServerWebExchange stale = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(stale, chain).block();
+        ServerWebExchange refreshed = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(refreshed, chain).block();
+
+        assertThat(getBody(stale)).isEqualTo("stock-1");
+        assertThat(getBody(refreshed)).isEqualTo("stock-2");
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testRefreshIsNotConditionalAndHasItsOwnAttributes() {
+        filter =
+            factory.apply(
+                new ResponseCacheGatewayFilterFactory.Config().setRoutes(List.of("tradinganalysis")).setTimeToLive(Duration.ZERO)
+            );
+        GatewayFilterChain conditionalChain = exchange -> {
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, URI.create("http://localhost:8081/api/stocks/1"));
+            if (!exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()) {
+                upstreamCalls.incrementAndGet();
+                exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange);
+        };
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(first, conditionalChain).block();
+        String eTag = first.getResponse().getHeaders().getETag();
+
+        ServerWebExchange stale = createExchange(MockServerHttpRequest.get("/api/stocks/1").ifNoneMatch(eTag), "user");
+        filter.filter(stale, conditionalChain).block();
+        ServerWebExchange refreshed = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        filter.filter(refreshed, conditionalChain).block();
+
+        assertThat(stale.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(stale.<URI>getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR)).isNull();
+        assertThat(getBody(refreshed)).isEqualTo("stock-2");
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testWriteEvictsTheResourceAndItsCollection() {
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks"), "user"), chain).block();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), chain).block();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/2"), "user"), chain).block();
+
+        filter.filter(createExchange(MockServerHttpRequest.method(HttpMethod.PUT, "/api/stocks/1"), "user"), chain).block();
+
+        ServerWebExchange collection = createExchange(MockServerHttpRequest.get("/api/stocks"), "user");
+        ServerWebExchange written = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        ServerWebExchange other = createExchange(MockServerHttpRequest.get("/api/stocks/2"), "user");
+        filter.filter(collection, chain).block();
+        filter.filter(written, chain).block();
+        filter.filter(other, chain).block();
+
+        assertThat(getBody(collection)).isEqualTo("stock-5");
+        assertThat(getBody(written)).isEqualTo("stock-6");
+        assertThat(getBody(other)).isEqualTo("stock-3");
+    }
+
+    @Test
+    void testWriteDuringAReadOnlyPreventsTheCachingOfItsResource() {
+        Sinks.Empty<Void> written = Sinks.empty();
+        GatewayFilterChain slowChain = exchange ->
+            exchange.getRequest().getMethod() == HttpMethod.GET ? written.asMono().then(chain.filter(exchange)) : chain.filter(exchange);
+        ServerWebExchange stock = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+        ServerWebExchange portfolio = createExchange(MockServerHttpRequest.get("/api/portfolios/1"), "user");
+
+        Mono<Void> reads = Mono.when(filter.filter(stock, slowChain), filter.filter(portfolio, slowChain)).cache();
+        reads.subscribe();
+        filter.filter(createExchange(MockServerHttpRequest.method(HttpMethod.PUT, "/api/stocks/1"), "user"), chain).block();
+        written.tryEmitEmpty();
+        reads.block();
+        upstreamCalls.set(0);
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), chain).block();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/portfolios/1"), "user"), chain).block();
+
+        // the read of the written stock is proxied again, the read of the portfolio was cached
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testResponsesAreCachedByPrincipal() {
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), chain).block();
+        ServerWebExchange other = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "admin");
+        filter.filter(other, chain).block();
+
+        assertThat(getBody(other)).isEqualTo("stock-2");
+    }
+
+    @Test
+    void testResponsesWithCookiesAreNotCached() {
+        GatewayFilterChain cookieChain = exchange -> {
+            exchange.getResponse().getHeaders().add(HttpHeaders.SET_COOKIE, "session=1");
+            return chain.filter(exchange);
+        };
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), cookieChain).block();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), cookieChain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testRoutesNotConfiguredAreNotCached() {
+        Route otherRoute = Route.async().id("portfoliomanagement").uri("lb://portfoliomanagement").predicate(e -> true).build();
+        ServerWebExchange first = createExchange(MockServerHttpRequest.get("/api/portfolios/1"), "user");
+        ServerWebExchange second = createExchange(MockServerHttpRequest.get("/api/portfolios/1"), "user");
+        first.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, otherRoute);
+        second.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, otherRoute);
+
+        filter.filter(first, chain).block();
+        filter.filter(second, chain).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(second.getResponse().getHeaders().getETag()).isNull();
+    }
+
+    @Test
+    void testBodyHeldBackIsReleasedWhenTheClientGoesAway() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, false);
+        NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(allocator);
+        List<DataBuffer> produced = new CopyOnWriteArrayList<>();
+        GatewayFilterChain stallingChain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            Flux<DataBuffer> body = Flux
+                .range(0, 2)
+                .map(i -> {
+                    ByteBuf buffer = allocator.directBuffer(64);
+                    buffer.writeCharSequence("stock-" + i, StandardCharsets.UTF_8);
+                    DataBuffer dataBuffer = bufferFactory.wrap(buffer);
+                    produced.add(dataBuffer);
+                    return dataBuffer;
+                });
+            return exchange.getResponse().writeWith(body.concatWith(Mono.never()));
+        };
+        ServerWebExchange exchange = createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user");
+
+        Disposable request = filter.filter(exchange, stallingChain).subscribe();
+        request.dispose();
+
+        assertThat(produced).hasSize(2);
+        for (DataBuffer buffer : produced) {
+            assertThat(((NettyDataBuffer) buffer).getNativeBuffer().refCnt()).isZero();
+        }
+        assertThat(allocator.metric().directArenas().stream().mapToLong(PoolArenaMetric::numActiveAllocations).sum()).isZero();
+        filter.filter(createExchange(MockServerHttpRequest.get("/api/stocks/1"), "user"), chain).block();
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    private static ServerWebExchange createExchange(MockServerHttpRequest.BaseBuilder<?> request, String user) {
+        Principal principal = () -> user;
+        ServerWebExchange exchange = MockServerWebExchange.from(request.build()).mutate().principal(Mono.just(principal)).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+
+    private static String getBody(ServerWebExchange exchange) {
+        return ((MockServerHttpResponse) exchange.getResponse()).getBodyAsString().block();
+    }
+}
@@ -0,0 +1,380 @@
+package com.invertimostuyyo.stockanalysis.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import com.invertimostuyyo.stockanalysis.management.CoalescingMetersService;
+import com.invertimostuyyo.stockanalysis.management.HedgingMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams pooled buffers through the filters which may record a body, and checks that they are written through and released.
+ * <p>
+ * The buffers are allocated without thread caches, so that the active allocations of the pool are the buffers not released yet. The
+ * proxying of a 2 GB export is run with {@code ./mvnw test -Dtest=StreamingGatewayFilterFactoryTest -Dbenchmark=true}.
+ */
+class StreamingGatewayFilterFactoryTest {
+
+    private static final Route ROUTE = Route.async().id("tradinganalysis-route").uri("lb://tradinganalysis").predicate(e -> true).build();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static ResourceLeakDetector.Level leakDetectionLevel;
+
+    private PooledByteBufAllocator allocator;
+
+    private NettyDataBufferFactory bufferFactory;
+
+    private List<GatewayFilter> filters;
+
+    private Flux<DataBuffer> export;
+
+    private final List<DataBuffer> produced = new ArrayList<>();
+
+    private final List<DataBuffer> consumed = new ArrayList<>();
+
+    private boolean recording;
+
+    private final AtomicLong producedCount = new AtomicLong();
+
+    private final AtomicLong releasedCount = new AtomicLong();
+
+    private final AtomicLong maxOutstanding = new AtomicLong();
+
+    @BeforeAll
+    public static void enableLeakDetection() {
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    public static void restoreLeakDetection() {
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    @BeforeEach
+    public void setup() {
+        allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, false);
+        bufferFactory = new NettyDataBufferFactory(allocator);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<String> routes = List.of("tradinganalysis");
+        filters =
+            List.of(
+                new StreamingGatewayFilterFactory().apply(new StreamingGatewayFilterFactory.Config().setRoutes(routes)),
+                new ResponseCacheGatewayFilterFactory(new ApplicationProperties(), meterRegistry)
+                    .apply(new ResponseCacheGatewayFilterFactory.Config().setRoutes(routes)),
+                new CoalescingGatewayFilterFactory(new CoalescingMetersService(meterRegistry))
+                    .apply(new CoalescingGatewayFilterFactory.Config().setRoutes(routes)),
+                new HedgingGatewayFilterFactory(new HedgingMetersService(meterRegistry))
+                    .apply(new HedgingGatewayFilterFactory.Config().setRoutes(routes))
+            );
+    }
+
+    @Test
+    void testExportIsWrittenThroughWithoutCopy() {
+        export = createBody(100, true);
+        ClientResponse response = new ClientResponse(Long.MAX_VALUE);
+        ServerWebExchange exchange = createExchange(createExportRequest(), response);
+
+        filter(exchange).block();
+
+        assertThat(StreamingGatewayFilterFactory.isStreaming(exchange)).isTrue();
+        assertThat(consumed).hasSize(100);
+        for (int i = 0; i < consumed.size(); i++) {
+            assertThat(consumed.get(i)).isSameAs(produced.get(i));
+        }
+        assertReleased();
+    }
+
+    @Test
+    void testExportIsBackpressuredByTheClient() {
+        export = createBody(10_000, false);
+        ClientResponse response = new ClientResponse(16);
+        ServerWebExchange exchange = createExchange(createExportRequest(), response);
+
+        Disposable request = filter(exchange).subscribe();
+
+        assertThat(request.isDisposed()).isFalse();
+        assertThat(producedCount.get()).isLessThanOrEqualTo(32);
+        response.requestAll();
+        assertThat(request.isDisposed()).isTrue();
+        assertThat(producedCount.get()).isEqualTo(10_000);
+        assertThat(maxOutstanding.get()).isLessThanOrEqualTo(32);
+        assertReleased();
+    }
+
+    @Test
+    void testImportIsReadThroughWithoutCopy() {
+        MockServerHttpRequest request = MockServerHttpRequest
+            .post("/api/stocks/batch")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(createBody(100, true));
+        ServerWebExchange exchange = createExchange(request, new ClientResponse(Long.MAX_VALUE));
+
+        filter(exchange).block();
+
+        assertThat(StreamingGatewayFilterFactory.isStreaming(exchange)).isTrue();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(consumed).hasSize(100);
+        for (int i = 0; i < consumed.size(); i++) {
+            assertThat(consumed.get(i)).isSameAs(produced.get(i));
+        }
+        assertReleased();
+    }
+
+    @Test
+    void testRequestOfOtherMediaTypeIsNotStreamed() {
+        ServerWebExchange wildcard = createExchange(MockServerHttpRequest.get("/api/stocks").build(), new ClientResponse(0));
+        ServerWebExchange json = createExchange(
+            MockServerHttpRequest.get("/api/stocks").accept(MediaType.APPLICATION_JSON).build(),
+            new ClientResponse(0)
+        );
+
+        filters.get(0).filter(wildcard, exchange -> Mono.empty()).block();
+        filters.get(0).filter(json, exchange -> Mono.empty()).block();
+
+        assertThat(StreamingGatewayFilterFactory.isStreaming(wildcard)).isFalse();
+        assertThat(StreamingGatewayFilterFactory.isStreaming(json)).isFalse();
+    }
+
+    @Test
+    void testRequestWithMalformedMediaTypeIsNotStreamed() {
+        ServerWebExchange accept = createExchange(
+            MockServerHttpRequest.get("/api/stocks").header(HttpHeaders.ACCEPT, "application/x-ndjson, ndjson").build(),
+            new ClientResponse(0)
+        );
+        ServerWebExchange contentType = createExchange(
+            MockServerHttpRequest.post("/api/stocks/batch").header(HttpHeaders.CONTENT_TYPE, "x-ndjson").build(),
+            new ClientResponse(0)
+        );
+
+        filters.get(0).filter(accept, exchange -> Mono.empty()).block();
+        filters.get(0).filter(contentType, exchange -> Mono.empty()).block();
+
+        assertThat(StreamingGatewayFilterFactory.isStreaming(accept)).isFalse();
+        assertThat(StreamingGatewayFilterFactory.isStreaming(contentType)).isFalse();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    void benchmarkTwoGigabytesExport() {
+        int count = (int) (2L * 1024 * 1024 * 1024 / BUFFER_SIZE);
+        AtomicLong maxHeap = new AtomicLong();
+        long baseHeap = getHeapAfterGc();
+        export =
+            createBody(count, false)
+                .doOnNext(buffer -> {
+                    if (producedCount.get() % 32_768 == 0) {
+                        maxHeap.accumulateAndGet(getHeapAfterGc(), Math::max);
+                    }
+                });
+        ClientResponse response = new ClientResponse(Long.MAX_VALUE);
+        ServerWebExchange exchange = createExchange(createExportRequest(), response);
+
+        long start = System.nanoTime();
+        filter(exchange).block();
+
+        System.out.printf(
+            "2 GB in %d ms: heap %d MB before, %d MB at most, %d buffers in flight at most%n",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            baseHeap / (1024 * 1024),
+            maxHeap.get() / (1024 * 1024),
+            maxOutstanding.get()
+        );
+        assertThat(producedCount.get()).isEqualTo(count);
+        assertThat(maxHeap.get() - baseHeap).isLessThan(16L * 1024 * 1024);
+        assertThat(maxOutstanding.get()).isLessThanOrEqualTo(32);
+        assertReleased();
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange) {
+        return createChain(0).filter(exchange);
+    }
+
+    private GatewayFilterChain createChain(int index) {
+        if (index == filters.size()) {
+            return this::proxy;
+        }
+        return exchange -> filters.get(index).filter(exchange, createChain(index + 1));
+    }
+
+    /**
+     * Answers an export as the proxy does for a streaming media type, and reads an import as it is sent.
+     */
+    private Mono<Void> proxy(ServerWebExchange exchange) {
+        if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return exchange
+                .getRequest()
+                .getBody()
+                .doOnNext(this::consume)
+                .then(Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.CREATED)))
+                .then(exchange.getResponse().setComplete());
+        }
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        return exchange.getResponse().writeAndFlushWith(export.map(Mono::just));
+    }
+
+    private static MockServerHttpRequest createExportRequest() {
+        return MockServerHttpRequest.get("/api/stocks").accept(MediaType.APPLICATION_NDJSON).build();
+    }
+
+    private static ServerWebExchange createExchange(MockServerHttpRequest request, ClientResponse response) {
+        ServerWebExchange exchange = MockServerWebExchange.from(request).mutate().response(response).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+
+    /**
+     * @param recording whether the produced buffers are kept, to be compared with the consumed ones.
+     * @return a body of NDJSON lines, one per pooled buffer.
+     */
+    private Flux<DataBuffer> createBody(int count, boolean recording) {
+        this.recording = recording;
+        return Flux
+            .range(0, count)
+            .map(i -> {
+                ByteBuf buffer = allocator.directBuffer(BUFFER_SIZE, BUFFER_SIZE);
+                buffer.writeCharSequence("{\"line\":" + i + "}\n", StandardCharsets.UTF_8);
+                buffer.writerIndex(BUFFER_SIZE);
+                DataBuffer dataBuffer = bufferFactory.wrap(buffer);
+                if (recording) {
+                    produced.add(dataBuffer);
+                }
+                maxOutstanding.accumulateAndGet(producedCount.incrementAndGet() - releasedCount.get(), Math::max);
+                return dataBuffer;
+            });
+    }
+
+    private void consume(DataBuffer buffer) {
+        if (recording) {
+            consumed.add(buffer);
+        }
+        DataBufferUtils.release(buffer);
+        releasedCount.incrementAndGet();
+    }
+
+    private void assertReleased() {
+        assertThat(releasedCount.get()).isEqualTo(producedCount.get());
+        for (DataBuffer buffer : produced) {
+            assertThat(((NettyDataBuffer) buffer).getNativeBuffer().refCnt()).isZero();
+        }
+        assertThat(allocator.metric().directArenas().stream().mapToLong(PoolArenaMetric::numActiveAllocations).sum()).isZero();
+    }
+
+    private static long getHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * The response of a client, which reads the body as it is written, with the given demand.
+     */
+    private final class ClientResponse extends AbstractServerHttpResponse {
+
+        private final long initialDemand;
+
+        private BaseSubscriber<DataBuffer> subscriber;
+
+        ClientResponse(long initialDemand) {
+            super(bufferFactory);
+            this.initialDemand = initialDemand;
+        }
+
+        void requestAll() {
+            subscriber.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return read(Flux.from(body));
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return read(Flux.from(body).concatMap(Flux::from, 1));
+        }
+
+        private Mono<Void> read(Flux<? extends DataBuffer> body) {
+            return Mono.create(sink -> {
+                subscriber =
+                    new BaseSubscriber<>() {
+                        @Override
+                        protected void hookOnSubscribe(Subscription subscription) {
+                            request(initialDemand);
+                        }
+
+                        @Override
+                        protected void hookOnNext(DataBuffer buffer) {
+                            consume(buffer);
+                        }
+
+                        @Override
+                        protected void hookOnComplete() {
+                            sink.success();
+                        }
+
+                        @Override
+                        protected void hookOnError(Throwable throwable) {
+                            sink.error(throwable);
+                        }
+                    };
+                body.subscribe(subscriber);
+            });
+        }
+
+        @Override
+        protected void applyStatusCode() {}
+
+        @Override
+        protected void applyHeaders() {}
+
+        @Override
+        protected void applyCookies() {}
+    }
+}
@@ -0,0 +1,176 @@
+package com.invertimostuyyo.stockanalysis.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invertimostuyyo.stockanalysis.IntegrationTest;
+import com.invertimostuyyo.stockanalysis.config.ApplicationProperties;
+import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.repository.EntityManager;
+import com.invertimostuyyo.stockanalysis.repository.StockRepository;
+import com.invertimostuyyo.stockanalysis.web.rest.vm.BatchRequestVM;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link BatchResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_TIMEOUT)
+@WithMockUser
+class BatchResourceIT {
+
+    private static final String BATCH_API_URL = "/api/batch";
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void initTest() {
+        StockResourceIT.deleteEntities(em);
+        stock = stockRepository.save(StockResourceIT.createEntity(em)).block();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        StockResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void runBatchWithStatusPerRequest() {
+        List<BatchRequestVM> requests = List.of(
+            createRequest("stock", "GET", "/api/stocks/" + stock.getId()),
+            createRequest("missing", "GET", "/api/stocks/" + Long.MAX_VALUE),
+            createRequest("relative", "GET", "api/stocks"),
+            createNestedRequest("nested", BATCH_API_URL),
+            createNestedRequest("nestedWithTrailingSlash", BATCH_API_URL + "/"),
+            createNestedRequest("nestedWithMatrixVariable", BATCH_API_URL + ";x"),
+            createRequest("unknown", "FETCH", "/api/stocks")
+        );
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(requests)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(7)
+            .jsonPath("$[0].id")
+            .isEqualTo("stock")
+            .jsonPath("$[0].status")
+            .isEqualTo(200)
+            .jsonPath("$[0].headers['Content-Type'][0]")
+            .isEqualTo(MediaType.APPLICATION_JSON_VALUE)
+            .jsonPath("$[0].body.name")
+            .value(is(stock.getName()))
+            .jsonPath("$[1].status")
+            .isEqualTo(404)
+            .jsonPath("$[2].status")
+            .isEqualTo(400)
+            .jsonPath("$[3].status")
+            .isEqualTo(400)
+            .jsonPath("$[4].status")
+            .isEqualTo(400)
+            .jsonPath("$[5].status")
+            .isEqualTo(400)
+            .jsonPath("$[6].status")
+            .isEqualTo(400);
+    }
+
+    @Test
+    void runBatchWithBody() {
+        BatchRequestVM create = createRequest("create", "POST", "/api/stocks");
+        create.setBody(objectMapper.valueToTree(StockResourceIT.createUpdatedEntity(em)));
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(create))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[0].status")
+            .isEqualTo(201)
+            .jsonPath("$[0].headers.Location[0]")
+            .value(location -> assertThat((String) location).startsWith("/api/stocks/"));
+
+        assertThat(stockRepository.findAll().collectList().block()).hasSize(2);
+    }
+
+    @Test
+    void runBatchWithTheSecurityOfEachRequest() {
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(createRequest("users", "GET", "/api/admin/users"), createRequest("stocks", "GET", "/api/stocks")))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[0].status")
+            .isEqualTo(403)
+            .jsonPath("$[1].status")
+            .isEqualTo(200);
+    }
+
+    @Test
+    void runBatchWithTooManyRequests() {
+        List<BatchRequestVM> requests = new ArrayList<>();
+        for (int i = 0; i <= applicationProperties.getBatchApi().getMaxRequests(); i++) {
+            requests.add(createRequest(String.valueOf(i), "GET", "/api/stocks/" + stock.getId()));
+        }
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(requests)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    private BatchRequestVM createNestedRequest(String id, String path) {
+        BatchRequestVM request = createRequest(id, "POST", path);
+        request.setBody(objectMapper.valueToTree(List.of(createRequest("stock", "GET", "/api/stocks/" + stock.getId()))));
+        return request;
+    }
+
+    private static BatchRequestVM createRequest(String id, String method, String path) {
+        BatchRequestVM request = new BatchRequestVM();
+        request.setId(id);
+        request.setMethod(method);
+        request.setPath(path);
+        return request;
+    }
+}
@@ -1,12 +1,18 @@
 package com.invertimostuyyo.stockanalysis.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 
 import com.invertimostuyyo.stockanalysis.IntegrationTest;
+import com.invertimostuyyo.stockanalysis.domain.Analysis;
+import com.invertimostuyyo.stockanalysis.domain.Indicator;
 import com.invertimostuyyo.stockanalysis.domain.Stock;
+import com.invertimostuyyo.stockanalysis.repository.AnalysisRepository;
 import com.invertimostuyyo.stockanalysis.repository.EntityManager;
+import com.invertimostuyyo.stockanalysis.repository.IndicatorRepository;
 import com.invertimostuyyo.stockanalysis.repository.StockRepository;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -19,6 +25,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -64,6 +71,12 @@ class StockResourceIT {
     @Autowired
     private StockRepository stockRepository;
 
+    @Autowired
+    private AnalysisRepository analysisRepository;
+
+    @Autowired
+    private IndicatorRepository indicatorRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -120,6 +133,8 @@ class StockResourceIT {
 
     @AfterEach
     public void cleanup() {
+        IndicatorResourceIT.deleteEntities(em);
+        AnalysisResourceIT.deleteEntities(em);
         deleteEntities(em);
     }
 
@@ -178,6 +193,100 @@ class StockResourceIT {
         assertThat(stockList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createStockBatch() throws Exception {
+        int databaseSizeBeforeCreate = stockRepository.findAll().collectList().block().size();
+        Stock invalid = createEntity(em).name(null);
+        Stock withId = createEntity(em);
+        withId.setId(1L);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(List.of(stock, invalid, withId, createUpdatedEntity(em))))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.created")
+            .isEqualTo(2)
+            .jsonPath("$.updated")
+            .isEqualTo(0)
+            .jsonPath("$.failed")
+            .isEqualTo(2)
+            .jsonPath("$.failures.[*].index")
+            .value(contains(1, 2))
+            .jsonPath("$.failures.[*].status")
+            .value(contains("FAILED", "FAILED"))
+            .jsonPath("$.failures.[0].error")
+            .value(containsString("name"));
+
+        List<Stock> stockList = stockRepository.findAll().collectList().block();
+        assertThat(stockList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(stockList).extracting(Stock::getName).contains(DEFAULT_NAME, UPDATED_NAME);
+    }
+
+    @Test
+    void createStockBatchAsStream() throws Exception {
+        int databaseSizeBeforeCreate = stockRepository.findAll().collectList().block().size();
+        String body =
+            new String(TestUtil.convertObjectToJsonBytes(stock)) +
+            "\n" +
+            new String(TestUtil.convertObjectToJsonBytes(createUpdatedEntity(em)));
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/batch")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.created")
+            .isEqualTo(2)
+            .jsonPath("$.failures")
+            .isEmpty();
+
+        assertThat(stockRepository.findAll().collectList().block()).hasSize(databaseSizeBeforeCreate + 2);
+    }
+
+    @Test
+    void upsertStockBatch() throws Exception {
+        stockRepository.save(stock).block();
+        int databaseSizeBeforeUpsert = stockRepository.findAll().collectList().block().size();
+        Stock updatedStock = createUpdatedEntity(em);
+        updatedStock.setId(stock.getId());
+        Stock missingStock = createUpdatedEntity(em);
+        missingStock.setId(stock.getId() + 1000);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/batch?upsert=true")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(List.of(updatedStock, createEntity(em), missingStock)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.created")
+            .isEqualTo(2)
+            .jsonPath("$.updated")
+            .isEqualTo(1)
+            .jsonPath("$.failures")
+            .isEmpty();
+
+        assertThat(stockRepository.findAll().collectList().block()).hasSize(databaseSizeBeforeUpsert + 2);
+        Stock testStock = stockRepository.findById(stock.getId()).block();
+        assertThat(testStock.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testStock.getEmployees()).isEqualTo(UPDATED_EMPLOYEES);
+        assertThat(stockRepository.findById(missingStock.getId()).block()).isNotNull();
+    }
+
     @Test
     void checkNameIsRequired() throws Exception {
         int databaseSizeBeforeTest = stockRepository.findAll().collectList().block().size();
@@ -289,6 +398,189 @@ class StockResourceIT {
             .value(hasItem(DEFAULT_EMPLOYEES));
     }
 
+    @Test
+    void getStocksByKeyset() {
+        // Initialize the database
+        Stock first = stockRepository.save(createEntity(em).name("A")).block();
+        Stock second = stockRepository.save(createEntity(em).name("B")).block();
+        Stock third = stockRepository.save(createEntity(em).name("C")).block();
+
+        // Get the first page, which links to the next one
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&sort=name,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.LINK, containsString("after=" + second.getId()))
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(first.getId().intValue(), second.getId().intValue()));
+
+        // Get the last page, after the cursor
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&sort=name,asc&after=" + second.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(third.getId().intValue()));
+    }
+
+    @Test
+    void getAllStocksBySectorIsInShouldWork() {
+        // Initialize the database
+        stockRepository.save(stock).block();
+
+        // Get all the stockList where sector in DEFAULT_SECTOR or UPDATED_SECTOR
+        defaultStockShouldBeFound("sector.in=" + DEFAULT_SECTOR + "," + UPDATED_SECTOR);
+
+        // Get all the stockList where sector equals to UPDATED_SECTOR
+        defaultStockShouldNotBeFound("sector.in=" + UPDATED_SECTOR);
+    }
+
+    @Test
+    void getAllStocksByCapitalizationIsGreaterThanOrEqualToSomething() {
+        // Initialize the database
+        stockRepository.save(stock).block();
+
+        // Get all the stockList where capitalization is greater than or equal to DEFAULT_CAPITALIZATION
+        defaultStockShouldBeFound("capitalization.greaterThanOrEqual=" + DEFAULT_CAPITALIZATION);
+
+        // Get all the stockList where capitalization is greater than or equal to UPDATED_CAPITALIZATION
+        defaultStockShouldNotBeFound("capitalization.greaterThanOrEqual=" + UPDATED_CAPITALIZATION);
+    }
+
+    @Test
+    void getAllStocksByFundationIsLessThanSomething() {
+        // Initialize the database
+        stockRepository.save(stock).block();
+
+        // Get all the stockList where fundation is less than UPDATED_FUNDATION
+        defaultStockShouldBeFound("fundation.lessThan=" + UPDATED_FUNDATION);
+
+        // Get all the stockList where fundation is less than DEFAULT_FUNDATION
+        defaultStockShouldNotBeFound("fundation.lessThan=" + DEFAULT_FUNDATION);
+    }
+
+    @Test
+    void getAllStocksByNameContainsSomething() {
+        // Initialize the database
+        stockRepository.save(stock).block();
+
+        // Get all the stockList where name contains DEFAULT_NAME
+        defaultStockShouldBeFound("name.contains=" + DEFAULT_NAME);
+
+        // Get all the stockList where name contains UPDATED_NAME
+        defaultStockShouldNotBeFound("name.contains=" + UPDATED_NAME);
+    }
+
+    @Test
+    void getStocksByKeysetAndCriteria() {
+        // Initialize the database
+        Stock first = stockRepository.save(createEntity(em).name("A")).block();
+        stockRepository.save(createEntity(em).name("B").sector(UPDATED_SECTOR)).block();
+        Stock third = stockRepository.save(createEntity(em).name("C")).block();
+
+        // Get the only page of the stocks of the default sector
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&sort=name,asc&sector.equals=" + DEFAULT_SECTOR)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(first.getId().intValue(), third.getId().intValue()));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultStockShouldBeFound(String filter) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(stock.getId().intValue()))
+            .jsonPath("$.[*].sector")
+            .value(hasItem(DEFAULT_SECTOR));
+
+        // Check, that the count call also returns 1
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/count?sort=id,desc&" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$")
+            .isEqualTo(1);
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultStockShouldNotBeFound(String filter) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$")
+            .isArray()
+            .jsonPath("$")
+            .isEmpty();
+
+        // Check, that the count call also returns 0
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/count?sort=id,desc&" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$")
+            .isEqualTo(0);
+    }
+
+    @Test
+    void getStocksByKeysetWithUnsupportedSort() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&sort=description,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getStock() {
         // Initialize the database
@@ -325,6 +617,69 @@ class StockResourceIT {
             .value(is(DEFAULT_EMPLOYEES));
     }
 
+    @Test
+    void getStockTree() {
+        // Initialize the database
+        stockRepository.save(stock).block();
+        Analysis oldest = analysisRepository.save(AnalysisResourceIT.createEntity(em).date(LocalDate.ofEpochDay(1L)).stock(stock)).block();
+        Analysis latest = analysisRepository.save(AnalysisResourceIT.createEntity(em).date(LocalDate.ofEpochDay(3L)).stock(stock)).block();
+        Analysis middle = analysisRepository.save(AnalysisResourceIT.createEntity(em).date(LocalDate.ofEpochDay(2L)).stock(stock)).block();
+        Indicator indicator = indicatorRepository.save(IndicatorResourceIT.createEntity(em).analysis(latest)).block();
+        indicatorRepository.save(IndicatorResourceIT.createEntity(em).analysis(oldest)).block();
+
+        // Get the tree of the stock, with its two latest analyses
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/tree?analyses=2", stock.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(stock.getId().intValue()))
+            .jsonPath("$.name")
+            .value(is(DEFAULT_NAME))
+            .jsonPath("$.analyses[*].id")
+            .value(contains(latest.getId().intValue(), middle.getId().intValue()))
+            .jsonPath("$.analyses[0].indicators[*].id")
+            .value(contains(indicator.getId().intValue()))
+            .jsonPath("$.analyses[1].indicators")
+            .isEmpty();
+    }
+
+    @Test
+    void getStockTreeWithoutAnalyses() {
+        // Initialize the database
+        stockRepository.save(stock).block();
+
+        // Get the tree of the stock
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/tree", stock.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(stock.getId().intValue()))
+            .jsonPath("$.analyses")
+            .isEmpty();
+    }
+
+    @Test
+    void getNonExistingStockTree() {
+        // Get the tree of the stock
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/tree", Long.MAX_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
     @Test
     void getNonExistingStock() {
         // Get the stock
@@ -379,6 +734,47 @@ class StockResourceIT {
         assertThat(testStock.getEmployees()).isEqualTo(UPDATED_EMPLOYEES);
     }
 
+    @Test
+    void getStockAfterPut() throws Exception {
+        // Initialize the database
+        stockRepository.save(stock).block();
+
+        // Cache the stock
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, stock.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.name")
+            .isEqualTo(DEFAULT_NAME);
+
+        // Update the stock
+        Stock updatedStock = stockRepository.findById(stock.getId()).block();
+        updatedStock.name(UPDATED_NAME);
+
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, updatedStock.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedStock))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // The cached stock is evicted
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, stock.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.name")
+            .isEqualTo(UPDATED_NAME);
+    }
+
     @Test
     void putNonExistingStock() throws Exception {
         int databaseSizeBeforeUpdate = stockRepository.findAll().collectList().block().size();
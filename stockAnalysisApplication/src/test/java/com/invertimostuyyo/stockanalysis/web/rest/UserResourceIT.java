@@ -284,6 +284,39 @@ class UserResourceIT {
         assertThat(foundUser.getAuthorities()).containsExactly(AuthoritiesConstants.USER);
     }
 
+    @Test
+    void getAllUsersSortedAndPaginated() {
+        // Initialize the database with three users, in the reverse order of their logins
+        for (String login : List.of("ccc", "bbb", "aaa")) {
+            User other = createEntity(em);
+            other.setLogin(DEFAULT_LOGIN + login);
+            userRepository.save(other).block();
+            userRepository.saveUserAuthority(other.getId(), AuthoritiesConstants.USER).block();
+            if (login.equals("bbb")) {
+                userRepository.saveUserAuthority(other.getId(), AuthoritiesConstants.ADMIN).block();
+            }
+        }
+
+        // Get the second page of a single user
+        List<AdminUserDTO> foundUsers = webTestClient
+            .get()
+            .uri("/api/admin/users?sort=login,asc&page=1&size=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "3")
+            .returnResult(AdminUserDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(foundUsers).hasSize(1);
+        assertThat(foundUsers.get(0).getLogin()).isEqualTo(DEFAULT_LOGIN + "bbb");
+        assertThat(foundUsers.get(0).getAuthorities()).containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+    }
+
     @Test
     void getUser() {
         // Initialize the database